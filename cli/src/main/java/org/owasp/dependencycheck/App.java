@@ -21,12 +21,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.cli.ParseException;
 import org.apache.tools.ant.DirectoryScanner;
+import org.owasp.dependencycheck.data.cpe.IndexException;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.dependency.Vulnerability;
@@ -169,6 +171,53 @@ public class App {
             } finally {
                 settings.cleanup();
             }
+        } else if (cli.isDaemon()) {
+            try {
+                populateSettings(cli);
+            } catch (InvalidSettingException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+                LOGGER.debug(ERROR_LOADING_PROPERTIES_FILE, ex);
+                exitCode = -4;
+                return exitCode;
+            }
+            try (ScanDaemon daemon = new ScanDaemon(this, settings, cli.getDaemonPort(), cli.getDaemonReportDirectory())) {
+                daemon.start();
+                daemon.awaitTermination();
+            } catch (UpdateException | DatabaseException | IndexException | IOException ex) {
+                LOGGER.error(ex.getMessage());
+                LOGGER.debug("daemon exception", ex);
+                exitCode = -15;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                settings.cleanup();
+            }
+        } else if (cli.isRunScan() && cli.isUseDaemon()) {
+            final String[] scanFiles = cli.getScanFiles();
+            if (scanFiles != null) {
+                try {
+                    populateSettings(cli);
+                } catch (InvalidSettingException ex) {
+                    LOGGER.error(ex.getMessage(), ex);
+                    LOGGER.debug(ERROR_LOADING_PROPERTIES_FILE, ex);
+                    exitCode = -4;
+                    return exitCode;
+                }
+                try {
+                    final ScanClient client = new ScanClient(cli.getDaemonPort(),
+                            ScanDaemon.getTokenFile(settings, cli.getDaemonPort()));
+                    exitCode = client.submit(ensureCanonicalPath(cli.getReportDirectory()), cli.getReportFormat(),
+                            cli.getProjectName(), getPaths(scanFiles).toArray(new String[0]), cli.getExcludeList(), cli.getSymLinkDepth(),
+                            cli.getFailOnCVSS());
+                } catch (IOException ex) {
+                    LOGGER.error("Unable to submit the scan to the dependency-check daemon on port {}: {}",
+                            cli.getDaemonPort(), ex.getMessage());
+                    LOGGER.debug("daemon exception", ex);
+                    exitCode = -16;
+                }
+            } else {
+                LOGGER.error("No scan files configured");
+            }
         } else if (cli.isRunScan()) {
             try {
                 populateSettings(cli);
@@ -181,32 +230,11 @@ public class App {
             try {
                 final String[] scanFiles = cli.getScanFiles();
                 if (scanFiles != null) {
-                    exitCode = runScan(cli.getReportDirectory(), cli.getReportFormat(), cli.getProjectName(), scanFiles,
+                    exitCode = executeScan(cli.getReportDirectory(), cli.getReportFormat(), cli.getProjectName(), scanFiles,
                     cli.getExcludeList(), cli.getSymLinkDepth(), cli.getFailOnCVSS());
                 } else {
                     LOGGER.error("No scan files configured");
                 }
-            } catch (DatabaseException ex) {
-                LOGGER.error(ex.getMessage());
-                LOGGER.debug("database exception", ex);
-                exitCode = -11;
-            } catch (ReportException ex) {
-                LOGGER.error(ex.getMessage());
-                LOGGER.debug("report exception", ex);
-                exitCode = -12;
-            } catch (ExceptionCollection ex) {
-                if (ex.isFatal()) {
-                    exitCode = -13;
-                    LOGGER.error("One or more fatal errors occurred");
-                } else {
-                    exitCode = -14;
-                }
-                for (Throwable e : ex.getExceptions()) {
-                    if (e.getMessage() != null) {
-                        LOGGER.error(e.getMessage());
-                        LOGGER.debug("unexpected error", e);
-                    }
-                }
             } finally {
                 settings.cleanup();
             }
@@ -216,10 +244,83 @@ public class App {
         return exitCode;
     }
 
+    /**
+     * Scans the specified directories and writes the dependency reports to the
+     * reportDirectory; any exceptions that occur are logged and translated
+     * into the exit code.
+     *
+     * @param reportDirectory the path to the directory where the reports will
+     * be written
+     * @param outputFormats String[] of output formats of the report
+     * @param applicationName the application name for the report
+     * @param files the files/directories to scan
+     * @param excludes the patterns for files/directories to exclude
+     * @param symLinkDepth the depth that symbolic links will be followed
+     * @param cvssFailScore the score to fail on if a vulnerability is found
+     * @return the exit code
+     */
+    int executeScan(String reportDirectory, String[] outputFormats, String applicationName, String[] files,
+            String[] excludes, int symLinkDepth, float cvssFailScore) {
+        try (Engine engine = new Engine(settings)) {
+            return executeScan(engine, reportDirectory, outputFormats, applicationName, files, excludes, symLinkDepth, cvssFailScore);
+        }
+    }
+
+    /**
+     * Scans the specified directories using the given engine and writes the
+     * dependency reports to the reportDirectory; any exceptions that occur are
+     * logged and translated into the exit code. The scanned dependencies are
+     * removed from the engine afterwards so that the engine, along with its
+     * analyzers and open database, can be used for the next scan.
+     *
+     * @param engine the engine used to execute the scan
+     * @param reportDirectory the path to the directory where the reports will
+     * be written
+     * @param outputFormats String[] of output formats of the report
+     * @param applicationName the application name for the report
+     * @param files the files/directories to scan
+     * @param excludes the patterns for files/directories to exclude
+     * @param symLinkDepth the depth that symbolic links will be followed
+     * @param cvssFailScore the score to fail on if a vulnerability is found
+     * @return the exit code
+     */
+    int executeScan(Engine engine, String reportDirectory, String[] outputFormats, String applicationName, String[] files,
+            String[] excludes, int symLinkDepth, float cvssFailScore) {
+        int exitCode;
+        try {
+            exitCode = runScan(engine, reportDirectory, outputFormats, applicationName, files, excludes, symLinkDepth, cvssFailScore);
+        } catch (DatabaseException ex) {
+            LOGGER.error(ex.getMessage());
+            LOGGER.debug("database exception", ex);
+            exitCode = -11;
+        } catch (ReportException ex) {
+            LOGGER.error(ex.getMessage());
+            LOGGER.debug("report exception", ex);
+            exitCode = -12;
+        } catch (ExceptionCollection ex) {
+            if (ex.isFatal()) {
+                exitCode = -13;
+                LOGGER.error("One or more fatal errors occurred");
+            } else {
+                exitCode = -14;
+            }
+            for (Throwable e : ex.getExceptions()) {
+                if (e.getMessage() != null) {
+                    LOGGER.error(e.getMessage());
+                    LOGGER.debug("unexpected error", e);
+                }
+            }
+        } finally {
+            engine.setDependencies(Collections.emptyList());
+        }
+        return exitCode;
+    }
+
     /**
      * Scans the specified directories and writes the dependency reports to the
      * reportDirectory.
      *
+     * @param engine the engine used to execute the scan
      * @param reportDirectory the path to the directory where the reports will
      * be written
      * @param outputFormats String[] of output formats of the report
@@ -236,48 +337,40 @@ public class App {
      * analysis; there may be multiple exceptions contained within the
      * collection.
      */
-    private int runScan(String reportDirectory, String[] outputFormats, String applicationName, String[] files,
+    private int runScan(Engine engine, String reportDirectory, String[] outputFormats, String applicationName, String[] files,
             String[] excludes, int symLinkDepth, float cvssFailScore) throws DatabaseException,
             ExceptionCollection, ReportException {
-        Engine engine = null;
-        try {
-            final List<String> antStylePaths = getPaths(files);
-            final Set<File> paths = scanAntStylePaths(antStylePaths, symLinkDepth, excludes);
+        final List<String> antStylePaths = getPaths(files);
+        final Set<File> paths = scanAntStylePaths(antStylePaths, symLinkDepth, excludes);
 
-            engine = new Engine(settings);
-            engine.scan(paths);
+        engine.scan(paths);
 
-            ExceptionCollection exCol = null;
-            try {
-                engine.analyzeDependencies();
-            } catch (ExceptionCollection ex) {
-                if (ex.isFatal()) {
-                    throw ex;
-                }
-                exCol = ex;
+        ExceptionCollection exCol = null;
+        try {
+            engine.analyzeDependencies();
+        } catch (ExceptionCollection ex) {
+            if (ex.isFatal()) {
+                throw ex;
             }
+            exCol = ex;
+        }
 
-            try {
-                for (String outputFormat : outputFormats) {
-                    engine.writeReports(applicationName, new File(reportDirectory), outputFormat, exCol);
-                }
-            } catch (ReportException ex) {
-                if (exCol != null) {
-                    exCol.addException(ex);
-                    throw exCol;
-                } else {
-                    throw ex;
-                }
+        try {
+            for (String outputFormat : outputFormats) {
+                engine.writeReports(applicationName, new File(reportDirectory), outputFormat, exCol);
             }
-            if (exCol != null && !exCol.getExceptions().isEmpty()) {
+        } catch (ReportException ex) {
+            if (exCol != null) {
+                exCol.addException(ex);
                 throw exCol;
+            } else {
+                throw ex;
             }
-            return determineReturnCode(engine, cvssFailScore);
-        } finally {
-            if (engine != null) {
-                engine.close();
-            }
         }
+        if (exCol != null && !exCol.getExceptions().isEmpty()) {
+            throw exCol;
+        }
+        return determineReturnCode(engine, cvssFailScore);
     }
 
     /**
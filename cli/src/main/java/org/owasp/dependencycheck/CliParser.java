@@ -126,6 +126,19 @@ public final class CliParser {
                 }
             }
         }
+        if (line.hasOption(ARGUMENT.DAEMON_PORT)) {
+            try {
+                final int i = Integer.parseInt(line.getOptionValue(ARGUMENT.DAEMON_PORT));
+                if (i < 1 || i > 65535) {
+                    throw new ParseException("Invalid Setting: daemonPort must be a number between 1 and 65535.");
+                }
+            } catch (NumberFormatException ex) {
+                throw new ParseException("Invalid Setting: daemonPort must be a number between 1 and 65535.");
+            }
+        }
+        if (isDaemon() && line.hasOption(ARGUMENT.DAEMON_REPORT_DIRECTORY)) {
+            validatePathExists(line.getOptionValue(ARGUMENT.DAEMON_REPORT_DIRECTORY), ARGUMENT.DAEMON_REPORT_DIRECTORY);
+        }
         if (isRunScan()) {
             validatePathExists(getScanFiles(), ARGUMENT.SCAN);
             validatePathExists(getReportDirectory(), ARGUMENT.OUT);
@@ -479,6 +492,22 @@ public final class CliParser {
         final Option props = Option.builder(ARGUMENT.PROP_SHORT).argName("file").hasArg().longOpt(ARGUMENT.PROP)
                 .desc("A property file to load.")
                 .build();
+        final Option daemon = Option.builder().longOpt(ARGUMENT.DAEMON)
+                .desc("Runs dependency-check as a long running process that keeps the database and the CPE index loaded "
+                        + "and accepts scans submitted using the useDaemon argument; no scan will be executed.")
+                .build();
+        final Option useDaemon = Option.builder().longOpt(ARGUMENT.USE_DAEMON)
+                .desc("Submits the scan to a dependency-check daemon running on this host instead of executing it within "
+                        + "this process.")
+                .build();
+        final Option daemonPort = Option.builder().argName("port").hasArg().longOpt(ARGUMENT.DAEMON_PORT)
+                .desc("The local port the dependency-check daemon listens on. The default is " + ScanDaemon.DEFAULT_PORT + ".")
+                .build();
+        final Option daemonReportDirectory = Option.builder().argName("path").hasArg().longOpt(ARGUMENT.DAEMON_REPORT_DIRECTORY)
+                .desc("The directory the dependency-check daemon is allowed to write reports to; the reports of a scan "
+                        + "submitted to the daemon must be written within this directory. The default is the working "
+                        + "directory of the daemon.")
+                .build();
 
         options.addOption(updateOnly)
                 .addOption(cveBase)
@@ -570,6 +599,10 @@ public final class CliParser {
                 .addOption(pathToCore)
                 .addOption(purge)
                 .addOption(props)
+                .addOption(daemon)
+                .addOption(useDaemon)
+                .addOption(daemonPort)
+                .addOption(daemonReportDirectory)
                 .addOption(hintsFile);
     }
 
@@ -1359,6 +1392,54 @@ public final class CliParser {
         return line != null && line.hasOption(ARGUMENT.UPDATE_ONLY);
     }
 
+    /**
+     * Checks if the daemon flag has been set.
+     *
+     * @return <code>true</code> if the daemon flag has been set; otherwise
+     * <code>false</code>.
+     */
+    public boolean isDaemon() {
+        return line != null && line.hasOption(ARGUMENT.DAEMON);
+    }
+
+    /**
+     * Checks if the scan should be submitted to a running daemon.
+     *
+     * @return <code>true</code> if the use daemon flag has been set; otherwise
+     * <code>false</code>.
+     */
+    public boolean isUseDaemon() {
+        return line != null && line.hasOption(ARGUMENT.USE_DAEMON);
+    }
+
+    /**
+     * Returns the port the daemon listens on.
+     *
+     * @return the port the daemon listens on
+     */
+    public int getDaemonPort() {
+        if (line != null && line.hasOption(ARGUMENT.DAEMON_PORT)) {
+            try {
+                return Integer.parseInt(line.getOptionValue(ARGUMENT.DAEMON_PORT));
+            } catch (NumberFormatException ex) {
+                LOGGER.debug("Daemon port was not a number");
+            }
+        }
+        return ScanDaemon.DEFAULT_PORT;
+    }
+
+    /**
+     * Returns the directory the daemon is allowed to write reports to.
+     *
+     * @return the directory the daemon is allowed to write reports to
+     */
+    public File getDaemonReportDirectory() {
+        if (line != null && line.hasOption(ARGUMENT.DAEMON_REPORT_DIRECTORY)) {
+            return new File(line.getOptionValue(ARGUMENT.DAEMON_REPORT_DIRECTORY));
+        }
+        return new File(".");
+    }
+
     /**
      * Checks if the purge NVD flag has been set.
      *
@@ -1549,6 +1630,25 @@ public final class CliParser {
          * should be executed; no scan should be run.
          */
         public static final String PURGE_NVD = "purge";
+        /**
+         * The long CLI argument name specifying that dependency-check should
+         * run as a daemon accepting scan requests.
+         */
+        public static final String DAEMON = "daemon";
+        /**
+         * The long CLI argument name specifying that the scan should be
+         * submitted to a running daemon.
+         */
+        public static final String USE_DAEMON = "useDaemon";
+        /**
+         * The long CLI argument name specifying the port of the daemon.
+         */
+        public static final String DAEMON_PORT = "daemonPort";
+        /**
+         * The long CLI argument name specifying the directory the daemon is
+         * allowed to write reports to.
+         */
+        public static final String DAEMON_REPORT_DIRECTORY = "daemonReportDir";
         /**
          * The long CLI argument name specifying the directory to write the
          * reports to.
@@ -0,0 +1,152 @@
+/*
+ * This file is part of dependency-check-cli.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Submits scans to a {@link ScanDaemon} running on the local host.
+ *
+ * @author Jeremy Long
+ */
+class ScanClient {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanClient.class);
+    /**
+     * The timeout in milliseconds used when connecting to the daemon.
+     */
+    private static final int CONNECT_TIMEOUT = 10000;
+    /**
+     * The port the daemon listens on.
+     */
+    private final int port;
+    /**
+     * The file the daemon wrote its token to.
+     */
+    private final File tokenFile;
+
+    /**
+     * Constructs a new scan client.
+     *
+     * @param port the port the daemon listens on
+     * @param tokenFile the file the daemon wrote its token to
+     */
+    ScanClient(int port, File tokenFile) {
+        this.port = port;
+        this.tokenFile = tokenFile;
+    }
+
+    /**
+     * Submits a scan to the daemon and waits for it to complete.
+     *
+     * @param reportDirectory the absolute path to the directory where the
+     * reports will be written
+     * @param outputFormats the output formats of the report
+     * @param applicationName the application name for the report
+     * @param files the absolute paths of the files/directories to scan
+     * @param excludes the patterns for files/directories to exclude
+     * @param symLinkDepth the depth that symbolic links will be followed
+     * @param cvssFailScore the score to fail on if a vulnerability is found
+     * @return the exit code of the scan
+     * @throws IOException thrown if the scan could not be submitted
+     */
+    public int submit(String reportDirectory, String[] outputFormats, String applicationName, String[] files,
+            String[] excludes, int symLinkDepth, float cvssFailScore) throws IOException {
+        final JsonObject request = new JsonObject();
+        request.add("scan", toArray(files));
+        request.add("exclude", toArray(excludes));
+        request.addProperty("symLink", symLinkDepth);
+        request.addProperty("out", reportDirectory);
+        request.add("format", toArray(outputFormats));
+        request.addProperty("project", applicationName);
+        request.addProperty("failOnCVSS", cvssFailScore);
+
+        final String token;
+        try {
+            token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException ex) {
+            throw new IOException("Unable to read the daemon token from " + tokenFile, ex);
+        }
+        final URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, ScanDaemon.SCAN_PATH);
+        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setConnectTimeout(CONNECT_TIMEOUT);
+            //scans can take a considerable amount of time
+            conn.setReadTimeout(0);
+            conn.setDoOutput(true);
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", ScanDaemon.CONTENT_TYPE + "; charset=UTF-8");
+            conn.setRequestProperty("Authorization", "Bearer " + token);
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            final int status = conn.getResponseCode();
+            final InputStream body = status == HttpURLConnection.HTTP_OK ? conn.getInputStream() : conn.getErrorStream();
+            final JsonObject response;
+            try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                response = new JsonParser().parse(reader).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException ex) {
+                throw new IOException("Invalid response from the daemon (HTTP " + status + ")", ex);
+            }
+            if (status != HttpURLConnection.HTTP_OK || !response.has("exitCode")) {
+                final String error = response.has("error") ? response.get("error").getAsString() : "HTTP " + status;
+                throw new IOException(error);
+            }
+            final int exitCode = response.get("exitCode").getAsInt();
+            LOGGER.debug("Daemon exit code: {}", exitCode);
+            return exitCode;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Converts the values to a JSON array.
+     *
+     * @param values the values; may be <code>null</code>
+     * @return the JSON array
+     */
+    private static JsonArray toArray(String[] values) {
+        final JsonArray array = new JsonArray();
+        if (values != null) {
+            for (String value : values) {
+                array.add(value);
+            }
+        }
+        return array;
+    }
+}
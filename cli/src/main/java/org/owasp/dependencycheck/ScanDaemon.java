@@ -0,0 +1,615 @@
+/*
+ * This file is part of dependency-check-cli.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.owasp.dependencycheck.data.cpe.CpeMemoryIndex;
+import org.owasp.dependencycheck.data.cpe.IndexException;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long running process that keeps the scan engine loaded between scans.
+ * Scans are submitted by the {@link ScanClient} to an HTTP endpoint bound to
+ * the loopback interface; every scan is executed by the same {@link Engine},
+ * which keeps its analyzers, the suppression and hint rules, the database
+ * connection, and the CPE index loaded. The engine uses the settings the
+ * daemon was started with, so only the per-scan arguments (the paths,
+ * exclusions, report location and formats, project name, and failure score)
+ * are taken from the request.
+ * <p>
+ * Scans and the periodic check for updates are executed one at a time. The
+ * endpoint accepts a JSON object (<code>application/json</code>) with the
+ * members <code>scan</code>, <code>exclude</code>, <code>symLink</code>,
+ * <code>out</code>, <code>format</code>, <code>project</code>, and
+ * <code>failOnCVSS</code>, and responds with a JSON object containing the
+ * <code>exitCode</code> of the scan. The reports are written by the daemon to
+ * the requested location, which must be within the configured report
+ * directory.</p>
+ * <p>
+ * Each request must carry the token the daemon writes to a file in the data
+ * directory that only the user running the daemon can read (see
+ * {@link #getTokenFile(Settings, int)}) as a bearer token in the
+ * <code>Authorization</code> header.</p>
+ *
+ * @author Jeremy Long
+ */
+class ScanDaemon implements AutoCloseable {
+
+    /**
+     * The default port the daemon listens on.
+     */
+    public static final int DEFAULT_PORT = 7851;
+    /**
+     * The path of the scan endpoint.
+     */
+    public static final String SCAN_PATH = "/scan";
+    /**
+     * The media type of the scan requests.
+     */
+    public static final String CONTENT_TYPE = "application/json";
+    /**
+     * The number of random bytes in the token.
+     */
+    private static final int TOKEN_LENGTH = 32;
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanDaemon.class);
+    /**
+     * The application used to execute the scans.
+     */
+    private final App app;
+    /**
+     * The configured settings.
+     */
+    private final Settings settings;
+    /**
+     * The port to listen on.
+     */
+    private final int port;
+    /**
+     * The directory the reports may be written to.
+     */
+    private final File reportDirectory;
+    /**
+     * Released once the daemon has been closed.
+     */
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    /**
+     * Whether or not the data should be checked for updates.
+     */
+    private boolean autoUpdate;
+    /**
+     * The configured H2 data directory; restored before the database is
+     * updated or opened as opening a read-only copy of the database changes
+     * it.
+     */
+    private String h2DataDirectory;
+    /**
+     * The configured database connection string; restored before the
+     * database is updated or opened.
+     */
+    private String connectionString;
+    /**
+     * The engine executing the scans; it holds the database open between
+     * updates and the CPE index is built from its database. Replaced when the
+     * data is refreshed.
+     */
+    private Engine databaseEngine;
+    /**
+     * The token the scan requests must carry.
+     */
+    private byte[] token;
+    /**
+     * The file the token is written to.
+     */
+    private File tokenFile;
+    /**
+     * Whether or not the daemon holds a reference to the CPE index.
+     */
+    private boolean indexOpen;
+    /**
+     * The executor used to run the scans and the update checks.
+     */
+    private ScheduledExecutorService executor;
+    /**
+     * The HTTP server accepting the scans.
+     */
+    private HttpServer server;
+    /**
+     * The shutdown hook that closes the daemon.
+     */
+    private Thread shutdownHook;
+
+    /**
+     * Constructs a new scan daemon.
+     *
+     * @param app the application used to execute the scans
+     * @param settings the configured settings
+     * @param port the port to listen on
+     * @param reportDirectory the directory the reports may be written to
+     */
+    ScanDaemon(App app, Settings settings, int port, File reportDirectory) {
+        this.app = app;
+        this.settings = settings;
+        this.port = port;
+        this.reportDirectory = reportDirectory;
+    }
+
+    /**
+     * Returns the file the daemon listening on the given port writes its token
+     * to.
+     *
+     * @param settings the configured settings
+     * @param port the port the daemon listens on
+     * @return the token file
+     * @throws IOException thrown if the data directory could not be determined
+     */
+    static File getTokenFile(Settings settings, int port) throws IOException {
+        return new File(settings.getDataDirectory(), "daemon-" + port + ".token");
+    }
+
+    /**
+     * Updates the data if configured to do so, loads the CPE index, and starts
+     * accepting scans.
+     *
+     * @throws UpdateException thrown if the data could not be updated
+     * @throws DatabaseException thrown if the database could not be opened
+     * @throws IndexException thrown if the CPE index could not be built
+     * @throws IOException thrown if the HTTP server could not be started
+     */
+    public synchronized void start() throws UpdateException, DatabaseException, IndexException, IOException {
+        autoUpdate = settings.getBoolean(Settings.KEYS.AUTO_UPDATE, true);
+        h2DataDirectory = settings.getString(Settings.KEYS.H2_DATA_DIRECTORY);
+        connectionString = settings.getString(Settings.KEYS.DB_CONNECTION_STRING);
+        //the scans must not check for updates; the data is refreshed between scans
+        settings.setBoolean(Settings.KEYS.AUTO_UPDATE, false);
+        databaseEngine = openDatabase(autoUpdate);
+        final CveDB database = databaseEngine.getDatabase();
+        if (!database.dataExists()) {
+            throw new DatabaseException("No documents exist in the database; run dependency-check with the updateonly argument");
+        }
+        CpeMemoryIndex.getInstance().open(database, settings);
+        indexOpen = true;
+        startServer();
+        if (autoUpdate) {
+            final long hours = Math.max(1, settings.getInt(Settings.KEYS.CVE_CHECK_VALID_FOR_HOURS, 4));
+            executor.scheduleWithFixedDelay(this::refresh, hours, hours, TimeUnit.HOURS);
+        }
+    }
+
+    /**
+     * Writes the token file and starts accepting scans.
+     *
+     * @throws IOException thrown if the HTTP server could not be started or
+     * the token could not be written
+     */
+    synchronized void startServer() throws IOException {
+        executor = Executors.newSingleThreadScheduledExecutor((r) -> new Thread(r, "dependency-check-daemon"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(SCAN_PATH, this::handleScan);
+        server.setExecutor(executor);
+
+        final byte[] random = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(random);
+        final String value = Checksum.getHex(random);
+        token = value.getBytes(StandardCharsets.UTF_8);
+        tokenFile = getTokenFile(settings, server.getAddress().getPort());
+        writeToken(tokenFile, value);
+        server.start();
+
+        shutdownHook = new Thread(this::close, "dependency-check-daemon-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        LOGGER.info("Dependency-Check daemon listening on {}:{}", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    /**
+     * Writes the token to a file that only the current user can read.
+     *
+     * @param file the token file
+     * @param value the token
+     * @throws IOException thrown if the token could not be written
+     */
+    private static void writeToken(File file, String value) throws IOException {
+        final Path path = file.toPath();
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            if (!(file.setReadable(false, false) && file.setReadable(true, true)
+                    && file.setWritable(false, false) && file.setWritable(true, true))) {
+                LOGGER.warn("Unable to restrict the permissions of the daemon token file {}", file);
+            }
+        }
+        Files.write(path, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the port the daemon is listening on.
+     *
+     * @return the port the daemon is listening on
+     */
+    public synchronized int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    /**
+     * Waits until the daemon has been closed.
+     *
+     * @throws InterruptedException thrown if the thread is interrupted while
+     * waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    /**
+     * Stops accepting scans and releases the database connection and the CPE
+     * index.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (tokenFile != null) {
+            if (!tokenFile.delete()) {
+                LOGGER.debug("Unable to delete the daemon token file {}", tokenFile);
+            }
+            tokenFile = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.warn("The scan in progress did not complete before the daemon was stopped");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        if (indexOpen) {
+            CpeMemoryIndex.getInstance().close();
+            indexOpen = false;
+        }
+        closeDatabase();
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ex) {
+                LOGGER.trace("", ex);
+            }
+        }
+        shutdownHook = null;
+        terminated.countDown();
+    }
+
+    /**
+     * Checks for updates and re-opens the database; the CPE index is rebuilt
+     * if the data changed. The update may close the database (e.g. the H2
+     * defrag) and may publish a new generation or snapshot of the data, so the
+     * database is always opened again afterwards. This is executed on the same
+     * thread as the scans so that the index is never rebuilt while a scan is
+     * in progress.
+     */
+    private void refresh() {
+        try {
+            final Properties before = getDataProperties();
+            closeDatabase();
+            try {
+                databaseEngine = openDatabase(true);
+            } catch (UpdateException ex) {
+                LOGGER.error("Unable to update the dependency-check data: {}", ex.getMessage());
+                LOGGER.debug("", ex);
+                databaseEngine = openDatabase(false);
+            }
+            if (!before.equals(getDataProperties())) {
+                LOGGER.info("Rebuilding the CPE index");
+                final CpeMemoryIndex index = CpeMemoryIndex.getInstance();
+                index.close();
+                indexOpen = false;
+                index.open(databaseEngine.getDatabase(), settings);
+                indexOpen = true;
+            }
+        } catch (UpdateException | DatabaseException | IndexException ex) {
+            LOGGER.error("Unable to re-open the dependency-check data: {}", ex.getMessage());
+            LOGGER.debug("", ex);
+        }
+    }
+
+    /**
+     * Creates the engine executing the scans and opens its database the same
+     * way the engine opens it for a scan (using the published generation or
+     * vulnerability snapshot when configured), optionally checking for and
+     * applying updates first.
+     *
+     * @param update whether or not to check for updates
+     * @return the engine holding the database open
+     * @throws UpdateException thrown if the data could not be updated
+     * @throws DatabaseException thrown if the database could not be opened
+     */
+    private Engine openDatabase(boolean update) throws UpdateException, DatabaseException {
+        if (h2DataDirectory == null) {
+            settings.removeProperty(Settings.KEYS.H2_DATA_DIRECTORY);
+        } else {
+            settings.setString(Settings.KEYS.H2_DATA_DIRECTORY, h2DataDirectory);
+        }
+        if (connectionString != null) {
+            settings.setString(Settings.KEYS.DB_CONNECTION_STRING, connectionString);
+        }
+        //removes the read-only copy of the database made when it was last opened
+        settings.cleanup(true);
+        final Engine engine = new Engine(settings);
+        try {
+            if (update) {
+                engine.doUpdates(true);
+            } else {
+                engine.openDatabase(true, true);
+            }
+        } catch (UpdateException | RuntimeException ex) {
+            engine.close();
+            throw ex;
+        }
+        return engine;
+    }
+
+    /**
+     * Closes the engine and the database held open by the daemon.
+     */
+    private void closeDatabase() {
+        if (databaseEngine != null) {
+            databaseEngine.close();
+            databaseEngine = null;
+        }
+    }
+
+    /**
+     * Returns the database properties that change when the data is updated.
+     *
+     * @return the database properties
+     */
+    private Properties getDataProperties() {
+        if (databaseEngine == null || databaseEngine.getDatabase() == null) {
+            return new Properties();
+        }
+        final Properties properties = databaseEngine.getDatabase().getProperties();
+        properties.remove(DatabaseProperties.LAST_CHECKED);
+        return properties;
+    }
+
+    /**
+     * Handles a scan request.
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException thrown if the response could not be written
+     */
+    private void handleScan(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Scans must be submitted using POST");
+                return;
+            }
+            if (!isAuthorized(exchange)) {
+                sendError(exchange, HttpURLConnection.HTTP_UNAUTHORIZED, "The scan request does not carry the daemon token");
+                return;
+            }
+            if (!isJson(exchange)) {
+                sendError(exchange, HttpURLConnection.HTTP_UNSUPPORTED_TYPE, "Scans must be submitted as " + CONTENT_TYPE);
+                return;
+            }
+            final JsonObject request;
+            try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                request = new JsonParser().parse(reader).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException ex) {
+                sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Invalid scan request: " + ex.getMessage());
+                return;
+            }
+            final String[] files = getStrings(request, "scan");
+            final String out = getString(request, "out", null);
+            if (files.length == 0 || out == null) {
+                sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "The scan and out members are required");
+                return;
+            }
+            for (String file : files) {
+                if (!new File(file).isAbsolute()) {
+                    sendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Scan paths must be absolute: " + file);
+                    return;
+                }
+            }
+            if (!isWithinReportDirectory(new File(out))) {
+                sendError(exchange, HttpURLConnection.HTTP_FORBIDDEN, "The report location must be within " + reportDirectory);
+                return;
+            }
+            String[] formats = getStrings(request, "format");
+            if (formats.length == 0) {
+                formats = new String[]{"HTML"};
+            }
+            final String project = getString(request, "project", "");
+            final int symLinkDepth = request.has("symLink") ? request.get("symLink").getAsInt() : 0;
+            final float failOnCVSS = request.has("failOnCVSS") ? request.get("failOnCVSS").getAsFloat() : 11;
+
+            if (databaseEngine == null) {
+                sendError(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "The dependency-check data could not be opened; see the daemon log");
+                return;
+            }
+            LOGGER.info("Scanning {} for project '{}'", String.join(", ", files), project);
+            final int exitCode = app.executeScan(databaseEngine, out, formats, project, files, getStrings(request, "exclude"),
+                    symLinkDepth, failOnCVSS);
+            final JsonObject response = new JsonObject();
+            response.addProperty("exitCode", exitCode);
+            send(exchange, HttpURLConnection.HTTP_OK, response);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Unexpected error executing the scan: {}", ex.getMessage());
+            LOGGER.debug("", ex);
+            sendError(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "Unexpected error executing the scan: " + ex.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Determines if the request carries the daemon token as a bearer token.
+     *
+     * @param exchange the HTTP exchange
+     * @return <code>true</code> if the request carries the token; otherwise
+     * <code>false</code>
+     */
+    private boolean isAuthorized(HttpExchange exchange) {
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        final byte[] value = authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(token, value);
+    }
+
+    /**
+     * Determines if the request body is JSON.
+     *
+     * @param exchange the HTTP exchange
+     * @return <code>true</code> if the content type of the request is
+     * <code>application/json</code>; otherwise <code>false</code>
+     */
+    private static boolean isJson(HttpExchange exchange) {
+        final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null) {
+            return false;
+        }
+        final int parameters = contentType.indexOf(';');
+        final String mediaType = parameters < 0 ? contentType : contentType.substring(0, parameters);
+        return CONTENT_TYPE.equals(mediaType.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Determines if the report location is within the report directory.
+     *
+     * @param out the requested report location
+     * @return <code>true</code> if the report location is absolute and within
+     * the report directory; otherwise <code>false</code>
+     * @throws IOException thrown if the canonical paths could not be
+     * determined
+     */
+    private boolean isWithinReportDirectory(File out) throws IOException {
+        if (!out.isAbsolute()) {
+            return false;
+        }
+        final Path allowed = reportDirectory.getCanonicalFile().toPath();
+        return out.getCanonicalFile().toPath().startsWith(allowed);
+    }
+
+    /**
+     * Returns the string values of an array member of the request.
+     *
+     * @param request the request
+     * @param name the name of the member
+     * @return the values; an empty array if the member does not exist
+     */
+    private static String[] getStrings(JsonObject request, String name) {
+        if (!request.has(name) || request.get(name).isJsonNull()) {
+            return new String[0];
+        }
+        final JsonArray array = request.getAsJsonArray(name);
+        final String[] values = new String[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i).getAsString();
+        }
+        return values;
+    }
+
+    /**
+     * Returns the string value of a member of the request.
+     *
+     * @param request the request
+     * @param name the name of the member
+     * @param defaultValue the value returned if the member does not exist
+     * @return the value of the member
+     */
+    private static String getString(JsonObject request, String name, String defaultValue) {
+        final JsonElement value = request.get(name);
+        return value == null || value.isJsonNull() ? defaultValue : value.getAsString();
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param exchange the HTTP exchange
+     * @param status the HTTP status code
+     * @param message the error message
+     * @throws IOException thrown if the response could not be written
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        final JsonObject response = new JsonObject();
+        response.addProperty("error", message);
+        send(exchange, status, response);
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange the HTTP exchange
+     * @param status the HTTP status code
+     * @param response the response
+     * @throws IOException thrown if the response could not be written
+     */
+    private static void send(HttpExchange exchange, int status, JsonObject response) throws IOException {
+        final byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
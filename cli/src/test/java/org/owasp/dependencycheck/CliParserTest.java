@@ -90,6 +90,34 @@ public class CliParserTest extends BaseTest {
 
     }
 
+    /**
+     * Test of parse method with the daemon arguments, of class CliParser.
+     *
+     * @throws Exception thrown when an exception occurs.
+     */
+    @Test
+    public void testParse_daemon() throws Exception {
+
+        CliParser instance = new CliParser(getSettings());
+        instance.parse(new String[]{"--daemon"});
+        Assert.assertTrue(instance.isDaemon());
+        Assert.assertFalse(instance.isUseDaemon());
+        Assert.assertFalse(instance.isRunScan());
+        Assert.assertEquals(ScanDaemon.DEFAULT_PORT, instance.getDaemonPort());
+
+        instance = new CliParser(getSettings());
+        instance.parse(new String[]{"--daemon", "--daemonPort", "9000"});
+        Assert.assertEquals(9000, instance.getDaemonPort());
+
+        instance = new CliParser(getSettings());
+        try {
+            instance.parse(new String[]{"--daemon", "--daemonPort", "70000"});
+            Assert.fail("an invalid port should not be accepted");
+        } catch (ParseException ex) {
+            Assert.assertTrue(ex.getMessage().contains("daemonPort"));
+        }
+    }
+
     /**
      * Test of parse method with failOnCVSS without an argument
      *
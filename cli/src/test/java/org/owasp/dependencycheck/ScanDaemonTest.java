@@ -0,0 +1,236 @@
+/*
+ * This file is part of dependency-check-cli.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.update.nvd.NvdCveParser;
+import org.owasp.dependencycheck.utils.H2DBGenerations;
+import org.owasp.dependencycheck.utils.Settings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class ScanDaemonTest extends BaseTest {
+
+    /**
+     * The data directory of the daemon.
+     */
+    private File dataDirectory;
+    /**
+     * The directory the reports may be written to.
+     */
+    private File reportDirectory;
+    /**
+     * The daemon under test.
+     */
+    private ScanDaemon daemon;
+
+    @Before
+    @Override
+    public void setUp() {
+        super.setUp();
+        try {
+            dataDirectory = Files.createTempDirectory("odc-daemon").toFile();
+            reportDirectory = new File(dataDirectory, "reports");
+            final Settings settings = getSettings();
+            settings.setString(Settings.KEYS.DATA_DIRECTORY, dataDirectory.getAbsolutePath());
+            settings.setString(Settings.KEYS.DB_CONNECTION_STRING, "jdbc:h2:file:%s;AUTOCOMMIT=ON;LOG=0;CACHE_SIZE=65536;");
+            settings.setBoolean(Settings.KEYS.DB_GENERATIONS_ENABLED, true);
+            settings.setBoolean(Settings.KEYS.AUTO_UPDATE, false);
+            //the analyzers querying remote services
+            settings.setBoolean(Settings.KEYS.ANALYZER_CENTRAL_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_NEXUS_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_OSSINDEX_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_NODE_AUDIT_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_RETIREJS_ENABLED, false);
+            createDatabase();
+            daemon = new ScanDaemon(new App(settings), settings, 0, reportDirectory);
+            daemon.start();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @After
+    @Override
+    public void tearDown() {
+        if (daemon != null) {
+            daemon.close();
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Test that consecutive scans submitted with the daemon token are executed
+     * by the engine the daemon keeps loaded; each report only contains the
+     * dependencies of its own scan.
+     */
+    @Test
+    public void testSubmit() throws Exception {
+        final File tokenFile = ScanDaemon.getTokenFile(getSettings(), daemon.getPort());
+        assertTrue(tokenFile.isFile());
+        final ScanClient client = new ScanClient(daemon.getPort(), tokenFile);
+        final File first = createJar("first.jar");
+        final File second = createJar("second.jar");
+        final File firstOut = new File(reportDirectory, "first");
+        final File secondOut = new File(reportDirectory, "second");
+
+        assertEquals(0, client.submit(firstOut.getAbsolutePath(), new String[]{"JSON"},
+                "test", new String[]{first.getAbsolutePath()}, null, 0, 11));
+        assertEquals(0, client.submit(secondOut.getAbsolutePath(), new String[]{"JSON"},
+                "test", new String[]{second.getAbsolutePath()}, null, 0, 11));
+
+        final String firstReport = readReport(firstOut);
+        final String secondReport = readReport(secondOut);
+        assertTrue(firstReport.contains("first.jar"));
+        assertTrue(secondReport.contains("second.jar"));
+        assertFalse(secondReport.contains("first.jar"));
+    }
+
+    /**
+     * Test that a scan without the daemon token is rejected.
+     */
+    @Test
+    public void testSubmitWithoutToken() throws Exception {
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post(null, ScanDaemon.CONTENT_TYPE, validRequest()));
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post("Bearer invalid", ScanDaemon.CONTENT_TYPE, validRequest()));
+    }
+
+    /**
+     * Test that a scan that is not submitted as JSON is rejected.
+     */
+    @Test
+    public void testSubmitWithInvalidContentType() throws Exception {
+        assertEquals(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, post(authorization(), "text/plain", validRequest()));
+    }
+
+    /**
+     * Test that a scan writing the reports outside of the report directory is
+     * rejected.
+     */
+    @Test
+    public void testSubmitWithReportOutsideDirectory() throws Exception {
+        final File outside = new File(reportDirectory, "../outside").getAbsoluteFile();
+        assertEquals(HttpURLConnection.HTTP_FORBIDDEN, post(authorization(), ScanDaemon.CONTENT_TYPE, request(outside)));
+    }
+
+    /**
+     * Test that the token file is removed when the daemon is closed.
+     */
+    @Test
+    public void testClose() throws Exception {
+        final File tokenFile = ScanDaemon.getTokenFile(getSettings(), daemon.getPort());
+        daemon.close();
+        assertFalse(tokenFile.exists());
+    }
+
+    /**
+     * Creates a published database generation containing the sample NVD CVE
+     * data feed.
+     */
+    private void createDatabase() throws Exception {
+        final H2DBGenerations generations = new H2DBGenerations(getSettings());
+        final File staging = generations.createStaging();
+        getSettings().setString(Settings.KEYS.H2_DATA_DIRECTORY, staging.getPath());
+        try {
+            final CveDB database = new CveDB(getSettings());
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream("nvdcve-1.0-sample.json")) {
+                new NvdCveParser(getSettings(), database).parse(in, null);
+            } finally {
+                database.close();
+            }
+        } finally {
+            getSettings().removeProperty(Settings.KEYS.H2_DATA_DIRECTORY);
+        }
+        generations.publish(staging);
+    }
+
+    private File createJar(String name) throws IOException {
+        final File dir = new File(dataDirectory, "scan");
+        Files.createDirectories(dir.toPath());
+        final File jar = new File(dir, name);
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE, name);
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, "1.0");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+            out.flush();
+        }
+        return jar;
+    }
+
+    private String readReport(File out) throws IOException {
+        final File report = new File(out, "dependency-check-report.json");
+        assertTrue(report.isFile());
+        return new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private String authorization() throws IOException {
+        final File tokenFile = ScanDaemon.getTokenFile(getSettings(), daemon.getPort());
+        return "Bearer " + new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+    }
+
+    private String validRequest() {
+        return request(new File(reportDirectory, "reports"));
+    }
+
+    private String request(File out) {
+        final String path = dataDirectory.getAbsolutePath().replace("\\", "\\\\");
+        return "{\"scan\":[\"" + path + "\"],\"out\":\"" + out.getPath().replace("\\", "\\\\")
+                + "\",\"format\":[\"HTML\"],\"project\":\"test\"}";
+    }
+
+    private int post(String authorization, String contentType, String body) throws IOException {
+        final URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), daemon.getPort(), ScanDaemon.SCAN_PATH);
+        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setDoOutput(true);
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", contentType);
+            if (authorization != null) {
+                conn.setRequestProperty("Authorization", authorization);
+            }
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            return conn.getResponseCode();
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
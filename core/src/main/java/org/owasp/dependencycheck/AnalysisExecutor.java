@@ -0,0 +1,168 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.jetbrains.annotations.NotNull;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.analyzer.AnalyzerWorkload;
+import org.owasp.dependencycheck.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The thread pools used by the {@link Engine} to execute the analyzers. The
+ * pools are created once per engine and reused for every analyzer; separate
+ * work-stealing pools are maintained for CPU and I/O bound analyzers so that
+ * analyzers waiting on remote services do not starve the CPU bound analyzers.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class AnalysisExecutor implements AutoCloseable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisExecutor.class);
+    /**
+     * The parallelism of the pool used for CPU bound analyzers.
+     */
+    private final int cpuParallelism;
+    /**
+     * The parallelism of the pool used for I/O bound analyzers.
+     */
+    private final int ioParallelism;
+    /**
+     * The pool used for CPU bound analyzers.
+     */
+    private ExecutorService cpuExecutor = null;
+    /**
+     * The pool used for I/O bound analyzers.
+     */
+    private ExecutorService ioExecutor = null;
+    /**
+     * The executor used for analyzers that do not support parallel
+     * processing.
+     */
+    private ExecutorService serialExecutor = null;
+
+    /**
+     * Constructs a new analysis executor.
+     *
+     * @param settings the configured settings
+     */
+    public AnalysisExecutor(@NotNull final Settings settings) {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        this.cpuParallelism = Math.max(1, settings.getInt(Settings.KEYS.ANALYSIS_CPU_THREADS, processors));
+        this.ioParallelism = Math.max(1, settings.getInt(Settings.KEYS.ANALYSIS_IO_THREADS, processors * 4));
+    }
+
+    /**
+     * Returns the executor service for a given analyzer.
+     *
+     * @param analyzer the analyzer to obtain an executor
+     * @return the executor service
+     */
+    public synchronized ExecutorService getExecutorService(@NotNull final Analyzer analyzer) {
+        if (analyzer.supportsParallelProcessing()) {
+            LOGGER.debug("Parallel processing with up to {} threads: {}.", getParallelism(analyzer.getWorkload()), analyzer.getName());
+            return getExecutorService(analyzer.getWorkload());
+        }
+        LOGGER.debug("Parallel processing is not supported: {}.", analyzer.getName());
+        if (serialExecutor == null) {
+            serialExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+                final Thread thread = new Thread(runnable, "dependency-check-serial-analysis");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return serialExecutor;
+    }
+
+    /**
+     * Returns the executor service for the given workload.
+     *
+     * @param workload the type of work to be executed
+     * @return the executor service
+     */
+    public synchronized ExecutorService getExecutorService(@NotNull final AnalyzerWorkload workload) {
+        if (workload == AnalyzerWorkload.IO) {
+            if (ioExecutor == null) {
+                ioExecutor = newWorkStealingPool(ioParallelism);
+            }
+            return ioExecutor;
+        }
+        if (cpuExecutor == null) {
+            cpuExecutor = newWorkStealingPool(cpuParallelism);
+        }
+        return cpuExecutor;
+    }
+
+    /**
+     * Creates a new work-stealing pool. The worker threads use the context
+     * class loader of the calling thread so that analyzers loaded by a plugin
+     * class loader behave the same as when executed on the calling thread.
+     *
+     * @param parallelism the parallelism of the pool
+     * @return the new pool
+     */
+    private static ExecutorService newWorkStealingPool(int parallelism) {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return new ForkJoinPool(parallelism, (pool) -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setContextClassLoader(loader);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Returns the configured parallelism for the given workload.
+     *
+     * @param workload the type of work to be executed
+     * @return the number of threads used for the workload
+     */
+    public int getParallelism(@NotNull final AnalyzerWorkload workload) {
+        return workload == AnalyzerWorkload.IO ? ioParallelism : cpuParallelism;
+    }
+
+    /**
+     * Shuts down the thread pools; the pools will be re-created if the
+     * executor is used again.
+     */
+    @Override
+    public synchronized void close() {
+        if (cpuExecutor != null) {
+            cpuExecutor.shutdown();
+            cpuExecutor = null;
+        }
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+            ioExecutor = null;
+        }
+        if (serialExecutor != null) {
+            serialExecutor.shutdown();
+            serialExecutor = null;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.jetbrains.annotations.NotNull;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.analyzer.AnalyzerWorkload;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.exception.ExceptionCollection;
+import org.owasp.dependencycheck.exception.InitializationException;
+import org.owasp.dependencycheck.metrics.AnalysisMetrics;
+import org.owasp.dependencycheck.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Executes the analyzers such that each {@link Dependency} moves through the
+ * sequence of analyzers on its own rather than waiting for every other
+ * dependency to complete an analyzer before starting the next one. Analyzers
+ * that operate on the complete set of dependencies (see
+ * {@link Analyzer#requiresAllDependencies()}), or that analyze dependencies in
+ * batches (see {@link Analyzer#getBatchSize()}), split the sequence into
+ * stages; such analyzers are only executed once all dependencies have
+ * completed the preceding stage.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+class AnalysisPipeline {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisPipeline.class);
+    /**
+     * The position, within the current stage, of the analyzer being executed
+     * by the current thread.
+     */
+    private static final ThreadLocal<Integer> POSITION = new ThreadLocal<>();
+    /**
+     * A reference to the dependency-check engine.
+     */
+    private final Engine engine;
+    /**
+     * The list of exceptions that occur during analysis.
+     */
+    private final List<Throwable> exceptions;
+    /**
+     * The dependencies that have been removed from the engine while the
+     * pipeline is executing.
+     */
+    private final Set<Dependency> removed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    /**
+     * The stage currently being executed; <code>null</code> when no pipelined
+     * stage is executing.
+     */
+    private volatile Stage currentStage = null;
+
+    /**
+     * Constructs a new analysis pipeline.
+     *
+     * @param engine the dependency-check engine
+     * @param exceptions exceptions that occur during analysis will be added to
+     * this collection of exceptions
+     */
+    AnalysisPipeline(@NotNull final Engine engine, @NotNull final List<Throwable> exceptions) {
+        this.engine = engine;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Executes the given analyzers against the dependencies in the engine.
+     *
+     * @param analyzers the ordered list of analyzers to execute
+     * @throws ExceptionCollection thrown if a fatal exception occurs during
+     * analysis
+     */
+    void execute(@NotNull final List<Analyzer> analyzers) throws ExceptionCollection {
+        final List<Analyzer> stage = new ArrayList<>();
+        for (Analyzer analyzer : analyzers) {
+            if (analyzer.requiresAllDependencies() || analyzer.getBatchSize() > 1) {
+                executeStage(stage);
+                stage.clear();
+                executeBarrier(analyzer);
+            } else {
+                stage.add(analyzer);
+            }
+        }
+        executeStage(stage);
+    }
+
+    /**
+     * Notifies the pipeline that a dependency has been added to the engine. If
+     * a pipelined stage is executing the dependency is scheduled for the
+     * analyzers following the one that discovered it.
+     *
+     * @param dependency the dependency added
+     */
+    void dependencyAdded(@NotNull final Dependency dependency) {
+        final Stage stage = currentStage;
+        if (stage != null) {
+            final Integer position = POSITION.get();
+            stage.schedule(dependency, position == null ? 0 : position + 1);
+        }
+    }
+
+    /**
+     * Notifies the pipeline that a dependency has been removed from the
+     * engine; no further analyzers will be executed against the dependency.
+     *
+     * @param dependency the dependency removed
+     */
+    void dependencyRemoved(@NotNull final Dependency dependency) {
+        removed.add(dependency);
+    }
+
+    /**
+     * Executes an analyzer that requires all dependencies in the same manner
+     * as the non-pipelined analysis.
+     *
+     * @param analyzer the analyzer to execute
+     * @throws ExceptionCollection thrown if a fatal exception occurs during
+     * analysis
+     */
+    private void executeBarrier(@NotNull final Analyzer analyzer) throws ExceptionCollection {
+        final long analyzerStart = System.currentTimeMillis();
+        if (!engine.hasMatchingDependencies(analyzer)) {
+            LOGGER.debug("Skipping {} (no matching dependencies)", analyzer.getName());
+            return;
+        }
+        try {
+            engine.initializeAnalyzer(analyzer);
+        } catch (InitializationException ex) {
+            exceptions.add(ex);
+            if (ex.isFatal()) {
+                return;
+            }
+        }
+        if (analyzer.isEnabled()) {
+            engine.executeAnalysisTasks(analyzer, exceptions);
+            final long analyzerDurationSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - analyzerStart);
+            LOGGER.info("Finished {} ({} seconds)", analyzer.getName(), analyzerDurationSeconds);
+        } else {
+            LOGGER.debug("Skipping {} (not enabled)", analyzer.getName());
+        }
+    }
+
+    /**
+     * Executes a sequence of analyzers; each dependency is submitted as a
+     * single task that runs all of the analyzers in order.
+     *
+     * @param analyzers the analyzers within the stage
+     * @throws ExceptionCollection thrown if a fatal exception occurs during
+     * analysis
+     */
+    private void executeStage(@NotNull final List<Analyzer> analyzers) throws ExceptionCollection {
+        if (analyzers.isEmpty()) {
+            return;
+        }
+        final long stageStart = System.currentTimeMillis();
+        final Stage stage = new Stage(analyzers);
+        final int timeout = engine.getSettings().getInt(Settings.KEYS.ANALYSIS_TIMEOUT, 20);
+        currentStage = stage;
+        try {
+            for (Dependency dependency : engine.getDependencies()) {
+                stage.schedule(dependency, 0);
+            }
+            stage.await(timeout);
+        } finally {
+            currentStage = null;
+            stage.cancelRemaining();
+            stage.recordElapsedTimes();
+        }
+        final long stageDurationSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - stageStart);
+        LOGGER.info("Finished {} ({} seconds)", analyzers.stream().filter(Analyzer::isEnabled)
+                .map(Analyzer::getName).collect(Collectors.joining(", ")), stageDurationSeconds);
+    }
+
+    /**
+     * A sequence of analyzers through which dependencies are pipelined.
+     */
+    private final class Stage {
+
+        /**
+         * The analyzers within the stage.
+         */
+        private final Analyzer[] analyzers;
+        /**
+         * Whether or not the analyzer at the given position has been prepared.
+         */
+        private final boolean[] prepared;
+        /**
+         * Whether or not the analyzer at the given position can be used; an
+         * analyzer that failed fatally during preparation will not be used.
+         */
+        private final boolean[] usable;
+        /**
+         * The dependencies scheduled within the stage.
+         */
+        private final Set<Dependency> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+        /**
+         * The results of the tasks submitted.
+         */
+        private final Queue<Future<Void>> results = new ConcurrentLinkedQueue<>();
+        /**
+         * The workload of the analyzer at the given position.
+         */
+        private final AnalyzerWorkload[] workloads;
+        /**
+         * The executor providing the thread pools used to process the
+         * dependencies; the pools are shared by the engine and must not be
+         * shut down.
+         */
+        private final AnalysisExecutor analysisExecutor;
+        /**
+         * The metrics of the analysis; <code>null</code> if metrics are not
+         * collected.
+         */
+        private final AnalysisMetrics metrics;
+        /**
+         * The {@link System#nanoTime()} at which the analyzer at the given
+         * position first started analyzing a dependency.
+         */
+        private final long[] firstStart;
+        /**
+         * The {@link System#nanoTime()} at which the analyzer at the given
+         * position last finished analyzing a dependency.
+         */
+        private final long[] lastEnd;
+
+        /**
+         * Constructs a new stage.
+         *
+         * @param analyzers the analyzers within the stage
+         */
+        Stage(List<Analyzer> analyzers) {
+            this.analyzers = analyzers.toArray(new Analyzer[0]);
+            this.prepared = new boolean[this.analyzers.length];
+            this.usable = new boolean[this.analyzers.length];
+            this.workloads = new AnalyzerWorkload[this.analyzers.length];
+            for (int i = 0; i < this.analyzers.length; i++) {
+                workloads[i] = this.analyzers[i].getWorkload();
+            }
+            this.analysisExecutor = engine.getAnalysisExecutor();
+            this.metrics = engine.getMetrics();
+            this.firstStart = new long[this.analyzers.length];
+            this.lastEnd = new long[this.analyzers.length];
+            LOGGER.debug("Pipelined processing with up to {} CPU and {} I/O threads.",
+                    analysisExecutor.getParallelism(AnalyzerWorkload.CPU), analysisExecutor.getParallelism(AnalyzerWorkload.IO));
+        }
+
+        /**
+         * Schedules the dependency for analysis beginning with the analyzer at
+         * the given position. A dependency is only scheduled once per stage.
+         *
+         * @param dependency the dependency to analyze
+         * @param start the position of the first analyzer to execute
+         */
+        synchronized void schedule(final Dependency dependency, final int start) {
+            if (start < analyzers.length && scheduled.add(dependency)) {
+                submit(dependency, start);
+            }
+        }
+
+        /**
+         * Submits the analysis of the dependency, beginning with the analyzer
+         * at the given position, to the thread pool matching the workload of
+         * that analyzer.
+         *
+         * @param dependency the dependency to analyze
+         * @param start the position of the first analyzer to execute
+         */
+        private void submit(final Dependency dependency, final int start) {
+            final AnalyzerWorkload workload = workloads[start];
+            results.add(analysisExecutor.getExecutorService(workload).submit(() -> process(dependency, start, workload)));
+        }
+
+        /**
+         * Waits for all of the scheduled dependencies, including those
+         * discovered during the analysis, to complete the stage.
+         *
+         * @param timeout the analysis timeout in minutes
+         * @throws ExceptionCollection thrown if a fatal exception occurs during
+         * analysis
+         */
+        void await(final int timeout) throws ExceptionCollection {
+            final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(timeout);
+            Future<Void> result;
+            while ((result = results.poll()) != null) {
+                try {
+                    result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    engine.throwFatalExceptionCollection("Analysis task failed with a fatal exception.", e, exceptions);
+                } catch (CancellationException | TimeoutException e) {
+                    engine.throwFatalExceptionCollection("Analysis task was cancelled.", e, exceptions);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    engine.throwFatalExceptionCollection("Analysis has been interrupted.", e, exceptions);
+                }
+            }
+        }
+
+        /**
+         * Cancels any tasks that have not completed.
+         */
+        void cancelRemaining() {
+            results.forEach((f) -> f.cancel(true));
+        }
+
+        /**
+         * Runs the analyzers, beginning at the given position, against the
+         * dependency. When an analyzer with a different workload than the
+         * current thread pool is reached the remaining analyzers are submitted
+         * to the matching pool.
+         *
+         * @param dependency the dependency to analyze
+         * @param start the position of the first analyzer to execute
+         * @param workload the workload of the thread pool executing the task
+         * @return null
+         */
+        private Void process(final Dependency dependency, final int start, final AnalyzerWorkload workload) {
+            try {
+                for (int i = start; i < analyzers.length && !removed.contains(dependency); i++) {
+                    POSITION.set(i);
+                    final Analyzer analyzer = analyzers[i];
+                    if (!engine.isCandidate(analyzer, dependency)) {
+                        continue;
+                    }
+                    if (workloads[i] != workload) {
+                        submit(dependency, i);
+                        break;
+                    }
+                    final AnalysisTask task = new AnalysisTask(analyzer, dependency, engine, exceptions);
+                    //the file type check must occur before preparation as it records if the analyzer has files to analyze
+                    if (task.shouldAnalyze() && prepare(i)) {
+                        final long taskStart = metrics == null ? 0 : System.nanoTime();
+                        if (analyzer.supportsParallelProcessing()) {
+                            task.call();
+                        } else {
+                            synchronized (analyzer) {
+                                task.call();
+                            }
+                        }
+                        if (metrics != null) {
+                            recordRun(i, taskStart, System.nanoTime());
+                        }
+                    }
+                }
+            } finally {
+                POSITION.remove();
+            }
+            return null;
+        }
+
+        /**
+         * Records that the analyzer at the given position analyzed a
+         * dependency between the given times.
+         *
+         * @param position the position of the analyzer
+         * @param start the {@link System#nanoTime()} at which the analysis
+         * started
+         * @param end the {@link System#nanoTime()} at which the analysis
+         * finished
+         */
+        private synchronized void recordRun(final int position, final long start, final long end) {
+            if (firstStart[position] == 0 || start - firstStart[position] < 0) {
+                firstStart[position] = start;
+            }
+            if (lastEnd[position] == 0 || end - lastEnd[position] > 0) {
+                lastEnd[position] = end;
+            }
+        }
+
+        /**
+         * Records, for each analyzer that analyzed at least one dependency,
+         * the elapsed time from its first analysis until its last analysis
+         * completed. As the analyzers of a stage overlap the elapsed times may
+         * add up to more than the duration of the stage.
+         */
+        synchronized void recordElapsedTimes() {
+            if (metrics == null) {
+                return;
+            }
+            for (int i = 0; i < analyzers.length; i++) {
+                if (lastEnd[i] != 0) {
+                    metrics.recordElapsedTime(analyzers[i].getName(), lastEnd[i] - firstStart[i]);
+                }
+            }
+        }
+
+        /**
+         * Prepares the analyzer at the given position if it has not yet been
+         * prepared; an analyzer not reached by any dependency is neither
+         * prepared nor closed.
+         *
+         * @param position the position of the analyzer
+         * @return <code>true</code> if the analyzer can be used; otherwise
+         * <code>false</code>
+         */
+        private boolean prepare(final int position) {
+            final Analyzer analyzer = analyzers[position];
+            synchronized (analyzer) {
+                if (!prepared[position]) {
+                    prepared[position] = true;
+                    try {
+                        engine.initializeAnalyzer(analyzer);
+                        usable[position] = true;
+                    } catch (InitializationException ex) {
+                        exceptions.add(ex);
+                        usable[position] = !ex.isFatal();
+                    }
+                }
+                return usable[position] && analyzer.isEnabled();
+            }
+        }
+    }
+}
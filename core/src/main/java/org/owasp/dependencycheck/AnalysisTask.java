@@ -20,17 +20,27 @@ package org.owasp.dependencycheck;
 import org.owasp.dependencycheck.analyzer.Analyzer;
 import org.owasp.dependencycheck.analyzer.FileTypeAnalyzer;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisTimeoutException;
 import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.metrics.AnalysisMetrics;
+import org.owasp.dependencycheck.metrics.TaskOutcome;
+import org.owasp.dependencycheck.metrics.TaskTiming;
+import org.owasp.dependencycheck.utils.Settings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Task to support parallelism of dependency-check analysis. Analysis a single
- * {@link Dependency} by a specific {@link Analyzer}.
+ * {@link Dependency}, or a batch of dependencies when the analyzer supports
+ * batch analysis, by a specific {@link Analyzer}.
  *
  * @author Stefan Neuhaus
  */
@@ -41,15 +51,34 @@ public class AnalysisTask implements Callable<Void> {
      * Instance of the logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisTask.class);
+    /**
+     * The dependency being analyzed by the current thread.
+     */
+    private static final ThreadLocal<Dependency> CURRENT_DEPENDENCY = new ThreadLocal<>();
+    /**
+     * The deadline, as a {@link System#nanoTime()} value, of the analysis task
+     * executing on the current thread; <code>null</code> if the task does not
+     * have a deadline.
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+    /**
+     * Used to measure the CPU time of the analysis.
+     */
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
 
     /**
      * A reference to the analyzer.
      */
     private final Analyzer analyzer;
     /**
-     * The dependency to analyze.
+     * The dependency to analyze; <code>null</code> for a batch task.
      */
     private final Dependency dependency;
+    /**
+     * The dependencies to analyze in a batch; <code>null</code> for a single
+     * dependency task.
+     */
+    private final List<Dependency> batch;
     /**
      * A reference to the dependency-check engine.
      */
@@ -69,12 +98,45 @@ public class AnalysisTask implements Callable<Void> {
      * this collection of exceptions
      */
     public AnalysisTask(Analyzer analyzer, Dependency dependency, Engine engine, List<Throwable> exceptions) {
+        this(analyzer, dependency, null, engine, exceptions);
+    }
+
+    /**
+     * Creates a new analysis task.
+     *
+     * @param analyzer a reference of the analyzer to execute
+     * @param dependency the dependency to analyze; <code>null</code> for a
+     * batch task
+     * @param batch the dependencies to analyze; <code>null</code> for a single
+     * dependency task
+     * @param engine the dependency-check engine
+     * @param exceptions exceptions that occur during analysis will be added to
+     * this collection of exceptions
+     */
+    private AnalysisTask(Analyzer analyzer, Dependency dependency, List<Dependency> batch, Engine engine,
+            List<Throwable> exceptions) {
         this.analyzer = analyzer;
         this.dependency = dependency;
+        this.batch = batch;
         this.engine = engine;
         this.exceptions = exceptions;
     }
 
+    /**
+     * Creates a new analysis task that passes the dependencies to
+     * {@link Analyzer#analyzeBatch(java.util.List, org.owasp.dependencycheck.Engine)}.
+     *
+     * @param analyzer a reference of the analyzer to execute
+     * @param batch the dependencies to analyze
+     * @param engine the dependency-check engine
+     * @param exceptions exceptions that occur during analysis will be added to
+     * this collection of exceptions
+     * @return the analysis task
+     */
+    static AnalysisTask forBatch(Analyzer analyzer, List<Dependency> batch, Engine engine, List<Throwable> exceptions) {
+        return new AnalysisTask(analyzer, null, batch, engine, exceptions);
+    }
+
     /**
      * Executes the analysis task.
      *
@@ -82,33 +144,177 @@ public class AnalysisTask implements Callable<Void> {
      */
     @Override
     public Void call() {
-        if (shouldAnalyze()) {
-            LOGGER.debug("Begin Analysis of '{}' ({})", dependency.getActualFilePath(), analyzer.getName());
-            try {
-                analyzer.analyze(dependency, engine);
-            } catch (AnalysisException ex) {
-                LOGGER.warn("An error occurred while analyzing '{}' ({}).", dependency.getActualFilePath(), analyzer.getName());
-                LOGGER.debug("", ex);
-                exceptions.add(ex);
-            } catch (Throwable ex) {
-                LOGGER.warn("An unexpected error occurred during analysis of '{}' ({}): {}",
-                        dependency.getActualFilePath(), analyzer.getName(), ex.getMessage());
-                LOGGER.error("", ex);
-                exceptions.add(ex);
+        if (batch != null) {
+            final List<Dependency> selected = batch.stream().filter(this::shouldAnalyze).collect(Collectors.toList());
+            if (!selected.isEmpty()) {
+                analyze(selected, selected.size() + " dependencies");
             }
+        } else if (shouldAnalyze()) {
+            analyze(null, dependency.getActualFilePath());
         }
         return null;
     }
 
+    /**
+     * Executes the analyzer against the dependency, or the selected
+     * dependencies of a batch, recording the outcome.
+     *
+     * @param selected the dependencies of the batch to analyze;
+     * <code>null</code> for a single dependency task
+     * @param description the description of what is analyzed used in log
+     * messages and metrics
+     */
+    private void analyze(List<Dependency> selected, String description) {
+        LOGGER.debug("Begin Analysis of '{}' ({})", description, analyzer.getName());
+        final Dependency previous = CURRENT_DEPENDENCY.get();
+        final Long previousDeadline = DEADLINE.get();
+        if (dependency == null) {
+            CURRENT_DEPENDENCY.remove();
+        } else {
+            CURRENT_DEPENDENCY.set(dependency);
+        }
+        final AnalysisMetrics metrics = engine == null ? null : engine.getMetrics();
+        final long start = System.nanoTime();
+        final long cpuStart = metrics == null ? -1 : getCurrentThreadCpuTime();
+        final int timeout = engine == null ? 0 : engine.getSettings().getInt(Settings.KEYS.ANALYSIS_TASK_TIMEOUT, 0);
+        if (timeout > 0) {
+            DEADLINE.set(start + TimeUnit.SECONDS.toNanos(timeout));
+        } else {
+            DEADLINE.remove();
+        }
+        TaskOutcome outcome = TaskOutcome.SUCCESS;
+        try {
+            if (selected == null) {
+                analyzer.analyze(dependency, engine);
+            } else {
+                analyzer.analyzeBatch(selected, engine);
+            }
+        } catch (AnalysisTimeoutException ex) {
+            LOGGER.warn("The analysis of '{}' ({}) exceeded the task timeout of {} seconds.",
+                    description, analyzer.getName(), timeout);
+            LOGGER.debug("", ex);
+            exceptions.add(ex);
+            outcome = TaskOutcome.TIMEOUT;
+        } catch (AnalysisException ex) {
+            LOGGER.warn("An error occurred while analyzing '{}' ({}).", description, analyzer.getName());
+            LOGGER.debug("", ex);
+            exceptions.add(ex);
+            outcome = TaskOutcome.FAILURE;
+        } catch (Throwable ex) {
+            LOGGER.warn("An unexpected error occurred during analysis of '{}' ({}): {}",
+                    description, analyzer.getName(), ex.getMessage());
+            LOGGER.error("", ex);
+            exceptions.add(ex);
+            outcome = TaskOutcome.ERROR;
+        } finally {
+            if (previous == null) {
+                CURRENT_DEPENDENCY.remove();
+            } else {
+                CURRENT_DEPENDENCY.set(previous);
+            }
+            if (previousDeadline == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previousDeadline);
+            }
+            if (metrics != null) {
+                final long cpuEnd = getCurrentThreadCpuTime();
+                metrics.record(new TaskTiming(analyzer.getName(), dependency == null ? description : dependency.getFilePath(),
+                        System.nanoTime() - start, cpuStart >= 0 && cpuEnd >= 0 ? cpuEnd - cpuStart : -1, outcome));
+            }
+        }
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU time in nanoseconds or -1 if CPU time measurement is not
+     * supported or enabled
+     */
+    private static long getCurrentThreadCpuTime() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the dependency being analyzed by the current thread.
+     *
+     * @return the dependency being analyzed or <code>null</code> if the
+     * current thread is not executing an analysis task
+     */
+    static Dependency getCurrentDependency() {
+        return CURRENT_DEPENDENCY.get();
+    }
+
+    /**
+     * Checks if the analysis task executing on the current thread has
+     * exceeded its deadline or the current thread has been interrupted.
+     * Long running analyzers should call this method periodically so that a
+     * single pathological dependency does not hold up the analysis.
+     *
+     * @throws AnalysisTimeoutException thrown if the analysis task should stop
+     */
+    public static void checkDeadline() throws AnalysisTimeoutException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new AnalysisTimeoutException(String.format("The analysis of '%s' was interrupted", getCurrentFilePath()));
+        }
+        final Long deadline = DEADLINE.get();
+        if (deadline != null && System.nanoTime() - deadline >= 0) {
+            throw new AnalysisTimeoutException(String.format("The analysis of '%s' exceeded the task timeout", getCurrentFilePath()));
+        }
+    }
+
+    /**
+     * Returns the time remaining before the analysis task executing on the
+     * current thread reaches its deadline.
+     *
+     * @param unit the unit of the returned value
+     * @return the remaining time; zero if the deadline has passed or
+     * {@link Long#MAX_VALUE} if the task does not have a deadline
+     */
+    public static long getRemainingTime(TimeUnit unit) {
+        final Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the path of the dependency being analyzed by the current
+     * thread.
+     *
+     * @return the path of the dependency being analyzed
+     */
+    private static String getCurrentFilePath() {
+        final Dependency current = CURRENT_DEPENDENCY.get();
+        return current == null ? null : current.getFilePath();
+    }
+
     /**
      * Determines if the analyzer can analyze the given dependency.
      *
      * @return whether or not the analyzer can analyze the dependency
      */
     protected boolean shouldAnalyze() {
+        return shouldAnalyze(dependency);
+    }
+
+    /**
+     * Determines if the analyzer can analyze the given dependency.
+     *
+     * @param candidate the dependency to check
+     * @return whether or not the analyzer can analyze the dependency
+     */
+    private boolean shouldAnalyze(Dependency candidate) {
+        if (engine != null && !engine.isAnalysisRequired(analyzer, candidate)) {
+            return false;
+        }
         if (analyzer instanceof FileTypeAnalyzer) {
             final FileTypeAnalyzer fileTypeAnalyzer = (FileTypeAnalyzer) analyzer;
-            return fileTypeAnalyzer.accept(dependency.getActualFile());
+            return fileTypeAnalyzer.accept(candidate.getActualFile());
         }
         return true;
     }
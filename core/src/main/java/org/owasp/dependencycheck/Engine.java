@@ -22,7 +22,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.owasp.dependencycheck.analyzer.AnalysisPhase;
 import org.owasp.dependencycheck.analyzer.Analyzer;
 import org.owasp.dependencycheck.analyzer.AnalyzerService;
+import org.owasp.dependencycheck.analyzer.AnalyzerWorkload;
 import org.owasp.dependencycheck.analyzer.FileTypeAnalyzer;
+import org.owasp.dependencycheck.analyzer.FileTypeAnalyzerIndex;
+import org.owasp.dependencycheck.data.cache.DataCacheFactory;
 import org.owasp.dependencycheck.data.nvdcve.ConnectionFactory;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
@@ -35,6 +38,8 @@ import org.owasp.dependencycheck.exception.ExceptionCollection;
 import org.owasp.dependencycheck.exception.InitializationException;
 import org.owasp.dependencycheck.exception.NoDataException;
 import org.owasp.dependencycheck.exception.ReportException;
+import org.owasp.dependencycheck.metrics.AnalysisMetrics;
+import org.owasp.dependencycheck.metrics.MetricsWriter;
 import org.owasp.dependencycheck.reporting.ReportGenerator;
 import org.owasp.dependencycheck.utils.Settings;
 import org.slf4j.Logger;
@@ -43,22 +48,33 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -66,8 +82,10 @@ import org.jetbrains.annotations.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.jcs.JCS;
+import org.apache.commons.jcs.access.exception.CacheException;
 
 import org.owasp.dependencycheck.exception.H2DBLockException;
+import org.owasp.dependencycheck.utils.H2DBGenerations;
 import org.owasp.dependencycheck.utils.H2DBLock;
 
 //CSOFF: AvoidStarImport
@@ -170,6 +188,18 @@ public class Engine implements FileFilter, AutoCloseable {
      * The list of dependencies.
      */
     private final List<Dependency> dependencies = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * An index of the dependencies keyed by their SHA1 hash; used to identify
+     * duplicate files without comparing against every known dependency.
+     */
+    private final ConcurrentMap<String, Dependency> dependenciesBySha1 = new ConcurrentHashMap<>();
+    /**
+     * The dependencies added with the same SHA1 hash as the dependency in
+     * {@link #dependenciesBySha1}, keyed by their SHA1 hash; one of these takes
+     * the place of the indexed dependency when it is removed. Guarded by the
+     * engine's lock.
+     */
+    private final Map<String, Deque<Dependency>> duplicatesBySha1 = new HashMap<>();
     /**
      * The external view of the dependency list.
      */
@@ -183,6 +213,16 @@ public class Engine implements FileFilter, AutoCloseable {
      * A Map of analyzers grouped by Analysis phase.
      */
     private final Set<FileTypeAnalyzer> fileTypeAnalyzers = new HashSet<>();
+    /**
+     * The file type analyzers indexed by the file names and extensions they
+     * accept; built on first use.
+     */
+    private volatile FileTypeAnalyzerIndex fileTypeAnalyzerIndex = null;
+    /**
+     * The analyzers prepared during the current analysis; only these analyzers
+     * are closed once the analysis completes.
+     */
+    private final Set<Analyzer> preparedAnalyzers = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     /**
      * The engine execution mode indicating it will either collect evidence or
@@ -207,6 +247,25 @@ public class Engine implements FileFilter, AutoCloseable {
      * The configured settings.
      */
     private final Settings settings;
+    /**
+     * The analysis pipeline; only set while pipelined analysis is executing.
+     */
+    private volatile AnalysisPipeline pipeline = null;
+    /**
+     * The thread pools used to execute the analyzers.
+     */
+    private final AnalysisExecutor analysisExecutor;
+    /**
+     * The incremental analysis; <code>null</code> unless
+     * {@link Settings.KEYS#ANALYSIS_INCREMENTAL} is enabled.
+     */
+    private final IncrementalAnalysis incrementalAnalysis;
+    /**
+     * The timings recorded during the most recent analysis; <code>null</code>
+     * if neither {@link Settings.KEYS#ANALYSIS_METRICS} nor
+     * {@link Settings.KEYS#METRICS} is enabled.
+     */
+    private volatile AnalysisMetrics metrics;
 
     /**
      * Creates a new {@link Mode#STANDALONE} Engine.
@@ -248,9 +307,48 @@ public class Engine implements FileFilter, AutoCloseable {
         this.settings = settings;
         this.serviceClassLoader = serviceClassLoader;
         this.mode = mode;
+        this.analysisExecutor = new AnalysisExecutor(settings);
+        this.incrementalAnalysis = createIncrementalAnalysis();
+        this.metrics = createMetrics();
         initializeEngine();
     }
 
+    /**
+     * Creates the metrics used to record the analysis timings if they are
+     * collected.
+     *
+     * @return the metrics or <code>null</code> if neither
+     * {@link Settings.KEYS#ANALYSIS_METRICS} nor {@link Settings.KEYS#METRICS}
+     * is enabled
+     */
+    private AnalysisMetrics createMetrics() {
+        if (settings.getBoolean(Settings.KEYS.ANALYSIS_METRICS, true) || settings.getBoolean(Settings.KEYS.METRICS, false)) {
+            return new AnalysisMetrics();
+        }
+        return null;
+    }
+
+    /**
+     * Creates the incremental analysis if it is enabled; incremental analysis
+     * is only supported in {@link Mode#STANDALONE} mode.
+     *
+     * @return the incremental analysis or <code>null</code> if it is not
+     * enabled
+     */
+    private IncrementalAnalysis createIncrementalAnalysis() {
+        if (mode != Mode.STANDALONE || !settings.getBoolean(Settings.KEYS.ANALYSIS_INCREMENTAL, false)) {
+            return null;
+        }
+        try {
+            final DataCacheFactory factory = new DataCacheFactory(settings);
+            return new IncrementalAnalysis(factory.getIncrementalCache(), settings.getString(Settings.KEYS.APPLICATION_VERSION));
+        } catch (CacheException ex) {
+            LOGGER.warn("Unable to create the incremental analysis cache; all dependencies will be analyzed");
+            LOGGER.debug("", ex);
+            return null;
+        }
+    }
+
     /**
      * Creates a new Engine using the specified classloader to dynamically load
      * Analyzer and Update services.
@@ -273,6 +371,7 @@ public class Engine implements FileFilter, AutoCloseable {
                 database = null;
             }
         }
+        analysisExecutor.close();
         JCS.shutdown();
     }
 
@@ -311,9 +410,19 @@ public class Engine implements FileFilter, AutoCloseable {
      *
      * @param dependency the dependency to add
      */
-    public synchronized void addDependency(Dependency dependency) {
-        dependencies.add(dependency);
-        dependenciesExternalView = null;
+    public void addDependency(Dependency dependency) {
+        final String sha1 = dependency.getSha1sum();
+        synchronized (this) {
+            dependencies.add(dependency);
+            dependenciesExternalView = null;
+            if (sha1 != null) {
+                indexDependency(sha1, dependency);
+            }
+        }
+        if (incrementalAnalysis != null) {
+            incrementalAnalysis.dependencyAdded(AnalysisTask.getCurrentDependency(), dependency);
+        }
+        notifyDependencyAdded(dependency);
     }
 
     /**
@@ -333,6 +442,41 @@ public class Engine implements FileFilter, AutoCloseable {
     public synchronized void removeDependency(@NotNull final Dependency dependency) {
         dependencies.remove(dependency);
         dependenciesExternalView = null;
+        final String sha1 = dependency.getSha1sum();
+        if (sha1 != null) {
+            final Deque<Dependency> duplicates = duplicatesBySha1.get(sha1);
+            if (dependenciesBySha1.get(sha1) == dependency) {
+                //another remaining dependency with the same hash takes the place of the removed one in the index
+                final Dependency replacement = duplicates == null ? null : duplicates.poll();
+                if (replacement == null) {
+                    dependenciesBySha1.remove(sha1, dependency);
+                } else {
+                    dependenciesBySha1.replace(sha1, dependency, replacement);
+                }
+            } else if (duplicates != null) {
+                duplicates.removeIf((d) -> d == dependency);
+            }
+            if (duplicates != null && duplicates.isEmpty()) {
+                duplicatesBySha1.remove(sha1);
+            }
+        }
+        final AnalysisPipeline current = pipeline;
+        if (current != null) {
+            current.dependencyRemoved(dependency);
+        }
+    }
+
+    /**
+     * Notifies the analysis pipeline, if pipelined analysis is executing, that
+     * a dependency has been added so that it can be scheduled for analysis.
+     *
+     * @param dependency the dependency added
+     */
+    private void notifyDependencyAdded(@NotNull final Dependency dependency) {
+        final AnalysisPipeline current = pipeline;
+        if (current != null) {
+            current.dependencyAdded(dependency);
+        }
     }
 
     /**
@@ -357,6 +501,29 @@ public class Engine implements FileFilter, AutoCloseable {
         this.dependencies.clear();
         this.dependencies.addAll(dependencies);
         dependenciesExternalView = null;
+        dependenciesBySha1.clear();
+        duplicatesBySha1.clear();
+        dependencies.forEach((d) -> {
+            if (d.getSha1sum() != null) {
+                indexDependency(d.getSha1sum(), d);
+            }
+        });
+    }
+
+    /**
+     * Adds the dependency to the SHA1 index; if another dependency with the
+     * same hash is already indexed the dependency is recorded as a duplicate
+     * so that it can take the place of the indexed dependency when that one
+     * is removed. Must be called while holding the engine's lock.
+     *
+     * @param sha1 the SHA1 hash of the dependency
+     * @param dependency the dependency
+     */
+    private void indexDependency(@NotNull final String sha1, @NotNull final Dependency dependency) {
+        final Dependency indexed = dependenciesBySha1.putIfAbsent(sha1, dependency);
+        if (indexed != null && indexed != dependency) {
+            duplicatesBySha1.computeIfAbsent(sha1, (k) -> new ArrayDeque<>()).add(dependency);
+        }
     }
 
     /**
@@ -552,6 +719,9 @@ public class Engine implements FileFilter, AutoCloseable {
      * @since v1.4.4
      */
     protected List<Dependency> scanDirectory(@NotNull final File dir, @Nullable final String projectReference) {
+        if (settings.getBoolean(Settings.KEYS.SCAN_PARALLEL_DISCOVERY, false)) {
+            return scanDirectoryInParallel(dir, projectReference);
+        }
         final File[] files = dir.listFiles();
         final List<Dependency> deps = new ArrayList<>();
         if (files != null) {
@@ -572,6 +742,68 @@ public class Engine implements FileFilter, AutoCloseable {
         return deps;
     }
 
+    /**
+     * Walks the directory tree on the calling thread while the files
+     * discovered are hashed using the I/O thread pool. The dependencies
+     * identified are added to the dependency collection on the calling thread
+     * in the order the files were discovered so that the order of the
+     * dependencies, and which of several identical files is treated as the
+     * primary dependency, does not depend on the order in which the hashing
+     * completes.
+     *
+     * @param dir the directory to scan
+     * @param projectReference the name of the project or scope in which the
+     * dependency was identified
+     * @return the list of Dependency objects scanned
+     */
+    private List<Dependency> scanDirectoryInParallel(@NotNull final File dir, @Nullable final String projectReference) {
+        final ExecutorService executorService = analysisExecutor.getExecutorService(AnalyzerWorkload.IO);
+        final List<Future<List<Dependency>>> results = new ArrayList<>();
+        //the files extracted from an archive are scanned on the I/O threads on behalf of the archive being analyzed
+        final Dependency origin = AnalysisTask.getCurrentDependency();
+        try {
+            Files.walkFileTree(dir.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        final File file = path.toFile();
+                        results.add(executorService.submit(() -> createDependencies(file, origin)));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException ex) {
+                    LOGGER.debug("Unable to scan {}", path, ex);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to scan directory {}", dir);
+            LOGGER.debug("", ex);
+        }
+        final List<Dependency> deps = new ArrayList<>();
+        try {
+            for (Future<List<Dependency>> result : results) {
+                final Dependency d = addScannedDependencies(result.get(), projectReference, origin);
+                if (d != null) {
+                    deps.add(d);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            results.forEach((f) -> f.cancel(true));
+            LOGGER.warn("Scanning of {} was interrupted", dir);
+        } catch (ExecutionException ex) {
+            results.forEach((f) -> f.cancel(true));
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Unable to scan " + dir, ex.getCause());
+        }
+        return deps;
+    }
+
     /**
      * Scans a specified file. If a dependency is identified it is added to the
      * dependency collection.
@@ -585,7 +817,11 @@ public class Engine implements FileFilter, AutoCloseable {
 
     /**
      * Scans a specified file. If a dependency is identified it is added to the
-     * dependency collection.
+     * dependency collection. The file is hashed outside of any lock and
+     * duplicates are identified using the SHA1 index; as such, this method may
+     * be called from multiple threads. If incremental analysis is enabled and
+     * the file is unchanged since the previous scan the dependencies identified
+     * by the previous scan are restored.
      *
      * @param file The file to scan
      * @param projectReference the name of the project or scope in which the
@@ -593,41 +829,105 @@ public class Engine implements FileFilter, AutoCloseable {
      * @return the scanned dependency
      * @since v1.4.4
      */
-    protected synchronized Dependency scanFile(@NotNull final File file, @Nullable final String projectReference) {
-        Dependency dependency = null;
-        if (file.isFile()) {
-            if (accept(file)) {
-                dependency = new Dependency(file);
+    protected Dependency scanFile(@NotNull final File file, @Nullable final String projectReference) {
+        return scanFile(file, projectReference, AnalysisTask.getCurrentDependency());
+    }
+
+    /**
+     * Scans a specified file. If incremental analysis is enabled only the
+     * files passed to the engine are restored from and persisted as the roots
+     * of a snapshot; files scanned while analyzing another dependency (e.g.
+     * the contents of an archive) are persisted with the file the dependency
+     * originated from.
+     *
+     * @param file The file to scan
+     * @param projectReference the name of the project or scope in which the
+     * dependency was identified
+     * @param origin the dependency being analyzed when the file was
+     * discovered; <code>null</code> if the file was passed to the engine
+     * @return the scanned dependency
+     */
+    private Dependency scanFile(@NotNull final File file, @Nullable final String projectReference, @Nullable final Dependency origin) {
+        return addScannedDependencies(createDependencies(file, origin), projectReference, origin);
+    }
+
+    /**
+     * Creates, and hashes, the dependency for a file to be scanned. If
+     * incremental analysis is enabled and the file is unchanged since the
+     * previous scan the dependencies identified by the previous scan are
+     * restored. The dependencies are not added to the dependency collection.
+     *
+     * @param file The file to scan
+     * @param origin the dependency being analyzed when the file was
+     * discovered; <code>null</code> if the file was passed to the engine
+     * @return the dependency of the file followed by any other dependencies
+     * restored with it; <code>null</code> if the file is not scanned
+     */
+    private List<Dependency> createDependencies(@NotNull final File file, @Nullable final Dependency origin) {
+        if (!file.isFile()) {
+            LOGGER.debug("Path passed to scanFile(File) is not a file that can be scanned by dependency-check: {}. Skipping the file.", file);
+            return null;
+        }
+        if (!accept(file)) {
+            return null;
+        }
+        final Dependency dependency = new Dependency(file);
+        if (incrementalAnalysis != null && origin == null) {
+            return incrementalAnalysis.restore(file, dependency);
+        }
+        return Collections.singletonList(dependency);
+    }
+
+    /**
+     * Adds the dependencies created for a scanned file to the dependency
+     * collection unless an identical file has already been scanned;
+     * duplicates are identified using the SHA1 index.
+     *
+     * @param scanned the dependency of the file followed by any other
+     * dependencies restored with it; may be <code>null</code>
+     * @param projectReference the name of the project or scope in which the
+     * dependency was identified
+     * @param origin the dependency being analyzed when the file was
+     * discovered; <code>null</code> if the file was passed to the engine
+     * @return the scanned dependency
+     */
+    private Dependency addScannedDependencies(@Nullable final List<Dependency> scanned, @Nullable final String projectReference,
+            @Nullable final Dependency origin) {
+        if (scanned == null) {
+            return null;
+        }
+        Dependency dependency = scanned.get(0);
+        if (projectReference != null) {
+            dependency.addProjectReference(projectReference);
+        }
+        final String sha1 = dependency.getSha1sum();
+        boolean found = false;
+
+        if (sha1 != null) {
+            final Dependency existing = dependenciesBySha1.putIfAbsent(sha1, dependency);
+            if (existing != null) {
+                found = true;
                 if (projectReference != null) {
-                    dependency.addProjectReference(projectReference);
-                }
-                final String sha1 = dependency.getSha1sum();
-                boolean found = false;
-
-                if (sha1 != null) {
-                    for (Dependency existing : dependencies) {
-                        if (sha1.equals(existing.getSha1sum())) {
-                            found = true;
-                            if (projectReference != null) {
-                                existing.addProjectReference(projectReference);
-                            }
-                            if (existing.getActualFilePath() != null && dependency.getActualFilePath() != null
-                                    && !existing.getActualFilePath().equals(dependency.getActualFilePath())) {
-                                existing.addRelatedDependency(dependency);
-                            } else {
-                                dependency = existing;
-                            }
-                            break;
-                        }
-                    }
+                    existing.addProjectReference(projectReference);
                 }
-                if (!found) {
-                    dependencies.add(dependency);
-                    dependenciesExternalView = null;
+                if (existing.getActualFilePath() != null && dependency.getActualFilePath() != null
+                        && !existing.getActualFilePath().equals(dependency.getActualFilePath())) {
+                    existing.addRelatedDependency(dependency);
+                } else {
+                    dependency = existing;
                 }
             }
-        } else {
-            LOGGER.debug("Path passed to scanFile(File) is not a file that can be scanned by dependency-check: {}. Skipping the file.", file);
+        }
+        if (!found) {
+            synchronized (this) {
+                dependencies.add(dependency);
+                dependenciesExternalView = null;
+            }
+            if (incrementalAnalysis != null && origin != null) {
+                incrementalAnalysis.dependencyAdded(origin, dependency);
+            }
+            notifyDependencyAdded(dependency);
+            scanned.stream().skip(1).forEach(this::addDependency);
         }
         return dependency;
     }
@@ -643,12 +943,16 @@ public class Engine implements FileFilter, AutoCloseable {
      * cases an exception will occur with part of the analysis being performed
      * which may not affect the entire analysis. If an exception occurs it will
      * be included in the thrown exception collection.
+     * <p>
+     * If {@link Settings.KEYS#ANALYSIS_PIPELINED} is enabled each dependency
+     * moves through the analyzers on its own; see {@link AnalysisPipeline}.
      *
      * @throws ExceptionCollection a collections of any exceptions that occurred
      * during analysis
      */
     public void analyzeDependencies() throws ExceptionCollection {
         final List<Throwable> exceptions = Collections.synchronizedList(new ArrayList<>());
+        metrics = createMetrics();
 
         initializeAndUpdateDatabase(exceptions);
 
@@ -668,35 +972,27 @@ public class Engine implements FileFilter, AutoCloseable {
         LOGGER.info("Analysis Started");
         final long analysisStart = System.currentTimeMillis();
 
-        // analysis phases
-        for (AnalysisPhase phase : mode.getPhases()) {
-            final List<Analyzer> analyzerList = analyzers.get(phase);
-
-            for (final Analyzer analyzer : analyzerList) {
-                final long analyzerStart = System.currentTimeMillis();
-                try {
-                    initializeAnalyzer(analyzer);
-                } catch (InitializationException ex) {
-                    exceptions.add(ex);
-                    if (ex.isFatal()) {
-                        continue;
-                    }
-                }
-
-                if (analyzer.isEnabled()) {
-                    executeAnalysisTasks(analyzer, exceptions);
-
-                    final long analyzerDurationMillis = System.currentTimeMillis() - analyzerStart;
-                    final long analyzerDurationSeconds = TimeUnit.MILLISECONDS.toSeconds(analyzerDurationMillis);
-                    LOGGER.info("Finished {} ({} seconds)", analyzer.getName(), analyzerDurationSeconds);
-                } else {
-                    LOGGER.debug("Skipping {} (not enabled)", analyzer.getName());
-                }
+        final List<Analyzer> analyzerList = getAnalyzers();
+        try {
+            if (incrementalAnalysis != null) {
+                //the dependencies are persisted between the identifier and finding analysis
+                final int split = (int) analyzerList.stream()
+                        .filter((a) -> a.getAnalysisPhase().compareTo(FINDING_ANALYSIS) < 0)
+                        .count();
+                executeAnalysis(analyzerList.subList(0, split), exceptions);
+                incrementalAnalysis.save(getDependencies());
+                executeAnalysis(analyzerList.subList(split, analyzerList.size()), exceptions);
+            } else {
+                executeAnalysis(analyzerList, exceptions);
             }
+        } finally {
+            //the analyzers are prepared again if the engine is used for another analysis
+            analyzerList.stream().filter(preparedAnalyzers::remove).forEach((a) -> closeAnalyzer(a));
+        }
+        final AnalysisMetrics analysisMetrics = metrics;
+        if (database != null && analysisMetrics != null) {
+            database.getCacheMetrics().forEach(analysisMetrics::recordCache);
         }
-        mode.getPhases().stream()
-                .map((phase) -> analyzers.get(phase))
-                .forEach((analyzerList) -> analyzerList.forEach((a) -> closeAnalyzer(a)));
 
         LOGGER.debug("\n----------------------------------------------------\nEND ANALYSIS\n----------------------------------------------------");
         final long analysisDurationSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - analysisStart);
@@ -706,6 +1002,79 @@ public class Engine implements FileFilter, AutoCloseable {
         }
     }
 
+    /**
+     * Executes the given analyzers either pipelined or phase by phase
+     * depending on the configuration.
+     *
+     * @param analyzerList the ordered list of analyzers to execute
+     * @param exceptions a collection to store non-fatal exceptions
+     * @throws ExceptionCollection thrown if fatal exceptions occur
+     */
+    private void executeAnalysis(@NotNull final List<Analyzer> analyzerList,
+            @NotNull final List<Throwable> exceptions) throws ExceptionCollection {
+        if (settings.getBoolean(Settings.KEYS.ANALYSIS_PIPELINED, false)) {
+            executePipelinedAnalysis(analyzerList, exceptions);
+        } else {
+            executePhasedAnalysis(analyzerList, exceptions);
+        }
+    }
+
+    /**
+     * Executes the analyzers phase by phase; each analyzer completes the
+     * analysis of every dependency before the next analyzer is started.
+     *
+     * @param analyzerList the ordered list of analyzers to execute
+     * @param exceptions a collection to store non-fatal exceptions
+     * @throws ExceptionCollection thrown if fatal exceptions occur
+     */
+    private void executePhasedAnalysis(@NotNull final List<Analyzer> analyzerList,
+            @NotNull final List<Throwable> exceptions) throws ExceptionCollection {
+        for (final Analyzer analyzer : analyzerList) {
+            final long analyzerStart = System.currentTimeMillis();
+            if (!hasMatchingDependencies(analyzer)) {
+                LOGGER.debug("Skipping {} (no matching dependencies)", analyzer.getName());
+                continue;
+            }
+            try {
+                initializeAnalyzer(analyzer);
+            } catch (InitializationException ex) {
+                exceptions.add(ex);
+                if (ex.isFatal()) {
+                    continue;
+                }
+            }
+
+            if (analyzer.isEnabled()) {
+                executeAnalysisTasks(analyzer, exceptions);
+
+                final long analyzerDurationMillis = System.currentTimeMillis() - analyzerStart;
+                final long analyzerDurationSeconds = TimeUnit.MILLISECONDS.toSeconds(analyzerDurationMillis);
+                LOGGER.info("Finished {} ({} seconds)", analyzer.getName(), analyzerDurationSeconds);
+            } else {
+                LOGGER.debug("Skipping {} (not enabled)", analyzer.getName());
+            }
+        }
+    }
+
+    /**
+     * Executes the analyzers such that each dependency moves through the
+     * analysis phases on its own; only analyzers that require all of the
+     * dependencies wait for the preceding analysis to complete.
+     *
+     * @param analyzerList the ordered list of analyzers to execute
+     * @param exceptions a collection to store non-fatal exceptions
+     * @throws ExceptionCollection thrown if fatal exceptions occur
+     */
+    void executePipelinedAnalysis(@NotNull final List<Analyzer> analyzerList,
+            @NotNull final List<Throwable> exceptions) throws ExceptionCollection {
+        pipeline = new AnalysisPipeline(this, exceptions);
+        try {
+            pipeline.execute(analyzerList);
+        } finally {
+            pipeline = null;
+        }
+    }
+
     /**
      * Performs any necessary updates and initializes the database.
      *
@@ -729,9 +1098,13 @@ public class Engine implements FileFilter, AutoCloseable {
             } catch (DatabaseException ex) {
                 throwFatalDatabaseException(ex, exceptions);
             }
-        } else {
+        } else if (database == null) {
             try {
-                if (ConnectionFactory.isH2Connection(settings) && !ConnectionFactory.h2DataFileExists(settings)) {
+                final File snapshot = settings.getFile(Settings.KEYS.DB_SNAPSHOT_FILE);
+                if (snapshot != null && snapshot.isFile()) {
+                    openDatabase(true, false);
+                } else if (ConnectionFactory.isH2Connection(settings) && !ConnectionFactory.h2DataFileExists(settings)
+                        && !(H2DBGenerations.isEnabled(settings) && new H2DBGenerations(settings).getCurrent() != null)) {
                     throw new ExceptionCollection(new NoDataException("Autoupdate is disabled and the database does not exist"), true);
                 } else {
                     openDatabase(true, true);
@@ -765,7 +1138,11 @@ public class Engine implements FileFilter, AutoCloseable {
     }
 
     /**
-     * Executes executes the analyzer using multiple threads.
+     * Executes executes the analyzer using multiple threads. The analysis of
+     * each dependency is bounded by {@link Settings.KEYS#ANALYSIS_TASK_TIMEOUT};
+     * a task that exceeds it is recorded as a non-fatal exception.
+     * {@link Settings.KEYS#ANALYSIS_TIMEOUT} remains as a backstop for
+     * analyzers that do not check their deadline.
      *
      * @param exceptions a collection of exceptions that occurred during
      * analysis
@@ -776,6 +1153,7 @@ public class Engine implements FileFilter, AutoCloseable {
         LOGGER.debug("Starting {}", analyzer.getName());
         final List<AnalysisTask> analysisTasks = getAnalysisTasks(analyzer, exceptions);
         final ExecutorService executorService = getExecutorService(analyzer);
+        final long start = System.nanoTime();
 
         try {
             final int timeout = settings.getInt(Settings.KEYS.ANALYSIS_TIMEOUT, 20);
@@ -795,12 +1173,18 @@ public class Engine implements FileFilter, AutoCloseable {
             Thread.currentThread().interrupt();
             throwFatalExceptionCollection("Analysis has been interrupted.", e, exceptions);
         } finally {
-            executorService.shutdown();
+            final AnalysisMetrics analysisMetrics = metrics;
+            if (analysisMetrics != null) {
+                analysisMetrics.recordElapsedTime(analyzer.getName(), System.nanoTime() - start);
+            }
         }
     }
 
     /**
-     * Returns the analysis tasks for the dependencies.
+     * Returns the analysis tasks for the dependencies. If the analyzer
+     * supports batch analysis (see {@link Analyzer#getBatchSize()}) each task
+     * analyzes a batch of up to the analyzer's batch size dependencies;
+     * otherwise each task analyzes a single dependency.
      *
      * @param analyzer the analyzer to create tasks for
      * @param exceptions the collection of exceptions to collect
@@ -808,25 +1192,123 @@ public class Engine implements FileFilter, AutoCloseable {
      */
     protected synchronized List<AnalysisTask> getAnalysisTasks(Analyzer analyzer, List<Throwable> exceptions) {
         final List<AnalysisTask> result = new ArrayList<>();
-        dependencies.stream().map((dependency) -> new AnalysisTask(analyzer, dependency, this, exceptions)).forEach((task) -> result.add(task));
+        final int batchSize = analyzer.getBatchSize();
+        if (batchSize > 1) {
+            final List<Dependency> candidates = dependencies.stream()
+                    .filter((dependency) -> isCandidate(analyzer, dependency)).collect(Collectors.toList());
+            for (int i = 0; i < candidates.size(); i += batchSize) {
+                final List<Dependency> batch = new ArrayList<>(candidates.subList(i, Math.min(i + batchSize, candidates.size())));
+                result.add(AnalysisTask.forBatch(analyzer, batch, this, exceptions));
+            }
+        } else {
+            dependencies.stream().filter((dependency) -> isCandidate(analyzer, dependency))
+                    .map((dependency) -> new AnalysisTask(analyzer, dependency, this, exceptions)).forEach((task) -> result.add(task));
+        }
         return result;
     }
 
     /**
-     * Returns the executor service for a given analyzer.
+     * Determines if the analyzer may analyze the dependency; file type
+     * analyzers are only candidates for the dependencies whose file name or
+     * extension they accept. The analysis task still determines if the
+     * analyzer accepts the dependency.
+     *
+     * @param analyzer the analyzer
+     * @param dependency the dependency
+     * @return <code>true</code> if the analyzer may analyze the dependency;
+     * otherwise <code>false</code>
+     */
+    boolean isCandidate(@NotNull final Analyzer analyzer, @NotNull final Dependency dependency) {
+        return !(analyzer instanceof FileTypeAnalyzer)
+                || getFileTypeAnalyzerIndex().isCandidate((FileTypeAnalyzer) analyzer, dependency.getActualFile());
+    }
+
+    /**
+     * Determines if the analyzer will analyze at least one of the
+     * dependencies; analyzers without a matching dependency are neither
+     * prepared nor closed.
+     *
+     * @param analyzer the analyzer
+     * @return <code>true</code> if at least one dependency matches the
+     * analyzer; otherwise <code>false</code>
+     */
+    boolean hasMatchingDependencies(@NotNull final Analyzer analyzer) {
+        final Dependency[] deps = getDependencies();
+        if (!(analyzer instanceof FileTypeAnalyzer)) {
+            return deps.length > 0;
+        }
+        final FileTypeAnalyzer fileTypeAnalyzer = (FileTypeAnalyzer) analyzer;
+        for (Dependency dependency : deps) {
+            if (isCandidate(analyzer, dependency) && fileTypeAnalyzer.accept(dependency.getActualFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the file type analyzers, building it if required.
+     *
+     * @return the index of the file type analyzers
+     */
+    private FileTypeAnalyzerIndex getFileTypeAnalyzerIndex() {
+        FileTypeAnalyzerIndex index = fileTypeAnalyzerIndex;
+        if (index == null) {
+            synchronized (fileTypeAnalyzers) {
+                index = fileTypeAnalyzerIndex;
+                if (index == null) {
+                    index = new FileTypeAnalyzerIndex(fileTypeAnalyzers);
+                    fileTypeAnalyzerIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the executor service for a given analyzer. The executor service
+     * is shared by all analyzers and must not be shut down by the caller.
      *
      * @param analyzer the analyzer to obtain an executor
      * @return the executor service
      */
     protected ExecutorService getExecutorService(Analyzer analyzer) {
-        if (analyzer.supportsParallelProcessing()) {
-            final int maximumNumberOfThreads = Runtime.getRuntime().availableProcessors();
-            LOGGER.debug("Parallel processing with up to {} threads: {}.", maximumNumberOfThreads, analyzer.getName());
-            return Executors.newFixedThreadPool(maximumNumberOfThreads);
-        } else {
-            LOGGER.debug("Parallel processing is not supported: {}.", analyzer.getName());
-            return Executors.newSingleThreadExecutor();
-        }
+        return analysisExecutor.getExecutorService(analyzer);
+    }
+
+    /**
+     * Determines if the analyzer must be executed against the dependency; when
+     * incremental analysis is enabled the dependencies restored from a
+     * previous scan are not re-analyzed by the evidence collection and
+     * identifier analyzers.
+     *
+     * @param analyzer the analyzer
+     * @param dependency the dependency
+     * @return <code>true</code> if the analyzer must be executed; otherwise
+     * <code>false</code>
+     */
+    boolean isAnalysisRequired(@NotNull final Analyzer analyzer, @NotNull final Dependency dependency) {
+        return incrementalAnalysis == null || incrementalAnalysis.isAnalysisRequired(analyzer, dependency);
+    }
+
+    /**
+     * Returns the timings recorded during the most recent analysis; the
+     * metrics are reset each time {@link #analyzeDependencies()} is called.
+     *
+     * @return the analysis metrics or <code>null</code> if the collection of
+     * metrics has been disabled (see {@link Settings.KEYS#ANALYSIS_METRICS})
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the thread pools used to execute the analyzers.
+     *
+     * @return the analysis executor
+     */
+    public AnalysisExecutor getAnalysisExecutor() {
+        return analysisExecutor;
     }
 
     /**
@@ -837,6 +1319,7 @@ public class Engine implements FileFilter, AutoCloseable {
      * initializing the analyzer
      */
     protected void initializeAnalyzer(@NotNull final Analyzer analyzer) throws InitializationException {
+        preparedAnalyzers.add(analyzer);
         try {
             LOGGER.debug("Initializing {}", analyzer.getName());
             analyzer.prepare(this);
@@ -891,7 +1374,9 @@ public class Engine implements FileFilter, AutoCloseable {
 
     /**
      * Cycles through the cached web data sources and calls update on all of
-     * them.
+     * them. When generational updates are enabled the updates are made to a
+     * staging copy of the database that is published once the updates
+     * complete; scans continue to read the current copy in the meantime.
      *
      * @param remainOpen whether or not the database connection should remain
      * open
@@ -902,12 +1387,20 @@ public class Engine implements FileFilter, AutoCloseable {
     public void doUpdates(boolean remainOpen) throws UpdateException, DatabaseException {
         if (mode.isDatabaseRequired()) {
             H2DBLock dblock = null;
+            H2DBGenerations generations = null;
+            File staging = null;
+            final String h2DataDirectory = settings.getString(Settings.KEYS.H2_DATA_DIRECTORY);
             try {
                 if (ConnectionFactory.isH2Connection(settings)) {
                     dblock = new H2DBLock(settings);
                     LOGGER.debug("locking for update");
                     dblock.lock();
                 }
+                if (H2DBGenerations.isEnabled(settings)) {
+                    generations = new H2DBGenerations(settings);
+                    staging = generations.createStaging();
+                    settings.setString(Settings.KEYS.H2_DATA_DIRECTORY, staging.getPath());
+                }
                 //lock is not needed as we already have the lock held
                 openDatabase(false, false);
                 LOGGER.info("Checking for updates");
@@ -925,11 +1418,27 @@ public class Engine implements FileFilter, AutoCloseable {
                         LOGGER.error(ex.getMessage(), ex);
                     }
                 }
+                //the snapshot must be written before the defrag as the defrag closes the connection
+                final File snapshot = settings.getFile(Settings.KEYS.DB_SNAPSHOT_FILE);
+                if (snapshot != null && (dbUpdatesMade || !snapshot.isFile())) {
+                    LOGGER.debug("Exporting the vulnerability snapshot to {}", snapshot);
+                    database.exportSnapshot(snapshot);
+                }
                 if (dbUpdatesMade) {
                     database.defrag();
                 }
                 database.close();
                 database = null;
+                if (staging != null) {
+                    if (dbUpdatesMade || generations.getCurrent() == null) {
+                        generations.publish(staging);
+                    } else {
+                        generations.discard(staging);
+                    }
+                    staging = null;
+                    restoreH2DataDirectory(h2DataDirectory);
+                    generations.collectGarbage();
+                }
                 if (updateException != null) {
                     throw updateException;
                 }
@@ -940,7 +1449,17 @@ public class Engine implements FileFilter, AutoCloseable {
                 }
             } catch (H2DBLockException ex) {
                 throw new UpdateException("Unable to obtain an exclusive lock on the H2 database to perform updates", ex);
+            } catch (IOException ex) {
+                throw new UpdateException("Unable to create or publish the staging copy of the H2 database", ex);
             } finally {
+                if (staging != null) {
+                    if (database != null) {
+                        database.close();
+                        database = null;
+                    }
+                    generations.discard(staging);
+                    restoreH2DataDirectory(h2DataDirectory);
+                }
                 if (dblock != null) {
                     dblock.release();
                 }
@@ -950,6 +1469,21 @@ public class Engine implements FileFilter, AutoCloseable {
         }
     }
 
+    /**
+     * Restores the configured H2 data directory after an update of a staging
+     * copy of the database.
+     *
+     * @param h2DataDirectory the previously configured H2 data directory; or
+     * <code>null</code> if none was configured
+     */
+    private void restoreH2DataDirectory(String h2DataDirectory) {
+        if (h2DataDirectory == null) {
+            settings.removeProperty(Settings.KEYS.H2_DATA_DIRECTORY);
+        } else {
+            settings.setString(Settings.KEYS.H2_DATA_DIRECTORY, h2DataDirectory);
+        }
+    }
+
     /**
      * Purges the cached web data sources.
      *
@@ -1017,16 +1551,35 @@ public class Engine implements FileFilter, AutoCloseable {
      */
     public void openDatabase(boolean readOnly, boolean lockRequired) throws DatabaseException {
         if (mode.isDatabaseRequired() && database == null) {
+            final File snapshot = settings.getFile(Settings.KEYS.DB_SNAPSHOT_FILE);
+            if (readOnly && snapshot != null && snapshot.isFile()) {
+                //the snapshot is replaced atomically so no lock is required
+                LOGGER.debug("opening the vulnerability snapshot {}", snapshot);
+                database = CveDB.openSnapshot(settings, snapshot);
+                return;
+            }
             H2DBLock lock = null;
             try {
-                if (lockRequired && ConnectionFactory.isH2Connection(settings)) {
-                    lock = new H2DBLock(settings);
+                File generationFile = null;
+                if (readOnly && H2DBGenerations.isEnabled(settings)) {
+                    final H2DBGenerations generations = new H2DBGenerations(settings);
+                    final File current = generations.getCurrent();
+                    if (current != null) {
+                        //published generations are never modified; the shared lock on the generation
+                        //only prevents it from being deleted while it is copied
+                        LOGGER.debug("opening the database generation {}", current);
+                        lock = generations.lock(current);
+                        generationFile = generations.getDataFile(current);
+                    }
+                }
+                if (lock == null && lockRequired && ConnectionFactory.isH2Connection(settings)) {
+                    lock = new H2DBLock(settings, readOnly);
                     lock.lock();
                 }
                 if (readOnly
                         && ConnectionFactory.isH2Connection(settings)
                         && settings.getString(Settings.KEYS.DB_CONNECTION_STRING).contains("file:%s")) {
-                    final File db = ConnectionFactory.getH2DataFile(settings);
+                    final File db = generationFile != null ? generationFile : ConnectionFactory.getH2DataFile(settings);
                     if (db.isFile()) {
                         final File temp = settings.getTempDirectory();
                         final File tempDB = new File(temp, db.getName());
@@ -1099,7 +1652,8 @@ public class Engine implements FileFilter, AutoCloseable {
         }
         /* note, we can't break early on this loop as the analyzers need to know if
         they have files to work on prior to initialization */
-        return this.fileTypeAnalyzers.stream().map((a) -> a.accept(file)).reduce(false, (accumulator, result) -> accumulator || result);
+        return getFileTypeAnalyzerIndex().getCandidates(file).stream().map((a) -> a.accept(file))
+                .reduce(false, (accumulator, result) -> accumulator || result);
     }
 
     /**
@@ -1136,7 +1690,10 @@ public class Engine implements FileFilter, AutoCloseable {
      * @param fta the file type analyzer to add
      */
     protected void addFileTypeAnalyzer(@NotNull final FileTypeAnalyzer fta) {
-        this.fileTypeAnalyzers.add(fta);
+        synchronized (fileTypeAnalyzers) {
+            this.fileTypeAnalyzers.add(fta);
+            fileTypeAnalyzerIndex = null;
+        }
     }
 
     /**
@@ -1160,7 +1717,7 @@ public class Engine implements FileFilter, AutoCloseable {
      * @throws ExceptionCollection a collection of exceptions that occurred
      * during analysis
      */
-    private void throwFatalExceptionCollection(String message, @NotNull final Throwable throwable,
+    void throwFatalExceptionCollection(String message, @NotNull final Throwable throwable,
             @NotNull final List<Throwable> exceptions) throws ExceptionCollection {
         LOGGER.error(message);
         LOGGER.debug("", throwable);
@@ -1253,5 +1810,11 @@ public class Engine implements FileFilter, AutoCloseable {
             final String msg = String.format("Error generating the report for %s", applicationName);
             throw new ReportException(msg, ex);
         }
+        if (settings.getBoolean(Settings.KEYS.METRICS, false) && metrics != null) {
+            final boolean isReportFile = !outputDir.isDirectory() && outputDir.getName().contains(".")
+                    && !"ALL".equalsIgnoreCase(format);
+            final File metricsDir = isReportFile ? outputDir.getAbsoluteFile().getParentFile() : outputDir;
+            MetricsWriter.write(metrics, metricsDir);
+        }
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.owasp.dependencycheck.analyzer.AnalysisPhase;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.analyzer.FileTypeAnalyzer;
+import org.owasp.dependencycheck.data.cache.DataCache;
+import org.owasp.dependencycheck.data.incremental.AnalysisSnapshot;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Re-uses the results of the evidence collection and identifier analysis from
+ * a previous scan for files that have not changed. The dependencies identified
+ * from each scanned file, including any dependencies discovered while
+ * analyzing the file, are persisted once the
+ * {@link AnalysisPhase#PRE_FINDING_ANALYSIS} phase completes. When a file with
+ * the same path, size, last modified timestamp, and SHA1 is scanned again the
+ * persisted dependencies are restored and only the analyzers from the
+ * {@link AnalysisPhase#FINDING_ANALYSIS} phase onward are executed against
+ * them.
+ * <p>
+ * Analyzers that require all of the dependencies are always executed as their
+ * results depend on the other dependencies scanned. Changes to the hints or
+ * suppression rules used during the identifier analysis are not detected; the
+ * cache should be purged when they change.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+class IncrementalAnalysis {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalAnalysis.class);
+    /**
+     * The persisted snapshots.
+     */
+    private final DataCache<AnalysisSnapshot> cache;
+    /**
+     * The prefix of the cache keys; the snapshots of a different version of
+     * dependency-check are not re-used.
+     */
+    private final String keyPrefix;
+    /**
+     * The scanned files keyed by the dependency identified from the file.
+     */
+    private final Map<Dependency, File> scanned = Collections.synchronizedMap(new IdentityHashMap<>());
+    /**
+     * The dependency of the scanned file from which each discovered
+     * dependency originated.
+     */
+    private final Map<Dependency, Dependency> origins = Collections.synchronizedMap(new IdentityHashMap<>());
+    /**
+     * The dependencies restored from a snapshot.
+     */
+    private final Set<Dependency> restored = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+    /**
+     * Constructs a new incremental analysis.
+     *
+     * @param cache the cache used to persist the snapshots
+     * @param version the version of dependency-check
+     */
+    IncrementalAnalysis(@NotNull final DataCache<AnalysisSnapshot> cache, @Nullable final String version) {
+        this.cache = cache;
+        this.keyPrefix = version == null ? "" : version + ":";
+    }
+
+    /**
+     * Restores the dependencies identified from the given file during a
+     * previous scan if the file is unchanged. Only called for the files passed
+     * to the engine; the dependencies discovered while analyzing them are
+     * recorded using {@link #dependencyAdded(Dependency, Dependency)}.
+     *
+     * @param file the file scanned
+     * @param dependency the dependency created for the file
+     * @return the dependencies to add for the file; the first entry is the
+     * dependency of the file itself
+     */
+    List<Dependency> restore(@NotNull final File file, @NotNull final Dependency dependency) {
+        final AnalysisSnapshot snapshot = cache.get(keyPrefix + file.getAbsolutePath());
+        if (snapshot != null && snapshot.matches(file) && snapshot.getSha1() != null
+                && snapshot.getSha1().equals(dependency.getSha1sum())) {
+            //the cache may return the instance held in memory; a copy is used so that the analysis does not alter it
+            final List<Dependency> result = SerializationUtils.clone(snapshot).getDependencies();
+            final Dependency root = result.get(0);
+            scanned.put(root, file);
+            for (Dependency d : result) {
+                restored.add(d);
+                if (d != root) {
+                    origins.put(d, root);
+                }
+            }
+            LOGGER.debug("Re-using the previous analysis of {}", file);
+            return result;
+        }
+        scanned.put(dependency, file);
+        return Collections.singletonList(dependency);
+    }
+
+    /**
+     * Records the dependency being analyzed when another dependency was
+     * discovered so that the discovered dependency is persisted with the file
+     * it originated from.
+     *
+     * @param origin the dependency being analyzed; may be <code>null</code>
+     * @param dependency the dependency discovered
+     */
+    void dependencyAdded(@Nullable final Dependency origin, @NotNull final Dependency dependency) {
+        if (origin != null && origin != dependency) {
+            final Dependency root = origins.get(origin);
+            origins.put(dependency, root == null ? origin : root);
+        }
+    }
+
+    /**
+     * Determines if the analyzer must be executed against the dependency.
+     * Dependencies restored from a snapshot are only analyzed from the
+     * {@link AnalysisPhase#FINDING_ANALYSIS} phase onward; file type analyzers
+     * are skipped if the file no longer exists (e.g. the contents of an
+     * archive extracted during the previous scan).
+     *
+     * @param analyzer the analyzer
+     * @param dependency the dependency
+     * @return <code>true</code> if the analyzer must be executed; otherwise
+     * <code>false</code>
+     */
+    boolean isAnalysisRequired(@NotNull final Analyzer analyzer, @NotNull final Dependency dependency) {
+        if (!restored.contains(dependency) || analyzer.requiresAllDependencies()) {
+            return true;
+        }
+        if (analyzer.getAnalysisPhase().compareTo(AnalysisPhase.FINDING_ANALYSIS) < 0) {
+            return false;
+        }
+        return !(analyzer instanceof FileTypeAnalyzer) || dependency.getActualFile().isFile();
+    }
+
+    /**
+     * Persists the dependencies identified from each scanned file. A scanned
+     * file is only persisted if the dependency of the file itself is still
+     * part of the given dependencies.
+     *
+     * @param dependencies the dependencies identified by the engine
+     */
+    void save(@NotNull final Dependency[] dependencies) {
+        final Map<Dependency, List<Dependency>> snapshots = new IdentityHashMap<>();
+        final Set<Dependency> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(present, dependencies);
+        for (Dependency d : dependencies) {
+            final Dependency origin = origins.get(d);
+            final Dependency root = origin == null ? d : origin;
+            if (present.contains(root) && scanned.containsKey(root)) {
+                final List<Dependency> list = snapshots.computeIfAbsent(root, (k) -> new ArrayList<>());
+                if (d == root) {
+                    list.add(0, d);
+                } else {
+                    list.add(d);
+                }
+            }
+        }
+        int count = 0;
+        for (Map.Entry<Dependency, List<Dependency>> entry : snapshots.entrySet()) {
+            final Dependency root = entry.getKey();
+            final File file = scanned.get(root);
+            if (file != null && file.isFile() && root.getSha1sum() != null) {
+                //the dependencies continue to be analyzed; a copy is cached so that the findings are not persisted
+                final AnalysisSnapshot snapshot = new AnalysisSnapshot(file, root.getSha1sum(), entry.getValue());
+                cache.put(keyPrefix + file.getAbsolutePath(), SerializationUtils.clone(snapshot));
+                count += 1;
+            }
+        }
+        LOGGER.debug("Persisted the analysis of {} scanned files", count);
+    }
+}
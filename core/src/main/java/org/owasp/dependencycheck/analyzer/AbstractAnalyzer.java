@@ -23,6 +23,7 @@ import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.InitializationException;
 import org.owasp.dependencycheck.utils.Settings;
 
+import java.util.List;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -143,6 +144,35 @@ public abstract class AbstractAnalyzer implements Analyzer {
      */
     protected abstract void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException;
 
+    /**
+     * Analyzes the given dependencies if the analyzer is enabled.
+     *
+     * @param dependencies the dependencies to analyze
+     * @param engine the engine scanning
+     * @throws AnalysisException thrown if there is an analysis exception
+     */
+    @Override
+    public final void analyzeBatch(List<Dependency> dependencies, Engine engine) throws AnalysisException {
+        if (this.isEnabled()) {
+            analyzeDependencies(dependencies, engine);
+        }
+    }
+
+    /**
+     * Analyzes the given dependencies; the default implementation analyzes
+     * each dependency in turn. Analyzers that override this method should also
+     * override {@link #getBatchSize()}.
+     *
+     * @param dependencies the dependencies to analyze
+     * @param engine the engine scanning
+     * @throws AnalysisException thrown if there is an analysis exception
+     */
+    protected void analyzeDependencies(List<Dependency> dependencies, Engine engine) throws AnalysisException {
+        for (Dependency dependency : dependencies) {
+            analyzeDependency(dependency, engine);
+        }
+    }
+
     /**
      * The close method does nothing for this Analyzer.
      *
@@ -56,6 +56,17 @@ public abstract class AbstractDependencyComparingAnalyzer extends AbstractAnalyz
         return analyzed;
     }
 
+    /**
+     * Resets the analyzer so that it runs again when the engine is used for
+     * another analysis.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Override
+    protected synchronized void closeAnalyzer() throws Exception {
+        analyzed = false;
+    }
+
     /**
      * Does not support parallel processing as it only runs once and then
      * operates on <em>all</em> dependencies.
@@ -68,6 +79,16 @@ public abstract class AbstractDependencyComparingAnalyzer extends AbstractAnalyz
         return false;
     }
 
+    /**
+     * The comparison is performed across <em>all</em> dependencies.
+     *
+     * @return true
+     */
+    @Override
+    public final boolean requiresAllDependencies() {
+        return true;
+    }
+
     /**
      * Analyzes a set of dependencies. If they have been found to have the same
      * base path and the same set of identifiers they are likely related. The
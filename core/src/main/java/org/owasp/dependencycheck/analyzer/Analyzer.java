@@ -23,6 +23,8 @@ import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.InitializationException;
 import org.owasp.dependencycheck.utils.Settings;
 
+import java.util.List;
+
 /**
  * <p>
  * An interface that defines an Analyzer that is used to identify Dependencies.
@@ -34,7 +36,8 @@ import org.owasp.dependencycheck.utils.Settings;
  * <ol>
  * <li>{@link #initialize(org.owasp.dependencycheck.utils.Settings)}</li>
  * <li>{@link #prepare(org.owasp.dependencycheck.Engine)}</li>
- * <li>{@link #analyze(org.owasp.dependencycheck.dependency.Dependency, org.owasp.dependencycheck.Engine)}</li>
+ * <li>{@link #analyze(org.owasp.dependencycheck.dependency.Dependency, org.owasp.dependencycheck.Engine)}
+ * or {@link #analyzeBatch(java.util.List, org.owasp.dependencycheck.Engine)}</li>
  * <li>{@link #close()}</li>
  * </ol>
  *
@@ -56,6 +59,38 @@ public interface Analyzer {
      */
     void analyze(Dependency dependency, Engine engine) throws AnalysisException;
 
+    /**
+     * Analyzes the given dependencies as a single unit of work. The engine
+     * only calls this method when {@link #getBatchSize()} is greater than one,
+     * passing at most that many dependencies at a time; analyzers that can
+     * process a set of dependencies at once (e.g. remote lookups or database
+     * queries) should override both methods. The default implementation
+     * analyzes each dependency in turn.
+     *
+     * @param dependencies the dependencies to analyze
+     * @param engine the engine that is scanning the dependencies
+     * @throws AnalysisException is thrown if there is an error analyzing the
+     * dependencies
+     */
+    default void analyzeBatch(List<Dependency> dependencies, Engine engine) throws AnalysisException {
+        for (Dependency dependency : dependencies) {
+            analyze(dependency, engine);
+        }
+    }
+
+    /**
+     * Returns the preferred number of dependencies passed to
+     * {@link #analyzeBatch(java.util.List, org.owasp.dependencycheck.Engine)};
+     * a value of one or less indicates that the dependencies are analyzed one
+     * at a time using
+     * {@link #analyze(org.owasp.dependencycheck.dependency.Dependency, org.owasp.dependencycheck.Engine)}.
+     *
+     * @return the preferred batch size
+     */
+    default int getBatchSize() {
+        return 1;
+    }
+
     /**
      * Returns the name of the analyzer.
      *
@@ -105,6 +140,29 @@ public interface Analyzer {
      */
     boolean supportsParallelProcessing();
 
+    /**
+     * Returns whether the analyzer operates on the complete set of
+     * dependencies rather than on each dependency in isolation. When analysis
+     * is pipelined such analyzers act as a barrier: they are only executed
+     * once every dependency has completed the preceding analyzers.
+     *
+     * @return {@code true} if the analyzer requires all dependencies to have
+     * completed the prior analysis; otherwise {@code false}
+     */
+    default boolean requiresAllDependencies() {
+        return false;
+    }
+
+    /**
+     * Returns the type of work the analyzer performs; this is used to select
+     * the thread pool on which the analyzer is executed.
+     *
+     * @return the workload of the analyzer
+     */
+    default AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.CPU;
+    }
+
     /**
      * Get the value of enabled.
      *
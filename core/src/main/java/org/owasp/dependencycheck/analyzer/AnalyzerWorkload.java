@@ -0,0 +1,38 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer;
+
+/**
+ * An enumeration describing the type of work an analyzer performs; used by
+ * the engine to select the thread pool the analyzer is executed on.
+ *
+ * @author Jeremy Long
+ */
+public enum AnalyzerWorkload {
+
+    /**
+     * The analyzer is primarily bound by the CPU (parsing, hashing, index
+     * searches, etc.).
+     */
+    CPU,
+    /**
+     * The analyzer spends most of its time waiting on I/O such as remote
+     * service calls or external processes.
+     */
+    IO
+}
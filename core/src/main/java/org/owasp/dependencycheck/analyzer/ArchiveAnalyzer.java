@@ -46,8 +46,10 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipUtils;
 import org.apache.commons.compress.utils.IOUtils;
 
+import org.owasp.dependencycheck.AnalysisTask;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisTimeoutException;
 import org.owasp.dependencycheck.analyzer.exception.ArchiveExtractionException;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.InitializationException;
@@ -253,6 +255,7 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      * dependencies
      */
     private void extractAndAnalyze(Dependency dependency, Engine engine, int scanDepth) throws AnalysisException {
+        AnalysisTask.checkDeadline();
         final File f = new File(dependency.getActualFilePath());
         final File tmpDir = getNextTempDirectory();
         extractFiles(f, tmpDir, engine);
@@ -532,13 +535,17 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      * @param engine the dependency-check engine
      * @throws ArchiveExtractionException thrown if there is an exception
      * extracting files from the archive
+     * @throws AnalysisTimeoutException thrown if the analysis task exceeds its
+     * deadline during the extraction
      */
-    private void extractArchive(ArchiveInputStream input, File destination, Engine engine) throws ArchiveExtractionException {
+    private void extractArchive(ArchiveInputStream input, File destination, Engine engine)
+            throws ArchiveExtractionException, AnalysisTimeoutException {
         ArchiveEntry entry;
         try {
             //final String destPath = destination.getCanonicalPath();
             final Path d = destination.toPath();
             while ((entry = input.getNextEntry()) != null) {
+                AnalysisTask.checkDeadline();
                 //final File file = new File(destination, entry.getName());
                 final Path f = d.resolve(entry.getName()).normalize();
                 if (!f.startsWith(d)) {
@@ -557,6 +564,8 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                     extractAcceptedFile(input, file);
                 }
             }
+        } catch (AnalysisTimeoutException ex) {
+            throw ex;
         } catch (IOException | AnalysisException ex) {
             throw new ArchiveExtractionException(ex);
         } finally {
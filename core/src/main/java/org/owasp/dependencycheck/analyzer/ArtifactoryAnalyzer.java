@@ -176,6 +176,16 @@ public class ArtifactoryAnalyzer extends AbstractFileTypeAnalyzer {
         return ANALYSIS_PHASE;
     }
 
+    /**
+     * Artifactory is queried remotely for each dependency.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     @Override
     protected FileFilter getFileFilter() {
         return FILTER;
@@ -24,13 +24,16 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
+import org.owasp.dependencycheck.AnalysisTask;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisTimeoutException;
 import org.owasp.dependencycheck.dependency.Confidence;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.utils.FileFilterBuilder;
@@ -41,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.apache.commons.lang3.StringUtils;
@@ -145,24 +149,31 @@ public class AssemblyAnalyzer extends AbstractFileTypeAnalyzer {
         final List<String> args = new ArrayList<>(baseArgumentList);
         args.add(dependency.getActualFilePath());
         final ProcessBuilder pb = new ProcessBuilder(args);
+        File output = null;
+        File errors = null;
         try {
+            //the output is written to files so that a hung process can be abandoned when the task deadline is reached
+            output = File.createTempFile("grok", ".xml", getSettings().getTempDirectory());
+            errors = File.createTempFile("grok", ".err", getSettings().getTempDirectory());
+            pb.redirectOutput(output);
+            pb.redirectError(errors);
             final Process proc = pb.start();
-            final GrokParser parser = new GrokParser();
-            final AssemblyData data = parser.parse(proc.getInputStream());
-
-            // Try evacuating the error stream
-            final String errorStream = IOUtils.toString(proc.getErrorStream(), StandardCharsets.UTF_8);
-            if (null != errorStream && !errorStream.isEmpty()) {
-                LOGGER.warn("Error from GrokAssembly: {}", errorStream);
-            }
-
             final int rc;
             try {
-                rc = proc.waitFor();
+                rc = waitFor(proc, dependency);
             } catch (InterruptedException ie) {
+                proc.destroyForcibly();
                 Thread.currentThread().interrupt();
                 return;
             }
+            final GrokParser parser = new GrokParser();
+            final AssemblyData data = parser.parse(output);
+
+            final String errorStream = new String(Files.readAllBytes(errors.toPath()), StandardCharsets.UTF_8);
+            if (!errorStream.isEmpty()) {
+                LOGGER.warn("Error from GrokAssembly: {}", errorStream);
+            }
+
             if (rc == 3) {
                 LOGGER.debug("{} is not a .NET assembly or executable and as such cannot be analyzed by dependency-check",
                         dependency.getActualFilePath());
@@ -329,9 +340,40 @@ public class AssemblyAnalyzer extends AbstractFileTypeAnalyzer {
             throw new AnalysisException("Couldn't parse Assembly Analyzer results (GrokAssembly)", saxe);
         } catch (IOException ioe) {
             throw new AnalysisException(ioe);
+        } finally {
+            if (output != null) {
+                FileUtils.delete(output);
+            }
+            if (errors != null) {
+                FileUtils.delete(errors);
+            }
         }
     }
 
+    /**
+     * Waits for the GrokAssembly process to complete; if the analysis task
+     * reaches its deadline first the process is destroyed.
+     *
+     * @param proc the GrokAssembly process
+     * @param dependency the dependency being analyzed
+     * @return the exit value of the process
+     * @throws InterruptedException thrown if the thread is interrupted
+     * @throws AnalysisTimeoutException thrown if the process did not complete
+     * before the task deadline
+     */
+    private int waitFor(Process proc, Dependency dependency) throws InterruptedException, AnalysisTimeoutException {
+        final long remaining = AnalysisTask.getRemainingTime(TimeUnit.MILLISECONDS);
+        if (remaining == Long.MAX_VALUE) {
+            return proc.waitFor();
+        }
+        if (!proc.waitFor(remaining, TimeUnit.MILLISECONDS)) {
+            proc.destroyForcibly();
+            throw new AnalysisTimeoutException(String.format("GrokAssembly did not complete the analysis of '%s' before the task timeout",
+                    dependency.getActualFilePath()));
+        }
+        return proc.exitValue();
+    }
+
     /**
      * Initialize the analyzer. In this case, extract GrokAssembly.dll to a
      * temporary location.
@@ -443,6 +485,16 @@ public class AssemblyAnalyzer extends AbstractFileTypeAnalyzer {
         return ANALYSIS_PHASE;
     }
 
+    /**
+     * The analysis is performed by an external process.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     /**
      * Returns the key used in the properties file to reference the analyzer's
      * enabled property.
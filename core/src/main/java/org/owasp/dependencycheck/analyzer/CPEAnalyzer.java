@@ -43,7 +43,6 @@ import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
-import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
@@ -51,6 +50,7 @@ import org.jetbrains.annotations.NotNull;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.data.cpe.CpeMemoryIndex;
+import org.owasp.dependencycheck.data.cpe.CpeQueryBuilder;
 import org.owasp.dependencycheck.data.cpe.Fields;
 import org.owasp.dependencycheck.data.cpe.IndexEntry;
 import org.owasp.dependencycheck.data.cpe.IndexException;
@@ -243,13 +243,13 @@ public class CPEAnalyzer extends AbstractAnalyzer {
      * @param dependency the dependency to search for CPE entries on
      * @throws CorruptIndexException is thrown when the Lucene index is corrupt
      * @throws IOException is thrown when an IOException occurs
-     * @throws ParseException is thrown when the Lucene query cannot be parsed
      * @throws AnalysisException thrown if the suppression rules failed
      */
-    protected void determineCPE(Dependency dependency) throws CorruptIndexException, IOException, ParseException, AnalysisException {
+    protected void determineCPE(Dependency dependency) throws CorruptIndexException, IOException, AnalysisException {
         final Map<String, MutableInt> vendors = new HashMap<>();
         final Map<String, MutableInt> products = new HashMap<>();
         final Set<Integer> previouslyFound = new HashSet<>();
+        final CpeQueryBuilder queryBuilder = cpe.newQueryBuilder();
 
         for (Confidence confidence : Confidence.values()) {
             collectTerms(vendors, dependency.getIterator(EvidenceType.VENDOR, confidence));
@@ -257,7 +257,7 @@ public class CPEAnalyzer extends AbstractAnalyzer {
             collectTerms(products, dependency.getIterator(EvidenceType.PRODUCT, confidence));
             LOGGER.debug("product search: {}", products);
             if (!vendors.isEmpty() && !products.isEmpty()) {
-                final List<IndexEntry> entries = searchCPE(vendors, products,
+                final List<IndexEntry> entries = searchCPE(queryBuilder, vendors, products,
                         dependency.getVendorWeightings(), dependency.getProductWeightings());
                 if (entries == null) {
                     continue;
@@ -387,15 +387,36 @@ public class CPEAnalyzer extends AbstractAnalyzer {
      */
     protected List<IndexEntry> searchCPE(Map<String, MutableInt> vendor, Map<String, MutableInt> product,
             Set<String> vendorWeightings, Set<String> productWeightings) {
+        return searchCPE(cpe.newQueryBuilder(), vendor, product, vendorWeightings, productWeightings);
+    }
 
-        final List<IndexEntry> ret = new ArrayList<>(MAX_QUERY_RESULTS);
+    /**
+     * <p>
+     * Searches the Lucene CPE index to identify possible CPE entries associated
+     * with the supplied vendor, product, and version.</p>
+     *
+     * <p>
+     * If either the vendorWeightings or productWeightings lists have been
+     * populated this data is used to add weighting factors to the search.</p>
+     *
+     * @param queryBuilder the query builder used to build the search
+     * @param vendor the text used to search the vendor field
+     * @param product the text used to search the product field
+     * @param vendorWeightings a list of strings to use to add weighting factors
+     * to the vendor field
+     * @param productWeightings Adds a list of strings that will be used to add
+     * weighting factors to the product search
+     * @return a list of possible CPE values
+     */
+    protected List<IndexEntry> searchCPE(CpeQueryBuilder queryBuilder, Map<String, MutableInt> vendor,
+            Map<String, MutableInt> product, Set<String> vendorWeightings, Set<String> productWeightings) {
 
-        final String searchString = buildSearch(vendor, product, vendorWeightings, productWeightings);
-        if (searchString == null) {
-            return ret;
-        }
+        final List<IndexEntry> ret = new ArrayList<>(MAX_QUERY_RESULTS);
         try {
-            final Query query = cpe.parseQuery(searchString);
+            final Query query = buildQuery(queryBuilder, vendor, product, vendorWeightings, productWeightings);
+            if (query == null) {
+                return ret;
+            }
             final TopDocs docs = cpe.search(query, MAX_QUERY_RESULTS);
 
             for (ScoreDoc d : docs.scoreDocs) {
@@ -417,19 +438,82 @@ public class CPEAnalyzer extends AbstractAnalyzer {
                 //}
             }
             return ret;
-        } catch (ParseException ex) {
-            LOGGER.warn("An error occurred querying the CPE data. See the log for more details.");
-            LOGGER.info("Unable to parse: {}", searchString, ex);
-        } catch (IndexException ex) {
-            LOGGER.warn("An error occurred resetting the CPE index searcher. See the log for more details.");
-            LOGGER.info("Unable to reset the search analyzer", ex);
         } catch (IOException ex) {
             LOGGER.warn("An error occurred reading CPE data. See the log for more details.");
-            LOGGER.info("IO Error with search string: {}", searchString, ex);
+            LOGGER.info("IO Error with search string: {}", buildSearch(vendor, product, vendorWeightings, productWeightings), ex);
         }
         return null;
     }
 
+    /**
+     * <p>
+     * Builds the Lucene query used to search the CPE index; the query matches
+     * the same terms, with the same boosts, as the query text generated by
+     * {@link #buildSearch(Map, Map, Set, Set)} without escaping and parsing
+     * the query text.</p>
+     *
+     * @param queryBuilder the query builder
+     * @param vendor text to search the vendor field
+     * @param product text to search the product field
+     * @param vendorWeighting a list of strings to apply to the vendor to boost
+     * the terms weight
+     * @param productWeightings a list of strings to apply to the product to
+     * boost the terms weight
+     * @return the Lucene query; or <code>null</code> if there is nothing to
+     * search for
+     * @throws IOException thrown if the search terms could not be analyzed
+     */
+    protected Query buildQuery(CpeQueryBuilder queryBuilder, Map<String, MutableInt> vendor, Map<String, MutableInt> product,
+            Set<String> vendorWeighting, Set<String> productWeightings) throws IOException {
+        if (product.isEmpty() || vendor.isEmpty()) {
+            return null;
+        }
+        queryBuilder.startField(Fields.PRODUCT);
+        addWeightedTerms(queryBuilder, product, productWeightings);
+        queryBuilder.startField(Fields.VENDOR);
+        addWeightedTerms(queryBuilder, vendor, vendorWeighting);
+        return queryBuilder.build();
+    }
+
+    /**
+     * Adds the words of the given terms to the current field of the query
+     * builder; the weighting is applied in the same way as
+     * {@link #appendWeightedSearch(StringBuilder, String, Map, Set)}.
+     *
+     * @param queryBuilder the query builder
+     * @param terms text used to construct the query.
+     * @param weightedText a list of terms that will be considered higher
+     * importance when searching.
+     * @throws IOException thrown if the search terms could not be analyzed
+     */
+    @SuppressWarnings("StringSplitter")
+    private void addWeightedTerms(CpeQueryBuilder queryBuilder, Map<String, MutableInt> terms,
+            Set<String> weightedText) throws IOException {
+        for (Map.Entry<String, MutableInt> entry : terms.entrySet()) {
+            final List<String> boostedTerms = new ArrayList<>();
+            final int weighting = entry.getValue().intValue();
+            for (String word : entry.getKey().split(" ")) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                final String boostTerm = findBoostTerm(word, weightedText);
+                if (boostTerm != null) {
+                    queryBuilder.addWord(word, weighting + WEIGHTING_BOOST);
+                    if (!boostTerm.equals(word)) {
+                        boostedTerms.add(boostTerm);
+                    }
+                } else if (weighting > 1) {
+                    queryBuilder.addWord(word, weighting);
+                } else {
+                    queryBuilder.addWord(word);
+                }
+            }
+            for (String boostTerm : boostedTerms) {
+                queryBuilder.addWord(boostTerm, weighting + WEIGHTING_BOOST);
+            }
+        }
+    }
+
     /**
      * <p>
      * Builds a Lucene search string by properly escaping data and constructing
@@ -701,8 +785,6 @@ public class CPEAnalyzer extends AbstractAnalyzer {
             throw new AnalysisException("CPE Index is corrupt.", ex);
         } catch (IOException ex) {
             throw new AnalysisException("Failure opening the CPE Index.", ex);
-        } catch (ParseException ex) {
-            throw new AnalysisException("Unable to parse the generated Lucene query for this dependency.", ex);
         }
     }
 
@@ -206,6 +206,16 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
         return ANALYSIS_PHASE;
     }
 
+    /**
+     * Central is queried remotely for each dependency.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     @Override
     protected FileFilter getFileFilter() {
         return FILTER;
@@ -122,6 +122,18 @@ public class FalsePositiveAnalyzer extends AbstractAnalyzer {
     protected String getAnalyzerEnabledSettingKey() {
         return Settings.KEYS.ANALYZER_FALSE_POSITIVE_ENABLED;
     }
+
+    /**
+     * Duplicate entries are removed by comparing the identifiers of the
+     * dependency with those of its parent JAR; as such, the identifier analysis
+     * must be complete for all dependencies.
+     *
+     * @return true
+     */
+    @Override
+    public boolean requiresAllDependencies() {
+        return true;
+    }
     //</editor-fold>
 
     /**
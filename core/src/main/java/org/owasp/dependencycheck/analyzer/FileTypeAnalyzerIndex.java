@@ -0,0 +1,131 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.owasp.dependencycheck.utils.IndexableFileFilter;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Indexes the file type analyzers by the file names and extensions they
+ * accept so that the analyzers that may be interested in a file are found
+ * with a lookup rather than by evaluating the file filter of every analyzer.
+ * Analyzers whose file filter was not built by the
+ * {@link org.owasp.dependencycheck.utils.FileFilterBuilder}, or that has
+ * conditions other than the file names and extensions, are candidates for
+ * every file.
+ * <p>
+ * The index only narrows the candidates; {@link FileTypeAnalyzer#accept(File)}
+ * must still be called to determine if a candidate analyzes the file.</p>
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class FileTypeAnalyzerIndex {
+
+    /**
+     * The analyzers keyed by the file names they accept.
+     */
+    private final Map<String, List<FileTypeAnalyzer>> byFileName = new HashMap<>();
+    /**
+     * The analyzers keyed by the lower case extensions they accept.
+     */
+    private final Map<String, List<FileTypeAnalyzer>> byExtension = new HashMap<>();
+    /**
+     * The analyzers that are candidates for every file.
+     */
+    private final List<FileTypeAnalyzer> unindexed = new ArrayList<>();
+    /**
+     * The indexable file filters keyed by analyzer.
+     */
+    private final Map<FileTypeAnalyzer, IndexableFileFilter> filters = new IdentityHashMap<>();
+
+    /**
+     * Constructs a new index of the given analyzers.
+     *
+     * @param analyzers the file type analyzers to index
+     */
+    public FileTypeAnalyzerIndex(@NotNull final Collection<? extends FileTypeAnalyzer> analyzers) {
+        for (FileTypeAnalyzer analyzer : analyzers) {
+            final FileFilter filter = analyzer instanceof AbstractFileTypeAnalyzer
+                    ? ((AbstractFileTypeAnalyzer) analyzer).getFileFilter() : null;
+            if (filter instanceof IndexableFileFilter && !((IndexableFileFilter) filter).hasAdditionalFilters()) {
+                final IndexableFileFilter indexable = (IndexableFileFilter) filter;
+                filters.put(analyzer, indexable);
+                indexable.getFileNames().forEach((n) -> byFileName.computeIfAbsent(n, (k) -> new ArrayList<>()).add(analyzer));
+                indexable.getExtensions().forEach((e) -> byExtension.computeIfAbsent(e, (k) -> new ArrayList<>()).add(analyzer));
+            } else {
+                unindexed.add(analyzer);
+            }
+        }
+    }
+
+    /**
+     * Returns the analyzers that may accept the given file.
+     *
+     * @param file the file
+     * @return the candidate analyzers
+     */
+    @NotNull
+    public Set<FileTypeAnalyzer> getCandidates(@NotNull final File file) {
+        final Set<FileTypeAnalyzer> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        candidates.addAll(unindexed);
+        final String name = file.getName();
+        final List<FileTypeAnalyzer> named = byFileName.get(name);
+        if (named != null) {
+            candidates.addAll(named);
+        }
+        final String lower = name.toLowerCase(Locale.ROOT);
+        int pos = lower.indexOf('.');
+        while (pos >= 0) {
+            final List<FileTypeAnalyzer> extension = byExtension.get(lower.substring(pos));
+            if (extension != null) {
+                candidates.addAll(extension);
+            }
+            pos = lower.indexOf('.', pos + 1);
+        }
+        return candidates;
+    }
+
+    /**
+     * Determines if the analyzer may accept the given file. Analyzers that
+     * were not part of the index are always candidates.
+     *
+     * @param analyzer the analyzer
+     * @param file the file; may be <code>null</code>
+     * @return <code>true</code> if the analyzer may accept the file; otherwise
+     * <code>false</code>
+     */
+    public boolean isCandidate(@NotNull final FileTypeAnalyzer analyzer, @Nullable final File file) {
+        final IndexableFileFilter filter = filters.get(analyzer);
+        return filter == null || (file != null && filter.matchesName(file.getName()));
+    }
+}
@@ -115,13 +115,17 @@ public class HintAnalyzer extends AbstractAnalyzer {
     }
 
     /**
-     * The prepare method does nothing for this Analyzer.
+     * The prepare method loads the hint rules; the rules are kept when the
+     * engine is used for another analysis.
      *
      * @param engine a reference the dependency-check engine
      * @throws InitializationException thrown if there is an exception
      */
     @Override
-    public void prepareAnalyzer(Engine engine) throws InitializationException {
+    public synchronized void prepareAnalyzer(Engine engine) throws InitializationException {
+        if (hints != null) {
+            return;
+        }
         try {
             loadHintRules();
         } catch (HintParseException ex) {
@@ -55,8 +55,10 @@ import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jsoup.Jsoup;
+import org.owasp.dependencycheck.AnalysisTask;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisTimeoutException;
 import org.owasp.dependencycheck.dependency.Confidence;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.dependency.EvidenceType;
@@ -1089,12 +1091,15 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
      *
      * @param dependency the dependency being analyzed
      * @return an list of fully qualified class names
+     * @throws AnalysisTimeoutException thrown if the analysis task exceeds its
+     * deadline while walking the entries
      */
-    protected List<ClassNameInformation> collectClassNames(Dependency dependency) {
+    protected List<ClassNameInformation> collectClassNames(Dependency dependency) throws AnalysisTimeoutException {
         final List<ClassNameInformation> classNames = new ArrayList<>();
         try (JarFile jar = new JarFile(dependency.getActualFilePath())) {
             final Enumeration<JarEntry> entries = jar.entries();
             while (entries.hasMoreElements()) {
+                AnalysisTask.checkDeadline();
                 final JarEntry entry = entries.nextElement();
                 final String name = entry.getName().toLowerCase();
                 //no longer stripping "|com\\.sun" - there are some com.sun jar files with CVEs.
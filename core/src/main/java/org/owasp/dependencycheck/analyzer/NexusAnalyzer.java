@@ -213,6 +213,16 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
         return ANALYSIS_PHASE;
     }
 
+    /**
+     * Nexus is queried remotely for each dependency.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     /**
      * Returns the FileFilter
      *
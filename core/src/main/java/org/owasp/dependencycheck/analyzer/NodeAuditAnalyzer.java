@@ -152,6 +152,16 @@ public class NodeAuditAnalyzer extends AbstractNpmAnalyzer {
         return AnalysisPhase.FINDING_ANALYSIS;
     }
 
+    /**
+     * The dependencies are submitted to the remote NPM audit API.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     /**
      * Returns the key used in the properties file to determine if the analyzer
      * is enabled.
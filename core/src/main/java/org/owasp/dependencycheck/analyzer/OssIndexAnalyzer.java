@@ -81,24 +81,22 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
     public static final String REFERENCE_TYPE = "OSSINDEX";
 
     /**
-     * A reference to the OSS Index Client.
+     * The number of dependencies for which component-reports are requested
+     * at once; the maximum number of coordinates OSS Index accepts in a
+     * single request.
      */
-    private OssindexClient client;
+    private static final int BATCH_SIZE = 128;
 
     /**
-     * Fetched reports.
-     */
-    private Map<PackageUrl, ComponentReport> reports;
-
-    /**
-     * Flag to indicate if fetching reports failed.
+     * A reference to the OSS Index Client.
      */
-    private boolean failed = false;
+    private OssindexClient client;
 
     /**
-     * Lock to protect fetching state.
+     * Flag to indicate if fetching reports failed; once set the remaining
+     * batches are skipped.
      */
-    private final Object fetchMutex = new Object();
+    private volatile boolean failed = false;
 
     @Override
     public String getName() {
@@ -110,21 +108,41 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
         return AnalysisPhase.FINDING_ANALYSIS_PHASE2;
     }
 
+    /**
+     * The component-reports are requested from the remote OSS Index.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     @Override
     protected String getAnalyzerEnabledSettingKey() {
         return Settings.KEYS.ANALYZER_OSSINDEX_ENABLED;
     }
 
     /**
-     * Run with parallel support.
-     * <p>
-     * Fetch logic will however block all threads when state is established.
+     * Run with parallel support; each batch of dependencies is fetched and
+     * enriched independently.
      */
     @Override
     public boolean supportsParallelProcessing() {
         return true;
     }
 
+    /**
+     * The component-reports are requested for a batch of dependencies at
+     * once.
+     *
+     * @return the number of dependencies in a single OSS Index request
+     */
+    @Override
+    public int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
     @Override
     protected void prepareAnalyzer(final Engine engine) throws InitializationException {
         client = OssindexClientFactory.create(getSettings());
@@ -136,39 +154,43 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
             client.close();
         }
         client = null;
-        reports = null;
         failed = false;
     }
 
     @Override
     protected void analyzeDependency(final Dependency dependency, final Engine engine) throws AnalysisException {
+        analyzeDependencies(Collections.singletonList(dependency), engine);
+    }
+
+    @Override
+    protected void analyzeDependencies(final List<Dependency> dependencies, final Engine engine) throws AnalysisException {
         if (client == null) {
             throw new IllegalStateException();
         }
+        // skip the remaining batches if we failed to fetch reports
+        if (failed) {
+            return;
+        }
 
-        // batch request component-reports for all dependencies
-        synchronized (fetchMutex) {
-            if (!failed && reports == null) {
-                try {
-                    reports = requestReports(engine.getDependencies());
-                } catch (TransportException ex) {
-                    failed = true;
-                    if (ex.getMessage() != null && ex.getMessage().endsWith("401")) {
-                        throw new AnalysisException("Invalid credentails provided for OSS Index", ex);
-                    }
-                    LOG.debug("Error requesting component reports", ex);
-                    throw new AnalysisException("Failed to request component-reports", ex);
-                } catch (Exception e) {
-                    LOG.debug("Error requesting component reports", e);
-                    failed = true;
-                    throw new AnalysisException("Failed to request component-reports", e);
-                }
+        // batch request component-reports for the dependencies
+        final Map<PackageUrl, ComponentReport> reports;
+        try {
+            reports = requestReports(dependencies);
+        } catch (TransportException ex) {
+            failed = true;
+            if (ex.getMessage() != null && ex.getMessage().endsWith("401")) {
+                throw new AnalysisException("Invalid credentails provided for OSS Index", ex);
             }
+            LOG.debug("Error requesting component reports", ex);
+            throw new AnalysisException("Failed to request component-reports", ex);
+        } catch (Exception e) {
+            LOG.debug("Error requesting component reports", e);
+            failed = true;
+            throw new AnalysisException("Failed to request component-reports", e);
         }
 
-        // skip enrichment if we failed to fetch reports
-        if (!failed) {
-            enrich(dependency);
+        for (Dependency dependency : dependencies) {
+            enrich(dependency, reports);
         }
     }
 
@@ -189,14 +211,14 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
     }
 
     /**
-     * Batch request component-reports for all dependencies.
+     * Batch request component-reports for the given dependencies.
      *
      * @param dependencies the collection of dependencies
      * @return the map of dependency to OSS Index's component-report
      * @throws Exception thrown if there is an exception requesting the report
      */
-    private Map<PackageUrl, ComponentReport> requestReports(final Dependency[] dependencies) throws Exception {
-        LOG.debug("Requesting component-reports for {} dependencies", dependencies.length);
+    private Map<PackageUrl, ComponentReport> requestReports(final List<Dependency> dependencies) throws Exception {
+        LOG.debug("Requesting component-reports for {} dependencies", dependencies.size());
 
         // create requests for each dependency which has a PURL identifier
         final List<PackageUrl> packages = new ArrayList<>();
@@ -217,7 +239,7 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
             return client.requestComponentReports(packages);
         }
 
-        LOG.warn("Unable to determine Package-URL identifiers for {} dependencies", dependencies.length);
+        LOG.debug("Unable to determine Package-URL identifiers for {} dependencies", dependencies.size());
         return Collections.emptyMap();
     }
 
@@ -226,8 +248,9 @@ public class OssIndexAnalyzer extends AbstractAnalyzer {
      * Index component-report.
      *
      * @param dependency the dependency to enrich
+     * @param reports the component-reports fetched for the batch
      */
-    private void enrich(final Dependency dependency) {
+    private void enrich(final Dependency dependency, final Map<PackageUrl, ComponentReport> reports) {
         LOG.debug("Enrich dependency: {}", dependency);
 
         for (Identifier id : dependency.getSoftwareIdentifiers()) {
@@ -278,6 +278,16 @@ public class RubyBundleAuditAnalyzer extends AbstractFileTypeAnalyzer {
         return ANALYSIS_PHASE;
     }
 
+    /**
+     * The analysis is performed by an external process.
+     *
+     * @return {@link AnalyzerWorkload#IO}
+     */
+    @Override
+    public AnalyzerWorkload getWorkload() {
+        return AnalyzerWorkload.IO;
+    }
+
     /**
      * Returns the key used in the properties file to reference the analyzer's
      * enabled property.
@@ -0,0 +1,45 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer.exception;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An exception thrown when the analysis of a single dependency exceeds the
+ * configured task timeout. The exception is not fatal; the analysis of the
+ * remaining dependencies continues.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class AnalysisTimeoutException extends AnalysisException {
+
+    /**
+     * The serial version UID for serialization.
+     */
+    private static final long serialVersionUID = -3127460158264417372L;
+
+    /**
+     * Creates a new AnalysisTimeoutException.
+     *
+     * @param msg a message for the exception.
+     */
+    public AnalysisTimeoutException(String msg) {
+        super(msg);
+    }
+}
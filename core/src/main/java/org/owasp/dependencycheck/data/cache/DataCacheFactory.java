@@ -27,6 +27,7 @@ import org.apache.commons.jcs.access.CacheAccess;
 import org.apache.commons.jcs.access.exception.CacheException;
 import org.apache.commons.jcs.engine.CompositeCacheAttributes;
 import org.apache.commons.jcs.engine.behavior.ICompositeCacheAttributes;
+import org.owasp.dependencycheck.data.incremental.AnalysisSnapshot;
 import org.owasp.dependencycheck.data.nexus.MavenArtifact;
 import org.owasp.dependencycheck.data.nodeaudit.Advisory;
 import org.owasp.dependencycheck.utils.FileUtils;
@@ -68,7 +69,11 @@ public class DataCacheFactory {
         /**
          * Used to store POM files retrieved from central.
          */
-        POM
+        POM,
+        /**
+         * Used to store the analysis results of previously scanned files.
+         */
+        INCREMENTAL
     }
 
     /**
@@ -155,4 +160,20 @@ public class DataCacheFactory {
         final DataCache<List<MavenArtifact>> dc = new DataCache<>(ca);
         return dc;
     }
+
+    /**
+     * Returns the data cache for the results of the incremental analysis. The
+     * snapshots are keyed by the absolute path of the scanned file.
+     *
+     * @return a references to the data cache for incremental analysis
+     */
+    public DataCache<AnalysisSnapshot> getIncrementalCache() {
+        final ICompositeCacheAttributes attr = new CompositeCacheAttributes();
+        attr.setUseDisk(true);
+        attr.setUseLateral(false);
+        attr.setUseRemote(false);
+        final CacheAccess<String, AnalysisSnapshot> ca = JCS.getInstance("INCREMENTAL", attr);
+        final DataCache<AnalysisSnapshot> dc = new DataCache<>(ca);
+        return dc;
+    }
 }
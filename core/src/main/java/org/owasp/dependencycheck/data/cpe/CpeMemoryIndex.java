@@ -19,11 +19,17 @@ package org.owasp.dependencycheck.data.cpe;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
@@ -43,10 +49,14 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.CloseableThreadLocal;
 import org.owasp.dependencycheck.data.lucene.SearchFieldAnalyzer;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.utils.Checksum;
 import org.owasp.dependencycheck.utils.Pair;
 import org.owasp.dependencycheck.utils.Settings;
 import org.slf4j.Logger;
@@ -63,6 +73,10 @@ import org.slf4j.LoggerFactory;
  * of this is currently believed to be small. As this memory index consumes a
  * large amount of memory we will remain using the singleton pattern for now.
  *
+ * When {@link Settings.KEYS#CPE_INDEX_PERSISTED} is enabled the index is
+ * written to the data directory, tagged with the update timestamps of the
+ * database, and is reused by later runs until the vulnerability data changes.
+ *
  * @author Jeremy Long
  */
 @ThreadSafe
@@ -77,33 +91,43 @@ public final class CpeMemoryIndex implements AutoCloseable {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CpeMemoryIndex.class);
     /**
-     * The in memory Lucene index.
+     * The name of the directory, within the data directory, containing the
+     * persisted CPE index.
      */
-    private MMapDirectory index;
+    public static final String INDEX_DIRECTORY = "cpe.index";
     /**
-     * The Lucene IndexReader.
+     * The version of the persisted index; must be incremented whenever the
+     * documents or the analyzers used to build the index change.
      */
-    private IndexReader indexReader;
+    private static final String INDEX_VERSION = "1";
     /**
-     * The Lucene IndexSearcher.
+     * The age in milliseconds after which an incomplete persisted index left
+     * behind by another process is deleted.
      */
-    private IndexSearcher indexSearcher;
+    private static final long STALE_STAGING_AGE = TimeUnit.HOURS.toMillis(1);
     /**
-     * The Lucene Analyzer used for Searching.
+     * The Lucene index.
      */
-    private Analyzer searchingAnalyzer;
+    private MMapDirectory index;
     /**
-     * The Lucene QueryParser used for Searching.
+     * The Lucene IndexReader.
      */
-    private QueryParser queryParser;
+    private volatile IndexReader indexReader;
     /**
-     * The product field analyzer.
+     * The Lucene IndexSearcher; the searcher is thread safe and is used
+     * without synchronization.
      */
-    private SearchFieldAnalyzer productFieldAnalyzer;
+    private volatile IndexSearcher indexSearcher;
     /**
-     * The vendor field analyzer.
+     * The query context of each thread; each query is parsed with a context
+     * that is not in use by another thread.
      */
-    private SearchFieldAnalyzer vendorFieldAnalyzer;
+    private volatile CloseableThreadLocal<QueryContext> queryContexts = new CloseableThreadLocal<>();
+    /**
+     * The analyzer used by the query builders; the analyzer does not
+     * concatenate tokens so it keeps no state and is shared between threads.
+     */
+    private final Analyzer queryBuilderAnalyzer = new SearchFieldAnalyzer(false);
     /**
      * Track the number of current users of the Lucene index; used to track it
      * it is okay to actually close the index.
@@ -135,17 +159,18 @@ public final class CpeMemoryIndex implements AutoCloseable {
     public synchronized void open(CveDB cve, Settings settings) throws IndexException {
         if (INSTANCE.usageCount.addAndGet(1) == 1) {
             try {
-                final File temp = settings.getTempDirectory();
-                index = new MMapDirectory(temp.toPath());
-                buildIndex(cve);
-
+                if (settings.getBoolean(Settings.KEYS.CPE_INDEX_PERSISTED, false)) {
+                    index = openPersistedIndex(cve, settings);
+                } else {
+                    final File temp = settings.getTempDirectory();
+                    index = new MMapDirectory(temp.toPath());
+                    buildIndex(cve, index);
+                }
                 indexReader = DirectoryReader.open(index);
             } catch (IOException ex) {
                 throw new IndexException(ex);
             }
             indexSearcher = new IndexSearcher(indexReader);
-            searchingAnalyzer = createSearchingAnalyzer();
-            queryParser = new QueryParser(Fields.DOCUMENT_KEY, searchingAnalyzer);
         }
     }
 
@@ -158,34 +183,16 @@ public final class CpeMemoryIndex implements AutoCloseable {
         return INSTANCE.usageCount.get() > 0;
     }
 
-    /**
-     * Creates an Analyzer for searching the CPE Index.
-     *
-     * @return the CPE Analyzer.
-     */
-    private Analyzer createSearchingAnalyzer() {
-        final Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
-        fieldAnalyzers.put(Fields.DOCUMENT_KEY, new KeywordAnalyzer());
-        productFieldAnalyzer = new SearchFieldAnalyzer();
-        vendorFieldAnalyzer = new SearchFieldAnalyzer();
-        fieldAnalyzers.put(Fields.PRODUCT, productFieldAnalyzer);
-        fieldAnalyzers.put(Fields.VENDOR, vendorFieldAnalyzer);
-
-        return new PerFieldAnalyzerWrapper(new KeywordAnalyzer(), fieldAnalyzers);
-    }
-
     /**
      * Closes the CPE Index.
      */
     @Override
     public synchronized void close() {
-        final int count = INSTANCE.usageCount.get() - 1;
+        final int count = INSTANCE.usageCount.decrementAndGet();
         if (count <= 0) {
             INSTANCE.usageCount.set(0);
-            if (searchingAnalyzer != null) {
-                searchingAnalyzer.close();
-                searchingAnalyzer = null;
-            }
+            queryContexts.close();
+            queryContexts = new CloseableThreadLocal<>();
             if (indexReader != null) {
                 try {
                     indexReader.close();
@@ -194,7 +201,6 @@ public final class CpeMemoryIndex implements AutoCloseable {
                 }
                 indexReader = null;
             }
-            queryParser = null;
             indexSearcher = null;
             if (index != null) {
                 try {
@@ -207,16 +213,107 @@ public final class CpeMemoryIndex implements AutoCloseable {
         }
     }
 
+    /**
+     * Opens the persisted CPE index for the given database; the index is built
+     * if it does not exist. The index is built in a staging directory that is
+     * moved into place once complete so that concurrent processes only ever
+     * open a complete index.
+     *
+     * @param cve the data base containing the CPE data
+     * @param settings a reference to the dependency-check settings
+     * @return the persisted index
+     * @throws IOException thrown if the index could not be written or opened
+     * @throws IndexException thrown if there is an issue creating the index
+     */
+    private MMapDirectory openPersistedIndex(CveDB cve, Settings settings) throws IOException, IndexException {
+        final File root = new File(settings.getDataDirectory(), INDEX_DIRECTORY);
+        final String tag = getIndexTag(cve.getDatabaseProperties());
+        final File dir = new File(root, tag);
+        if (!dir.isDirectory()) {
+            LOGGER.debug("Building the persisted CPE index {}", dir);
+            FileUtils.forceMkdir(root);
+            final File staging = Files.createTempDirectory(root.toPath(), tag + ".tmp").toFile();
+            try {
+                try (MMapDirectory stagingIndex = new MMapDirectory(staging.toPath())) {
+                    buildIndex(cve, stagingIndex);
+                }
+                try {
+                    Files.move(staging.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException ex) {
+                    //another process may have built the same index concurrently
+                    if (!dir.isDirectory()) {
+                        throw ex;
+                    }
+                    LOGGER.debug("The CPE index {} was built by another process", dir);
+                }
+            } finally {
+                FileUtils.deleteQuietly(staging);
+            }
+            deleteStaleIndexes(root, tag);
+        } else {
+            LOGGER.debug("Using the persisted CPE index {}", dir);
+        }
+        return new MMapDirectory(dir.toPath());
+    }
+
+    /**
+     * Deletes the persisted indexes that were built from previous versions of
+     * the data. Indexes that are still in use by another process may not be
+     * deleted on some platforms; they are removed on a later run.
+     *
+     * @param root the directory containing the persisted indexes
+     * @param tag the tag of the current index
+     */
+    private void deleteStaleIndexes(File root, String tag) {
+        final File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        final long staleStaging = System.currentTimeMillis() - STALE_STAGING_AGE;
+        for (File dir : dirs) {
+            final String name = dir.getName();
+            if (name.equals(tag) || (name.contains(".tmp") && dir.lastModified() > staleStaging)) {
+                continue;
+            }
+            LOGGER.debug("Deleting the stale CPE index {}", dir);
+            if (!FileUtils.deleteQuietly(dir)) {
+                LOGGER.debug("Unable to delete the stale CPE index {}", dir);
+            }
+        }
+    }
+
+    /**
+     * Returns the tag identifying the version of the data used to build the
+     * CPE index; the tag changes whenever the NVD or CPE data in the database
+     * is updated.
+     *
+     * @param properties the database properties
+     * @return the tag identifying the version of the data
+     */
+    static String getIndexTag(DatabaseProperties properties) {
+        final StringBuilder sb = new StringBuilder(INDEX_VERSION);
+        final Map<Object, Object> sorted = new TreeMap<>(properties.getProperties());
+        for (Map.Entry<Object, Object> entry : sorted.entrySet()) {
+            final String key = (String) entry.getKey();
+            if ((key.startsWith(DatabaseProperties.LAST_UPDATED_BASE) && !DatabaseProperties.LAST_CHECKED.equals(key))
+                    || DatabaseProperties.LAST_CPE_UPDATE.equals(key) || DatabaseProperties.VERSION.equals(key)) {
+                sb.append('\n').append(key).append('=').append(entry.getValue());
+            }
+        }
+        return Checksum.getSHA1Checksum(sb.toString());
+    }
+
     /**
      * Builds the CPE Lucene Index based off of the data within the CveDB.
      *
      * @param cve the data base containing the CPE data
+     * @param directory the Lucene directory the index is written to
      * @throws IndexException thrown if there is an issue creating the index
      */
-    private void buildIndex(CveDB cve) throws IndexException {
-        try (Analyzer analyzer = createSearchingAnalyzer();
-                IndexWriter indexWriter = new IndexWriter(index,
-                        new IndexWriterConfig(analyzer))) {
+    private void buildIndex(CveDB cve, Directory directory) throws IndexException {
+        try (QueryContext context = new QueryContext();
+                IndexWriter indexWriter = new IndexWriter(directory,
+                        new IndexWriterConfig(context.analyzer))) {
 
             final FieldType ft = new FieldType(TextField.TYPE_STORED);
             //ignore term frequency
@@ -239,7 +336,7 @@ public final class CpeMemoryIndex implements AutoCloseable {
                     v.setStringValue(pair.getLeft());
                     p.setStringValue(pair.getRight());
                     indexWriter.addDocument(doc);
-                    resetAnalyzers();
+                    context.reset();
                 }
             }
             indexWriter.commit();
@@ -264,13 +361,14 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws IOException is thrown if there is an issue with the underlying
      * Index
      */
-    public synchronized TopDocs search(String searchString, int maxQueryResults) throws ParseException, IndexException, IOException {
+    public TopDocs search(String searchString, int maxQueryResults) throws ParseException, IndexException, IOException {
         final Query query = parseQuery(searchString);
         return search(query, maxQueryResults);
     }
 
     /**
-     * Parses the given string into a Lucene Query.
+     * Parses the given string into a Lucene Query. Queries may be parsed
+     * concurrently; each thread uses its own query context.
      *
      * @param searchString the search text
      * @return the Query object
@@ -278,26 +376,50 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws IndexException thrown if there is an error resetting the
      * analyzers
      */
-    public synchronized Query parseQuery(String searchString) throws ParseException, IndexException {
+    public Query parseQuery(String searchString) throws ParseException, IndexException {
         if (searchString == null || searchString.trim().isEmpty()
                 || "product:() AND vendor:()".equals(searchString)) {
             throw new ParseException("Query is null or empty");
         }
         LOGGER.debug(searchString);
 
-        Query query;
-        try {
-            query = queryParser.parse(searchString);
-        } catch (BooleanQuery.TooManyClauses ex) {
-            BooleanQuery.setMaxClauseCount(Integer.MAX_VALUE);
-            query = queryParser.parse(searchString);
+        final CloseableThreadLocal<QueryContext> contexts = queryContexts;
+        QueryContext context = contexts.get();
+        if (context == null) {
+            context = new QueryContext();
+            contexts.set(context);
         }
         try {
-            resetAnalyzers();
+            Query query;
+            try {
+                query = context.parser.parse(searchString);
+            } catch (BooleanQuery.TooManyClauses ex) {
+                BooleanQuery.setMaxClauseCount(Integer.MAX_VALUE);
+                context.reset();
+                query = context.parser.parse(searchString);
+            }
+            return query;
         } catch (IOException ex) {
             throw new IndexException("Unable to reset the analyzer after parsing", ex);
+        } finally {
+            try {
+                context.reset();
+            } catch (IOException ex) {
+                LOGGER.debug("Unable to reset the analyzer after parsing; discarding the query context", ex);
+                contexts.set(null);
+                context.close();
+            }
         }
-        return query;
+    }
+
+    /**
+     * Creates a new query builder used to build queries against the index
+     * without parsing query text.
+     *
+     * @return a new query builder
+     */
+    public CpeQueryBuilder newQueryBuilder() {
+        return new CpeQueryBuilder(queryBuilderAnalyzer);
     }
 
     /**
@@ -309,7 +431,7 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws CorruptIndexException thrown if the Index is corrupt
      * @throws IOException thrown if there is an IOException
      */
-    public synchronized TopDocs search(Query query, int maxQueryResults) throws CorruptIndexException, IOException {
+    public TopDocs search(Query query, int maxQueryResults) throws CorruptIndexException, IOException {
         return indexSearcher.search(query, maxQueryResults);
     }
 
@@ -320,7 +442,7 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @return the Document
      * @throws IOException thrown if there is an IOException
      */
-    public synchronized Document getDocument(int documentId) throws IOException {
+    public Document getDocument(int documentId) throws IOException {
         return indexSearcher.doc(documentId);
     }
 
@@ -329,11 +451,12 @@ public final class CpeMemoryIndex implements AutoCloseable {
      *
      * @return the number of CPE entries stored in the index
      */
-    public synchronized int numDocs() {
-        if (indexReader == null) {
+    public int numDocs() {
+        final IndexReader reader = indexReader;
+        if (reader == null) {
             return -1;
         }
-        return indexReader.numDocs();
+        return reader.numDocs();
     }
 
     /**
@@ -344,17 +467,63 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @return the expalanation
      * @throws IOException thrown if there is an index error
      */
-    public synchronized String explain(Query query, int doc) throws IOException {
+    public String explain(Query query, int doc) throws IOException {
         return indexSearcher.explain(query, doc).toString();
     }
 
     /**
-     * Common method to reset the searching analyzers.
-     *
-     * @throws IOException thrown if there is an index error
+     * The analyzers and query parser used to build queries. The search field
+     * analyzers keep state between tokens that is reset after each use so a
+     * context is only ever used by the thread that created it.
      */
-    protected synchronized void resetAnalyzers() throws IOException {
-        productFieldAnalyzer.reset();
-        vendorFieldAnalyzer.reset();
+    @NotThreadSafe
+    private static final class QueryContext implements AutoCloseable {
+
+        /**
+         * The product field analyzer.
+         */
+        private final SearchFieldAnalyzer productFieldAnalyzer = new SearchFieldAnalyzer();
+        /**
+         * The vendor field analyzer.
+         */
+        private final SearchFieldAnalyzer vendorFieldAnalyzer = new SearchFieldAnalyzer();
+        /**
+         * The Lucene Analyzer used for Searching.
+         */
+        private final Analyzer analyzer;
+        /**
+         * The Lucene QueryParser used for Searching.
+         */
+        private final QueryParser parser;
+
+        /**
+         * Constructs a new query context.
+         */
+        QueryContext() {
+            final Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
+            fieldAnalyzers.put(Fields.DOCUMENT_KEY, new KeywordAnalyzer());
+            fieldAnalyzers.put(Fields.PRODUCT, productFieldAnalyzer);
+            fieldAnalyzers.put(Fields.VENDOR, vendorFieldAnalyzer);
+            analyzer = new PerFieldAnalyzerWrapper(new KeywordAnalyzer(), fieldAnalyzers);
+            parser = new QueryParser(Fields.DOCUMENT_KEY, analyzer);
+        }
+
+        /**
+         * Resets the search field analyzers.
+         *
+         * @throws IOException thrown if there is an index error
+         */
+        void reset() throws IOException {
+            productFieldAnalyzer.reset();
+            vendorFieldAnalyzer.reset();
+        }
+
+        /**
+         * Closes the analyzers.
+         */
+        @Override
+        public void close() {
+            analyzer.close();
+        }
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.cpe;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+/**
+ * <p>
+ * Builds the Lucene query used to search the CPE index directly from the
+ * words of the evidence rather than generating query text that must be
+ * escaped and parsed. Each field of the query requires at least one of its
+ * words to match and every field must match; each word may be boosted.</p>
+ * <p>
+ * The words are analyzed without the
+ * {@link org.owasp.dependencycheck.data.lucene.TokenPairConcatenatingFilter};
+ * the builder concatenates adjacent tokens within a field itself so that the
+ * terms are the same as those produced by the
+ * {@link org.owasp.dependencycheck.data.lucene.SearchFieldAnalyzer} without any
+ * analyzer state to reset. The tokens of each word are cached so a builder
+ * should be reused for the queries of a single dependency.</p>
+ *
+ * @author Jeremy Long
+ */
+@NotThreadSafe
+public final class CpeQueryBuilder {
+
+    /**
+     * The analyzer used to tokenize the words; must not concatenate tokens.
+     */
+    private final Analyzer analyzer;
+    /**
+     * The cache of the tokens produced by analyzing a word.
+     */
+    private final Map<String, List<String>> tokens = new HashMap<>();
+    /**
+     * The query being built.
+     */
+    private BooleanQuery.Builder query = new BooleanQuery.Builder();
+    /**
+     * The number of fields added to the query.
+     */
+    private int fieldCount;
+    /**
+     * The field currently being built.
+     */
+    private String field;
+    /**
+     * The clauses of the field currently being built.
+     */
+    private BooleanQuery.Builder fieldQuery;
+    /**
+     * The number of clauses added to the current field.
+     */
+    private int clauseCount;
+    /**
+     * The previous token within the current field.
+     */
+    private String previousToken;
+
+    /**
+     * Constructs a new query builder.
+     *
+     * @param analyzer the analyzer used to tokenize the words; must not
+     * concatenate tokens
+     */
+    CpeQueryBuilder(Analyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Starts the clauses for the given field; the previous field, if any, is
+     * added to the query.
+     *
+     * @param name the name of the field
+     */
+    public void startField(String name) {
+        endField();
+        field = name;
+        fieldQuery = new BooleanQuery.Builder();
+        clauseCount = 0;
+        previousToken = null;
+    }
+
+    /**
+     * Adds a word to the current field.
+     *
+     * @param word the word
+     * @throws IOException thrown if the word could not be analyzed
+     */
+    public void addWord(String word) throws IOException {
+        addWord(word, 1f);
+    }
+
+    /**
+     * Adds a boosted word to the current field.
+     *
+     * @param word the word
+     * @param boost the boost applied to the terms of the word
+     * @throws IOException thrown if the word could not be analyzed
+     */
+    public void addWord(String word, float boost) throws IOException {
+        final List<String> wordTokens = analyze(word);
+        if (wordTokens.isEmpty()) {
+            return;
+        }
+        final List<String> terms = new ArrayList<>(wordTokens.size() * 2);
+        for (String token : wordTokens) {
+            if (previousToken != null) {
+                terms.add(previousToken + token);
+            }
+            terms.add(token);
+            previousToken = token;
+        }
+        Query clause;
+        if (terms.size() == 1) {
+            clause = new TermQuery(new Term(field, terms.get(0)));
+        } else {
+            final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            for (String term : terms) {
+                add(builder, new TermQuery(new Term(field, term)), BooleanClause.Occur.SHOULD);
+            }
+            clause = builder.build();
+        }
+        if (boost != 1f) {
+            clause = new BoostQuery(clause, boost);
+        }
+        add(fieldQuery, clause, BooleanClause.Occur.SHOULD);
+        clauseCount += 1;
+    }
+
+    /**
+     * Builds the query and resets the builder so that it can be used to build
+     * another query. Fields where none of the words produced a term are
+     * omitted from the query.
+     *
+     * @return the query; or <code>null</code> if no terms were added
+     */
+    public Query build() {
+        endField();
+        final Query result = fieldCount == 0 ? null : query.build();
+        query = new BooleanQuery.Builder();
+        fieldCount = 0;
+        return result;
+    }
+
+    /**
+     * Adds the current field, if it has any clauses, to the query.
+     */
+    private void endField() {
+        if (fieldQuery != null && clauseCount > 0) {
+            add(query, fieldQuery.build(), BooleanClause.Occur.MUST);
+            fieldCount += 1;
+        }
+        field = null;
+        fieldQuery = null;
+        clauseCount = 0;
+        previousToken = null;
+    }
+
+    /**
+     * Analyzes the given word.
+     *
+     * @param word the word
+     * @return the tokens of the word
+     * @throws IOException thrown if the word could not be analyzed
+     */
+    private List<String> analyze(String word) throws IOException {
+        List<String> result = tokens.get(word);
+        if (result == null) {
+            result = new ArrayList<>();
+            try (TokenStream stream = analyzer.tokenStream(field, word)) {
+                final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+                stream.reset();
+                while (stream.incrementToken()) {
+                    if (termAtt.length() > 0) {
+                        result.add(termAtt.toString());
+                    }
+                }
+                stream.end();
+            }
+            tokens.put(word, result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a clause to a boolean query; the maximum clause count is removed
+     * if it is exceeded.
+     *
+     * @param builder the boolean query builder
+     * @param clause the clause
+     * @param occur the occurrence of the clause
+     */
+    private static void add(BooleanQuery.Builder builder, Query clause, BooleanClause.Occur occur) {
+        try {
+            builder.add(clause, occur);
+        } catch (BooleanQuery.TooManyClauses ex) {
+            BooleanQuery.setMaxClauseCount(Integer.MAX_VALUE);
+            builder.add(clause, occur);
+        }
+    }
+}
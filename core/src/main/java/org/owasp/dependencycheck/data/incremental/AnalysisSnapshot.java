@@ -0,0 +1,121 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.incremental;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.owasp.dependencycheck.dependency.Dependency;
+
+/**
+ * The persisted result of the evidence collection and identifier analysis of a
+ * single scanned file. The snapshot contains the fingerprint of the file along
+ * with the dependency identified from the file and any dependencies that were
+ * discovered while analyzing it (e.g. the contents of an archive).
+ *
+ * @author Jeremy Long
+ */
+public class AnalysisSnapshot implements Serializable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -2395726021574963418L;
+    /**
+     * The absolute path of the scanned file.
+     */
+    private final String path;
+    /**
+     * The size of the scanned file.
+     */
+    private final long size;
+    /**
+     * The last modified timestamp of the scanned file.
+     */
+    private final long lastModified;
+    /**
+     * The SHA1 hash of the scanned file.
+     */
+    private final String sha1;
+    /**
+     * The dependencies identified; the first entry is the dependency of the
+     * scanned file itself.
+     */
+    private final ArrayList<Dependency> dependencies;
+
+    /**
+     * Constructs a new snapshot.
+     *
+     * @param file the scanned file
+     * @param sha1 the SHA1 hash of the scanned file
+     * @param dependencies the dependencies identified; the first entry must
+     * be the dependency of the scanned file itself
+     */
+    public AnalysisSnapshot(@NotNull final File file, String sha1, @NotNull final List<Dependency> dependencies) {
+        this.path = file.getAbsolutePath();
+        this.size = file.length();
+        this.lastModified = file.lastModified();
+        this.sha1 = sha1;
+        this.dependencies = new ArrayList<>(dependencies);
+    }
+
+    /**
+     * Returns the absolute path of the scanned file.
+     *
+     * @return the absolute path of the scanned file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the SHA1 hash of the scanned file.
+     *
+     * @return the SHA1 hash of the scanned file
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * Returns the dependencies identified; the first entry is the dependency
+     * of the scanned file itself.
+     *
+     * @return the dependencies identified
+     */
+    public List<Dependency> getDependencies() {
+        return new ArrayList<>(dependencies);
+    }
+
+    /**
+     * Determines if the size and last modified timestamp of the given file
+     * match those recorded in the snapshot. The SHA1 hash of the file must
+     * still be compared to {@link #getSha1()} before the snapshot is used.
+     *
+     * @param file the file to compare
+     * @return <code>true</code> if the file appears to be unchanged;
+     * otherwise <code>false</code>
+     */
+    public boolean matches(@NotNull final File file) {
+        return path.equals(file.getAbsolutePath())
+                && size == file.length()
+                && lastModified == file.lastModified();
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ *
+ * Contains the classes used to persist the analysis results of scanned files
+ * so that unchanged files are not re-analyzed by subsequent scans.<br><br>
+ *
+ */
+package org.owasp.dependencycheck.data.incremental;
@@ -27,6 +27,7 @@ import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.util.CloseableThreadLocal;
 
 /**
  * A Lucene field analyzer used to analyzer queries against the CPE data.
@@ -45,9 +46,15 @@ public class SearchFieldAnalyzer extends Analyzer {
      */
     private final CharArraySet stopWords;
     /**
-     * A reference to the concatenating filter so that it can be reset/cleared.
+     * Whether or not pairs of adjacent tokens are concatenated.
      */
-    private TokenPairConcatenatingFilter concatenatingFilter;
+    private final boolean concatenatePairs;
+    /**
+     * A reference to the concatenating filter of each thread so that it can be
+     * reset/cleared; Lucene creates the token stream components once per
+     * thread.
+     */
+    private final CloseableThreadLocal<TokenPairConcatenatingFilter> concatenatingFilter = new CloseableThreadLocal<>();
 
     /**
      * Returns the set of stop words being used.
@@ -65,6 +72,18 @@ public class SearchFieldAnalyzer extends Analyzer {
      *
      */
     public SearchFieldAnalyzer() {
+        this(true);
+    }
+
+    /**
+     * Constructs a new SearchFieldAnalyzer.
+     *
+     * @param concatenatePairs whether or not pairs of adjacent tokens are
+     * concatenated; when <code>false</code> the analyzer keeps no state
+     * between token streams and does not need to be reset
+     */
+    public SearchFieldAnalyzer(boolean concatenatePairs) {
+        this.concatenatePairs = concatenatePairs;
         stopWords = getStopWords();
     }
 
@@ -93,18 +112,34 @@ public class SearchFieldAnalyzer extends Analyzer {
         stream = new LowerCaseFilter(stream);
 
         stream = new StopFilter(stream, stopWords);
-        concatenatingFilter = new TokenPairConcatenatingFilter(stream);
+        if (!concatenatePairs) {
+            return new TokenStreamComponents(source, stream);
+        }
+        final TokenPairConcatenatingFilter filter = new TokenPairConcatenatingFilter(stream);
+        concatenatingFilter.set(filter);
 
-        return new TokenStreamComponents(source, concatenatingFilter);
+        return new TokenStreamComponents(source, filter);
     }
 
     /**
-     * Resets the analyzer. This must be manually called between searching and
-     * indexing.
+     * Resets the analyzer for the current thread. This must be manually called
+     * between searching and indexing.
      *
      * @throws IOException thrown if there is an error reseting the tokenizer
      */
     public void reset() throws IOException {
-        concatenatingFilter.clear();
+        final TokenPairConcatenatingFilter filter = concatenatingFilter.get();
+        if (filter != null) {
+            filter.clear();
+        }
+    }
+
+    /**
+     * Closes the analyzer.
+     */
+    @Override
+    public void close() {
+        concatenatingFilter.close();
+        super.close();
     }
 }
@@ -18,8 +18,10 @@
 package org.owasp.dependencycheck.data.nvdcve;
 //CSOFF: AvoidStarImport
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import org.apache.commons.collections.map.ReferenceMap;
 import org.owasp.dependencycheck.dependency.Vulnerability;
 import org.owasp.dependencycheck.dependency.VulnerableSoftware;
 import org.owasp.dependencycheck.utils.*;
@@ -27,17 +29,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
 import java.io.IOException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
-import static org.apache.commons.collections.map.AbstractReferenceMap.HARD;
-import static org.apache.commons.collections.map.AbstractReferenceMap.SOFT;
 import org.apache.commons.lang3.StringUtils;
 import org.owasp.dependencycheck.analyzer.AbstractNpmAnalyzer;
 import org.owasp.dependencycheck.analyzer.CMakeAnalyzer;
@@ -63,6 +67,7 @@ import org.owasp.dependencycheck.data.update.cpe.CpePlus;
 import org.owasp.dependencycheck.dependency.CvssV2;
 import org.owasp.dependencycheck.dependency.CvssV3;
 import org.owasp.dependencycheck.dependency.VulnerableSoftwareBuilder;
+import org.owasp.dependencycheck.metrics.CacheMetrics;
 import us.springett.parsers.cpe.Cpe;
 import us.springett.parsers.cpe.CpeBuilder;
 import us.springett.parsers.cpe.CpeParser;
@@ -71,8 +76,13 @@ import us.springett.parsers.cpe.exceptions.CpeValidationException;
 
 /**
  * The database holding information about the NVD CVE data. This class is safe
- * to be accessed from multiple threads in parallel, however internally only one
- * connection will be used.
+ * to be accessed from multiple threads in parallel. Updates are serialized over
+ * a single connection while the read-only queries used during analysis borrow
+ * connections from a small pool so that they can execute in parallel.
+ * <p>
+ * A CveDB opened with {@link #openSnapshot(Settings, File)} reads from an
+ * immutable vulnerability snapshot rather than the database; such an instance
+ * is read-only.</p>
  *
  * @author Jeremy Long
  */
@@ -107,19 +117,68 @@ public final class CveDB implements AutoCloseable {
     private final EnumMap<PreparedStatementCveDb, PreparedStatement> preparedStatements = new EnumMap<>(PreparedStatementCveDb.class);
 
     /**
-     * A reference to the vulnerable software builder.
+     * The pool of connections used by the read-only queries.
      */
-    private final VulnerableSoftwareBuilder vulnerableSoftwareBuilder = new VulnerableSoftwareBuilder();
+    private volatile ReadConnectionPool readPool;
+    /**
+     * The vulnerability snapshot read from instead of the database;
+     * <code>null</code> when reading from the database.
+     */
+    private final VulnerabilitySnapshot snapshot;
     /**
      * The filter for 2.3 CPEs in the CVEs - we don't import unless we get a
      * match.
      */
     private final String cpeStartsWithFilter;
     /**
-     * Cache for CVE lookups; used to speed up the vulnerability search process.
+     * Cache of the vulnerabilities matched by a CPE; used to speed up the
+     * vulnerability search process. The entries are keyed by the vendor and
+     * product of the CPEs (see {@link #productKey(String, String)}) so that an
+     * update only invalidates the entries of the products it affects. The
+     * cache is bounded by the total number of vulnerabilities held.
+     */
+    private final Cache<String, CpeVulnerabilities> vulnerabilitiesForCpeCache;
+    /**
+     * The keys of the {@link #vulnerabilitiesForCpeCache} entries that contain
+     * a vulnerability, keyed by the CVE; the keys may have since been evicted.
+     */
+    private final ConcurrentMap<String, Set<String>> cachedProductsByCve = new ConcurrentHashMap<>();
+    /**
+     * The CVEs updated in the open writer transaction; their cache entries are
+     * invalidated when the transaction is committed.
+     */
+    private final Set<String> pendingCves = new HashSet<>();
+    /**
+     * The keys of the {@link #vulnerabilitiesForCpeCache} entries affected by
+     * the vulnerable software updated in the open writer transaction.
+     */
+    private final Set<String> pendingProducts = new HashSet<>();
+    /**
+     * Whether or not auto-commit has been disabled on the connection, i.e. a
+     * writer transaction is open.
+     */
+    private boolean writerTransaction = false;
+    /**
+     * Cache of the vulnerabilities keyed by CVE; copies of the cached
+     * vulnerabilities are returned as callers modify the vulnerabilities.
+     */
+    private final Cache<String, Vulnerability> vulnerabilityCache;
+    /**
+     * The ids of the CPE entries inserted by the bulk import keyed by the CPE
+     * 2.3 formatted string; <code>null</code> when a bulk import is not in
+     * progress.
      */
-    @SuppressWarnings("unchecked")
-    private final Map<String, List<Vulnerability>> vulnerabilitiesForCpeCache = Collections.synchronizedMap(new ReferenceMap(HARD, SOFT));
+    private Map<String, Integer> bulkImportCpeIds;
+    /**
+     * The keys of the CPE entries inserted by the bulk import since the last
+     * commit; removed from <code>bulkImportCpeIds</code> on a rollback.
+     */
+    private final List<String> bulkImportUncommitted = new ArrayList<>();
+    /**
+     * The number of rows added to the batches of the bulk import that have not
+     * yet been executed.
+     */
+    private int bulkImportPending;
     /**
      * The configured settings
      */
@@ -231,11 +290,49 @@ public final class CveDB implements AutoCloseable {
         return targetSw;
     }
 
+    /**
+     * The default maximum number of vulnerabilities held by the cache of the
+     * vulnerabilities matched by a CPE.
+     */
+    private static final int DEFAULT_CACHE_CPE_SIZE = 10000;
+    /**
+     * The default maximum number of vulnerabilities held by the cache of the
+     * vulnerabilities keyed by CVE.
+     */
+    private static final int DEFAULT_CACHE_CVE_SIZE = 5000;
+    /**
+     * The number of parameters in the IN-list of the statements that load a
+     * set of vulnerabilities; when fewer values are loaded the remaining
+     * parameters repeat the last value.
+     */
+    static final int IN_LIST_SIZE = 50;
+    /**
+     * Returned when looking up the id of a vulnerability that is being updated
+     * if the stored vulnerability has the same last modified date as the
+     * update; the update is skipped.
+     */
+    private static final int UNCHANGED = -1;
+    /**
+     * The IN-list parameters that replace the <code>%s</code> in the
+     * statements that load a set of vulnerabilities.
+     */
+    static final String IN_LIST_PARAMETERS = String.join(", ", Collections.nCopies(IN_LIST_SIZE, "?"));
+
     /**
      * The enum value names must match the keys of the statements in the
      * statement bundles "dbStatements*.properties".
      */
     enum PreparedStatementCveDb {
+        /**
+         * Key for the DDL statements that re-create the secondary indexes
+         * after a bulk import; optional.
+         */
+        BULK_CREATE_INDEXES,
+        /**
+         * Key for the DDL statements that drop the secondary indexes before a
+         * bulk import; optional.
+         */
+        BULK_DROP_INDEXES,
         /**
          * Key for SQL Statement.
          */
@@ -311,15 +408,31 @@ public final class CveDB implements AutoCloseable {
         /**
          * Key for SQL Statement.
          */
-        SELECT_VULNERABILITY_CWE,
+        SELECT_SNAPSHOT_CPE_ENTRIES,
         /**
          * Key for SQL Statement.
          */
-        SELECT_REFERENCES,
+        SELECT_SNAPSHOT_CVES,
         /**
          * Key for SQL Statement.
          */
-        SELECT_SOFTWARE,
+        SELECT_SNAPSHOT_SOFTWARE,
+        /**
+         * Key for SQL Statement; IN-list statement.
+         */
+        SELECT_VULNERABILITIES,
+        /**
+         * Key for SQL Statement; IN-list statement.
+         */
+        SELECT_VULNERABILITIES_CWE,
+        /**
+         * Key for SQL Statement; IN-list statement.
+         */
+        SELECT_VULNERABILITIES_REFERENCES,
+        /**
+         * Key for SQL Statement; IN-list statement.
+         */
+        SELECT_VULNERABILITIES_SOFTWARE,
         /**
          * Key for SQL Statement.
          */
@@ -327,11 +440,19 @@ public final class CveDB implements AutoCloseable {
         /**
          * Key for SQL Statement.
          */
-        SELECT_VULNERABILITY,
+        SELECT_VULNERABILITY_ID,
         /**
          * Key for SQL Statement.
          */
-        SELECT_VULNERABILITY_ID,
+        SELECT_VULNERABILITY_CWE,
+        /**
+         * Key for SQL Statement.
+         */
+        SELECT_VULNERABILITY_REFERENCES,
+        /**
+         * Key for SQL Statement.
+         */
+        SELECT_VULNERABILITY_SOFTWARE,
         /**
          * Key for SQL Statement.
          */
@@ -339,7 +460,31 @@ public final class CveDB implements AutoCloseable {
         /**
          * Key for SQL Statement.
          */
-        UPDATE_VULNERABILITY
+        UPDATE_VULNERABILITY;
+
+        /**
+         * Returns whether or not the statement contains an IN-list of
+         * {@link #IN_LIST_SIZE} parameters; such statements are only used by
+         * the read-only queries.
+         *
+         * @return <code>true</code> if the statement contains an IN-list;
+         * otherwise <code>false</code>
+         */
+        boolean isInList() {
+            return this == SELECT_VULNERABILITIES || this == SELECT_VULNERABILITIES_CWE
+                    || this == SELECT_VULNERABILITIES_REFERENCES || this == SELECT_VULNERABILITIES_SOFTWARE;
+        }
+
+        /**
+         * Returns whether or not the key refers to a semicolon separated list
+         * of DDL statements that are executed rather than prepared.
+         *
+         * @return <code>true</code> if the statements are DDL statements;
+         * otherwise <code>false</code>
+         */
+        boolean isScript() {
+            return this == BULK_CREATE_INDEXES || this == BULK_DROP_INDEXES;
+        }
     }
 
     /**
@@ -351,10 +496,80 @@ public final class CveDB implements AutoCloseable {
      * database.
      */
     public CveDB(Settings settings) throws DatabaseException {
+        this(settings, null);
+    }
+
+    /**
+     * Creates a new CveDB object; if a snapshot is provided the database is
+     * not opened and the read-only queries are answered from the snapshot.
+     *
+     * @param settings the configured settings
+     * @param snapshot the vulnerability snapshot; <code>null</code> to open
+     * the database
+     * @throws DatabaseException thrown if there is an exception opening the
+     * database.
+     */
+    private CveDB(Settings settings, VulnerabilitySnapshot snapshot) throws DatabaseException {
         this.settings = settings;
+        this.snapshot = snapshot;
         this.cpeStartsWithFilter = this.settings.getString(Settings.KEYS.CVE_CPE_STARTS_WITH_FILTER, "cpe:2.3:a:");
+        this.vulnerabilitiesForCpeCache = CacheBuilder.newBuilder()
+                .maximumWeight(settings.getInt(Settings.KEYS.DB_CACHE_CPE_SIZE, DEFAULT_CACHE_CPE_SIZE))
+                .weigher((String key, CpeVulnerabilities value) -> value.weight)
+                .recordStats()
+                .build();
+        this.vulnerabilityCache = CacheBuilder.newBuilder()
+                .maximumSize(settings.getInt(Settings.KEYS.DB_CACHE_CVE_SIZE, DEFAULT_CACHE_CVE_SIZE))
+                .recordStats()
+                .build();
         connectionFactory = new ConnectionFactory(settings);
-        open();
+        if (snapshot == null) {
+            open();
+        } else {
+            databaseProperties = new DatabaseProperties(this);
+        }
+    }
+
+    /**
+     * Opens a read-only CveDB that reads from the given vulnerability
+     * snapshot rather than the database; no database connection or lock is
+     * required. The snapshot must be closed by the caller by calling the close
+     * method.
+     *
+     * @param settings the configured settings
+     * @param file the vulnerability snapshot written by
+     * {@link #exportSnapshot(File)}
+     * @return the read-only CveDB
+     * @throws DatabaseException thrown if the snapshot could not be opened
+     */
+    public static CveDB openSnapshot(Settings settings, File file) throws DatabaseException {
+        return new CveDB(settings, VulnerabilitySnapshot.open(file));
+    }
+
+    /**
+     * Exports the vulnerability data into an immutable snapshot that can be
+     * memory mapped by read-only scans; see
+     * {@link #openSnapshot(Settings, File)}. Any existing snapshot is
+     * replaced.
+     *
+     * @param file the snapshot file
+     * @throws DatabaseException thrown if the snapshot could not be written
+     */
+    public void exportSnapshot(File file) throws DatabaseException {
+        requireDatabase();
+        new VulnerabilitySnapshotWriter(this).write(file);
+    }
+
+    /**
+     * Ensures that this CveDB reads from the database rather than a snapshot;
+     * the snapshot is read-only.
+     *
+     * @throws DatabaseException thrown if this CveDB reads from a snapshot
+     */
+    private void requireDatabase() throws DatabaseException {
+        if (snapshot != null) {
+            throw new DatabaseException("The vulnerability snapshot is read-only");
+        }
     }
 
     /**
@@ -390,6 +605,7 @@ public final class CveDB implements AutoCloseable {
                         ? ResourceBundle.getBundle("data/dbStatements", new Locale(databaseProductName))
                         : ResourceBundle.getBundle("data/dbStatements");
                 prepareStatements();
+                readPool = new ReadConnectionPool(connectionFactory, statementBundle, getReadPoolSize());
                 databaseProperties = new DatabaseProperties(this);
             }
         } catch (DatabaseException e) {
@@ -404,8 +620,16 @@ public final class CveDB implements AutoCloseable {
      */
     @Override
     public synchronized void close() {
+        if (snapshot != null) {
+            clearCache();
+            snapshot.close();
+            databaseProperties = null;
+        }
         if (isOpen()) {
             clearCache();
+            if (readPool != null) {
+                readPool.close();
+            }
             closeStatements();
             try {
                 connection.close();
@@ -425,8 +649,13 @@ public final class CveDB implements AutoCloseable {
      * Releases the resources used by CveDB.
      */
     private synchronized void releaseResources() {
+        if (readPool != null) {
+            readPool.close();
+            readPool = null;
+        }
         statementBundle = null;
         preparedStatements.clear();
+        bulkImportCpeIds = null;
         databaseProperties = null;
         connection = null;
     }
@@ -440,6 +669,31 @@ public final class CveDB implements AutoCloseable {
         return connection != null;
     }
 
+    /**
+     * Returns the maximum number of connections used by the read-only queries;
+     * defaults to the number of available processors, limited to eight.
+     *
+     * @return the size of the read connection pool
+     */
+    private int getReadPoolSize() {
+        final int defaultSize = Math.min(8, Runtime.getRuntime().availableProcessors());
+        return settings.getInt(Settings.KEYS.DB_READ_POOL_SIZE, defaultSize);
+    }
+
+    /**
+     * Returns the pool of connections used by the read-only queries.
+     *
+     * @return the read connection pool
+     * @throws DatabaseException thrown if the database is not open
+     */
+    ReadConnectionPool getReadPool() throws DatabaseException {
+        final ReadConnectionPool pool = readPool;
+        if (pool == null) {
+            throw new DatabaseException("The database is not open");
+        }
+        return pool;
+    }
+
     /**
      * Prepares all statements to be used.
      *
@@ -448,6 +702,9 @@ public final class CveDB implements AutoCloseable {
      */
     private void prepareStatements() throws DatabaseException {
         for (PreparedStatementCveDb key : values()) {
+            if (key.isInList() || key.isScript()) {
+                continue;
+            }
             PreparedStatement preparedStatement = null;
             try {
                 final String statementString = statementBundle.getString(key.name());
@@ -524,16 +781,68 @@ public final class CveDB implements AutoCloseable {
     }
 
     /**
-     * Commits all completed transactions.
+     * Commits all completed transactions; the changes are only committed here
+     * when auto-commit has been disabled using {@link #setAutoCommit(boolean)}.
      *
      * @throws SQLException thrown if a SQL Exception occurs
      */
-    @SuppressWarnings("EmptyMethod")
     public synchronized void commit() throws SQLException {
-        //temporary remove this as autocommit is on.
-        //if (isOpen()) {
-        //    connection.commit();
-        //}
+        if (bulkImportCpeIds != null) {
+            flushBulkImport();
+        }
+        if (isOpen() && !connection.getAutoCommit()) {
+            connection.commit();
+        }
+        bulkImportUncommitted.clear();
+        invalidatePending();
+    }
+
+    /**
+     * Discards the changes made since the last commit, including any rows
+     * waiting in the bulk import batches; only has an effect when auto-commit
+     * has been disabled using {@link #setAutoCommit(boolean)}.
+     *
+     * @throws SQLException thrown if a SQL Exception occurs
+     */
+    public synchronized void rollback() throws SQLException {
+        if (bulkImportCpeIds != null && bulkImportPending > 0) {
+            preparedStatements.get(INSERT_CWE).clearBatch();
+            preparedStatements.get(INSERT_REFERENCE).clearBatch();
+            preparedStatements.get(INSERT_SOFTWARE).clearBatch();
+            bulkImportPending = 0;
+        }
+        if (isOpen() && !connection.getAutoCommit()) {
+            connection.rollback();
+            clearCache();
+            if (bulkImportCpeIds != null) {
+                //the CPE entries inserted since the last commit no longer exist
+                bulkImportUncommitted.forEach(bulkImportCpeIds::remove);
+            }
+        }
+        bulkImportUncommitted.clear();
+        pendingCves.clear();
+        pendingProducts.clear();
+    }
+
+    /**
+     * Sets whether or not each change is committed as it is made; auto-commit
+     * is enabled by default. When auto-commit is disabled the changes must be
+     * committed by calling {@link #commit()}; enabling auto-commit again
+     * commits any pending changes.
+     *
+     * @param autoCommit whether or not auto-commit is enabled
+     * @throws SQLException thrown if a SQL Exception occurs
+     */
+    public synchronized void setAutoCommit(boolean autoCommit) throws SQLException {
+        requireDatabase();
+        if (isOpen()) {
+            connection.setAutoCommit(autoCommit);
+        }
+        writerTransaction = !autoCommit;
+        if (autoCommit) {
+            //enabling auto-commit commits the pending changes
+            invalidatePending();
+        }
     }
 
     /**
@@ -578,14 +887,25 @@ public final class CveDB implements AutoCloseable {
      * analyzed
      * @return a set of vulnerable software
      */
-    public synchronized Set<CpePlus> getCPEs(String vendor, String product) {
+    public Set<CpePlus> getCPEs(String vendor, String product) {
+        if (snapshot != null) {
+            try {
+                return snapshot.getCPEs(vendor, product);
+            } catch (DatabaseException ex) {
+                LOGGER.error("An unexpected exception occurred reading the vulnerability snapshot; "
+                        + "please see the verbose log for more details.");
+                LOGGER.debug("", ex);
+                return new HashSet<>();
+            }
+        }
         final Set<CpePlus> cpe = new HashSet<>();
+        ReadConnectionPool pool = null;
+        ReadConnectionPool.PooledConnection conn = null;
         ResultSet rs = null;
         try {
-            final PreparedStatement ps = getPreparedStatement(SELECT_CPE_ENTRIES);
-            if (ps == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_CPE_ENTRIES);
-            }
+            pool = getReadPool();
+            conn = pool.borrow();
+            final PreparedStatement ps = conn.getPreparedStatement(SELECT_CPE_ENTRIES);
             //part, vendor, product, version, update_version, edition,
             //lang, sw_edition, target_sw, target_hw, other, ecosystem
             ps.setString(1, vendor);
@@ -608,11 +928,14 @@ public final class CveDB implements AutoCloseable {
                 final CpePlus plus = new CpePlus(entry, rs.getString(12));
                 cpe.add(plus);
             }
-        } catch (SQLException | CpeParsingException | CpeValidationException ex) {
+        } catch (DatabaseException | SQLException | CpeParsingException | CpeValidationException ex) {
             LOGGER.error("An unexpected SQL Exception occurred; please see the verbose log for more details.");
             LOGGER.debug("", ex);
         } finally {
             DBUtils.closeResultSet(rs);
+            if (pool != null) {
+                pool.release(conn);
+            }
         }
         return cpe;
     }
@@ -624,14 +947,16 @@ public final class CveDB implements AutoCloseable {
      * @throws DatabaseException thrown when there is an error retrieving the
      * data from the DB
      */
-    public synchronized Set<Pair<String, String>> getVendorProductList() throws DatabaseException {
+    public Set<Pair<String, String>> getVendorProductList() throws DatabaseException {
+        if (snapshot != null) {
+            return snapshot.getVendorProductList();
+        }
         final Set<Pair<String, String>> data = new HashSet<>();
+        final ReadConnectionPool pool = getReadPool();
+        final ReadConnectionPool.PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         try {
-            final PreparedStatement ps = getPreparedStatement(SELECT_VENDOR_PRODUCT_LIST);
-            if (ps == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_VENDOR_PRODUCT_LIST);
-            }
+            final PreparedStatement ps = conn.getPreparedStatement(SELECT_VENDOR_PRODUCT_LIST);
             rs = ps.executeQuery();
             while (rs.next()) {
                 data.add(new Pair<>(rs.getString(1), rs.getString(2)));
@@ -641,6 +966,7 @@ public final class CveDB implements AutoCloseable {
             throw new DatabaseException(msg, ex);
         } finally {
             DBUtils.closeResultSet(rs);
+            pool.release(conn);
         }
         return data;
     }
@@ -651,6 +977,9 @@ public final class CveDB implements AutoCloseable {
      * @return the properties from the database
      */
     public synchronized Properties getProperties() {
+        if (snapshot != null) {
+            return snapshot.getProperties();
+        }
         final Properties prop = new Properties();
         ResultSet rs = null;
         try {
@@ -678,7 +1007,7 @@ public final class CveDB implements AutoCloseable {
      * @param value the property value
      */
     public synchronized void saveProperty(String key, String value) {
-        clearCache();
+        requireDatabase();
         try {
             final PreparedStatement mergeProperty = getPreparedStatement(MERGE_PROPERTY);
             if (mergeProperty != null) {
@@ -710,16 +1039,131 @@ public final class CveDB implements AutoCloseable {
     }
 
     /**
-     * Clears cache. Should be called whenever something is modified. While this
-     * is not the optimal cache eviction strategy, this is good enough for
-     * typical usage (update DB and then only read) and it is easier to maintain
-     * the code.
-     * <p>
-     * It should be also called when DB is closed.
-     * </p>
+     * Clears the caches. Called when the database is closed and by the
+     * maintenance operations that may modify any vulnerability; updates to a
+     * single vulnerability use
+     * {@link #invalidateCache(java.lang.String, java.util.Collection)}.
+     */
+    private void clearCache() {
+        vulnerabilitiesForCpeCache.invalidateAll();
+        vulnerabilityCache.invalidateAll();
+        cachedProductsByCve.clear();
+    }
+
+    /**
+     * Removes the cache entries affected by an update to the given
+     * vulnerability: the vulnerability itself, the products whose cached
+     * results contain the vulnerability, and the products of the updated
+     * vulnerable software. While a writer transaction is open the entries are
+     * only invalidated once the transaction is committed; until then the
+     * queries, which use separate connections, do not see the update.
+     *
+     * @param cveId the CVE being updated
+     * @param software the vulnerable software of the updated vulnerability
+     */
+    private synchronized void invalidateCache(String cveId, Collection<VulnerableSoftware> software) {
+        pendingCves.add(cveId);
+        software.forEach((vs) -> pendingProducts.add(productKey(vs.getVendor(), vs.getProduct())));
+        if (!writerTransaction) {
+            invalidatePending();
+        }
+    }
+
+    /**
+     * Removes the cache entries affected by the updates recorded by
+     * {@link #invalidateCache(java.lang.String, java.util.Collection)}.
+     */
+    private synchronized void invalidatePending() {
+        if (pendingCves.isEmpty() && pendingProducts.isEmpty()) {
+            return;
+        }
+        vulnerabilityCache.invalidateAll(pendingCves);
+        for (String cve : pendingCves) {
+            final Set<String> products = cachedProductsByCve.remove(cve);
+            if (products != null) {
+                pendingProducts.addAll(products);
+            }
+        }
+        vulnerabilitiesForCpeCache.invalidateAll(pendingProducts);
+        pendingCves.clear();
+        pendingProducts.clear();
+    }
+
+    /**
+     * Returns the key of the {@link #vulnerabilitiesForCpeCache} entry holding
+     * the vulnerabilities of the given product.
+     *
+     * @param vendor the vendor
+     * @param product the product
+     * @return the key of the cache entry
+     */
+    private static String productKey(String vendor, String product) {
+        return vendor + ':' + product;
+    }
+
+    /**
+     * Adds the vulnerabilities matched by the CPE to the
+     * {@link #vulnerabilitiesForCpeCache}.
+     *
+     * @param cpe the CPE
+     * @param vulnerabilities the vulnerabilities matched by the CPE
+     */
+    private void cacheVulnerabilities(Cpe cpe, List<Vulnerability> vulnerabilities) {
+        final String key = productKey(cpe.getVendor(), cpe.getProduct());
+        vulnerabilities.forEach((v) -> cachedProductsByCve.computeIfAbsent(v.getName(), (k) -> ConcurrentHashMap.newKeySet()).add(key));
+        vulnerabilitiesForCpeCache.asMap().merge(key, new CpeVulnerabilities(cpe.toCpe23FS(), vulnerabilities), CpeVulnerabilities::merge);
+    }
+
+    /**
+     * Returns the statistics of the vulnerability caches. The counts are
+     * cumulative from when this CveDB was created.
+     *
+     * @return the statistics of the caches
+     */
+    public List<CacheMetrics> getCacheMetrics() {
+        final List<CacheMetrics> result = new ArrayList<>();
+        final CacheStats cpe = vulnerabilitiesForCpeCache.stats();
+        result.add(new CacheMetrics("vulnerabilitiesForCpe", cpe.hitCount(), cpe.missCount(),
+                cpe.evictionCount(), vulnerabilitiesForCpeCache.size()));
+        final CacheStats cve = vulnerabilityCache.stats();
+        result.add(new CacheMetrics("vulnerabilityForCve", cve.hitCount(), cve.missCount(),
+                cve.evictionCount(), vulnerabilityCache.size()));
+        return result;
+    }
+
+    /**
+     * Creates a copy of a cached vulnerability so that callers can modify the
+     * result without altering the cache; only the immutable CVSS scores and
+     * vulnerable software entries are shared.
+     *
+     * @param source the vulnerability to copy
+     * @return the copy
+     */
+    private static Vulnerability copyOf(Vulnerability source) {
+        final Vulnerability copy = new Vulnerability(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setSource(source.getSource());
+        copy.setCvssV2(source.getCvssV2());
+        copy.setCvssV3(source.getCvssV3());
+        copy.setUnscoredSeverity(source.getUnscoredSeverity());
+        copy.setNotes(source.getNotes());
+        source.getCwes().getEntries().forEach(copy::addCwe);
+        source.getReferences().forEach(r -> copy.addReference(r.getSource(), r.getName(), r.getUrl()));
+        copy.setVulnerableSoftware(new HashSet<>(source.getVulnerableSoftware()));
+        copy.setMatchedVulnerableSoftware(source.getMatchedVulnerableSoftware());
+        return copy;
+    }
+
+    /**
+     * Creates copies of a list of cached vulnerabilities.
+     *
+     * @param source the vulnerabilities to copy
+     * @return the copies
      */
-    private synchronized void clearCache() {
-        vulnerabilitiesForCpeCache.clear();
+    private static List<Vulnerability> copyOf(List<Vulnerability> source) {
+        final List<Vulnerability> copy = new ArrayList<>(source.size());
+        source.forEach(v -> copy.add(copyOf(v)));
+        return copy;
     }
 
     /**
@@ -729,19 +1173,30 @@ public final class CveDB implements AutoCloseable {
      * @return a list of Vulnerabilities
      * @throws DatabaseException thrown if there is an exception retrieving data
      */
-    public synchronized List<Vulnerability> getVulnerabilities(Cpe cpe) throws DatabaseException {
-        final List<Vulnerability> cachedVulnerabilities = vulnerabilitiesForCpeCache.get(cpe.toCpe23FS());
+    public List<Vulnerability> getVulnerabilities(Cpe cpe) throws DatabaseException {
+        final CpeVulnerabilities cachedProduct = vulnerabilitiesForCpeCache.getIfPresent(productKey(cpe.getVendor(), cpe.getProduct()));
+        final List<Vulnerability> cachedVulnerabilities = cachedProduct == null ? null : cachedProduct.byCpe.get(cpe.toCpe23FS());
         if (cachedVulnerabilities != null) {
             LOGGER.debug("Cache hit for {}", cpe.toCpe23FS());
-            return cachedVulnerabilities;
+            return copyOf(cachedVulnerabilities);
         } else {
             LOGGER.debug("Cache miss for {}", cpe.toCpe23FS());
         }
+        if (snapshot != null) {
+            final List<Vulnerability> vulnerabilities = getVulnerabilitiesFromSnapshot(cpe);
+            cacheVulnerabilities(cpe, vulnerabilities);
+            return copyOf(vulnerabilities);
+        }
 
         final List<Vulnerability> vulnerabilities = new ArrayList<>();
+        final VulnerableSoftwareBuilder vulnerableSoftwareBuilder = new VulnerableSoftwareBuilder();
+        final ReadConnectionPool pool = getReadPool();
+        final ReadConnectionPool.PooledConnection conn = pool.borrow();
         ResultSet rs = null;
         try {
-            final PreparedStatement ps = getPreparedStatement(SELECT_CVE_FROM_SOFTWARE);
+            //the matched software keyed by CVE, in the order of the CVEs
+            final Map<String, VulnerableSoftware> matches = new LinkedHashMap<>();
+            final PreparedStatement ps = conn.getPreparedStatement(SELECT_CVE_FROM_SOFTWARE);
             ps.setString(1, cpe.getVendor());
             ps.setString(2, cpe.getProduct());
             rs = ps.executeQuery();
@@ -757,12 +1212,7 @@ public final class CveDB implements AutoCloseable {
                 if (!vulnSoftware.isEmpty() && !currentCVE.equals(cveId)) { //check for match and add
                     final VulnerableSoftware matchedCPE = getMatchingSoftware(cpe, vulnSoftware);
                     if (matchedCPE != null) {
-                        final Vulnerability v = getVulnerability(currentCVE);
-                        if (v != null) {
-                            v.setMatchedVulnerableSoftware(matchedCPE);
-                            v.setSource(Vulnerability.Source.NVD);
-                            vulnerabilities.add(v);
-                        }
+                        matches.put(currentCVE, matchedCPE);
                     }
                     vulnSoftware.clear();
                     currentCVE = cveId;
@@ -787,9 +1237,17 @@ public final class CveDB implements AutoCloseable {
             //remember to process the last set of CVE/CPE entries
             final VulnerableSoftware matchedCPE = getMatchingSoftware(cpe, vulnSoftware);
             if (matchedCPE != null) {
-                final Vulnerability v = getVulnerability(currentCVE);
+                matches.put(currentCVE, matchedCPE);
+            }
+            DBUtils.closeResultSet(rs);
+            rs = null;
+
+            //load the matched vulnerabilities using a few set based queries rather than several queries per CVE
+            final Map<String, Vulnerability> loaded = getVulnerabilities(conn, matches.keySet());
+            for (Map.Entry<String, VulnerableSoftware> match : matches.entrySet()) {
+                final Vulnerability v = loaded.get(match.getKey());
                 if (v != null) {
-                    v.setMatchedVulnerableSoftware(matchedCPE);
+                    v.setMatchedVulnerableSoftware(match.getValue());
                     v.setSource(Vulnerability.Source.NVD);
                     vulnerabilities.add(v);
                 }
@@ -798,8 +1256,39 @@ public final class CveDB implements AutoCloseable {
             throw new DatabaseException("Exception retrieving vulnerability for " + cpe.toCpe23FS(), ex);
         } finally {
             DBUtils.closeResultSet(rs);
+            pool.release(conn);
+        }
+        cacheVulnerabilities(cpe, vulnerabilities);
+        return copyOf(vulnerabilities);
+    }
+
+    /**
+     * Retrieves the vulnerabilities associated with the specified CPE from the
+     * vulnerability snapshot.
+     *
+     * @param cpe the CPE to retrieve vulnerabilities for
+     * @return a list of Vulnerabilities
+     * @throws DatabaseException thrown if there is an exception reading the
+     * snapshot
+     */
+    private List<Vulnerability> getVulnerabilitiesFromSnapshot(Cpe cpe) throws DatabaseException {
+        final Map<String, VulnerableSoftware> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<VulnerableSoftware>> entry
+                : snapshot.getVulnerableSoftware(cpe.getVendor(), cpe.getProduct()).entrySet()) {
+            final VulnerableSoftware matchedCPE = getMatchingSoftware(cpe, entry.getValue());
+            if (matchedCPE != null) {
+                matches.put(entry.getKey(), matchedCPE);
+            }
+        }
+        final List<Vulnerability> vulnerabilities = new ArrayList<>();
+        final Map<String, Vulnerability> loaded = snapshot.getVulnerabilities(matches.keySet());
+        for (Map.Entry<String, VulnerableSoftware> match : matches.entrySet()) {
+            final Vulnerability v = loaded.get(match.getKey());
+            if (v != null) {
+                v.setMatchedVulnerableSoftware(match.getValue());
+                vulnerabilities.add(v);
+            }
         }
-        vulnerabilitiesForCpeCache.put(cpe.toCpe23FS(), vulnerabilities);
         return vulnerabilities;
     }
 
@@ -810,106 +1299,152 @@ public final class CveDB implements AutoCloseable {
      * @return a vulnerability object
      * @throws DatabaseException if an exception occurs
      */
-    public synchronized Vulnerability getVulnerability(String cve) throws DatabaseException {
-        ResultSet rsV = null;
-        ResultSet rsC = null;
-        ResultSet rsR = null;
-        ResultSet rsS = null;
-        Vulnerability vuln = null;
+    public Vulnerability getVulnerability(String cve) throws DatabaseException {
+        if (snapshot != null) {
+            return snapshot.getVulnerabilities(Collections.singleton(cve)).get(cve);
+        }
+        final ReadConnectionPool pool = getReadPool();
+        final ReadConnectionPool.PooledConnection conn = pool.borrow();
+        try {
+            return getVulnerabilities(conn, Collections.singleton(cve)).get(cve);
+        } finally {
+            pool.release(conn);
+        }
+    }
 
+    /**
+     * Loads the vulnerabilities for the provided CVEs using the given
+     * connection. Cached vulnerabilities are copied; the vulnerabilities,
+     * CWEs, references and vulnerable software of the remaining CVEs are each
+     * loaded for up to {@link #IN_LIST_SIZE} CVEs at a time and the
+     * vulnerabilities are assembled in memory.
+     *
+     * @param conn the pooled connection to query
+     * @param cves the CVEs to lookup
+     * @return the vulnerabilities keyed by CVE; CVEs that do not exist in the
+     * database are not included
+     * @throws DatabaseException if an exception occurs
+     */
+    Map<String, Vulnerability> getVulnerabilities(ReadConnectionPool.PooledConnection conn, Collection<String> cves)
+            throws DatabaseException {
+        final Map<String, Vulnerability> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final List<String> names = new ArrayList<>();
+        for (String cve : cves) {
+            final Vulnerability cached = vulnerabilityCache.getIfPresent(cve);
+            if (cached != null) {
+                result.put(cve, copyOf(cached));
+            } else {
+                names.add(cve);
+            }
+        }
+        final Map<String, Vulnerability> loaded = new HashMap<>();
+        final VulnerableSoftwareBuilder vulnerableSoftwareBuilder = new VulnerableSoftwareBuilder();
         try {
-            final PreparedStatement psV = getPreparedStatement(SELECT_VULNERABILITY);
-            if (psV == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_VULNERABILITY);
-            }
-            psV.setString(1, cve);
-            rsV = psV.executeQuery();
-            if (rsV.next()) {
-                vuln = new Vulnerability();
-                vuln.setName(cve);
-                vuln.setDescription(rsV.getString(2));
-                vuln.setSource(Vulnerability.Source.NVD);
-                final int cveId = rsV.getInt(1);
-                //id, 2.description, 3. cvssV22Score, 4 cvssV2AccessVector, 5 cvssV2AccessComplexity,
+            for (int start = 0; start < names.size(); start += IN_LIST_SIZE) {
+                final List<String> chunk = names.subList(start, Math.min(start + IN_LIST_SIZE, names.size()));
+                final Map<Integer, Vulnerability> byId = new HashMap<>();
+                //1 id, 2 description, 3 cvssV2Score, 4 cvssV2AccessVector, 5 cvssV2AccessComplexity,
                 //6 cvssV2Authentication, 7 cvssV2ConfidentialityImpact, 8 cvssV2IntegrityImpact,
-                //9 cvssV2AvailabilityImpact, 10 cvssV2Severity
-                if (rsV.getString(4) != null) {
-                    final CvssV2 cvss = new CvssV2(rsV.getFloat(3), rsV.getString(4),
-                            rsV.getString(5), rsV.getString(6), rsV.getString(7),
-                            rsV.getString(7), rsV.getString(9), rsV.getString(10));
-                    vuln.setCvssV2(cvss);
-                }
-                //11 cvssV3AttackVector, 12 cvssV3AttackComplexity, 13 cvssV3PrivilegesRequired,
-                //14 cvssV3UserInteraction, 15 cvssV3Scope, 16 cvssV3ConfidentialityImpact,
-                //17 cvssV3IntegrityImpact, 18 cvssV3AvailabilityImpact, 19 cvssV3BaseScore,
-                //20 cvssV3BaseSeverity
-                if (rsV.getString(11) != null) {
-                    final CvssV3 cvss = new CvssV3(rsV.getString(11), rsV.getString(12),
-                            rsV.getString(13), rsV.getString(14), rsV.getString(15),
-                            rsV.getString(16), rsV.getString(17), rsV.getString(18),
-                            rsV.getFloat(19), rsV.getString(20));
-                    vuln.setCvssV3(cvss);
-                }
-                final PreparedStatement psCWE = getPreparedStatement(SELECT_VULNERABILITY_CWE);
-                if (psCWE == null) {
-                    throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_VULNERABILITY_CWE);
-                }
-                psCWE.setInt(1, cveId);
-                rsC = psCWE.executeQuery();
-                while (rsC.next()) {
-                    vuln.addCwe(rsC.getString(1));
+                //9 cvssV2AvailabilityImpact, 10 cvssV2Severity, 11 cvssV3AttackVector, 12 cvssV3AttackComplexity,
+                //13 cvssV3PrivilegesRequired, 14 cvssV3UserInteraction, 15 cvssV3Scope,
+                //16 cvssV3ConfidentialityImpact, 17 cvssV3IntegrityImpact, 18 cvssV3AvailabilityImpact,
+                //19 cvssV3BaseScore, 20 cvssV3BaseSeverity, 21 cve
+                try (ResultSet rsV = executeInList(conn, SELECT_VULNERABILITIES, chunk)) {
+                    while (rsV.next()) {
+                        final Vulnerability vuln = new Vulnerability();
+                        vuln.setName(rsV.getString(21));
+                        vuln.setDescription(rsV.getString(2));
+                        vuln.setSource(Vulnerability.Source.NVD);
+                        if (rsV.getString(4) != null) {
+                            final CvssV2 cvss = new CvssV2(rsV.getFloat(3), rsV.getString(4),
+                                    rsV.getString(5), rsV.getString(6), rsV.getString(7),
+                                    rsV.getString(7), rsV.getString(9), rsV.getString(10));
+                            vuln.setCvssV2(cvss);
+                        }
+                        if (rsV.getString(11) != null) {
+                            final CvssV3 cvss = new CvssV3(rsV.getString(11), rsV.getString(12),
+                                    rsV.getString(13), rsV.getString(14), rsV.getString(15),
+                                    rsV.getString(16), rsV.getString(17), rsV.getString(18),
+                                    rsV.getFloat(19), rsV.getString(20));
+                            vuln.setCvssV3(cvss);
+                        }
+                        byId.put(rsV.getInt(1), vuln);
+                        loaded.put(vuln.getName(), vuln);
+                    }
                 }
-
-                final PreparedStatement psR = getPreparedStatement(SELECT_REFERENCES);
-                if (psR == null) {
-                    throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_REFERENCES);
+                if (byId.isEmpty()) {
+                    continue;
                 }
-                psR.setInt(1, cveId);
-                rsR = psR.executeQuery();
-                while (rsR.next()) {
-                    vuln.addReference(rsR.getString(1), rsR.getString(2), rsR.getString(3));
+                final List<Integer> ids = new ArrayList<>(byId.keySet());
+                //1 cwe, 2 cveid
+                try (ResultSet rsC = executeInList(conn, SELECT_VULNERABILITIES_CWE, ids)) {
+                    while (rsC.next()) {
+                        byId.get(rsC.getInt(2)).addCwe(rsC.getString(1));
+                    }
                 }
-
-                final PreparedStatement psS = getPreparedStatement(SELECT_SOFTWARE);
-                if (psS == null) {
-                    throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_SOFTWARE);
+                //1 source, 2 name, 3 url, 4 cveid
+                try (ResultSet rsR = executeInList(conn, SELECT_VULNERABILITIES_REFERENCES, ids)) {
+                    while (rsR.next()) {
+                        byId.get(rsR.getInt(4)).addReference(rsR.getString(1), rsR.getString(2), rsR.getString(3));
+                    }
                 }
                 //1 part, 2 vendor, 3 product, 4 version, 5 update_version, 6 edition, 7 lang,
                 //8 sw_edition, 9 target_sw, 10 target_hw, 11 other, 12 versionEndExcluding,
-                //13 versionEndIncluding, 14 versionStartExcluding, 15 versionStartIncluding, 16 vulnerable
-                psS.setInt(1, cveId);
-                rsS = psS.executeQuery();
-                while (rsS.next()) {
-                    vulnerableSoftwareBuilder.part(rsS.getString(1))
-                            .vendor(rsS.getString(2))
-                            .product(rsS.getString(3))
-                            .version(rsS.getString(4))
-                            .update(rsS.getString(5))
-                            .edition(rsS.getString(6))
-                            .language(rsS.getString(7))
-                            .swEdition(rsS.getString(8))
-                            .targetSw(rsS.getString(9))
-                            .targetHw(rsS.getString(10))
-                            .other(rsS.getString(11))
-                            .versionEndExcluding(rsS.getString(12))
-                            .versionEndIncluding(rsS.getString(13))
-                            .versionStartExcluding(rsS.getString(14))
-                            .versionStartIncluding(rsS.getString(15))
-                            .vulnerable(rsS.getBoolean(16));
-                    vuln.addVulnerableSoftware(vulnerableSoftwareBuilder.build());
+                //13 versionEndIncluding, 14 versionStartExcluding, 15 versionStartIncluding, 16 vulnerable,
+                //17 cveid
+                try (ResultSet rsS = executeInList(conn, SELECT_VULNERABILITIES_SOFTWARE, ids)) {
+                    while (rsS.next()) {
+                        vulnerableSoftwareBuilder.part(rsS.getString(1))
+                                .vendor(rsS.getString(2))
+                                .product(rsS.getString(3))
+                                .version(rsS.getString(4))
+                                .update(rsS.getString(5))
+                                .edition(rsS.getString(6))
+                                .language(rsS.getString(7))
+                                .swEdition(rsS.getString(8))
+                                .targetSw(rsS.getString(9))
+                                .targetHw(rsS.getString(10))
+                                .other(rsS.getString(11))
+                                .versionEndExcluding(rsS.getString(12))
+                                .versionEndIncluding(rsS.getString(13))
+                                .versionStartExcluding(rsS.getString(14))
+                                .versionStartIncluding(rsS.getString(15))
+                                .vulnerable(rsS.getBoolean(16));
+                        byId.get(rsS.getInt(17)).addVulnerableSoftware(vulnerableSoftwareBuilder.build());
+                    }
                 }
             }
         } catch (SQLException ex) {
-            throw new DatabaseException("Error retrieving " + cve, ex);
+            throw new DatabaseException("Error retrieving " + String.join(", ", names), ex);
         } catch (CpeParsingException | CpeValidationException ex) {
             throw new DatabaseException("The database contains an invalid Vulnerable Software Entry", ex);
-        } finally {
-            DBUtils.closeResultSet(rsV);
-            DBUtils.closeResultSet(rsC);
-            DBUtils.closeResultSet(rsR);
-            DBUtils.closeResultSet(rsS);
         }
-        return vuln;
+        loaded.forEach((name, vuln) -> {
+            vulnerabilityCache.put(name, vuln);
+            result.put(name, copyOf(vuln));
+        });
+        return result;
+    }
+
+    /**
+     * Executes an IN-list statement for the given values; if there are fewer
+     * than {@link #IN_LIST_SIZE} values the remaining parameters repeat the
+     * last value.
+     *
+     * @param conn the pooled connection to query
+     * @param key the IN-list statement to execute
+     * @param values the values, at least one and at most
+     * {@link #IN_LIST_SIZE}
+     * @return the result set
+     * @throws SQLException thrown if a SQL Exception occurs
+     */
+    private ResultSet executeInList(ReadConnectionPool.PooledConnection conn, PreparedStatementCveDb key, List<?> values)
+            throws SQLException {
+        final PreparedStatement ps = conn.getPreparedStatement(key);
+        for (int i = 0; i < IN_LIST_SIZE; i++) {
+            ps.setObject(i + 1, values.get(Math.min(i, values.size() - 1)));
+        }
+        return ps.executeQuery();
     }
 
     /**
@@ -921,18 +1456,31 @@ public final class CveDB implements AutoCloseable {
      * @throws DatabaseException is thrown if the database
      */
     public void updateVulnerability(DefCveItem cve) {
-        clearCache();
+        requireDatabase();
         final String cveId = cve.getCve().getCVEDataMeta().getId();
         try {
-            int vulnerabilityId = updateVulnerabilityGetVulnerabilityId(cveId);
-
             final String description = cve.getCve().getDescription().getDescriptionData().stream().filter((desc)
                     -> "en".equals(desc.getLang())).map(d
                     -> d.getValue()).collect(Collectors.joining(" "));
 
-            if (vulnerabilityId != 0) {
+            if (isBulkImport()) {
+                if (!description.trim().startsWith("** REJECT **")) {
+                    //parse the CPEs outside of a synchronized method
+                    bulkImportVulnerability(cve, description, parseCpes(cve));
+                }
+                return;
+            }
+            int vulnerabilityId = updateVulnerabilityGetVulnerabilityId(cveId, cve.getLastModifiedDate());
+            if (vulnerabilityId == UNCHANGED) {
+                return;
+            }
+            final boolean existing = vulnerabilityId != 0;
+
+            if (existing) {
                 if (description.trim().startsWith("** REJECT **")) {
                     updateVulnerabilityDeleteVulnerability(vulnerabilityId);
+                    invalidateCache(cveId, Collections.emptyList());
+                    return;
                 } else {
                     updateVulnerabilityUpdateVulnerability(vulnerabilityId, cve, description);
                 }
@@ -944,15 +1492,16 @@ public final class CveDB implements AutoCloseable {
                 }
             }
 
-            updateVulnerabilityInsertCwe(vulnerabilityId, cve);
+            updateVulnerabilityInsertCwe(vulnerabilityId, cve, existing);
 
             String baseEcosystem = determineBaseEcosystem(description);
-            baseEcosystem = updateVulnerabilityInsertReferences(vulnerabilityId, cve, baseEcosystem);
+            baseEcosystem = updateVulnerabilityInsertReferences(vulnerabilityId, cve, baseEcosystem, existing);
 
             //parse the CPEs outside of a synchronized method
             final List<VulnerableSoftware> software = parseCpes(cve);
 
-            updateVulnerabilityInsertSoftware(vulnerabilityId, cveId, software, baseEcosystem);
+            updateVulnerabilityInsertSoftware(vulnerabilityId, cveId, software, baseEcosystem, existing);
+            invalidateCache(cveId, software);
 
         } catch (SQLException ex) {
             final String msg = String.format("Error updating '%s'", cveId);
@@ -968,43 +1517,29 @@ public final class CveDB implements AutoCloseable {
     /**
      * Used when updating a vulnerability - this method retrieves the
      * vulnerability ID from the database. If zero is returned the vulnerability
-     * does not exist and must be inserted (created) instead of updated.
+     * does not exist and must be inserted (created) instead of updated. If the
+     * stored vulnerability has the same last modified date as the update
+     * {@link #UNCHANGED} is returned and the update can be skipped.
      *
      * @param cveId the CVE ID
+     * @param lastModifiedDate the last modified date of the CVE entry; may be
+     * <code>null</code>
      * @return the vulnerability ID
      */
     @SuppressFBWarnings(justification = "Try with resources will cleanup the resources", value = {"OBL_UNSATISFIED_OBLIGATION"})
-    private synchronized int updateVulnerabilityGetVulnerabilityId(String cveId) {
+    private synchronized int updateVulnerabilityGetVulnerabilityId(String cveId, String lastModifiedDate) {
         int vulnerabilityId = 0;
-        try (PreparedStatement selectVulnerabilityId = prepareStatement(SELECT_VULNERABILITY_ID);
-                PreparedStatement deleteReference = prepareStatement(DELETE_REFERENCE);
-                PreparedStatement deleteSoftware = prepareStatement(DELETE_SOFTWARE);
-                PreparedStatement deleteCwe = prepareStatement(DELETE_CWE)) {
+        try (PreparedStatement selectVulnerabilityId = prepareStatement(SELECT_VULNERABILITY_ID)) {
             if (selectVulnerabilityId == null) {
                 throw new SQLException("Database query does not exist in the resource bundle: " + SELECT_VULNERABILITY_ID);
             }
-            if (deleteReference == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + DELETE_REFERENCE);
-            }
-            if (deleteSoftware == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + DELETE_SOFTWARE);
-            }
-            if (deleteCwe == null) {
-                throw new SQLException("Database query does not exist in the resource bundle: " + DELETE_CWE);
-            }
             selectVulnerabilityId.setString(1, cveId);
             try (ResultSet rs = selectVulnerabilityId.executeQuery()) {
                 if (rs.next()) {
                     vulnerabilityId = rs.getInt(1);
-                    // first delete any existing vulnerability info. We don't know what was updated. yes, slower but atm easier.
-                    deleteReference.setInt(1, vulnerabilityId);
-                    deleteReference.execute();
-
-                    deleteSoftware.setInt(1, vulnerabilityId);
-                    deleteSoftware.execute();
-
-                    deleteCwe.setInt(1, vulnerabilityId);
-                    deleteCwe.execute();
+                    if (lastModifiedDate != null && lastModifiedDate.equals(rs.getString(2))) {
+                        vulnerabilityId = UNCHANGED;
+                    }
                 }
             }
         } catch (SQLException ex) {
@@ -1013,6 +1548,60 @@ public final class CveDB implements AutoCloseable {
         return vulnerabilityId;
     }
 
+    /**
+     * Used when updating a vulnerability - this method retrieves the CWE,
+     * reference, or software rows currently stored for the vulnerability so
+     * that only the rows that changed are written.
+     *
+     * @param key the statement that selects the rows; one of
+     * <code>SELECT_VULNERABILITY_CWE</code>,
+     * <code>SELECT_VULNERABILITY_REFERENCES</code>, or
+     * <code>SELECT_VULNERABILITY_SOFTWARE</code>
+     * @param vulnerabilityId the vulnerability ID
+     * @return the keys of the stored rows
+     * @throws SQLException thrown if there is an error reading the data
+     */
+    private synchronized Set<Object> selectVulnerabilityChildren(PreparedStatementCveDb key, int vulnerabilityId) throws SQLException {
+        final Set<Object> rows = new HashSet<>();
+        try (PreparedStatement ps = prepareStatement(key)) {
+            if (ps == null) {
+                throw new SQLException("Database query does not exist in the resource bundle: " + key);
+            }
+            ps.setInt(1, vulnerabilityId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (key == SELECT_VULNERABILITY_CWE) {
+                        rows.add(rs.getString(1));
+                    } else if (key == SELECT_VULNERABILITY_REFERENCES) {
+                        rows.add(Arrays.asList(rs.getString(1), rs.getString(2), rs.getString(3)));
+                    } else {
+                        rows.add(Arrays.asList(rs.getInt(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getBoolean(6)));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Used when updating a vulnerability - this method deletes the CWE,
+     * reference, or software rows of the vulnerability.
+     *
+     * @param key the delete statement
+     * @param vulnerabilityId the vulnerability ID
+     * @throws SQLException thrown if there is an error deleting the data
+     */
+    private synchronized void deleteVulnerabilityChildren(PreparedStatementCveDb key, int vulnerabilityId) throws SQLException {
+        try (PreparedStatement ps = prepareStatement(key)) {
+            if (ps == null) {
+                throw new SQLException("Database query does not exist in the resource bundle: " + key);
+            }
+            ps.setInt(1, vulnerabilityId);
+            ps.execute();
+        }
+    }
+
     /**
      * Used when updating a vulnerability - this method inserts the
      * vulnerability entry itself.
@@ -1022,74 +1611,86 @@ public final class CveDB implements AutoCloseable {
      * @return the vulnerability ID
      */
     private synchronized int updateVulnerabilityInsertVulnerability(DefCveItem cve, String description) {
-        final int vulnerabilityId;
         try (PreparedStatement insertVulnerability = prepareStatement(INSERT_VULNERABILITY)) {
             if (insertVulnerability == null) {
                 throw new SQLException("Database query does not exist in the resource bundle: " + INSERT_VULNERABILITY);
             }
-            //cve, description, cvssV2Score, cvssV2AccessVector, cvssV2AccessComplexity, cvssV2Authentication,
-            //cvssV2ConfidentialityImpact, cvssV2IntegrityImpact, cvssV2AvailabilityImpact, cvssV2Severity,
-            //cvssV3AttackVector, cvssV3AttackComplexity, cvssV3PrivilegesRequired, cvssV3UserInteraction,
-            //cvssV3Scope, cvssV3ConfidentialityImpact, cvssV3IntegrityImpact, cvssV3AvailabilityImpact,
-            //cvssV3BaseScore, cvssV3BaseSeverity
-            insertVulnerability.setString(1, cve.getCve().getCVEDataMeta().getId());
-            insertVulnerability.setString(2, description);
-            if (cve.getImpact().getBaseMetricV2() != null) {
-                final BaseMetricV2 cvssv2 = cve.getImpact().getBaseMetricV2();
-                insertVulnerability.setFloat(3, cvssv2.getCvssV2().getBaseScore().floatValue());
-                insertVulnerability.setString(4, cvssv2.getCvssV2().getAccessVector().value());
-                insertVulnerability.setString(5, cvssv2.getCvssV2().getAccessComplexity().value());
-                insertVulnerability.setString(6, cvssv2.getCvssV2().getAuthentication().value());
-                insertVulnerability.setString(7, cvssv2.getCvssV2().getConfidentialityImpact().value());
-                insertVulnerability.setString(8, cvssv2.getCvssV2().getIntegrityImpact().value());
-                insertVulnerability.setString(9, cvssv2.getCvssV2().getAvailabilityImpact().value());
-                insertVulnerability.setString(10, cvssv2.getSeverity());
-            } else {
-                insertVulnerability.setNull(3, java.sql.Types.NULL);
-                insertVulnerability.setNull(4, java.sql.Types.NULL);
-                insertVulnerability.setNull(5, java.sql.Types.NULL);
-                insertVulnerability.setNull(6, java.sql.Types.NULL);
-                insertVulnerability.setNull(7, java.sql.Types.NULL);
-                insertVulnerability.setNull(8, java.sql.Types.NULL);
-                insertVulnerability.setNull(9, java.sql.Types.NULL);
-                insertVulnerability.setNull(10, java.sql.Types.NULL);
-            }
-            if (cve.getImpact().getBaseMetricV3() != null) {
-                final BaseMetricV3 cvssv3 = cve.getImpact().getBaseMetricV3();
-                insertVulnerability.setString(11, cvssv3.getCvssV3().getAttackVector().value());
-                insertVulnerability.setString(12, cvssv3.getCvssV3().getAttackComplexity().value());
-                insertVulnerability.setString(13, cvssv3.getCvssV3().getPrivilegesRequired().value());
-                insertVulnerability.setString(14, cvssv3.getCvssV3().getUserInteraction().value());
-                insertVulnerability.setString(15, cvssv3.getCvssV3().getScope().value());
-                insertVulnerability.setString(16, cvssv3.getCvssV3().getConfidentialityImpact().value());
-                insertVulnerability.setString(17, cvssv3.getCvssV3().getIntegrityImpact().value());
-                insertVulnerability.setString(18, cvssv3.getCvssV3().getAvailabilityImpact().value());
-                insertVulnerability.setFloat(19, cvssv3.getCvssV3().getBaseScore().floatValue());
-                insertVulnerability.setString(20, cvssv3.getCvssV3().getBaseSeverity().value());
-            } else {
-                insertVulnerability.setNull(11, java.sql.Types.NULL);
-                insertVulnerability.setNull(12, java.sql.Types.NULL);
-                insertVulnerability.setNull(13, java.sql.Types.NULL);
-                insertVulnerability.setNull(14, java.sql.Types.NULL);
-                insertVulnerability.setNull(15, java.sql.Types.NULL);
-                insertVulnerability.setNull(16, java.sql.Types.NULL);
-                insertVulnerability.setNull(17, java.sql.Types.NULL);
-                insertVulnerability.setNull(18, java.sql.Types.NULL);
-                insertVulnerability.setNull(19, java.sql.Types.NULL);
-                insertVulnerability.setNull(20, java.sql.Types.NULL);
-            }
-            insertVulnerability.execute();
-            try (ResultSet rs = insertVulnerability.getGeneratedKeys()) {
-                rs.next();
-                vulnerabilityId = rs.getInt(1);
-            } catch (SQLException ex) {
-                final String msg = String.format("Unable to retrieve id for new vulnerability for '%s'", cve.getCve().getCVEDataMeta().getId());
-                throw new DatabaseException(msg, ex);
-            }
+            return insertVulnerability(insertVulnerability, cve, description);
         } catch (SQLException ex) {
             throw new UnexpectedAnalysisException(ex);
         }
-        return vulnerabilityId;
+    }
+
+    /**
+     * Inserts the vulnerability entry itself using the given statement.
+     *
+     * @param insertVulnerability the prepared insert vulnerability statement
+     * @param cve the CVE data
+     * @param description the description of the CVE entry
+     * @return the vulnerability ID
+     * @throws SQLException thrown if there is an error inserting the data
+     */
+    private int insertVulnerability(PreparedStatement insertVulnerability, DefCveItem cve, String description) throws SQLException {
+        //cve, description, cvssV2Score, cvssV2AccessVector, cvssV2AccessComplexity, cvssV2Authentication,
+        //cvssV2ConfidentialityImpact, cvssV2IntegrityImpact, cvssV2AvailabilityImpact, cvssV2Severity,
+        //cvssV3AttackVector, cvssV3AttackComplexity, cvssV3PrivilegesRequired, cvssV3UserInteraction,
+        //cvssV3Scope, cvssV3ConfidentialityImpact, cvssV3IntegrityImpact, cvssV3AvailabilityImpact,
+        //cvssV3BaseScore, cvssV3BaseSeverity, lastModifiedDate
+        insertVulnerability.setString(1, cve.getCve().getCVEDataMeta().getId());
+        insertVulnerability.setString(2, description);
+        if (cve.getImpact().getBaseMetricV2() != null) {
+            final BaseMetricV2 cvssv2 = cve.getImpact().getBaseMetricV2();
+            insertVulnerability.setFloat(3, cvssv2.getCvssV2().getBaseScore().floatValue());
+            insertVulnerability.setString(4, cvssv2.getCvssV2().getAccessVector().value());
+            insertVulnerability.setString(5, cvssv2.getCvssV2().getAccessComplexity().value());
+            insertVulnerability.setString(6, cvssv2.getCvssV2().getAuthentication().value());
+            insertVulnerability.setString(7, cvssv2.getCvssV2().getConfidentialityImpact().value());
+            insertVulnerability.setString(8, cvssv2.getCvssV2().getIntegrityImpact().value());
+            insertVulnerability.setString(9, cvssv2.getCvssV2().getAvailabilityImpact().value());
+            insertVulnerability.setString(10, cvssv2.getSeverity());
+        } else {
+            insertVulnerability.setNull(3, java.sql.Types.NULL);
+            insertVulnerability.setNull(4, java.sql.Types.NULL);
+            insertVulnerability.setNull(5, java.sql.Types.NULL);
+            insertVulnerability.setNull(6, java.sql.Types.NULL);
+            insertVulnerability.setNull(7, java.sql.Types.NULL);
+            insertVulnerability.setNull(8, java.sql.Types.NULL);
+            insertVulnerability.setNull(9, java.sql.Types.NULL);
+            insertVulnerability.setNull(10, java.sql.Types.NULL);
+        }
+        if (cve.getImpact().getBaseMetricV3() != null) {
+            final BaseMetricV3 cvssv3 = cve.getImpact().getBaseMetricV3();
+            insertVulnerability.setString(11, cvssv3.getCvssV3().getAttackVector().value());
+            insertVulnerability.setString(12, cvssv3.getCvssV3().getAttackComplexity().value());
+            insertVulnerability.setString(13, cvssv3.getCvssV3().getPrivilegesRequired().value());
+            insertVulnerability.setString(14, cvssv3.getCvssV3().getUserInteraction().value());
+            insertVulnerability.setString(15, cvssv3.getCvssV3().getScope().value());
+            insertVulnerability.setString(16, cvssv3.getCvssV3().getConfidentialityImpact().value());
+            insertVulnerability.setString(17, cvssv3.getCvssV3().getIntegrityImpact().value());
+            insertVulnerability.setString(18, cvssv3.getCvssV3().getAvailabilityImpact().value());
+            insertVulnerability.setFloat(19, cvssv3.getCvssV3().getBaseScore().floatValue());
+            insertVulnerability.setString(20, cvssv3.getCvssV3().getBaseSeverity().value());
+        } else {
+            insertVulnerability.setNull(11, java.sql.Types.NULL);
+            insertVulnerability.setNull(12, java.sql.Types.NULL);
+            insertVulnerability.setNull(13, java.sql.Types.NULL);
+            insertVulnerability.setNull(14, java.sql.Types.NULL);
+            insertVulnerability.setNull(15, java.sql.Types.NULL);
+            insertVulnerability.setNull(16, java.sql.Types.NULL);
+            insertVulnerability.setNull(17, java.sql.Types.NULL);
+            insertVulnerability.setNull(18, java.sql.Types.NULL);
+            insertVulnerability.setNull(19, java.sql.Types.NULL);
+            insertVulnerability.setNull(20, java.sql.Types.NULL);
+        }
+        addNullableStringParameter(insertVulnerability, 21, cve.getLastModifiedDate());
+        insertVulnerability.execute();
+        try (ResultSet rs = insertVulnerability.getGeneratedKeys()) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException ex) {
+            final String msg = String.format("Unable to retrieve id for new vulnerability for '%s'", cve.getCve().getCVEDataMeta().getId());
+            throw new DatabaseException(msg, ex);
+        }
     }
 
     /**
@@ -1108,7 +1709,7 @@ public final class CveDB implements AutoCloseable {
             //description=?, cvssV2Score=?, cvssV2AccessVector=?, cvssV2AccessComplexity=?, cvssV2Authentication=?, cvssV2ConfidentialityImpact=?,
             //cvssV2IntegrityImpact=?, cvssV2AvailabilityImpact=?, cvssV2Severity=?, cvssV3AttackVector=?, cvssV3AttackComplexity=?,
             //cvssV3PrivilegesRequired=?, cvssV3UserInteraction=?, cvssV3Scope=?, cvssV3ConfidentialityImpact=?, cvssV3IntegrityImpact=?,
-            //cvssV3AvailabilityImpact=?, cvssV3BaseScore=?, cvssV3BaseSeverity=? WHERE id=?
+            //cvssV3AvailabilityImpact=?, cvssV3BaseScore=?, cvssV3BaseSeverity=?, lastModifiedDate=? WHERE id=?
             updateVulnerability.setString(1, description);
             if (cve.getImpact().getBaseMetricV2() != null) {
                 final BaseMetricV2 cvssv2 = cve.getImpact().getBaseMetricV2();
@@ -1159,7 +1760,8 @@ public final class CveDB implements AutoCloseable {
                 updateVulnerability.setNull(18, java.sql.Types.NULL);
                 updateVulnerability.setNull(19, java.sql.Types.NULL);
             }
-            updateVulnerability.setInt(20, vulnerabilityId);
+            addNullableStringParameter(updateVulnerability, 20, cve.getLastModifiedDate());
+            updateVulnerability.setInt(21, vulnerabilityId);
             updateVulnerability.executeUpdate();
         } catch (SQLException ex) {
             throw new UnexpectedAnalysisException(ex);
@@ -1168,24 +1770,40 @@ public final class CveDB implements AutoCloseable {
 
     /**
      * Used when updating a vulnerability - this method inserts the CWE entries.
+     * For an existing vulnerability only the new CWE entries are inserted; the
+     * stored entries are only replaced if one of them was removed.
      *
      * @param vulnerabilityId the vulnerability ID
      * @param cve the CVE entry that contains the CWE entries to insert
+     * @param existing whether or not the vulnerability was already stored
      * @throws SQLException thrown if there is an error inserting the data
      */
-    private synchronized void updateVulnerabilityInsertCwe(int vulnerabilityId, DefCveItem cve) throws SQLException {
+    private synchronized void updateVulnerabilityInsertCwe(int vulnerabilityId, DefCveItem cve, boolean existing) throws SQLException {
+        final Set<String> cwes = new LinkedHashSet<>();
+        for (ProblemtypeDatum datum : cve.getCve().getProblemtype().getProblemtypeData()) {
+            for (LangString desc : datum.getDescription()) {
+                if ("en".equals(desc.getLang())) {
+                    cwes.add(desc.getValue());
+                }
+            }
+        }
+        Set<Object> stored = Collections.emptySet();
+        if (existing) {
+            stored = selectVulnerabilityChildren(SELECT_VULNERABILITY_CWE, vulnerabilityId);
+            if (!cwes.containsAll(stored)) {
+                deleteVulnerabilityChildren(DELETE_CWE, vulnerabilityId);
+                stored = Collections.emptySet();
+            }
+        }
         try (PreparedStatement insertCWE = prepareStatement(INSERT_CWE)) {
             if (insertCWE == null) {
                 throw new SQLException("Database query does not exist in the resource bundle: " + INSERT_CWE);
             }
             insertCWE.setInt(1, vulnerabilityId);
-
-            for (ProblemtypeDatum datum : cve.getCve().getProblemtype().getProblemtypeData()) {
-                for (LangString desc : datum.getDescription()) {
-                    if ("en".equals(desc.getLang())) {
-                        insertCWE.setString(2, desc.getValue());
-                        insertCWE.execute();
-                    }
+            for (String cwe : cwes) {
+                if (!stored.contains(cwe)) {
+                    insertCWE.setString(2, cwe);
+                    insertCWE.execute();
                 }
             }
         }
@@ -1208,18 +1826,21 @@ public final class CveDB implements AutoCloseable {
 
     /**
      * Used when updating a vulnerability - this method inserts the list of
-     * vulnerable software.
+     * vulnerable software. For an existing vulnerability only the new software
+     * entries are inserted; the stored entries are only replaced if one of
+     * them was removed or changed.
      *
      * @param vulnerabilityId the vulnerability id
      * @param cveId the CVE ID - used for reporting
      * @param software the list of vulnerable software
      * @param baseEcosystem the ecosystem based off of the vulnerability
      * description
+     * @param existing whether or not the vulnerability was already stored
      * @throws DatabaseException thrown if there is an error inserting the data
      * @throws SQLException thrown if there is an error inserting the data
      */
     private synchronized void updateVulnerabilityInsertSoftware(int vulnerabilityId, String cveId,
-            List<VulnerableSoftware> software, String baseEcosystem)
+            List<VulnerableSoftware> software, String baseEcosystem, boolean existing)
             throws DatabaseException, SQLException {
         try (PreparedStatement insertCpe = prepareStatement(INSERT_CPE);
                 PreparedStatement selectCpeId = prepareStatement(SELECT_CPE_ID);
@@ -1234,19 +1855,12 @@ public final class CveDB implements AutoCloseable {
             if (insertSoftware == null) {
                 throw new SQLException("Database query does not exist in the resource bundle: " + INSERT_SOFTWARE);
             }
-            for (VulnerableSoftware parsedCpe : software) {
+            final List<Object> keys = new ArrayList<>(software.size());
+            final int[] cpeProductIds = new int[software.size()];
+            for (int i = 0; i < software.size(); i++) {
+                final VulnerableSoftware parsedCpe = software.get(i);
                 int cpeProductId = 0;
-                selectCpeId.setString(1, parsedCpe.getPart().getAbbreviation());
-                selectCpeId.setString(2, parsedCpe.getVendor());
-                selectCpeId.setString(3, parsedCpe.getProduct());
-                selectCpeId.setString(4, parsedCpe.getVersion());
-                selectCpeId.setString(5, parsedCpe.getUpdate());
-                selectCpeId.setString(6, parsedCpe.getEdition());
-                selectCpeId.setString(7, parsedCpe.getLanguage());
-                selectCpeId.setString(8, parsedCpe.getSwEdition());
-                selectCpeId.setString(9, parsedCpe.getTargetSw());
-                selectCpeId.setString(10, parsedCpe.getTargetHw());
-                selectCpeId.setString(11, parsedCpe.getOther());
+                setCpeParameters(selectCpeId, parsedCpe);
                 try (ResultSet rs = selectCpeId.executeQuery()) {
                     if (rs.next()) {
                         cpeProductId = rs.getInt(1);
@@ -1255,38 +1869,31 @@ public final class CveDB implements AutoCloseable {
                     throw new DatabaseException("Unable to get primary key for new cpe: " + parsedCpe.toCpe23FS(), ex);
                 }
                 if (cpeProductId == 0) {
-                    insertCpe.setString(1, parsedCpe.getPart().getAbbreviation());
-                    insertCpe.setString(2, parsedCpe.getVendor());
-                    insertCpe.setString(3, parsedCpe.getProduct());
-                    insertCpe.setString(4, parsedCpe.getVersion());
-                    insertCpe.setString(5, parsedCpe.getUpdate());
-                    insertCpe.setString(6, parsedCpe.getEdition());
-                    insertCpe.setString(7, parsedCpe.getLanguage());
-                    insertCpe.setString(8, parsedCpe.getSwEdition());
-                    insertCpe.setString(9, parsedCpe.getTargetSw());
-                    insertCpe.setString(10, parsedCpe.getTargetHw());
-                    insertCpe.setString(11, parsedCpe.getOther());
-                    final String ecosystem = determineEcosystem(baseEcosystem, parsedCpe.getVendor(),
-                            parsedCpe.getProduct(), parsedCpe.getTargetSw());
-                    addNullableStringParameter(insertCpe, 12, ecosystem);
-
-                    insertCpe.executeUpdate();
-                    cpeProductId = DBUtils.getGeneratedKey(insertCpe);
+                    cpeProductId = insertCpe(insertCpe, parsedCpe, baseEcosystem);
                 }
-                if (cpeProductId == 0) {
-                    throw new DatabaseException("Unable to retrieve cpeProductId - no data returned");
+                cpeProductIds[i] = cpeProductId;
+                keys.add(Arrays.asList(cpeProductId, emptyToNull(parsedCpe.getVersionEndExcluding()),
+                        emptyToNull(parsedCpe.getVersionEndIncluding()), emptyToNull(parsedCpe.getVersionStartExcluding()),
+                        emptyToNull(parsedCpe.getVersionStartIncluding()), parsedCpe.isVulnerable()));
+            }
+            Set<Object> stored = Collections.emptySet();
+            if (existing) {
+                stored = selectVulnerabilityChildren(SELECT_VULNERABILITY_SOFTWARE, vulnerabilityId);
+                if (!keys.containsAll(stored)) {
+                    deleteVulnerabilityChildren(DELETE_SOFTWARE, vulnerabilityId);
+                    stored = Collections.emptySet();
                 }
-
-                insertSoftware.setInt(1, vulnerabilityId);
-                insertSoftware.setInt(2, cpeProductId);
-                addNullableStringParameter(insertSoftware, 3, parsedCpe.getVersionEndExcluding());
-                addNullableStringParameter(insertSoftware, 4, parsedCpe.getVersionEndIncluding());
-                addNullableStringParameter(insertSoftware, 5, parsedCpe.getVersionStartExcluding());
-                addNullableStringParameter(insertSoftware, 6, parsedCpe.getVersionStartIncluding());
-                insertSoftware.setBoolean(7, parsedCpe.isVulnerable());
+            }
+            boolean batched = false;
+            for (int i = 0; i < software.size(); i++) {
+                if (stored.contains(keys.get(i))) {
+                    continue;
+                }
+                setSoftwareParameters(insertSoftware, vulnerabilityId, cpeProductIds[i], software.get(i));
 
                 if (isBatchInsertEnabled()) {
                     insertSoftware.addBatch();
+                    batched = true;
                 } else {
                     try {
                         insertSoftware.execute();
@@ -1300,7 +1907,7 @@ public final class CveDB implements AutoCloseable {
                     }
                 }
             }
-            if (isBatchInsertEnabled()) {
+            if (batched) {
                 executeBatch(cveId, insertSoftware);
             }
         }
@@ -1309,40 +1916,47 @@ public final class CveDB implements AutoCloseable {
     /**
      * Used when updating a vulnerability - this method inserts the list of
      * references. In addition, this method attempts to determine the ecosystem
-     * based on the references information.
+     * based on the references information. For an existing vulnerability only
+     * the new references are inserted; the stored references are only
+     * replaced if one of them was removed.
      *
      * @param vulnerabilityId the vulnerability id
      * @param cve the CVE entry that contains the list of references
      * @param baseEcosystem the base ecosystem previously identified
+     * @param existing whether or not the vulnerability was already stored
      * @return an updated ecosystem string if an ecosystem was identified;
      * otherwise <code>null</code>
      * @throws SQLException thrown if there is an error inserting the data
      */
-    private synchronized String updateVulnerabilityInsertReferences(int vulnerabilityId, DefCveItem cve, String baseEcosystem) throws SQLException {
+    private synchronized String updateVulnerabilityInsertReferences(int vulnerabilityId, DefCveItem cve,
+            String baseEcosystem, boolean existing) throws SQLException {
         String ecosystem = baseEcosystem;
+        final List<Reference> references = cve.getCve().getReferences().getReferenceData();
+        final List<Object> keys = new ArrayList<>(references.size());
+        for (Reference r : references) {
+            if (ecosystem == null) {
+                ecosystem = determineReferenceEcosystem(r.getUrl());
+            }
+            keys.add(Arrays.asList(r.getName(), r.getUrl(), r.getRefsource()));
+        }
+        Set<Object> stored = Collections.emptySet();
+        if (existing) {
+            stored = selectVulnerabilityChildren(SELECT_VULNERABILITY_REFERENCES, vulnerabilityId);
+            if (!keys.containsAll(stored)) {
+                deleteVulnerabilityChildren(DELETE_REFERENCE, vulnerabilityId);
+                stored = Collections.emptySet();
+            }
+        }
         try (PreparedStatement insertReference = prepareStatement(INSERT_REFERENCE)) {
             if (insertReference == null) {
                 throw new SQLException("Database query does not exist in the resource bundle: " + INSERT_REFERENCE);
             }
             int countReferences = 0;
-            for (Reference r : cve.getCve().getReferences().getReferenceData()) {
-                if (ecosystem == null) {
-                    if (r.getUrl().contains("elixir-security-advisories")) {
-                        ecosystem = "elixir";
-                    } else if (r.getUrl().contains("ruby-lang.org")) {
-                        ecosystem = RubyGemspecAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    } else if (r.getUrl().contains("python.org")) {
-                        ecosystem = PythonPackageAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    } else if (r.getUrl().contains("drupal.org")) {
-                        ecosystem = PythonPackageAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    } else if (r.getUrl().contains("npm")) {
-                        ecosystem = NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    } else if (r.getUrl().contains("nodejs.org")) {
-                        ecosystem = NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    } else if (r.getUrl().contains("nodesecurity.io")) {
-                        ecosystem = NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
-                    }
+            for (int i = 0; i < references.size(); i++) {
+                if (stored.contains(keys.get(i))) {
+                    continue;
                 }
+                final Reference r = references.get(i);
                 insertReference.setInt(1, vulnerabilityId);
                 insertReference.setString(2, r.getName());
                 insertReference.setString(3, r.getUrl());
@@ -1354,21 +1968,299 @@ public final class CveDB implements AutoCloseable {
                         insertReference.executeBatch();
                         LOGGER.trace(getLogForBatchInserts(countReferences, "Completed %s batch inserts to references table: %s"));
                         countReferences = 0;
-                    } else if (countReferences == cve.getCve().getReferences().getReferenceData().size()) {
-                        if (LOGGER.isTraceEnabled()) {
-                            LOGGER.trace(getLogForBatchInserts(countReferences, "Completed %s batch inserts to reference table: %s"));
-                        }
-                        insertReference.executeBatch();
-                        countReferences = 0;
                     }
                 } else {
                     insertReference.execute();
                 }
             }
+            if (countReferences > 0) {
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace(getLogForBatchInserts(countReferences, "Completed %s batch inserts to reference table: %s"));
+                }
+                insertReference.executeBatch();
+            }
         }
         return ecosystem;
     }
 
+    /**
+     * Attempts to determine the ecosystem of a vulnerability from the URL of
+     * one of its references.
+     *
+     * @param url the URL of the reference
+     * @return the ecosystem if one could be identified; otherwise
+     * <code>null</code>
+     */
+    private static String determineReferenceEcosystem(String url) {
+        if (url.contains("elixir-security-advisories")) {
+            return "elixir";
+        } else if (url.contains("ruby-lang.org")) {
+            return RubyGemspecAnalyzer.DEPENDENCY_ECOSYSTEM;
+        } else if (url.contains("python.org")) {
+            return PythonPackageAnalyzer.DEPENDENCY_ECOSYSTEM;
+        } else if (url.contains("drupal.org")) {
+            return PythonPackageAnalyzer.DEPENDENCY_ECOSYSTEM;
+        } else if (url.contains("npm")) {
+            return NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
+        } else if (url.contains("nodejs.org")) {
+            return NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
+        } else if (url.contains("nodesecurity.io")) {
+            return NodeAuditAnalyzer.DEPENDENCY_ECOSYSTEM;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the eleven CPE component parameters of the given statement.
+     *
+     * @param ps the prepared statement
+     * @param cpe the CPE
+     * @throws SQLException thrown if a parameter could not be set
+     */
+    private void setCpeParameters(PreparedStatement ps, Cpe cpe) throws SQLException {
+        ps.setString(1, cpe.getPart().getAbbreviation());
+        ps.setString(2, cpe.getVendor());
+        ps.setString(3, cpe.getProduct());
+        ps.setString(4, cpe.getVersion());
+        ps.setString(5, cpe.getUpdate());
+        ps.setString(6, cpe.getEdition());
+        ps.setString(7, cpe.getLanguage());
+        ps.setString(8, cpe.getSwEdition());
+        ps.setString(9, cpe.getTargetSw());
+        ps.setString(10, cpe.getTargetHw());
+        ps.setString(11, cpe.getOther());
+    }
+
+    /**
+     * Inserts a new CPE entry using the given statement.
+     *
+     * @param insertCpe the prepared insert CPE statement
+     * @param parsedCpe the CPE to insert
+     * @param baseEcosystem the ecosystem based off of the vulnerability
+     * @return the id of the new CPE entry
+     * @throws DatabaseException thrown if the id of the new entry could not be
+     * retrieved
+     * @throws SQLException thrown if there is an error inserting the data
+     */
+    private int insertCpe(PreparedStatement insertCpe, VulnerableSoftware parsedCpe, String baseEcosystem)
+            throws DatabaseException, SQLException {
+        setCpeParameters(insertCpe, parsedCpe);
+        final String ecosystem = determineEcosystem(baseEcosystem, parsedCpe.getVendor(),
+                parsedCpe.getProduct(), parsedCpe.getTargetSw());
+        addNullableStringParameter(insertCpe, 12, ecosystem);
+
+        insertCpe.executeUpdate();
+        final int cpeProductId = DBUtils.getGeneratedKey(insertCpe);
+        if (cpeProductId == 0) {
+            throw new DatabaseException("Unable to retrieve cpeProductId - no data returned");
+        }
+        return cpeProductId;
+    }
+
+    /**
+     * Sets the parameters of the insert software statement.
+     *
+     * @param insertSoftware the prepared insert software statement
+     * @param vulnerabilityId the vulnerability id
+     * @param cpeProductId the id of the CPE entry
+     * @param parsedCpe the vulnerable software
+     * @throws SQLException thrown if a parameter could not be set
+     */
+    private void setSoftwareParameters(PreparedStatement insertSoftware, int vulnerabilityId, int cpeProductId,
+            VulnerableSoftware parsedCpe) throws SQLException {
+        insertSoftware.setInt(1, vulnerabilityId);
+        insertSoftware.setInt(2, cpeProductId);
+        addNullableStringParameter(insertSoftware, 3, parsedCpe.getVersionEndExcluding());
+        addNullableStringParameter(insertSoftware, 4, parsedCpe.getVersionEndIncluding());
+        addNullableStringParameter(insertSoftware, 5, parsedCpe.getVersionStartExcluding());
+        addNullableStringParameter(insertSoftware, 6, parsedCpe.getVersionStartIncluding());
+        insertSoftware.setBoolean(7, parsedCpe.isVulnerable());
+    }
+
+    /**
+     * Starts a bulk import of the NVD CVE data; used when loading an empty
+     * database. Until {@link #endBulkImport()} is called the vulnerabilities
+     * passed to {@link #updateVulnerability(DefCveItem)} are inserted without
+     * checking for existing entries, the CWE, reference, and software rows are
+     * added to JDBC batches that span many vulnerabilities, the ids of the CPE
+     * entries are resolved from memory, and - where the database defines
+     * <code>BULK_DROP_INDEXES</code> - the secondary indexes are dropped.
+     *
+     * @return <code>true</code> if the bulk import was started;
+     * <code>false</code> if the database already contains data
+     */
+    public synchronized boolean beginBulkImport() {
+        requireDatabase();
+        if (bulkImportCpeIds != null) {
+            return true;
+        }
+        if (dataExists()) {
+            return false;
+        }
+        LOGGER.debug("Begin bulk import");
+        try {
+            executeScript(BULK_DROP_INDEXES);
+        } catch (SQLException ex) {
+            LOGGER.warn("Unable to drop the secondary indexes; the bulk import will continue with the indexes in place");
+            LOGGER.debug("", ex);
+        }
+        bulkImportCpeIds = new HashMap<>();
+        bulkImportUncommitted.clear();
+        bulkImportPending = 0;
+        return true;
+    }
+
+    /**
+     * Completes the bulk import; the pending batches are executed and the
+     * secondary indexes are re-created.
+     */
+    public synchronized void endBulkImport() {
+        if (bulkImportCpeIds == null) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        try {
+            try {
+                flushBulkImport();
+            } finally {
+                bulkImportCpeIds = null;
+                bulkImportUncommitted.clear();
+                bulkImportPending = 0;
+                executeScript(BULK_CREATE_INDEXES);
+            }
+        } catch (SQLException ex) {
+            throw new DatabaseException("Unable to complete the bulk import", ex);
+        }
+        clearCache();
+        LOGGER.debug("End bulk import ({} ms)", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-creates any of the secondary indexes dropped by
+     * <code>BULK_DROP_INDEXES</code> that are missing, e.g. because a bulk
+     * import was interrupted before {@link #endBulkImport()} was called.
+     */
+    public synchronized void restoreIndexes() {
+        requireDatabase();
+        if (bulkImportCpeIds != null) {
+            return;
+        }
+        try {
+            executeScript(BULK_CREATE_INDEXES);
+        } catch (SQLException ex) {
+            LOGGER.warn("Unable to re-create the secondary indexes; queries against the database may be slow");
+            LOGGER.debug("", ex);
+        }
+    }
+
+    /**
+     * Returns whether or not a bulk import is in progress.
+     *
+     * @return <code>true</code> if a bulk import is in progress; otherwise
+     * <code>false</code>
+     */
+    private synchronized boolean isBulkImport() {
+        return bulkImportCpeIds != null;
+    }
+
+    /**
+     * Inserts a vulnerability as part of the bulk import. The vulnerability and
+     * any new CPE entries are inserted immediately as their generated ids are
+     * needed; the remaining rows are added to the batches.
+     *
+     * @param cve the CVE data
+     * @param description the description of the CVE entry
+     * @param software the list of vulnerable software
+     * @throws SQLException thrown if there is an error inserting the data
+     */
+    private synchronized void bulkImportVulnerability(DefCveItem cve, String description, List<VulnerableSoftware> software)
+            throws SQLException {
+        final PreparedStatement insertVulnerability = getPreparedStatement(INSERT_VULNERABILITY);
+        final PreparedStatement insertCwe = getPreparedStatement(INSERT_CWE);
+        final PreparedStatement insertReference = getPreparedStatement(INSERT_REFERENCE);
+        final PreparedStatement insertCpe = getPreparedStatement(INSERT_CPE);
+        final PreparedStatement insertSoftware = getPreparedStatement(INSERT_SOFTWARE);
+
+        final int vulnerabilityId = insertVulnerability(insertVulnerability, cve, description);
+        for (ProblemtypeDatum datum : cve.getCve().getProblemtype().getProblemtypeData()) {
+            for (LangString desc : datum.getDescription()) {
+                if ("en".equals(desc.getLang())) {
+                    insertCwe.setInt(1, vulnerabilityId);
+                    insertCwe.setString(2, desc.getValue());
+                    insertCwe.addBatch();
+                    bulkImportPending++;
+                }
+            }
+        }
+        String ecosystem = determineBaseEcosystem(description);
+        for (Reference r : cve.getCve().getReferences().getReferenceData()) {
+            if (ecosystem == null) {
+                ecosystem = determineReferenceEcosystem(r.getUrl());
+            }
+            insertReference.setInt(1, vulnerabilityId);
+            insertReference.setString(2, r.getName());
+            insertReference.setString(3, r.getUrl());
+            insertReference.setString(4, r.getRefsource());
+            insertReference.addBatch();
+            bulkImportPending++;
+        }
+        for (VulnerableSoftware parsedCpe : software) {
+            final String key = parsedCpe.toCpe23FS();
+            Integer cpeProductId = bulkImportCpeIds.get(key);
+            if (cpeProductId == null) {
+                cpeProductId = insertCpe(insertCpe, parsedCpe, ecosystem);
+                bulkImportCpeIds.put(key, cpeProductId);
+                bulkImportUncommitted.add(key);
+            }
+            setSoftwareParameters(insertSoftware, vulnerabilityId, cpeProductId, parsedCpe);
+            insertSoftware.addBatch();
+            bulkImportPending++;
+        }
+        if (bulkImportPending >= getBatchSize()) {
+            flushBulkImport();
+        }
+    }
+
+    /**
+     * Executes the pending batches of the bulk import.
+     *
+     * @throws SQLException thrown if there is an error inserting the data
+     */
+    private synchronized void flushBulkImport() throws SQLException {
+        if (bulkImportPending > 0) {
+            preparedStatements.get(INSERT_CWE).executeBatch();
+            preparedStatements.get(INSERT_REFERENCE).executeBatch();
+            preparedStatements.get(INSERT_SOFTWARE).executeBatch();
+            LOGGER.trace(getLogForBatchInserts(bulkImportPending, "Completed %s bulk inserts: %s"));
+            bulkImportPending = 0;
+        }
+    }
+
+    /**
+     * Executes the semicolon separated DDL statements stored in the statement
+     * bundle under the given key; nothing is executed if the database does not
+     * define the key.
+     *
+     * @param key the key of the DDL statements
+     * @throws SQLException thrown if a statement fails
+     */
+    private synchronized void executeScript(PreparedStatementCveDb key) throws SQLException {
+        final String script;
+        try {
+            script = statementBundle.getString(key.name());
+        } catch (MissingResourceException ex) {
+            LOGGER.debug("{} is not defined for this database", key);
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.trim().isEmpty()) {
+                    statement.execute(sql.trim());
+                }
+            }
+        }
+    }
+
     /**
      * Parses the configuration entries from the CVE entry into a list of
      * VulnerableSoftware objects.
@@ -1512,6 +2404,9 @@ public final class CveDB implements AutoCloseable {
      * @return <code>true</code> if data exists; otherwise <code>false</code>
      */
     public synchronized boolean dataExists() {
+        if (snapshot != null) {
+            return snapshot.dataExists();
+        }
         ResultSet rs = null;
         try {
             final PreparedStatement cs = getPreparedStatement(COUNT_CPE);
@@ -1548,6 +2443,7 @@ public final class CveDB implements AutoCloseable {
      * ensure orphan entries are removed.
      */
     public synchronized void cleanupDatabase() {
+        requireDatabase();
         LOGGER.info("Begin database maintenance");
         final long start = System.currentTimeMillis();
         clearCache();
@@ -1574,6 +2470,7 @@ public final class CveDB implements AutoCloseable {
      * <code>defrag()</code> will de-fragment the database.
      */
     public synchronized void defrag() {
+        requireDatabase();
         if (ConnectionFactory.isH2Connection(settings)) {
             final long start = System.currentTimeMillis();
             try (CallableStatement psCompaxt = connection.prepareCall("SHUTDOWN DEFRAG")) {
@@ -1603,8 +2500,10 @@ public final class CveDB implements AutoCloseable {
      */
     protected VulnerableSoftware getMatchingSoftware(Cpe cpe, Set<VulnerableSoftware> vulnerableSoftware) {
         VulnerableSoftware matched = null;
+        //parse the version once rather than for each of the vulnerable software entries
+        final VersionKey version = VersionKey.parse(cpe.getVersion());
         for (VulnerableSoftware vs : vulnerableSoftware) {
-            if (vs.matchedBy(cpe)) {
+            if (vs.matchedBy(cpe, version)) {
                 if (matched == null) {
                     matched = vs;
                 } else {
@@ -1680,7 +2579,7 @@ public final class CveDB implements AutoCloseable {
      * </p>
      */
     public synchronized void deleteUnusedCpe() {
-        clearCache();
+        requireDatabase();
         PreparedStatement ps = null;
         try {
             ps = connection.prepareStatement(statementBundle.getString("DELETE_UNUSED_DICT_CPE"));
@@ -1704,7 +2603,7 @@ public final class CveDB implements AutoCloseable {
      * @param product the CPE product
      */
     public synchronized void addCpe(String cpe, String vendor, String product) {
-        clearCache();
+        requireDatabase();
         PreparedStatement ps = null;
         try {
             ps = connection.prepareStatement(statementBundle.getString("ADD_DICT_CPE"));
@@ -1734,4 +2633,70 @@ public final class CveDB implements AutoCloseable {
             ps.setString(pos, value);
         }
     }
+
+    /**
+     * Returns the value as it is stored by
+     * {@link #addNullableStringParameter(PreparedStatement, int, String)}.
+     *
+     * @param value the value
+     * @return the value or <code>null</code> if the value is empty
+     */
+    private static String emptyToNull(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * The vulnerabilities matched by the CPEs of a single vendor and product,
+     * keyed by the CPE; instances are immutable so that the weight of a cache
+     * entry is recomputed when a CPE is added.
+     */
+    private static final class CpeVulnerabilities {
+
+        /**
+         * The vulnerabilities matched by each CPE.
+         */
+        private final Map<String, List<Vulnerability>> byCpe;
+        /**
+         * The weight of the cache entry; the total number of vulnerabilities
+         * plus one for each CPE.
+         */
+        private final int weight;
+
+        /**
+         * Constructs a new cache entry for a single CPE.
+         *
+         * @param cpe the CPE
+         * @param vulnerabilities the vulnerabilities matched by the CPE
+         */
+        private CpeVulnerabilities(String cpe, List<Vulnerability> vulnerabilities) {
+            this(Collections.singletonMap(cpe, vulnerabilities));
+        }
+
+        /**
+         * Constructs a new cache entry.
+         *
+         * @param byCpe the vulnerabilities matched by each CPE
+         */
+        private CpeVulnerabilities(Map<String, List<Vulnerability>> byCpe) {
+            this.byCpe = byCpe;
+            this.weight = byCpe.values().stream().mapToInt((v) -> v.size() + 1).sum();
+        }
+
+        /**
+         * Combines the CPEs of two cache entries of the same product.
+         *
+         * @param first the first cache entry
+         * @param second the second cache entry; its vulnerabilities take
+         * precedence
+         * @return the combined cache entry
+         */
+        private static CpeVulnerabilities merge(CpeVulnerabilities first, CpeVulnerabilities second) {
+            final Map<String, List<Vulnerability>> byCpe = new HashMap<>(first.byCpe);
+            byCpe.putAll(second.byCpe);
+            return new CpeVulnerabilities(byCpe);
+        }
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.data.nvdcve.CveDB.PreparedStatementCveDb;
+import org.owasp.dependencycheck.utils.DBUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small pool of database connections used by the read-only queries of the
+ * {@link CveDB}. A connection, along with the statements prepared on it, is
+ * confined to a single thread between {@link #borrow()} and
+ * {@link #release(PooledConnection)} so that lookups from multiple analysis
+ * threads can execute in parallel rather than being serialized on the
+ * connection used for updates.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+class ReadConnectionPool implements AutoCloseable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadConnectionPool.class);
+    /**
+     * The factory used to open new connections.
+     */
+    private final ConnectionFactory connectionFactory;
+    /**
+     * The bundle of statements used when accessing the database.
+     */
+    private final ResourceBundle statementBundle;
+    /**
+     * The maximum number of connections opened by the pool.
+     */
+    private final int maxSize;
+    /**
+     * The idle connections.
+     */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    /**
+     * The number of connections opened by the pool and not yet closed.
+     */
+    private int size = 0;
+    /**
+     * Whether or not the pool has been closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructs a new connection pool; connections are opened on demand.
+     *
+     * @param connectionFactory the factory used to open new connections
+     * @param statementBundle the bundle of statements used when accessing the
+     * database
+     * @param maxSize the maximum number of connections opened by the pool
+     */
+    ReadConnectionPool(ConnectionFactory connectionFactory, ResourceBundle statementBundle, int maxSize) {
+        this.connectionFactory = connectionFactory;
+        this.statementBundle = statementBundle;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Borrows a connection from the pool; if all connections are in use and
+     * the pool is at its maximum size the calling thread waits for one to be
+     * released. The connection must be returned using
+     * {@link #release(PooledConnection)}.
+     *
+     * @return the connection
+     * @throws DatabaseException thrown if the pool is closed, a new connection
+     * could not be opened, or the thread is interrupted while waiting
+     */
+    PooledConnection borrow() throws DatabaseException {
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new DatabaseException("The connection pool has been closed");
+                }
+                final PooledConnection connection = idle.pollFirst();
+                if (connection != null) {
+                    return connection;
+                }
+                if (size < maxSize) {
+                    size += 1;
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new DatabaseException("Interrupted waiting for a database connection", ex);
+                }
+            }
+        }
+        //open the connection outside of the lock so other threads can continue to borrow and release
+        boolean opened = false;
+        try {
+            final PooledConnection connection = new PooledConnection(connectionFactory.getConnection(), statementBundle);
+            opened = true;
+            return connection;
+        } finally {
+            if (!opened) {
+                //release the reserved slot so waiting threads can attempt to open a connection
+                synchronized (this) {
+                    size -= 1;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. If the pool has been closed the
+     * connection is closed.
+     *
+     * @param connection the connection to release; may be <code>null</code>
+     */
+    void release(PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        synchronized (this) {
+            if (!closed) {
+                idle.addFirst(connection);
+                notifyAll();
+                return;
+            }
+            size -= 1;
+        }
+        connection.close();
+    }
+
+    /**
+     * Closes the idle connections; connections that are currently borrowed
+     * are closed when they are released.
+     */
+    @Override
+    public void close() {
+        final PooledConnection[] connections;
+        synchronized (this) {
+            closed = true;
+            connections = idle.toArray(new PooledConnection[0]);
+            size -= connections.length;
+            idle.clear();
+            notifyAll();
+        }
+        for (PooledConnection connection : connections) {
+            connection.close();
+        }
+        LOGGER.debug("Closed {} pooled database connections", connections.length);
+    }
+
+    /**
+     * A pooled database connection along with the statements prepared on it.
+     * Instances are confined to the thread that borrowed them.
+     */
+    @NotThreadSafe
+    static final class PooledConnection {
+
+        /**
+         * The database connection.
+         */
+        private final Connection connection;
+        /**
+         * The bundle of statements used when accessing the database.
+         */
+        private final ResourceBundle statementBundle;
+        /**
+         * The statements prepared on the connection.
+         */
+        private final EnumMap<PreparedStatementCveDb, PreparedStatement> preparedStatements
+                = new EnumMap<>(PreparedStatementCveDb.class);
+
+        /**
+         * Constructs a new pooled connection.
+         *
+         * @param connection the database connection
+         * @param statementBundle the bundle of statements used when accessing
+         * the database
+         */
+        private PooledConnection(Connection connection, ResourceBundle statementBundle) {
+            this.connection = connection;
+            this.statementBundle = statementBundle;
+        }
+
+        /**
+         * Returns the specified prepared statement, preparing it on first use.
+         * The IN-list of statements that load a set of vulnerabilities is
+         * expanded to {@link CveDB#IN_LIST_SIZE} parameters.
+         *
+         * @param key the prepared statement from {@link PreparedStatementCveDb}
+         * to return
+         * @return the prepared statement
+         * @throws SQLException thrown if a SQL Exception occurs or the statement
+         * does not exist in the resource bundle
+         */
+        PreparedStatement getPreparedStatement(PreparedStatementCveDb key) throws SQLException {
+            PreparedStatement preparedStatement = preparedStatements.get(key);
+            if (preparedStatement == null) {
+                try {
+                    final String statementString = statementBundle.getString(key.name());
+                    preparedStatement = connection.prepareStatement(key.isInList()
+                            ? String.format(statementString, CveDB.IN_LIST_PARAMETERS) : statementString);
+                } catch (MissingResourceException ex) {
+                    throw new SQLException("Database query does not exist in the resource bundle: " + key, ex);
+                }
+                preparedStatements.put(key, preparedStatement);
+            } else {
+                preparedStatement.clearParameters();
+            }
+            return preparedStatement;
+        }
+
+        /**
+         * Closes the prepared statements and the connection.
+         */
+        private void close() {
+            preparedStatements.values().forEach(DBUtils::closeStatement);
+            preparedStatements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                LOGGER.debug("Error closing pooled database connection", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.data.update.cpe.CpePlus;
+import org.owasp.dependencycheck.dependency.CvssV2;
+import org.owasp.dependencycheck.dependency.CvssV3;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import org.owasp.dependencycheck.dependency.VulnerableSoftware;
+import org.owasp.dependencycheck.dependency.VulnerableSoftwareBuilder;
+import org.owasp.dependencycheck.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import us.springett.parsers.cpe.CpeBuilder;
+import us.springett.parsers.cpe.exceptions.CpeParsingException;
+import us.springett.parsers.cpe.exceptions.CpeValidationException;
+
+/**
+ * Reads an immutable vulnerability snapshot written by
+ * {@link VulnerabilitySnapshotWriter}. The file is memory mapped so that the
+ * pages are shared, through the operating system's cache, by every process
+ * scanning from the same snapshot; no database connection or lock is needed.
+ * <p>
+ * The snapshot consists of a header followed by:</p>
+ * <ul>
+ * <li>a sorted string table used for the CPE components and version
+ * ranges;</li>
+ * <li>the vendor/product table sorted by the string ids of the vendor and
+ * product, each entry referencing a contiguous run of the vulnerable software
+ * and CPE entry tables;</li>
+ * <li>the fixed width vulnerable software and CPE entry tables;</li>
+ * <li>the CVE table sorted by name, each entry referencing the record of the
+ * vulnerability and the vulnerable software of the CVE;</li>
+ * <li>the database properties and the vulnerability records.</li>
+ * </ul>
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+final class VulnerabilitySnapshot implements AutoCloseable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(VulnerabilitySnapshot.class);
+    /**
+     * The magic number identifying a vulnerability snapshot; "ODCS".
+     */
+    static final int MAGIC = 0x4F444353;
+    /**
+     * The version of the snapshot format; incremented whenever the layout
+     * changes.
+     */
+    static final int FORMAT_VERSION = 1;
+    /**
+     * The id used for a <code>null</code> string.
+     */
+    static final int NO_STRING = -1;
+    /**
+     * The number of int fields in a vulnerable software entry: the CVE index,
+     * the eleven CPE components, the four version range bounds, and the
+     * vulnerable flag.
+     */
+    static final int SOFTWARE_FIELDS = 17;
+    /**
+     * The number of int fields in a CPE entry: the eleven CPE components and
+     * the ecosystem.
+     */
+    static final int CPE_FIELDS = 12;
+    /**
+     * The number of int fields in a vendor/product entry: the vendor, the
+     * product, the first vulnerable software entry and count, and the first
+     * CPE entry and count.
+     */
+    static final int PRODUCT_FIELDS = 6;
+    /**
+     * The number of int fields in a CVE entry: the offset of the record
+     * relative to the start of the records, and the first vulnerable software
+     * reference and count.
+     */
+    static final int CVE_FIELDS = 3;
+    /**
+     * The header; the position of each field.
+     */
+    static final int HEADER_MAGIC = 0;
+    /**
+     * Position of the format version.
+     */
+    static final int HEADER_VERSION = 4;
+    /**
+     * Position of the time the snapshot was created (long).
+     */
+    static final int HEADER_CREATED = 8;
+    /**
+     * Position of the number of strings.
+     */
+    static final int HEADER_STRING_COUNT = 16;
+    /**
+     * Position of the offset of the string index.
+     */
+    static final int HEADER_STRING_INDEX = 20;
+    /**
+     * Position of the number of vendor/product entries.
+     */
+    static final int HEADER_PRODUCT_COUNT = 24;
+    /**
+     * Position of the offset of the vendor/product entries.
+     */
+    static final int HEADER_PRODUCTS = 28;
+    /**
+     * Position of the offset of the vulnerable software entries.
+     */
+    static final int HEADER_SOFTWARE = 32;
+    /**
+     * Position of the number of CPE entries.
+     */
+    static final int HEADER_CPE_COUNT = 36;
+    /**
+     * Position of the offset of the CPE entries.
+     */
+    static final int HEADER_CPES = 40;
+    /**
+     * Position of the number of CVE entries.
+     */
+    static final int HEADER_CVE_COUNT = 44;
+    /**
+     * Position of the offset of the CVE entries.
+     */
+    static final int HEADER_CVES = 48;
+    /**
+     * Position of the offset of the vulnerable software references of the
+     * CVEs.
+     */
+    static final int HEADER_CVE_SOFTWARE = 52;
+    /**
+     * Position of the offset of the properties.
+     */
+    static final int HEADER_PROPERTIES = 56;
+    /**
+     * Position of the offset of the vulnerability records.
+     */
+    static final int HEADER_RECORDS = 60;
+    /**
+     * The size of the header.
+     */
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * The snapshot file.
+     */
+    private final File file;
+    /**
+     * The memory mapped snapshot; <code>null</code> once closed. The buffer
+     * is only read using absolute positions or through duplicates.
+     */
+    private volatile ByteBuffer buffer;
+    /**
+     * The number of strings.
+     */
+    private final int stringCount;
+    /**
+     * The offset of the string index.
+     */
+    private final int stringIndex;
+    /**
+     * The number of vendor/product entries.
+     */
+    private final int productCount;
+    /**
+     * The offset of the vendor/product entries.
+     */
+    private final int products;
+    /**
+     * The offset of the vulnerable software entries.
+     */
+    private final int software;
+    /**
+     * The number of CPE entries.
+     */
+    private final int cpeCount;
+    /**
+     * The offset of the CPE entries.
+     */
+    private final int cpes;
+    /**
+     * The number of CVE entries.
+     */
+    private final int cveCount;
+    /**
+     * The offset of the CVE entries.
+     */
+    private final int cves;
+    /**
+     * The offset of the vulnerable software references of the CVEs.
+     */
+    private final int cveSoftware;
+    /**
+     * The offset of the properties.
+     */
+    private final int properties;
+    /**
+     * The offset of the vulnerability records.
+     */
+    private final int records;
+    /**
+     * The time the snapshot was created.
+     */
+    private final long created;
+
+    /**
+     * Constructs a new snapshot reader over the mapped file.
+     *
+     * @param file the snapshot file
+     * @param buffer the memory mapped snapshot
+     */
+    private VulnerabilitySnapshot(File file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        this.created = buffer.getLong(HEADER_CREATED);
+        this.stringCount = buffer.getInt(HEADER_STRING_COUNT);
+        this.stringIndex = buffer.getInt(HEADER_STRING_INDEX);
+        this.productCount = buffer.getInt(HEADER_PRODUCT_COUNT);
+        this.products = buffer.getInt(HEADER_PRODUCTS);
+        this.software = buffer.getInt(HEADER_SOFTWARE);
+        this.cpeCount = buffer.getInt(HEADER_CPE_COUNT);
+        this.cpes = buffer.getInt(HEADER_CPES);
+        this.cveCount = buffer.getInt(HEADER_CVE_COUNT);
+        this.cves = buffer.getInt(HEADER_CVES);
+        this.cveSoftware = buffer.getInt(HEADER_CVE_SOFTWARE);
+        this.properties = buffer.getInt(HEADER_PROPERTIES);
+        this.records = buffer.getInt(HEADER_RECORDS);
+    }
+
+    /**
+     * Opens and memory maps the snapshot.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws DatabaseException thrown if the snapshot could not be read or
+     * is not a supported snapshot
+     */
+    static VulnerabilitySnapshot open(File file) throws DatabaseException {
+        //the mapping remains valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new DatabaseException("Invalid vulnerability snapshot: " + file);
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new DatabaseException("Invalid vulnerability snapshot: " + file);
+            }
+            final int version = buffer.getInt(HEADER_VERSION);
+            if (version != FORMAT_VERSION) {
+                throw new DatabaseException(String.format("Unsupported vulnerability snapshot format %d; expected %d: %s",
+                        version, FORMAT_VERSION, file));
+            }
+            final VulnerabilitySnapshot snapshot = new VulnerabilitySnapshot(file, buffer);
+            LOGGER.debug("Opened the vulnerability snapshot {} created {}", file, snapshot.created);
+            return snapshot;
+        } catch (IOException ex) {
+            throw new DatabaseException("Unable to open the vulnerability snapshot: " + file, ex);
+        }
+    }
+
+    /**
+     * Returns the time the snapshot was created.
+     *
+     * @return the time the snapshot was created in milliseconds since the
+     * epoch
+     */
+    long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns whether or not the snapshot contains any CPE entries.
+     *
+     * @return <code>true</code> if the snapshot contains data; otherwise
+     * <code>false</code>
+     */
+    boolean dataExists() {
+        return cpeCount > 0;
+    }
+
+    /**
+     * Returns the database properties captured in the snapshot.
+     *
+     * @return the properties
+     */
+    Properties getProperties() {
+        final ByteBuffer b = duplicate(properties);
+        final Properties prop = new Properties();
+        final int count = b.getInt();
+        for (int i = 0; i < count; i++) {
+            final String key = readString(b);
+            final String value = readString(b);
+            if (key != null && value != null) {
+                prop.setProperty(key, value);
+            }
+        }
+        return prop;
+    }
+
+    /**
+     * Returns the entire list of vendor/product combinations.
+     *
+     * @return the vendor/product combinations
+     */
+    Set<Pair<String, String>> getVendorProductList() {
+        final ByteBuffer b = getBuffer();
+        final Set<Pair<String, String>> data = new HashSet<>();
+        for (int i = 0; i < productCount; i++) {
+            final int pos = products + i * PRODUCT_FIELDS * Integer.BYTES;
+            data.add(new Pair<>(getString(b.getInt(pos)), getString(b.getInt(pos + Integer.BYTES))));
+        }
+        return data;
+    }
+
+    /**
+     * Returns the CPE entries for the given vendor and product.
+     *
+     * @param vendor the vendor
+     * @param product the product
+     * @return the CPE entries
+     * @throws DatabaseException thrown if the snapshot contains an invalid CPE
+     */
+    Set<CpePlus> getCPEs(String vendor, String product) throws DatabaseException {
+        final Set<CpePlus> result = new HashSet<>();
+        final int entry = findProduct(vendor, product);
+        if (entry < 0) {
+            return result;
+        }
+        final ByteBuffer b = getBuffer();
+        final int start = b.getInt(entry + 4 * Integer.BYTES);
+        final int count = b.getInt(entry + 5 * Integer.BYTES);
+        final CpeBuilder builder = new CpeBuilder();
+        try {
+            for (int i = start; i < start + count; i++) {
+                final int pos = cpes + i * CPE_FIELDS * Integer.BYTES;
+                builder.part(field(b, pos, 0)).vendor(field(b, pos, 1)).product(field(b, pos, 2))
+                        .version(field(b, pos, 3)).update(field(b, pos, 4)).edition(field(b, pos, 5))
+                        .language(field(b, pos, 6)).swEdition(field(b, pos, 7)).targetSw(field(b, pos, 8))
+                        .targetHw(field(b, pos, 9)).other(field(b, pos, 10));
+                result.add(new CpePlus(builder.build(), field(b, pos, 11)));
+            }
+        } catch (CpeParsingException | CpeValidationException ex) {
+            throw new DatabaseException("The vulnerability snapshot contains an invalid CPE entry", ex);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vulnerable software for the given vendor and product keyed
+     * by CVE.
+     *
+     * @param vendor the vendor
+     * @param product the product
+     * @return the vulnerable software keyed by CVE, in the order of the CVEs
+     * @throws DatabaseException thrown if the snapshot contains an invalid
+     * vulnerable software entry
+     */
+    Map<String, Set<VulnerableSoftware>> getVulnerableSoftware(String vendor, String product) throws DatabaseException {
+        final Map<String, Set<VulnerableSoftware>> result = new LinkedHashMap<>();
+        final int entry = findProduct(vendor, product);
+        if (entry < 0) {
+            return result;
+        }
+        final ByteBuffer b = getBuffer();
+        final int start = b.getInt(entry + 2 * Integer.BYTES);
+        final int count = b.getInt(entry + 3 * Integer.BYTES);
+        final VulnerableSoftwareBuilder builder = new VulnerableSoftwareBuilder();
+        final Map<Integer, String> names = new HashMap<>();
+        for (int i = start; i < start + count; i++) {
+            final int cve = b.getInt(software + i * SOFTWARE_FIELDS * Integer.BYTES);
+            final String name = names.computeIfAbsent(cve, this::getCveName);
+            result.computeIfAbsent(name, (k) -> new HashSet<>()).add(getSoftware(b, builder, i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vulnerabilities for the given CVEs.
+     *
+     * @param names the CVEs
+     * @return the vulnerabilities keyed by CVE; CVEs that are not in the
+     * snapshot are not included
+     * @throws DatabaseException thrown if the snapshot contains an invalid
+     * vulnerable software entry
+     */
+    Map<String, Vulnerability> getVulnerabilities(Collection<String> names) throws DatabaseException {
+        final Map<String, Vulnerability> result = new HashMap<>();
+        final ByteBuffer b = getBuffer();
+        final VulnerableSoftwareBuilder builder = new VulnerableSoftwareBuilder();
+        for (String name : names) {
+            final int index = findCve(name);
+            if (index < 0) {
+                continue;
+            }
+            final int pos = cves + index * CVE_FIELDS * Integer.BYTES;
+            final Vulnerability vuln = readRecord(duplicate(records + b.getInt(pos)));
+            final int start = b.getInt(pos + Integer.BYTES);
+            final int count = b.getInt(pos + 2 * Integer.BYTES);
+            for (int i = start; i < start + count; i++) {
+                vuln.addVulnerableSoftware(getSoftware(b, builder, b.getInt(cveSoftware + i * Integer.BYTES)));
+            }
+            result.put(vuln.getName(), vuln);
+        }
+        return result;
+    }
+
+    /**
+     * Releases the mapped snapshot. The mapping itself is released by the
+     * garbage collector.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        LOGGER.debug("Closed the vulnerability snapshot {}", file);
+    }
+
+    /**
+     * Returns the mapped snapshot.
+     *
+     * @return the mapped snapshot
+     * @throws DatabaseException thrown if the snapshot has been closed
+     */
+    private ByteBuffer getBuffer() {
+        final ByteBuffer b = buffer;
+        if (b == null) {
+            throw new DatabaseException("The vulnerability snapshot has been closed");
+        }
+        return b;
+    }
+
+    /**
+     * Returns a duplicate of the mapped snapshot positioned at the given
+     * offset; used for the sequential reads of variable length data.
+     *
+     * @param offset the offset
+     * @return the duplicate buffer
+     */
+    private ByteBuffer duplicate(int offset) {
+        final ByteBuffer b = getBuffer().duplicate();
+        b.position(offset);
+        return b;
+    }
+
+    /**
+     * Returns the string with the given id.
+     *
+     * @param id the string id
+     * @return the string; <code>null</code> if the id is {@link #NO_STRING}
+     */
+    private String getString(int id) {
+        if (id == NO_STRING) {
+            return null;
+        }
+        return readString(duplicate(getBuffer().getInt(stringIndex + id * Integer.BYTES)));
+    }
+
+    /**
+     * Returns the string referenced by a field of a fixed width entry.
+     *
+     * @param b the mapped snapshot
+     * @param entry the offset of the entry
+     * @param field the index of the field
+     * @return the string
+     */
+    private String field(ByteBuffer b, int entry, int field) {
+        return getString(b.getInt(entry + field * Integer.BYTES));
+    }
+
+    /**
+     * Finds the id of the given string using a binary search of the sorted
+     * string table.
+     *
+     * @param value the string to find
+     * @return the id of the string; <code>-1</code> if not found
+     */
+    private int findString(String value) {
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int comp = getString(mid).compareTo(value);
+            if (comp < 0) {
+                low = mid + 1;
+            } else if (comp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the vendor/product entry using a binary search of the sorted
+     * vendor/product table.
+     *
+     * @param vendor the vendor
+     * @param product the product
+     * @return the offset of the entry; <code>-1</code> if not found
+     */
+    private int findProduct(String vendor, String product) {
+        if (vendor == null || product == null) {
+            return -1;
+        }
+        final int vendorId = findString(vendor);
+        final int productId = findString(product);
+        if (vendorId < 0 || productId < 0) {
+            return -1;
+        }
+        final ByteBuffer b = getBuffer();
+        int low = 0;
+        int high = productCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int pos = products + mid * PRODUCT_FIELDS * Integer.BYTES;
+            int comp = Integer.compare(b.getInt(pos), vendorId);
+            if (comp == 0) {
+                comp = Integer.compare(b.getInt(pos + Integer.BYTES), productId);
+            }
+            if (comp < 0) {
+                low = mid + 1;
+            } else if (comp > 0) {
+                high = mid - 1;
+            } else {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name of the CVE with the given index.
+     *
+     * @param index the index of the CVE
+     * @return the name of the CVE
+     */
+    private String getCveName(int index) {
+        final ByteBuffer b = getBuffer();
+        return readString(duplicate(records + b.getInt(cves + index * CVE_FIELDS * Integer.BYTES)));
+    }
+
+    /**
+     * Finds the index of the CVE using a binary search of the CVE table.
+     *
+     * @param name the name of the CVE
+     * @return the index of the CVE; <code>-1</code> if not found
+     */
+    private int findCve(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = cveCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int comp = getCveName(mid).compareTo(name);
+            if (comp < 0) {
+                low = mid + 1;
+            } else if (comp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the vulnerable software entry with the given index.
+     *
+     * @param b the mapped snapshot
+     * @param builder the builder used to create the vulnerable software
+     * @param index the index of the vulnerable software entry
+     * @return the vulnerable software
+     * @throws DatabaseException thrown if the entry is invalid
+     */
+    private VulnerableSoftware getSoftware(ByteBuffer b, VulnerableSoftwareBuilder builder, int index) {
+        final int pos = software + index * SOFTWARE_FIELDS * Integer.BYTES;
+        try {
+            return builder.part(field(b, pos, 1)).vendor(field(b, pos, 2)).product(field(b, pos, 3))
+                    .version(field(b, pos, 4)).update(field(b, pos, 5)).edition(field(b, pos, 6))
+                    .language(field(b, pos, 7)).swEdition(field(b, pos, 8)).targetSw(field(b, pos, 9))
+                    .targetHw(field(b, pos, 10)).other(field(b, pos, 11))
+                    .versionEndExcluding(field(b, pos, 12)).versionEndIncluding(field(b, pos, 13))
+                    .versionStartExcluding(field(b, pos, 14)).versionStartIncluding(field(b, pos, 15))
+                    .vulnerable(b.getInt(pos + 16 * Integer.BYTES) != 0).build();
+        } catch (CpeParsingException | CpeValidationException ex) {
+            throw new DatabaseException("The vulnerability snapshot contains an invalid Vulnerable Software Entry", ex);
+        }
+    }
+
+    /**
+     * Reads a vulnerability record; the vulnerable software is not part of
+     * the record.
+     *
+     * @param b the buffer positioned at the record
+     * @return the vulnerability
+     */
+    private static Vulnerability readRecord(ByteBuffer b) {
+        final Vulnerability vuln = new Vulnerability();
+        vuln.setName(readString(b));
+        vuln.setDescription(readString(b));
+        vuln.setSource(Vulnerability.Source.NVD);
+        if (b.get() != 0) {
+            final float score = b.getFloat();
+            vuln.setCvssV2(new CvssV2(score, readString(b), readString(b), readString(b), readString(b),
+                    readString(b), readString(b), readString(b)));
+        }
+        if (b.get() != 0) {
+            final String attackVector = readString(b);
+            final String attackComplexity = readString(b);
+            final String privilegesRequired = readString(b);
+            final String userInteraction = readString(b);
+            final String scope = readString(b);
+            final String confidentialityImpact = readString(b);
+            final String integrityImpact = readString(b);
+            final String availabilityImpact = readString(b);
+            final float baseScore = b.getFloat();
+            vuln.setCvssV3(new CvssV3(attackVector, attackComplexity, privilegesRequired, userInteraction, scope,
+                    confidentialityImpact, integrityImpact, availabilityImpact, baseScore, readString(b)));
+        }
+        final int cweCount = b.getInt();
+        for (int i = 0; i < cweCount; i++) {
+            vuln.addCwe(readString(b));
+        }
+        final int referenceCount = b.getInt();
+        for (int i = 0; i < referenceCount; i++) {
+            vuln.addReference(readString(b), readString(b), readString(b));
+        }
+        return vuln;
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string.
+     *
+     * @param b the buffer positioned at the string
+     * @return the string; <code>null</code> if the length is negative
+     */
+    static String readString(ByteBuffer b) {
+        final int length = b.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
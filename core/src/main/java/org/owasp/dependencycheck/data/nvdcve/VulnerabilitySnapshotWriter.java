@@ -0,0 +1,599 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.owasp.dependencycheck.dependency.CvssV2;
+import org.owasp.dependencycheck.dependency.CvssV3;
+import org.owasp.dependencycheck.dependency.Reference;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.owasp.dependencycheck.data.nvdcve.CveDB.PreparedStatementCveDb.SELECT_SNAPSHOT_CPE_ENTRIES;
+import static org.owasp.dependencycheck.data.nvdcve.CveDB.PreparedStatementCveDb.SELECT_SNAPSHOT_CVES;
+import static org.owasp.dependencycheck.data.nvdcve.CveDB.PreparedStatementCveDb.SELECT_SNAPSHOT_SOFTWARE;
+import static org.owasp.dependencycheck.data.nvdcve.VulnerabilitySnapshot.*;
+
+/**
+ * Exports the contents of the {@link CveDB} into an immutable vulnerability
+ * snapshot read by {@link VulnerabilitySnapshot}. The snapshot is written to a
+ * temporary file and then moved over the target so that readers never observe
+ * a partially written snapshot.
+ *
+ * @author Jeremy Long
+ */
+@NotThreadSafe
+final class VulnerabilitySnapshotWriter {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(VulnerabilitySnapshotWriter.class);
+    /**
+     * The number of vulnerabilities loaded from the database at a time.
+     */
+    private static final int LOAD_SIZE = 500;
+
+    /**
+     * The database being exported.
+     */
+    private final CveDB cveDB;
+    /**
+     * The ids of the strings of the string table, in the order first seen.
+     */
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    /**
+     * The strings of the string table, in the order first seen.
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructs a new snapshot writer.
+     *
+     * @param cveDB the database to export
+     */
+    VulnerabilitySnapshotWriter(CveDB cveDB) {
+        this.cveDB = cveDB;
+    }
+
+    /**
+     * Writes the snapshot to the given file, replacing any existing snapshot.
+     *
+     * @param file the snapshot file
+     * @throws DatabaseException thrown if the database could not be read or
+     * the snapshot could not be written
+     */
+    void write(File file) throws DatabaseException {
+        final long start = System.currentTimeMillis();
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new DatabaseException("Unable to create the directory for the vulnerability snapshot: " + dir);
+        }
+        File temp = null;
+        File recordsFile = null;
+        final ReadConnectionPool pool = cveDB.getReadPool();
+        final ReadConnectionPool.PooledConnection conn = pool.borrow();
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", dir);
+            recordsFile = File.createTempFile(file.getName(), ".records", dir);
+
+            final String[] cves = readCves(conn);
+            final Map<String, Integer> cveIndex = new HashMap<>();
+            for (int i = 0; i < cves.length; i++) {
+                cveIndex.put(cves[i], i);
+            }
+            final IntList software = readSoftware(conn, cveIndex);
+            final IntList cpes = readCpes(conn);
+            final int[] recordOffsets = writeRecords(conn, cves, recordsFile);
+
+            //sort the string table so that string ids compare like the strings
+            final Integer[] stringOrder = sortedIndexes(strings.size(), Comparator.comparing(strings::get));
+            final int[] remap = new int[strings.size()];
+            for (int i = 0; i < stringOrder.length; i++) {
+                remap[stringOrder[i]] = i;
+            }
+            remap(software, SOFTWARE_FIELDS, 1, SOFTWARE_FIELDS - 1, remap);
+            remap(cpes, CPE_FIELDS, 0, CPE_FIELDS, remap);
+
+            final int softwareCount = software.size() / SOFTWARE_FIELDS;
+            final Integer[] softwareOrder = sortedIndexes(softwareCount,
+                    Comparator.<Integer>comparingInt((i) -> software.get(i * SOFTWARE_FIELDS + 2))
+                            .thenComparingInt((i) -> software.get(i * SOFTWARE_FIELDS + 3))
+                            .thenComparingInt((i) -> software.get(i * SOFTWARE_FIELDS)));
+            final int cpeCount = cpes.size() / CPE_FIELDS;
+            final Integer[] cpeOrder = sortedIndexes(cpeCount,
+                    Comparator.<Integer>comparingInt((i) -> cpes.get(i * CPE_FIELDS + 1))
+                            .thenComparingInt((i) -> cpes.get(i * CPE_FIELDS + 2)));
+
+            //vendor/product -> first software, software count, first cpe, cpe count
+            final TreeMap<Long, int[]> productRuns = new TreeMap<>();
+            for (int i = 0; i < softwareCount; i++) {
+                final int row = softwareOrder[i] * SOFTWARE_FIELDS;
+                final int[] run = productRuns.computeIfAbsent(productKey(software.get(row + 2), software.get(row + 3)),
+                        (k) -> new int[4]);
+                if (run[1] == 0) {
+                    run[0] = i;
+                }
+                run[1]++;
+            }
+            for (int i = 0; i < cpeCount; i++) {
+                final int row = cpeOrder[i] * CPE_FIELDS;
+                final int[] run = productRuns.computeIfAbsent(productKey(cpes.get(row + 1), cpes.get(row + 2)),
+                        (k) -> new int[4]);
+                if (run[3] == 0) {
+                    run[2] = i;
+                }
+                run[3]++;
+            }
+
+            //the software of each CVE, referenced by the position in the sorted software table
+            final int[] cveSoftwareStart = new int[cves.length + 1];
+            for (int i = 0; i < softwareCount; i++) {
+                cveSoftwareStart[software.get(i * SOFTWARE_FIELDS) + 1]++;
+            }
+            for (int i = 0; i < cves.length; i++) {
+                cveSoftwareStart[i + 1] += cveSoftwareStart[i];
+            }
+            final int[] cveSoftware = new int[softwareCount];
+            final int[] next = Arrays.copyOf(cveSoftwareStart, cves.length);
+            for (int i = 0; i < softwareCount; i++) {
+                cveSoftware[next[software.get(softwareOrder[i] * SOFTWARE_FIELDS)]++] = i;
+            }
+
+            final int[] header = new int[HEADER_SIZE / Integer.BYTES];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                out.write(new byte[HEADER_SIZE]);
+
+                final int[] stringOffsets = new int[stringOrder.length];
+                for (int i = 0; i < stringOrder.length; i++) {
+                    stringOffsets[i] = out.size();
+                    writeString(out, strings.get(stringOrder[i]));
+                }
+                header[HEADER_STRING_COUNT / Integer.BYTES] = stringOffsets.length;
+                header[HEADER_STRING_INDEX / Integer.BYTES] = out.size();
+                for (int offset : stringOffsets) {
+                    out.writeInt(offset);
+                }
+
+                header[HEADER_PRODUCT_COUNT / Integer.BYTES] = productRuns.size();
+                header[HEADER_PRODUCTS / Integer.BYTES] = out.size();
+                for (Map.Entry<Long, int[]> entry : productRuns.entrySet()) {
+                    out.writeInt((int) (entry.getKey() >>> 32));
+                    out.writeInt((int) (long) entry.getKey());
+                    for (int value : entry.getValue()) {
+                        out.writeInt(value);
+                    }
+                }
+
+                header[HEADER_SOFTWARE / Integer.BYTES] = out.size();
+                for (Integer row : softwareOrder) {
+                    for (int f = 0; f < SOFTWARE_FIELDS; f++) {
+                        out.writeInt(software.get(row * SOFTWARE_FIELDS + f));
+                    }
+                }
+
+                header[HEADER_CPE_COUNT / Integer.BYTES] = cpeCount;
+                header[HEADER_CPES / Integer.BYTES] = out.size();
+                for (Integer row : cpeOrder) {
+                    for (int f = 0; f < CPE_FIELDS; f++) {
+                        out.writeInt(cpes.get(row * CPE_FIELDS + f));
+                    }
+                }
+
+                header[HEADER_CVE_COUNT / Integer.BYTES] = cves.length;
+                header[HEADER_CVES / Integer.BYTES] = out.size();
+                for (int i = 0; i < cves.length; i++) {
+                    out.writeInt(recordOffsets[i]);
+                    out.writeInt(cveSoftwareStart[i]);
+                    out.writeInt(cveSoftwareStart[i + 1] - cveSoftwareStart[i]);
+                }
+                header[HEADER_CVE_SOFTWARE / Integer.BYTES] = out.size();
+                for (int value : cveSoftware) {
+                    out.writeInt(value);
+                }
+
+                header[HEADER_PROPERTIES / Integer.BYTES] = out.size();
+                final Properties properties = cveDB.getProperties();
+                out.writeInt(properties.size());
+                for (String key : properties.stringPropertyNames()) {
+                    writeString(out, key);
+                    writeString(out, properties.getProperty(key));
+                }
+
+                header[HEADER_RECORDS / Integer.BYTES] = out.size();
+                if ((long) out.size() + recordsFile.length() > Integer.MAX_VALUE) {
+                    throw new DatabaseException("The vulnerability snapshot would exceed the maximum size of 2GB");
+                }
+                Files.copy(recordsFile.toPath(), out);
+            }
+            header[HEADER_MAGIC / Integer.BYTES] = MAGIC;
+            header[HEADER_VERSION / Integer.BYTES] = FORMAT_VERSION;
+            writeHeader(temp, header, System.currentTimeMillis());
+            move(temp, file);
+            LOGGER.info("Exported the vulnerability snapshot to {} ({} ms)", file, System.currentTimeMillis() - start);
+        } catch (IOException | SQLException ex) {
+            throw new DatabaseException("Unable to write the vulnerability snapshot " + file, ex);
+        } finally {
+            pool.release(conn);
+            deleteQuietly(temp);
+            deleteQuietly(recordsFile);
+        }
+    }
+
+    /**
+     * Reads the names of all of the CVEs.
+     *
+     * @param conn the connection to read from
+     * @return the sorted names of the CVEs
+     * @throws SQLException thrown if the CVEs could not be read
+     */
+    private String[] readCves(ReadConnectionPool.PooledConnection conn) throws SQLException {
+        final List<String> names = new ArrayList<>();
+        final PreparedStatement ps = conn.getPreparedStatement(SELECT_SNAPSHOT_CVES);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        final String[] cves = names.toArray(new String[0]);
+        Arrays.sort(cves);
+        return cves;
+    }
+
+    /**
+     * Reads all of the vulnerable software; the fields of each entry are
+     * added to the list in the order of the snapshot's software table, using
+     * the unsorted string ids.
+     *
+     * @param conn the connection to read from
+     * @param cveIndex the index of each CVE
+     * @return the vulnerable software
+     * @throws SQLException thrown if the software could not be read
+     */
+    private IntList readSoftware(ReadConnectionPool.PooledConnection conn, Map<String, Integer> cveIndex) throws SQLException {
+        final IntList software = new IntList();
+        final PreparedStatement ps = conn.getPreparedStatement(SELECT_SNAPSHOT_SOFTWARE);
+        //1 cve, 2 part, 3 vendor, 4 product, 5 version, 6 update_version, 7 edition,
+        //8 lang, 9 sw_edition, 10 target_sw, 11 target_hw, 12 other, 13 versionEndExcluding,
+        //14 versionEndIncluding, 15 versionStartExcluding, 16 versionStartIncluding, 17 vulnerable
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                final Integer cve = cveIndex.get(rs.getString(1));
+                if (cve == null) {
+                    continue;
+                }
+                software.add(cve);
+                for (int column = 2; column <= 16; column++) {
+                    software.add(intern(rs.getString(column)));
+                }
+                software.add(rs.getBoolean(17) ? 1 : 0);
+            }
+        }
+        return software;
+    }
+
+    /**
+     * Reads all of the CPE entries using the unsorted string ids.
+     *
+     * @param conn the connection to read from
+     * @return the CPE entries
+     * @throws SQLException thrown if the entries could not be read
+     */
+    private IntList readCpes(ReadConnectionPool.PooledConnection conn) throws SQLException {
+        final IntList cpes = new IntList();
+        final PreparedStatement ps = conn.getPreparedStatement(SELECT_SNAPSHOT_CPE_ENTRIES);
+        //part, vendor, product, version, update_version, edition,
+        //lang, sw_edition, target_sw, target_hw, other, ecosystem
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                for (int column = 1; column <= CPE_FIELDS; column++) {
+                    cpes.add(intern(rs.getString(column)));
+                }
+            }
+        }
+        return cpes;
+    }
+
+    /**
+     * Writes the vulnerability records to the given file.
+     *
+     * @param conn the connection to read from
+     * @param cves the sorted names of the CVEs
+     * @param recordsFile the file to write the records to
+     * @return the offset of the record of each CVE
+     * @throws IOException thrown if the records could not be written
+     */
+    private int[] writeRecords(ReadConnectionPool.PooledConnection conn, String[] cves, File recordsFile) throws IOException {
+        final int[] offsets = new int[cves.length];
+        final List<String> names = Arrays.asList(cves);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsFile.toPath())))) {
+            for (int start = 0; start < cves.length; start += LOAD_SIZE) {
+                final int end = Math.min(start + LOAD_SIZE, cves.length);
+                final Map<String, Vulnerability> loaded = cveDB.getVulnerabilities(conn, names.subList(start, end));
+                for (int i = start; i < end; i++) {
+                    offsets[i] = out.size();
+                    writeRecord(out, cves[i], loaded.get(cves[i]));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Writes the record of a vulnerability; the vulnerable software is
+     * written to the software table rather than the record.
+     *
+     * @param out the output stream
+     * @param name the name of the CVE
+     * @param vuln the vulnerability; may be <code>null</code> if the
+     * vulnerability could not be loaded
+     * @throws IOException thrown if the record could not be written
+     */
+    private static void writeRecord(DataOutputStream out, String name, Vulnerability vuln) throws IOException {
+        writeString(out, name);
+        writeString(out, vuln == null ? null : vuln.getDescription());
+        final CvssV2 v2 = vuln == null ? null : vuln.getCvssV2();
+        out.writeBoolean(v2 != null);
+        if (v2 != null) {
+            out.writeFloat(v2.getScore());
+            writeString(out, v2.getAccessVector());
+            writeString(out, v2.getAccessComplexity());
+            writeString(out, v2.getAuthentication());
+            writeString(out, v2.getConfidentialityImpact());
+            writeString(out, v2.getIntegrityImpact());
+            writeString(out, v2.getAvailabilityImpact());
+            writeString(out, v2.getSeverity());
+        }
+        final CvssV3 v3 = vuln == null ? null : vuln.getCvssV3();
+        out.writeBoolean(v3 != null);
+        if (v3 != null) {
+            writeString(out, v3.getAttackVector());
+            writeString(out, v3.getAttackComplexity());
+            writeString(out, v3.getPrivilegesRequired());
+            writeString(out, v3.getUserInteraction());
+            writeString(out, v3.getScope());
+            writeString(out, v3.getConfidentialityImpact());
+            writeString(out, v3.getIntegrityImpact());
+            writeString(out, v3.getAvailabilityImpact());
+            out.writeFloat(v3.getBaseScore());
+            writeString(out, v3.getBaseSeverity());
+        }
+        if (vuln == null) {
+            out.writeInt(0);
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(vuln.getCwes().getEntries().size());
+        for (String cwe : vuln.getCwes().getEntries()) {
+            writeString(out, cwe);
+        }
+        out.writeInt(vuln.getReferences().size());
+        for (Reference ref : vuln.getReferences()) {
+            writeString(out, ref.getSource());
+            writeString(out, ref.getName());
+            writeString(out, ref.getUrl());
+        }
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string; <code>null</code> is written as
+     * a length of -1.
+     *
+     * @param out the output stream
+     * @param value the string to write
+     * @throws IOException thrown if the string could not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Writes the header over the placeholder at the start of the snapshot.
+     *
+     * @param temp the snapshot being written
+     * @param header the int fields of the header
+     * @param created the time the snapshot was created
+     * @throws IOException thrown if the header could not be written
+     */
+    private static void writeHeader(File temp, int[] header, long created) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            for (int value : header) {
+                raf.writeInt(value);
+            }
+            raf.seek(HEADER_CREATED);
+            raf.writeLong(created);
+        }
+    }
+
+    /**
+     * Moves the completed snapshot over the target; the existing snapshot
+     * remains readable by processes that have already mapped it.
+     *
+     * @param temp the completed snapshot
+     * @param file the target
+     * @throws IOException thrown if the snapshot could not be moved
+     */
+    private static void move(File temp, File file) throws IOException {
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes a temporary file if it exists.
+     *
+     * @param file the file to delete; may be <code>null</code>
+     */
+    private static void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            LOGGER.debug("Unable to delete the temporary file {}", file);
+        }
+    }
+
+    /**
+     * Returns the unsorted id of the string, adding it to the string table if
+     * needed.
+     *
+     * @param value the string
+     * @return the id; {@link VulnerabilitySnapshot#NO_STRING} for
+     * <code>null</code>
+     */
+    private int intern(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        return stringIds.computeIfAbsent(value, (v) -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Replaces the unsorted string ids in the given fields of each entry with
+     * the sorted string ids.
+     *
+     * @param entries the entries
+     * @param width the number of fields in each entry
+     * @param from the first field to remap
+     * @param count the number of fields to remap
+     * @param remap the sorted id of each unsorted id
+     */
+    private static void remap(IntList entries, int width, int from, int count, int[] remap) {
+        for (int row = 0; row < entries.size(); row += width) {
+            for (int f = from; f < from + count; f++) {
+                final int id = entries.get(row + f);
+                if (id != NO_STRING) {
+                    entries.set(row + f, remap[id]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes 0 to count - 1 sorted using the given comparator.
+     *
+     * @param count the number of indexes
+     * @param comparator the comparator
+     * @return the sorted indexes
+     */
+    private static Integer[] sortedIndexes(int count, Comparator<Integer> comparator) {
+        final Integer[] indexes = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, comparator);
+        return indexes;
+    }
+
+    /**
+     * Returns the key used to sort the vendor/product entries.
+     *
+     * @param vendor the sorted string id of the vendor
+     * @param product the sorted string id of the product
+     * @return the key
+     */
+    private static long productKey(int vendor, int product) {
+        return ((long) vendor << 32) | (product & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A growable list of ints; avoids boxing the several million fields of
+     * the software table.
+     */
+    private static final class IntList {
+
+        /**
+         * The values.
+         */
+        private int[] values = new int[1024];
+        /**
+         * The number of values.
+         */
+        private int size;
+
+        /**
+         * Adds a value.
+         *
+         * @param value the value
+         */
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Returns the value at the given index.
+         *
+         * @param index the index
+         * @return the value
+         */
+        int get(int index) {
+            return values[index];
+        }
+
+        /**
+         * Replaces the value at the given index.
+         *
+         * @param index the index
+         * @param value the value
+         */
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        /**
+         * Returns the number of values.
+         *
+         * @return the number of values
+         */
+        int size() {
+            return size;
+        }
+    }
+}
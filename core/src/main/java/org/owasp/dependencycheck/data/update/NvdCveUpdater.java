@@ -31,8 +31,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
 
 import org.owasp.dependencycheck.Engine;
+import org.owasp.dependencycheck.data.cpe.CpeMemoryIndex;
 import org.owasp.dependencycheck.data.nvd.json.MetaProperties;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
@@ -44,10 +46,13 @@ import org.owasp.dependencycheck.data.update.exception.InvalidDataException;
 import org.owasp.dependencycheck.data.update.exception.UpdateException;
 import org.owasp.dependencycheck.data.update.nvd.DownloadTask;
 import org.owasp.dependencycheck.data.update.nvd.NvdCveInfo;
+import org.owasp.dependencycheck.data.update.nvd.NvdCveWriter;
 import org.owasp.dependencycheck.data.update.nvd.ProcessTask;
 import org.owasp.dependencycheck.utils.DateUtil;
 import org.owasp.dependencycheck.utils.DownloadFailedException;
 import org.owasp.dependencycheck.utils.Downloader;
+import org.owasp.dependencycheck.utils.H2DBGenerations;
+import org.owasp.dependencycheck.utils.H2DBLock;
 import org.owasp.dependencycheck.utils.InvalidSettingException;
 import org.owasp.dependencycheck.utils.ResourceNotFoundException;
 import org.owasp.dependencycheck.utils.Settings;
@@ -84,6 +89,10 @@ public class NvdCveUpdater implements CachedWebDataSource {
      * very CPU-intense, e.g. downloading files.
      */
     private ExecutorService downloadExecutorService = null;
+    /**
+     * The single writer of the CVE entries parsed by the processing tasks.
+     */
+    private NvdCveWriter writer = null;
     /**
      * The configured settings.
      */
@@ -141,6 +150,8 @@ public class NvdCveUpdater implements CachedWebDataSource {
             throw new UpdateException("Database Exception, unable to update the data to use the most current data.", ex);
         } finally {
             shutdownExecutorServices();
+            //re-creates the indexes if the bulk import did not complete
+            cveDb.endBulkImport();
         }
         return updatesMade;
     }
@@ -192,6 +203,14 @@ public class NvdCveUpdater implements CachedWebDataSource {
         if (downloadExecutorService != null) {
             downloadExecutorService.shutdownNow();
         }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (UpdateException ex) {
+                LOGGER.debug("Unable to close the NVD CVE writer", ex);
+            }
+            writer = null;
+        }
     }
 
     /**
@@ -243,6 +262,8 @@ public class NvdCveUpdater implements CachedWebDataSource {
      */
     @SuppressWarnings("FutureReturnValueIgnored")
     private void performUpdate(List<NvdCveInfo> updateable) throws UpdateException {
+        //an interrupted bulk import leaves the secondary indexes dropped
+        cveDb.restoreIndexes();
         if (updateable.isEmpty()) {
             return;
         }
@@ -250,10 +271,16 @@ public class NvdCveUpdater implements CachedWebDataSource {
             LOGGER.info("NVD CVE requires several updates; this could take a couple of minutes.");
         }
 
+        //the year feeds of an empty database are loaded with the bulk import
+        if (settings.getBoolean(Settings.KEYS.DB_BULK_IMPORT_ENABLED, true) && cveDb.beginBulkImport()) {
+            LOGGER.debug("Loading the NVD CVE data using the bulk import");
+        }
+        //the feeds are parsed in parallel and written to the database by a single writer
+        writer = new NvdCveWriter(cveDb);
         DownloadTask runLast = null;
         final Set<Future<Future<ProcessTask>>> downloadFutures = new HashSet<>(updateable.size());
         for (NvdCveInfo cve : updateable) {
-            final DownloadTask call = new DownloadTask(cve, processingExecutorService, cveDb, settings);
+            final DownloadTask call = new DownloadTask(cve, processingExecutorService, cveDb, writer, settings);
             if (call.isModified()) {
                 runLast = call;
             } else {
@@ -299,6 +326,9 @@ public class NvdCveUpdater implements CachedWebDataSource {
             }
         }
 
+        //the modified feed may contain vulnerabilities already loaded from the year feeds
+        cveDb.endBulkImport();
+
         if (runLast != null) {
             final Future<Future<ProcessTask>> modified = downloadExecutorService.submit(runLast);
             final Future<ProcessTask> task;
@@ -318,6 +348,8 @@ public class NvdCveUpdater implements CachedWebDataSource {
             }
         }
 
+        writer.close();
+        writer = null;
         try {
             cveDb.cleanupDatabase();
         } catch (DatabaseException ex) {
@@ -387,7 +419,7 @@ public class NvdCveUpdater implements CachedWebDataSource {
                 if (!needsFullUpdate && lastUpdated == modified.getLastModifiedDate()) {
                     return updates;
                 } else {
-                    final NvdCveInfo item = new NvdCveInfo(MODIFIED, url, modified.getLastModifiedDate());
+                    final NvdCveInfo item = new NvdCveInfo(MODIFIED, url, modified.getLastModifiedDate(), modified.getSha256());
                     updates.add(item);
                     if (needsFullUpdate || !DateUtil.withinDateRange(lastUpdated, now, days)) {
                         final int start = settings.getInt(Settings.KEYS.CVE_START_YEAR);
@@ -399,7 +431,8 @@ public class NvdCveUpdater implements CachedWebDataSource {
                             final long currentTimestamp = getPropertyInSeconds(DatabaseProperties.LAST_UPDATED_BASE + i);
 
                             if (currentTimestamp < meta.getLastModifiedDate()) {
-                                final NvdCveInfo entry = new NvdCveInfo(Integer.toString(i), url, meta.getLastModifiedDate());
+                                final NvdCveInfo entry = new NvdCveInfo(Integer.toString(i), url, meta.getLastModifiedDate(),
+                                        meta.getSha256());
                                 updates.add(entry);
                             }
                         }
@@ -457,11 +490,21 @@ public class NvdCveUpdater implements CachedWebDataSource {
                 LOGGER.error("Unable to delete '{}'; please delete the file manually", traceFile.getAbsolutePath());
                 result = false;
             }
-            final File lockFile = new File(dataDir, "odc.update.lock");
+            final File lockFile = new File(dataDir, H2DBLock.LOCK_FILE_NAME);
             if (lockFile.exists() && !lockFile.delete()) {
                 LOGGER.error("Unable to delete '{}'; please delete the file manually", lockFile.getAbsolutePath());
                 result = false;
             }
+            final File generations = new File(dataDir, H2DBGenerations.DIRECTORY_NAME);
+            if (generations.exists() && !FileUtils.deleteQuietly(generations)) {
+                LOGGER.error("Unable to delete '{}'; please delete the directory manually", generations.getAbsolutePath());
+                result = false;
+            }
+            final File cpeIndex = new File(dataDir, CpeMemoryIndex.INDEX_DIRECTORY);
+            if (cpeIndex.exists() && !FileUtils.deleteQuietly(cpeIndex)) {
+                LOGGER.error("Unable to delete '{}'; please delete the directory manually", cpeIndex.getAbsolutePath());
+                result = false;
+            }
         } catch (IOException ex) {
             final String msg = "Unable to delete the database";
             LOGGER.error(msg, ex);
@@ -0,0 +1,198 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.data.nvd.json.DefConfigurations;
+import org.owasp.dependencycheck.data.nvd.json.DefCpeMatch;
+import org.owasp.dependencycheck.data.nvd.json.DefNode;
+
+/**
+ * Reads the configurations of an NVD CVE entry directly from the JSON stream.
+ * Only the CPE matches whose CPE 2.3 URI starts with the configured filter are
+ * allocated; they are returned in a single flattened node. The CPE matches
+ * that do not pass the filter are never stored by the CveDB so the node
+ * hierarchy and operators are not retained. Writing uses the default Gson
+ * serialization of the configurations.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+class CpeMatchFilteringAdapter extends TypeAdapter<DefConfigurations> {
+
+    /**
+     * The filter for 2.3 CPEs in the CVEs.
+     */
+    private final String cpeStartsWithFilter;
+    /**
+     * The default adapter used to write the configurations.
+     */
+    private final TypeAdapter<DefConfigurations> delegate = new Gson().getAdapter(DefConfigurations.class);
+
+    /**
+     * Constructs a new adapter.
+     *
+     * @param cpeStartsWithFilter the filter for 2.3 CPEs in the CVEs
+     */
+    CpeMatchFilteringAdapter(String cpeStartsWithFilter) {
+        this.cpeStartsWithFilter = cpeStartsWithFilter;
+    }
+
+    @Override
+    public void write(JsonWriter out, DefConfigurations value) throws IOException {
+        delegate.write(out, value);
+    }
+
+    @Override
+    public DefConfigurations read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final List<DefCpeMatch> matches = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("nodes".equals(in.nextName())) {
+                readNodes(in, matches);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        final DefConfigurations configurations = new DefConfigurations();
+        if (matches.isEmpty()) {
+            configurations.setNodes(Collections.emptyList());
+        } else {
+            final DefNode node = new DefNode();
+            node.setCpeMatch(matches);
+            configurations.setNodes(Collections.singletonList(node));
+        }
+        return configurations;
+    }
+
+    /**
+     * Reads a list of nodes, including their children, collecting the CPE
+     * matches that pass the filter.
+     *
+     * @param in the JSON reader
+     * @param matches the CPE matches that pass the filter
+     * @throws IOException thrown if the JSON could not be read
+     */
+    private void readNodes(JsonReader in, List<DefCpeMatch> matches) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            in.beginObject();
+            while (in.hasNext()) {
+                final String name = in.nextName();
+                if ("children".equals(name)) {
+                    readNodes(in, matches);
+                } else if ("cpe_match".equals(name) && in.peek() != JsonToken.NULL) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        final DefCpeMatch match = readCpeMatch(in);
+                        if (match != null) {
+                            matches.add(match);
+                        }
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+    }
+
+    /**
+     * Reads a CPE match.
+     *
+     * @param in the JSON reader
+     * @return the CPE match if it passes the filter; otherwise
+     * <code>null</code>
+     * @throws IOException thrown if the JSON could not be read
+     */
+    private DefCpeMatch readCpeMatch(JsonReader in) throws IOException {
+        Boolean vulnerable = null;
+        String cpe22Uri = null;
+        String cpe23Uri = null;
+        String versionStartExcluding = null;
+        String versionStartIncluding = null;
+        String versionEndExcluding = null;
+        String versionEndIncluding = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "vulnerable":
+                    vulnerable = in.nextBoolean();
+                    break;
+                case "cpe22Uri":
+                    cpe22Uri = in.nextString();
+                    break;
+                case "cpe23Uri":
+                    cpe23Uri = in.nextString();
+                    break;
+                case "versionStartExcluding":
+                    versionStartExcluding = in.nextString();
+                    break;
+                case "versionStartIncluding":
+                    versionStartIncluding = in.nextString();
+                    break;
+                case "versionEndExcluding":
+                    versionEndExcluding = in.nextString();
+                    break;
+                case "versionEndIncluding":
+                    versionEndIncluding = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        if (cpe23Uri == null || !cpe23Uri.startsWith(cpeStartsWithFilter)) {
+            return null;
+        }
+        final DefCpeMatch match = new DefCpeMatch();
+        match.setVulnerable(vulnerable);
+        match.setCpe22Uri(cpe22Uri);
+        match.setCpe23Uri(cpe23Uri);
+        match.setVersionStartExcluding(versionStartExcluding);
+        match.setVersionStartIncluding(versionStartIncluding);
+        match.setVersionEndExcluding(versionEndExcluding);
+        match.setVersionEndIncluding(versionEndIncluding);
+        return match;
+    }
+}
@@ -18,18 +18,29 @@
 package org.owasp.dependencycheck.data.update.nvd;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.TeeInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.update.exception.UpdateException;
 import org.owasp.dependencycheck.utils.DownloadFailedException;
 import org.owasp.dependencycheck.utils.Downloader;
+import org.owasp.dependencycheck.utils.HttpResourceConnection;
+import org.owasp.dependencycheck.utils.ResourceNotFoundException;
 import org.owasp.dependencycheck.utils.Settings;
+import org.owasp.dependencycheck.utils.TooManyRequestsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +60,10 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
      * The CVE DB to use when processing the files.
      */
     private final CveDB cveDB;
+    /**
+     * The writer of the parsed CVE entries; may be <code>null</code>.
+     */
+    private final NvdCveWriter writer;
     /**
      * The processor service to pass the results of the download to.
      */
@@ -65,6 +80,21 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
      * a file.
      */
     private File file;
+    /**
+     * Whether or not the data feed is parsed while it is downloaded rather
+     * than saved to the temporary file by the downloader first.
+     */
+    private final boolean streaming;
+    /**
+     * The local cache of the streamed data feed; <code>null</code> if the
+     * data feed is not cached.
+     */
+    private File cacheFile;
+    /**
+     * The partial copy of the data feed written to the cache while it is
+     * streamed; <code>null</code> if the data feed is not cached.
+     */
+    private File streamFile;
 
     /**
      * Simple constructor for the callable download task.
@@ -78,13 +108,41 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
      * @throws UpdateException thrown if temporary files could not be created
      */
     public DownloadTask(NvdCveInfo nvdCveInfo, ExecutorService processor, CveDB cveDB, Settings settings) throws UpdateException {
+        this(nvdCveInfo, processor, cveDB, null, settings);
+    }
+
+    /**
+     * Constructs a new download task; the parsed CVE entries are passed to the
+     * writer.
+     *
+     * @param nvdCveInfo the NVD CVE info
+     * @param processor the processor service to submit the downloaded files to
+     * @param cveDB the CVE DB to use to store the vulnerability data
+     * @param writer the writer of the parsed CVE entries; may be
+     * <code>null</code>
+     * @param settings a reference to the global settings object
+     * @throws UpdateException thrown if temporary files could not be created
+     */
+    public DownloadTask(NvdCveInfo nvdCveInfo, ExecutorService processor, CveDB cveDB, NvdCveWriter writer,
+            Settings settings) throws UpdateException {
         this.nvdCveInfo = nvdCveInfo;
         this.processorService = processor;
         this.cveDB = cveDB;
+        this.writer = writer;
         this.settings = settings;
+        this.streaming = settings.getBoolean(Settings.KEYS.CVE_DOWNLOAD_STREAMING, false);
 
         try {
-            this.file = File.createTempFile("cve" + nvdCveInfo.getId() + '_', ".json.gz", settings.getTempDirectory());
+            if (streaming) {
+                if (settings.getBoolean(Settings.KEYS.CVE_DOWNLOAD_CACHE, false)) {
+                    final File cacheDir = new File(settings.getDataDirectory(), "nvdcache");
+                    final String name = nvdCveInfo.getUrl().substring(nvdCveInfo.getUrl().lastIndexOf('/') + 1);
+                    this.cacheFile = new File(cacheDir, name);
+                    this.streamFile = new File(cacheDir, name + ".part");
+                }
+            } else {
+                this.file = File.createTempFile("cve" + nvdCveInfo.getId() + '_', ".json.gz", settings.getTempDirectory());
+            }
         } catch (IOException ex) {
             throw new UpdateException("Unable to create temporary files", ex);
         }
@@ -111,15 +169,131 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
     /**
      * Get the value of file.
      *
-     * @return the value of file
+     * @return the value of file; <code>null</code> when the data feed is
+     * streamed
      */
     public File getFile() {
         return file;
     }
 
+    /**
+     * Returns whether or not the data feed is parsed while it is downloaded;
+     * if so the process task reads the data feed from {@link #openStream()}.
+     *
+     * @return <code>true</code> if the data feed is streamed; otherwise
+     * <code>false</code>
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Opens the gzipped data feed for streaming. A copy of the data feed in the
+     * local cache is used if it was verified against the same checksum;
+     * otherwise the data feed is downloaded and, if the cache is enabled,
+     * copied to the cache as it is read.
+     *
+     * @return the stream of the gzipped data feed
+     * @throws UpdateException thrown if the data feed could not be opened
+     */
+    public InputStream openStream() throws UpdateException {
+        try {
+            if (isCached()) {
+                LOGGER.debug("Using the cached NVD CVE data feed {}", cacheFile);
+                return new FileInputStream(cacheFile);
+            }
+            final URL url = new URL(nvdCveInfo.getUrl());
+            LOGGER.info("Download Started for NVD CVE - {}", nvdCveInfo.getId());
+            final HttpResourceConnection conn = new HttpResourceConnection(settings);
+            InputStream in = null;
+            try {
+                in = conn.fetch(url);
+                if (streamFile != null) {
+                    FileUtils.forceMkdirParent(streamFile);
+                    in = new TeeInputStream(in, new FileOutputStream(streamFile), true);
+                }
+            } catch (IOException | TooManyRequestsException | ResourceNotFoundException ex) {
+                if (in != null) {
+                    in.close();
+                }
+                conn.close();
+                throw ex;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        conn.close();
+                    }
+                }
+            };
+        } catch (MalformedURLException ex) {
+            throw new UpdateException("NVD CVE data feed url is invalid: " + nvdCveInfo.getUrl(), ex);
+        } catch (IOException ex) {
+            throw new UpdateException("Unable to download the NVD CVE data feed: " + nvdCveInfo.getUrl(), ex);
+        } catch (TooManyRequestsException ex) {
+            throw new UpdateException("Unable to download the NVD CVE data feed: " + nvdCveInfo.getUrl()
+                    + "; received 429 -- too many requests", ex);
+        } catch (ResourceNotFoundException ex) {
+            throw new UpdateException("Unable to download the NVD CVE data feed: " + nvdCveInfo.getUrl()
+                    + "; received 404 -- resource not found", ex);
+        }
+    }
+
+    /**
+     * Called once the streamed data feed has been verified against the
+     * checksum in the META file; the copy written to the cache replaces the
+     * previously cached data feed.
+     */
+    public void streamVerified() {
+        if (streamFile == null || !streamFile.isFile() || nvdCveInfo.getSha256() == null) {
+            return;
+        }
+        final File checksum = new File(cacheFile.getPath() + ".sha256");
+        try {
+            FileUtils.deleteQuietly(checksum);
+            FileUtils.deleteQuietly(cacheFile);
+            FileUtils.moveFile(streamFile, cacheFile);
+            FileUtils.writeStringToFile(checksum, nvdCveInfo.getSha256(), UTF_8);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to cache the NVD CVE data feed " + cacheFile, ex);
+            FileUtils.deleteQuietly(checksum);
+        }
+    }
+
+    /**
+     * Returns whether or not a copy of the data feed with the expected
+     * checksum exists in the local cache.
+     *
+     * @return <code>true</code> if the cached data feed can be used; otherwise
+     * <code>false</code>
+     */
+    private boolean isCached() {
+        if (cacheFile == null || nvdCveInfo.getSha256() == null || !cacheFile.isFile()) {
+            return false;
+        }
+        final File checksum = new File(cacheFile.getPath() + ".sha256");
+        try {
+            return checksum.isFile() && nvdCveInfo.getSha256().equalsIgnoreCase(
+                    FileUtils.readFileToString(checksum, UTF_8).trim());
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to read the checksum of the cached NVD CVE data feed", ex);
+            return false;
+        }
+    }
+
     @Override
     public Future<ProcessTask> call() throws Exception {
         try {
+            if (streaming) {
+                if (this.processorService == null) {
+                    return null;
+                }
+                //the data feed is downloaded by the process task as it is parsed
+                return this.processorService.submit(new ProcessTask(cveDB, writer, this, settings));
+            }
             final URL url1 = new URL(nvdCveInfo.getUrl());
             LOGGER.info("Download Started for NVD CVE - {}", nvdCveInfo.getId());
             final long startDownload = System.currentTimeMillis();
@@ -141,7 +315,7 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
             if (this.processorService == null) {
                 return null;
             }
-            final ProcessTask task = new ProcessTask(cveDB, this, settings);
+            final ProcessTask task = new ProcessTask(cveDB, writer, this, settings);
             return this.processorService.submit(task);
 
         } catch (Throwable ex) {
@@ -162,6 +336,9 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
             LOGGER.debug("Failed to delete first temporary file {}", file.toString());
             file.deleteOnExit();
         }
+        if (streamFile != null && streamFile.exists() && !streamFile.delete()) {
+            LOGGER.debug("Failed to delete the partial copy of the data feed {}", streamFile.toString());
+        }
     }
 
     /**
@@ -172,6 +349,6 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
      * otherwise <code>false</code>
      */
     public boolean isModified() {
-        return StringUtils.containsIgnoreCase(file.toString(), "modified");
+        return StringUtils.containsIgnoreCase(nvdCveInfo.getId(), "modified");
     }
 }
@@ -39,6 +39,11 @@ public class NvdCveInfo {
      * The timestamp of the file - epoch time.
      */
     private final long timestamp;
+    /**
+     * The SHA-256 checksum of the uncompressed file from the META file; may be
+     * <code>null</code>.
+     */
+    private final String sha256;
 
     /**
      * Construct a new NVD CVE Info object.
@@ -48,9 +53,23 @@ public class NvdCveInfo {
      * @param timestamp the timestamp
      */
     public NvdCveInfo(String id, String url, long timestamp) {
+        this(id, url, timestamp, null);
+    }
+
+    /**
+     * Construct a new NVD CVE Info object.
+     *
+     * @param id the id
+     * @param url the url
+     * @param timestamp the timestamp
+     * @param sha256 the SHA-256 checksum of the uncompressed file; may be
+     * <code>null</code>
+     */
+    public NvdCveInfo(String id, String url, long timestamp, String sha256) {
         this.id = id;
         this.url = url;
         this.timestamp = timestamp;
+        this.sha256 = sha256;
     }
 
     /**
@@ -79,4 +98,13 @@ public class NvdCveInfo {
     public long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * Get the SHA-256 checksum of the uncompressed file.
+     *
+     * @return the SHA-256 checksum; may be <code>null</code>
+     */
+    public String getSha256() {
+        return sha256;
+    }
 }
@@ -17,8 +17,11 @@
  */
 package org.owasp.dependencycheck.data.update.nvd;
 
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 
@@ -29,10 +32,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.owasp.dependencycheck.data.nvd.json.DefConfigurations;
 import org.owasp.dependencycheck.data.nvd.json.DefCveItem;
 import org.owasp.dependencycheck.data.nvd.json.CpeMatchStreamCollector;
 import org.owasp.dependencycheck.data.nvd.json.NodeFlatteningCollector;
@@ -40,7 +48,9 @@ import org.owasp.dependencycheck.data.update.exception.UpdateException;
 import org.owasp.dependencycheck.utils.Settings;
 
 /**
- * Parser and processor of NVD CVE JSON data feeds.
+ * Parser and processor of NVD CVE JSON data feeds. The CPE matches of each
+ * entry are filtered while the JSON is read and the fields that are not stored
+ * in the database are skipped.
  *
  * @author Jeremy Long
  */
@@ -50,6 +60,14 @@ public final class NvdCveParser {
      * The logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(NvdCveParser.class);
+    /**
+     * The names of the JSON fields that are not stored in the database; these
+     * are skipped rather than deserialized.
+     */
+    private static final Set<String> UNUSED_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "data_type", "data_format", "data_version", "ASSIGNER", "affects", "tags", "publishedDate",
+            "exploitabilityScore", "impactScore", "acInsufInfo", "obtainAllPrivilege", "obtainUserPrivilege",
+            "obtainOtherPrivilege", "userInteractionRequired")));
     /**
      * A reference to the CVE DB.
      */
@@ -59,6 +77,11 @@ public final class NvdCveParser {
      * match.
      */
     private final String cpeStartsWithFilter;
+    /**
+     * The JSON deserializer; the configurations are filtered while they are
+     * read so that only the CPE matches we import are allocated.
+     */
+    private final Gson gson;
 
     /**
      * Creates a new NVD CVE JSON Parser.
@@ -69,6 +92,10 @@ public final class NvdCveParser {
     public NvdCveParser(Settings settings, CveDB db) {
         this.cpeStartsWithFilter = settings.getString(Settings.KEYS.CVE_CPE_STARTS_WITH_FILTER, "cpe:2.3:a:");
         this.cveDB = db;
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(DefConfigurations.class, new CpeMatchFilteringAdapter(cpeStartsWithFilter))
+                .setExclusionStrategies(new UnusedFieldExclusionStrategy())
+                .create();
     }
 
     /**
@@ -78,27 +105,25 @@ public final class NvdCveParser {
      * @throws UpdateException thrown if the file could not be read
      */
     public void parse(File file) throws UpdateException {
+        parse(file, null);
+    }
+
+    /**
+     * Parses the NVD JSON file and passes the CVE entries that match the CPE
+     * filter to the writer; if the writer is <code>null</code> the entries are
+     * inserted/updated in the database directly.
+     *
+     * @param file the NVD JSON file to parse
+     * @param writer the writer of the CVE entries; may be <code>null</code>
+     * @return the number of CVE entries passed to the writer or database
+     * @throws UpdateException thrown if the file could not be read or the
+     * entries could not be written
+     */
+    public int parse(File file, NvdCveWriter writer) throws UpdateException {
         LOGGER.debug("Parsing " + file.getName());
         try (InputStream fin = new FileInputStream(file);
-                InputStream in = new GZIPInputStream(fin);
-                InputStreamReader isr = new InputStreamReader(in, UTF_8);
-                JsonReader reader = new JsonReader(isr)) {
-            final Gson gson = new GsonBuilder().create();
-
-            reader.beginObject();
-
-            while (reader.hasNext() && !JsonToken.BEGIN_ARRAY.equals(reader.peek())) {
-                reader.skipValue();
-            }
-            reader.beginArray();
-            while (reader.hasNext()) {
-                final DefCveItem cve = gson.fromJson(reader, DefCveItem.class);
-
-                //cve.getCve().getCVEDataMeta().getSTATE();
-                if (testCveCpeStartWithFilter(cve)) {
-                    cveDB.updateVulnerability(cve);
-                }
-            }
+                InputStream in = new GZIPInputStream(fin)) {
+            return parse(in, writer);
         } catch (FileNotFoundException ex) {
             LOGGER.error(ex.getMessage());
             throw new UpdateException("Unable to find the NVD CPE file, `" + file + "`, to parse", ex);
@@ -109,6 +134,43 @@ public final class NvdCveParser {
         }
     }
 
+    /**
+     * Parses the uncompressed NVD JSON data feed from the given stream and
+     * passes the CVE entries that match the CPE filter to the writer; if the
+     * writer is <code>null</code> the entries are inserted/updated in the
+     * database directly. The stream is not closed.
+     *
+     * @param in the stream containing the uncompressed NVD JSON data feed
+     * @param writer the writer of the CVE entries; may be <code>null</code>
+     * @return the number of CVE entries passed to the writer or database
+     * @throws IOException thrown if the stream could not be read
+     * @throws UpdateException thrown if the entries could not be written
+     */
+    public int parse(InputStream in, NvdCveWriter writer) throws IOException, UpdateException {
+        int count = 0;
+        final JsonReader reader = new JsonReader(new InputStreamReader(in, UTF_8));
+        reader.beginObject();
+
+        while (reader.hasNext() && !JsonToken.BEGIN_ARRAY.equals(reader.peek())) {
+            reader.skipValue();
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final DefCveItem cve = gson.fromJson(reader, DefCveItem.class);
+
+            //cve.getCve().getCVEDataMeta().getSTATE();
+            if (testCveCpeStartWithFilter(cve)) {
+                if (writer != null) {
+                    writer.write(cve);
+                } else {
+                    cveDB.updateVulnerability(cve);
+                }
+                count += 1;
+            }
+        }
+        return count;
+    }
+
     /**
      * Tests the CVE's CPE entries against the starts with filter. In general
      * this limits the CVEs imported to just application level vulnerabilities.
@@ -118,10 +180,31 @@ public final class NvdCveParser {
      * configured CPE Starts with filter
      */
     protected boolean testCveCpeStartWithFilter(final DefCveItem cve) {
+        if (cve.getConfigurations() == null) {
+            return false;
+        }
         //cycle through to see if this is a CPE we care about (use the CPE filters
         return cve.getConfigurations().getNodes().stream()
                 .collect(new NodeFlatteningCollector())
                 .collect(new CpeMatchStreamCollector())
                 .anyMatch(cpe -> cpe.getCpe23Uri().startsWith(cpeStartsWithFilter));
     }
+
+    /**
+     * Skips the JSON fields of the NVD CVE entries that are not stored in the
+     * database.
+     */
+    private static class UnusedFieldExclusionStrategy implements ExclusionStrategy {
+
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+            final SerializedName name = field.getAnnotation(SerializedName.class);
+            return name != null && UNUSED_FIELDS.contains(name.value());
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,383 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.data.nvd.json.DefCveItem;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the parsed NVD CVE entries to the database. The data feeds are parsed
+ * in parallel and the parsed entries are passed through a bounded queue to a
+ * single thread that performs all of the database writes; the writes are
+ * committed in large transactions rather than one statement at a time.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class NvdCveWriter implements AutoCloseable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(NvdCveWriter.class);
+    /**
+     * The maximum number of parsed entries waiting to be written.
+     */
+    private static final int QUEUE_SIZE = 1000;
+    /**
+     * The number of entries written per transaction.
+     */
+    private static final int COMMIT_SIZE = 5000;
+    /**
+     * The queue entry that stops the writer.
+     */
+    private static final Entry CLOSE = new Entry(null, null, null, null);
+
+    /**
+     * A reference to the CVE DB.
+     */
+    private final CveDB cveDB;
+    /**
+     * The parsed entries waiting to be written.
+     */
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    /**
+     * The executor running the writer thread.
+     */
+    private final ExecutorService executor;
+    /**
+     * The result of the writer thread.
+     */
+    private final Future<Void> writer;
+    /**
+     * The first exception that occurred writing to the database; once set the
+     * remaining entries are discarded.
+     */
+    private volatile Exception failure;
+    /**
+     * Whether or not the writer has been closed.
+     */
+    private boolean closed;
+    /**
+     * Permits a single data feed at a time to hold its entries in one
+     * transaction.
+     */
+    private final Semaphore transaction = new Semaphore(1);
+    /**
+     * Whether or not the entries are held in the transaction until the data
+     * feed is completed or rolled back; no intermediate commits are made
+     * while set.
+     */
+    private volatile boolean held;
+
+    /**
+     * Constructs a new writer and starts the writer thread; auto-commit is
+     * disabled on the database until the writer is closed.
+     *
+     * @param cveDB a reference to the database
+     * @throws UpdateException thrown if auto-commit could not be disabled
+     */
+    public NvdCveWriter(CveDB cveDB) throws UpdateException {
+        this.cveDB = cveDB;
+        try {
+            cveDB.setAutoCommit(false);
+        } catch (SQLException | DatabaseException ex) {
+            throw new UpdateException("Unable to start a transaction for the NVD CVE data", ex);
+        }
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "nvd-cve-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer = executor.submit(this::run);
+    }
+
+    /**
+     * Queues a parsed CVE entry to be written to the database; blocks while
+     * the queue is full.
+     *
+     * @param cve the CVE entry
+     * @throws UpdateException thrown if a previous write failed or the thread
+     * was interrupted
+     */
+    public void write(DefCveItem cve) throws UpdateException {
+        put(new Entry(cve, null, null, null));
+    }
+
+    /**
+     * Completes the processing of a data feed. Once every entry queued before
+     * this call has been written the transaction is committed and the
+     * timestamp of the data feed is saved to the database properties; this
+     * method blocks until then.
+     *
+     * @param info the data feed
+     * @param properties the database properties to update
+     * @throws UpdateException thrown if the entries of the data feed could not
+     * be written
+     */
+    public void complete(NvdCveInfo info, DatabaseProperties properties) throws UpdateException {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        put(new Entry(null, info, properties, done));
+        await(done);
+    }
+
+    /**
+     * Begins a data feed whose entries are held in a single transaction until
+     * the data feed is completed or rolled back; used when the data feed is
+     * written before its checksum can be verified. Blocks while another data
+     * feed holds the transaction. The caller must call {@link #end()} once
+     * the data feed has been completed or rolled back.
+     *
+     * @throws UpdateException thrown if the thread was interrupted
+     */
+    public void begin() throws UpdateException {
+        try {
+            transaction.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UpdateException("Interrupted waiting to write the NVD CVE data", ex);
+        }
+        held = true;
+    }
+
+    /**
+     * Discards the entries of the data feed begun with {@link #begin()}; once
+     * every entry queued before this call has been written the transaction is
+     * rolled back. This method blocks until then.
+     *
+     * @throws UpdateException thrown if the entries could not be rolled back
+     */
+    public void rollback() throws UpdateException {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        put(new Entry(null, null, null, done));
+        await(done);
+    }
+
+    /**
+     * Ends the data feed begun with {@link #begin()}; the entries of the next
+     * data feeds are committed as usual.
+     */
+    public void end() {
+        held = false;
+        transaction.release();
+    }
+
+    /**
+     * Writes the remaining entries, commits the transaction, stops the writer
+     * thread and enables auto-commit on the database again. If the entries
+     * could not be written the uncommitted changes are rolled back before
+     * auto-commit is enabled.
+     *
+     * @throws UpdateException thrown if the entries could not be written
+     */
+    @Override
+    public synchronized void close() throws UpdateException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean written = false;
+        try {
+            queue.put(CLOSE);
+            writer.get();
+            written = failure == null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UpdateException("Interrupted waiting for the NVD CVE data to be written", ex);
+        } catch (ExecutionException ex) {
+            throw toUpdateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+            if (!written) {
+                //enabling auto-commit would otherwise commit the partial transaction
+                try {
+                    cveDB.rollback();
+                } catch (SQLException | DatabaseException ex) {
+                    LOGGER.debug("Unable to roll back the NVD CVE data", ex);
+                }
+            }
+            try {
+                cveDB.setAutoCommit(true);
+            } catch (SQLException | DatabaseException ex) {
+                LOGGER.debug("Unable to enable auto-commit", ex);
+            }
+        }
+        if (failure != null) {
+            throw toUpdateException(failure);
+        }
+    }
+
+    /**
+     * Waits until the writer thread has processed an entry.
+     *
+     * @param done completed once the entry has been processed
+     * @throws UpdateException thrown if the entry could not be processed or
+     * the thread was interrupted
+     */
+    private static void await(CompletableFuture<Void> done) throws UpdateException {
+        try {
+            done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UpdateException("Interrupted waiting for the NVD CVE data to be written", ex);
+        } catch (ExecutionException ex) {
+            throw toUpdateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Adds an entry to the queue.
+     *
+     * @param entry the entry
+     * @throws UpdateException thrown if a previous write failed or the thread
+     * was interrupted
+     */
+    private void put(Entry entry) throws UpdateException {
+        if (failure != null) {
+            throw toUpdateException(failure);
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UpdateException("Interrupted waiting to write the NVD CVE data", ex);
+        }
+    }
+
+    /**
+     * The writer thread; takes the entries from the queue and writes them to
+     * the database until the writer is closed.
+     *
+     * @return <code>null</code>
+     * @throws InterruptedException thrown if the writer thread is interrupted
+     */
+    private Void run() throws InterruptedException {
+        int uncommitted = 0;
+        Entry entry = queue.take();
+        while (entry != CLOSE) {
+            try {
+                if (entry.cve != null) {
+                    if (failure == null) {
+                        cveDB.updateVulnerability(entry.cve);
+                        uncommitted += 1;
+                        if (uncommitted >= COMMIT_SIZE && !held) {
+                            cveDB.commit();
+                            uncommitted = 0;
+                        }
+                    }
+                } else if (failure != null) {
+                    entry.done.completeExceptionally(failure);
+                } else if (entry.info == null) {
+                    cveDB.rollback();
+                    uncommitted = 0;
+                    entry.done.complete(null);
+                } else {
+                    cveDB.commit();
+                    uncommitted = 0;
+                    entry.properties.save(entry.info);
+                    cveDB.commit();
+                    entry.done.complete(null);
+                }
+            } catch (SQLException | UpdateException | RuntimeException ex) {
+                LOGGER.debug("Unable to write the NVD CVE data", ex);
+                failure = ex;
+                if (entry.done != null) {
+                    entry.done.completeExceptionally(ex);
+                }
+            }
+            entry = queue.take();
+        }
+        if (failure == null) {
+            try {
+                cveDB.commit();
+            } catch (SQLException | RuntimeException ex) {
+                failure = ex;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts the cause of a write failure into an update exception.
+     *
+     * @param cause the cause of the failure
+     * @return the update exception
+     */
+    private static UpdateException toUpdateException(Throwable cause) {
+        if (cause instanceof UpdateException) {
+            return (UpdateException) cause;
+        }
+        return new UpdateException("Unable to write the NVD CVE data to the database", cause);
+    }
+
+    /**
+     * An entry in the queue; either a parsed CVE entry, the completion of a
+     * data feed, or the rollback of a data feed.
+     */
+    private static final class Entry {
+
+        /**
+         * The parsed CVE entry; <code>null</code> for the completion of a
+         * data feed.
+         */
+        private final DefCveItem cve;
+        /**
+         * The completed data feed; <code>null</code> for a parsed CVE entry or
+         * the rollback of a data feed.
+         */
+        private final NvdCveInfo info;
+        /**
+         * The database properties to update with the completed data feed.
+         */
+        private final DatabaseProperties properties;
+        /**
+         * Completed once the data feed has been committed or rolled back.
+         */
+        private final CompletableFuture<Void> done;
+
+        /**
+         * Constructs a new queue entry.
+         *
+         * @param cve the parsed CVE entry
+         * @param info the completed data feed
+         * @param properties the database properties to update
+         * @param done completed once the data feed has been committed
+         */
+        private Entry(DefCveItem cve, NvdCveInfo info, DatabaseProperties properties, CompletableFuture<Void> done) {
+            this.cve = cve;
+            this.info = info;
+            this.properties = properties;
+            this.done = done;
+        }
+    }
+}
@@ -19,14 +19,22 @@ package org.owasp.dependencycheck.data.update.nvd;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.concurrent.Callable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.zip.GZIPInputStream;
 import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
 import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import org.owasp.dependencycheck.utils.Checksum;
 import org.owasp.dependencycheck.utils.Settings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +60,11 @@ public class ProcessTask implements Callable<ProcessTask> {
      * A reference to the CveDB.
      */
     private final CveDB cveDB;
+    /**
+     * The writer of the parsed CVE entries; <code>null</code> if the entries
+     * are written to the database by this task.
+     */
+    private final NvdCveWriter writer;
     /**
      * A reference to the callable download task.
      */
@@ -94,7 +107,23 @@ public class ProcessTask implements Callable<ProcessTask> {
      * correct reference to the global settings.
      */
     public ProcessTask(final CveDB cveDB, final DownloadTask downloadTask, Settings settings) {
+        this(cveDB, null, downloadTask, settings);
+    }
+
+    /**
+     * Constructs a new ProcessTask used to process an NVD CVE update; the
+     * parsed CVE entries are passed to the writer.
+     *
+     * @param cveDB the data store object
+     * @param writer the writer of the parsed CVE entries; may be
+     * <code>null</code>
+     * @param downloadTask the download task that contains the URL references to
+     * download
+     * @param settings a reference to the global settings object
+     */
+    public ProcessTask(final CveDB cveDB, final NvdCveWriter writer, final DownloadTask downloadTask, Settings settings) {
         this.cveDB = cveDB;
+        this.writer = writer;
         this.downloadTask = downloadTask;
         this.properties = cveDB.getDatabaseProperties();
         this.settings = settings;
@@ -123,6 +152,7 @@ public class ProcessTask implements Callable<ProcessTask> {
      * Imports the NVD CVE JSON File into the database.
      *
      * @param file the file containing the NVD CVE JSON
+     * @return the number of CVE entries imported
      * @throws ParserConfigurationException is thrown if there is a parser
      * configuration exception
      * @throws IOException is thrown if there is a IO Exception
@@ -132,11 +162,126 @@ public class ProcessTask implements Callable<ProcessTask> {
      * loaded
      * @throws UpdateException thrown if the file could not be found
      */
-    protected void importJSON(File file) throws ParserConfigurationException,
+    protected int importJSON(File file) throws ParserConfigurationException,
             IOException, SQLException, DatabaseException, ClassNotFoundException, UpdateException {
 
         final NvdCveParser parser = new NvdCveParser(settings, cveDB);
-        parser.parse(file);
+        return parser.parse(file, writer);
+    }
+
+    /**
+     * Imports the streamed NVD CVE JSON data feed into the database. The data
+     * feed is decompressed and parsed while it is downloaded; the entries are
+     * held in a single transaction until the SHA-256 checksum of the
+     * uncompressed data feed has been verified against the META file. If the
+     * checksum does not match the entries are rolled back and an exception is
+     * thrown so that the timestamp of the data feed is not saved and the data
+     * feed is processed again by the next update.
+     *
+     * @return the number of CVE entries imported
+     * @throws IOException is thrown if there is a IO Exception
+     * @throws SQLException is thrown if there is a SQL exception
+     * @throws UpdateException thrown if the data feed could not be downloaded,
+     * imported, or verified
+     */
+    protected int importStream() throws IOException, SQLException, UpdateException {
+        final NvdCveInfo info = downloadTask.getNvdCveInfo();
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new UpdateException("Unable to verify the NVD CVE data feed", ex);
+        }
+        final NvdCveParser parser = new NvdCveParser(settings, cveDB);
+        //the download is only started once the transaction is held
+        begin();
+        boolean completed = false;
+        try {
+            final int count;
+            try (InputStream feed = downloadTask.openStream();
+                    InputStream gzip = new GZIPInputStream(feed);
+                    InputStream in = new DigestInputStream(gzip, digest)) {
+                count = parser.parse(in, writer);
+                //the checksum covers anything following the parsed JSON
+                IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+            if (info.getSha256() != null) {
+                final String sha256 = Checksum.getHex(digest.digest());
+                if (!info.getSha256().equalsIgnoreCase(sha256)) {
+                    throw new UpdateException(String.format("The checksum of the NVD CVE data feed %s (%s) does not match the META file (%s)",
+                            info.getId(), sha256, info.getSha256()));
+                }
+                downloadTask.streamVerified();
+            }
+            complete();
+            completed = true;
+            return count;
+        } finally {
+            if (!completed) {
+                rollback();
+            }
+            end();
+        }
+    }
+
+    /**
+     * Begins holding the entries of the streamed data feed in a single
+     * transaction.
+     *
+     * @throws SQLException is thrown if there is a SQL exception
+     * @throws UpdateException thrown if the thread was interrupted
+     */
+    private void begin() throws SQLException, UpdateException {
+        if (writer != null) {
+            writer.begin();
+        } else {
+            cveDB.setAutoCommit(false);
+        }
+    }
+
+    /**
+     * Discards the entries of the streamed data feed; a failure is only logged
+     * so that it does not hide the reason for the rollback.
+     */
+    private void rollback() {
+        try {
+            if (writer != null) {
+                writer.rollback();
+            } else {
+                cveDB.rollback();
+            }
+        } catch (SQLException | UpdateException | DatabaseException ex) {
+            LOGGER.debug("Unable to roll back the NVD CVE data feed " + downloadTask.getNvdCveInfo().getId(), ex);
+        }
+    }
+
+    /**
+     * Stops holding the entries of the streamed data feed.
+     *
+     * @throws SQLException is thrown if there is a SQL exception
+     */
+    private void end() throws SQLException {
+        if (writer != null) {
+            writer.end();
+        } else {
+            cveDB.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Commits the entries of the data feed and saves the timestamp of the
+     * data feed to the database properties.
+     *
+     * @throws SQLException is thrown if there is a SQL exception
+     * @throws UpdateException thrown if the entries could not be written
+     */
+    private void complete() throws SQLException, UpdateException {
+        if (writer != null) {
+            writer.complete(downloadTask.getNvdCveInfo(), properties);
+        } else {
+            cveDB.commit();
+            properties.save(downloadTask.getNvdCveInfo());
+        }
     }
 
     /**
@@ -148,16 +293,21 @@ public class ProcessTask implements Callable<ProcessTask> {
     private void processFiles() throws UpdateException {
         LOGGER.info("Processing Started for NVD CVE - {}", downloadTask.getNvdCveInfo().getId());
         final long startProcessing = System.currentTimeMillis();
+        final int count;
         try {
-            importJSON(downloadTask.getFile());
-            cveDB.commit();
-            properties.save(downloadTask.getNvdCveInfo());
+            if (downloadTask.isStreaming()) {
+                count = importStream();
+            } else {
+                count = importJSON(downloadTask.getFile());
+                complete();
+            }
         } catch (ParserConfigurationException | SQLException | DatabaseException | ClassNotFoundException | IOException ex) {
             throw new UpdateException(ex);
         } finally {
             downloadTask.cleanup();
         }
-        LOGGER.info("Processing Complete for NVD CVE - {}  ({} ms)", downloadTask.getNvdCveInfo().getId(),
-                System.currentTimeMillis() - startProcessing);
+        final long millis = System.currentTimeMillis() - startProcessing;
+        LOGGER.info("Processing Complete for NVD CVE - {}  ({} ms, {} CVEs, {} CVEs/s)", downloadTask.getNvdCveInfo().getId(),
+                millis, count, millis > 0 ? count * 1000L / millis : count);
     }
 }
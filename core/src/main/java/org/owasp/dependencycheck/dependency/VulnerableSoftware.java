@@ -17,6 +17,8 @@
  */
 package org.owasp.dependencycheck.dependency;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -26,7 +28,7 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.owasp.dependencycheck.analyzer.exception.UnexpectedAnalysisException;
-import org.owasp.dependencycheck.utils.DependencyVersion;
+import org.owasp.dependencycheck.utils.VersionKey;
 import us.springett.parsers.cpe.Cpe;
 import us.springett.parsers.cpe.ICpe;
 import us.springett.parsers.cpe.exceptions.CpeValidationException;
@@ -71,6 +73,22 @@ public class VulnerableSoftware extends Cpe implements Serializable {
      * A flag indicating whether this represents a vulnerable software object.
      */
     private final boolean vulnerable;
+    /**
+     * The parsed versionEndExcluding; <code>null</code> if not specified.
+     */
+    private transient VersionKey endExcludingKey;
+    /**
+     * The parsed versionEndIncluding; <code>null</code> if not specified.
+     */
+    private transient VersionKey endIncludingKey;
+    /**
+     * The parsed versionStartExcluding; <code>null</code> if not specified.
+     */
+    private transient VersionKey startExcludingKey;
+    /**
+     * The parsed versionStartIncluding; <code>null</code> if not specified.
+     */
+    private transient VersionKey startIncludingKey;
 
     /**
      * Constructs a new immutable VulnerableSoftware object that represents the
@@ -117,9 +135,47 @@ public class VulnerableSoftware extends Cpe implements Serializable {
         this.versionStartExcluding = versionStartExcluding;
         this.versionStartIncluding = versionStartIncluding;
         this.vulnerable = vulnerable;
+        parseVersionRange();
     }
     //CSON: ParameterNumber
 
+    /**
+     * Parses the bounds of the version range once so that matching does not
+     * re-parse them for every comparison.
+     */
+    private void parseVersionRange() {
+        endExcludingKey = parseBound(versionEndExcluding);
+        endIncludingKey = parseBound(versionEndIncluding);
+        startExcludingKey = parseBound(versionStartExcluding);
+        startIncludingKey = parseBound(versionStartIncluding);
+    }
+
+    /**
+     * Parses a bound of the version range.
+     *
+     * @param bound the bound to parse
+     * @return the parsed bound; <code>null</code> if the bound is not
+     * specified
+     */
+    private static VersionKey parseBound(String bound) {
+        if (bound == null || bound.isEmpty()) {
+            return null;
+        }
+        return VersionKey.parse(bound);
+    }
+
+    /**
+     * Restores the transient parsed version range after deserialization.
+     *
+     * @param in the object input stream
+     * @throws IOException thrown if the object could not be read
+     * @throws ClassNotFoundException thrown if a class could not be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        parseVersionRange();
+    }
+
     @Override
     public int compareTo(@NotNull Object o) {
         if (o instanceof VulnerableSoftware) {
@@ -215,6 +271,20 @@ public class VulnerableSoftware extends Cpe implements Serializable {
      * <code>false</code>
      */
     public static boolean testMatch(ICpe left, ICpe right) {
+        return testMatch(left, right, null);
+    }
+
+    /**
+     * Tests if the left matches the right.
+     *
+     * @param left the cpe to compare
+     * @param right the cpe to check
+     * @param parsedVersion the parsed version of the CPE that is not the
+     * vulnerable software; <code>null</code> if it has not been parsed
+     * @return <code>true</code> if a match is found; otherwise
+     * <code>false</code>
+     */
+    private static boolean testMatch(ICpe left, ICpe right, VersionKey parsedVersion) {
         boolean result = true;
         result &= compareAttributes(left.getPart(), right.getPart());
         result &= compareAttributes(left.getWellFormedVendor(), right.getWellFormedVendor());
@@ -223,11 +293,11 @@ public class VulnerableSoftware extends Cpe implements Serializable {
         if (right instanceof VulnerableSoftware) {
             final VulnerableSoftware vs = (VulnerableSoftware) right;
             result &= vs.vulnerable;
-            result &= compareVersions(vs, left.getVersion());
+            result &= compareVersions(vs, left.getVersion(), parsedVersion);
         } else if (left instanceof VulnerableSoftware) {
             final VulnerableSoftware vs = (VulnerableSoftware) left;
             result &= vs.vulnerable;
-            result &= compareVersions(vs, right.getVersion());
+            result &= compareVersions(vs, right.getVersion(), parsedVersion);
         } else {
             result &= compareAttributes(left.getWellFormedVersion(), right.getWellFormedVersion());
         }
@@ -264,6 +334,21 @@ public class VulnerableSoftware extends Cpe implements Serializable {
         return testMatch(target, this);
     }
 
+    /**
+     * Determines if the target matches the VulnerableSoftware; see
+     * {@link #matchedBy(us.springett.parsers.cpe.ICpe)}. This is used when
+     * the same target is compared to many VulnerableSoftware so that the
+     * version of the target is only parsed once.
+     *
+     * @param target the CPE to evaluate
+     * @param targetVersion the parsed version of the target
+     * @return <code>true</code> if the target CPE matches CPE; otherwise
+     * <code>false</code>
+     */
+    public boolean matchedBy(ICpe target, VersionKey targetVersion) {
+        return testMatch(target, this, targetVersion);
+    }
+
     /**
      * Evaluates the target against the version and version range checks:
      * versionEndExcluding, versionStartExcluding versionEndIncluding, and
@@ -288,38 +373,48 @@ public class VulnerableSoftware extends Cpe implements Serializable {
      * <code>false</code>
      */
     protected static boolean compareVersions(VulnerableSoftware vs, String targetVersion) {
+        return compareVersions(vs, targetVersion, null);
+    }
+
+    /**
+     * Evaluates the target against the version and version range checks:
+     * versionEndExcluding, versionStartExcluding versionEndIncluding, and
+     * versionStartIncluding.
+     *
+     * @param vs a reference to the vulnerable software to compare
+     * @param targetVersion the version to compare
+     * @param parsedTarget the parsed target version; <code>null</code> if it
+     * has not been parsed
+     * @return <code>true</code> if the target version is matched; otherwise
+     * <code>false</code>
+     */
+    private static boolean compareVersions(VulnerableSoftware vs, String targetVersion, VersionKey parsedTarget) {
         if (LogicalValue.NA.getAbbreviation().equals(vs.getVersion())) {
             return false;
         }
         //if any of the four conditions will be evaluated - then true;
-        boolean result = (vs.versionEndExcluding != null && !vs.versionEndExcluding.isEmpty())
-                || (vs.versionStartExcluding != null && !vs.versionStartExcluding.isEmpty())
-                || (vs.versionEndIncluding != null && !vs.versionEndIncluding.isEmpty())
-                || (vs.versionStartIncluding != null && !vs.versionStartIncluding.isEmpty());
+        boolean result = vs.endExcludingKey != null || vs.startExcludingKey != null
+                || vs.endIncludingKey != null || vs.startIncludingKey != null;
 
         if (!result && compareAttributes(vs.getVersion(), targetVersion)) {
             return true;
         }
 
-        final DependencyVersion target = new DependencyVersion(targetVersion);
-        if (target.getVersionParts().isEmpty()) {
+        final VersionKey target = parsedTarget != null ? parsedTarget : VersionKey.parse(targetVersion);
+        if (target.isEmpty()) {
             return false;
         }
-        if (result && vs.versionEndExcluding != null && !vs.versionEndExcluding.isEmpty()) {
-            final DependencyVersion endExcluding = new DependencyVersion(vs.versionEndExcluding);
-            result = endExcluding.compareTo(target) > 0;
+        if (result && vs.endExcludingKey != null) {
+            result = vs.endExcludingKey.compareTo(target) > 0;
         }
-        if (result && vs.versionStartExcluding != null && !vs.versionStartExcluding.isEmpty()) {
-            final DependencyVersion startExcluding = new DependencyVersion(vs.versionStartExcluding);
-            result = startExcluding.compareTo(target) < 0;
+        if (result && vs.startExcludingKey != null) {
+            result = vs.startExcludingKey.compareTo(target) < 0;
         }
-        if (result && vs.versionEndIncluding != null && !vs.versionEndIncluding.isEmpty()) {
-            final DependencyVersion endIncluding = new DependencyVersion(vs.versionEndIncluding);
-            result &= endIncluding.compareTo(target) >= 0;
+        if (result && vs.endIncludingKey != null) {
+            result &= vs.endIncludingKey.compareTo(target) >= 0;
         }
-        if (result && vs.versionStartIncluding != null && !vs.versionStartIncluding.isEmpty()) {
-            final DependencyVersion startIncluding = new DependencyVersion(vs.versionStartIncluding);
-            result &= startIncluding.compareTo(target) <= 0;
+        if (result && vs.startIncludingKey != null) {
+            result &= vs.startIncludingKey.compareTo(target) <= 0;
         }
         return result;
     }
@@ -0,0 +1,220 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The timings recorded while analyzing the dependencies; a new instance is
+ * used for each analysis performed by the engine. Only the slowest timings,
+ * overall and per analyzer, are retained.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class AnalysisMetrics {
+
+    /**
+     * The default number of slowest timings retained.
+     */
+    public static final int DEFAULT_SLOWEST_LIMIT = 100;
+    /**
+     * Orders the timings from fastest to slowest.
+     */
+    private static final Comparator<TaskTiming> BY_WALL_TIME = Comparator.comparingLong(TaskTiming::getWallTime);
+    /**
+     * The number of slowest timings retained.
+     */
+    private final int slowestLimit;
+    /**
+     * The slowest timings of all analyzers; the head is the fastest of the
+     * retained timings.
+     */
+    private final PriorityQueue<TaskTiming> slowest;
+    /**
+     * The slowest timings keyed by the analyzer name.
+     */
+    private final Map<String, PriorityQueue<TaskTiming>> slowestByAnalyzer = new HashMap<>();
+    /**
+     * The aggregated metrics keyed by the analyzer name in the order the
+     * analyzers were first recorded.
+     */
+    private final Map<String, AnalyzerMetrics> analyzers = new LinkedHashMap<>();
+    /**
+     * The cache statistics keyed by the cache name.
+     */
+    private final Map<String, CacheMetrics> caches = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new set of metrics retaining the
+     * {@link #DEFAULT_SLOWEST_LIMIT} slowest timings.
+     */
+    public AnalysisMetrics() {
+        this(DEFAULT_SLOWEST_LIMIT);
+    }
+
+    /**
+     * Constructs a new set of metrics.
+     *
+     * @param slowestLimit the number of slowest timings retained, overall and
+     * per analyzer
+     */
+    public AnalysisMetrics(int slowestLimit) {
+        this.slowestLimit = Math.max(1, slowestLimit);
+        this.slowest = new PriorityQueue<>(this.slowestLimit + 1, BY_WALL_TIME);
+    }
+
+    /**
+     * Records the time spent by an analyzer on a single dependency.
+     *
+     * @param timing the timing to record
+     */
+    public void record(TaskTiming timing) {
+        getOrCreate(timing.getAnalyzer()).add(timing);
+        synchronized (this) {
+            retain(slowest, timing);
+            retain(slowestByAnalyzer.computeIfAbsent(timing.getAnalyzer(),
+                    (k) -> new PriorityQueue<>(slowestLimit + 1, BY_WALL_TIME)), timing);
+        }
+    }
+
+    /**
+     * Adds the timing to the heap, evicting the fastest timing once the heap
+     * exceeds the number of slowest timings retained.
+     *
+     * @param heap the heap of the slowest timings
+     * @param timing the timing to add
+     */
+    private void retain(PriorityQueue<TaskTiming> heap, TaskTiming timing) {
+        if (heap.size() < slowestLimit) {
+            heap.add(timing);
+        } else if (BY_WALL_TIME.compare(timing, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(timing);
+        }
+    }
+
+    /**
+     * Records the elapsed time from the start of an analyzer until all of
+     * the dependencies were analyzed.
+     *
+     * @param analyzer the name of the analyzer
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void recordElapsedTime(String analyzer, long nanos) {
+        getOrCreate(analyzer).addElapsedTime(nanos);
+    }
+
+    /**
+     * Records the statistics of a cache, replacing any previously recorded
+     * statistics of the same cache.
+     *
+     * @param cache the cache statistics
+     */
+    public synchronized void recordCache(CacheMetrics cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * Returns the recorded cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public synchronized List<CacheMetrics> getCacheMetrics() {
+        return new ArrayList<>(caches.values());
+    }
+
+    /**
+     * Returns the aggregated metrics for the given analyzer, creating them if
+     * necessary.
+     *
+     * @param analyzer the name of the analyzer
+     * @return the aggregated metrics
+     */
+    private synchronized AnalyzerMetrics getOrCreate(String analyzer) {
+        return analyzers.computeIfAbsent(analyzer, AnalyzerMetrics::new);
+    }
+
+    /**
+     * Returns the aggregated metrics of each analyzer.
+     *
+     * @return the aggregated metrics of each analyzer
+     */
+    public synchronized List<AnalyzerMetrics> getAnalyzerMetrics() {
+        return new ArrayList<>(analyzers.values());
+    }
+
+    /**
+     * Returns the aggregated metrics of the given analyzer.
+     *
+     * @param analyzer the name of the analyzer
+     * @return the aggregated metrics or <code>null</code> if the analyzer did
+     * not analyze any dependencies
+     */
+    public synchronized AnalyzerMetrics getAnalyzerMetrics(String analyzer) {
+        return analyzers.get(analyzer);
+    }
+
+    /**
+     * Returns the slowest analyses of a single dependency by a single
+     * analyzer.
+     *
+     * @param limit the maximum number of timings to return; at most the
+     * number of slowest timings retained are available
+     * @return the slowest timings ordered from slowest to fastest
+     */
+    public synchronized List<TaskTiming> getSlowest(int limit) {
+        return toList(slowest, limit);
+    }
+
+    /**
+     * Returns the slowest analyses of a single dependency by the given
+     * analyzer.
+     *
+     * @param analyzer the name of the analyzer
+     * @param limit the maximum number of timings to return; at most the
+     * number of slowest timings retained are available
+     * @return the slowest timings ordered from slowest to fastest
+     */
+    public synchronized List<TaskTiming> getSlowest(String analyzer, int limit) {
+        final PriorityQueue<TaskTiming> heap = slowestByAnalyzer.get(analyzer);
+        return heap == null ? new ArrayList<>() : toList(heap, limit);
+    }
+
+    /**
+     * Returns the timings of the heap ordered from slowest to fastest.
+     *
+     * @param heap the heap of the slowest timings
+     * @param limit the maximum number of timings to return
+     * @return the ordered timings
+     */
+    private static List<TaskTiming> toList(PriorityQueue<TaskTiming> heap, int limit) {
+        return heap.stream()
+                .sorted(BY_WALL_TIME.reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
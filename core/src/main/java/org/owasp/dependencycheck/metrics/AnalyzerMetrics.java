@@ -0,0 +1,206 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The aggregated timings of a single analyzer. The wall clock times of the
+ * individual dependencies are counted in a histogram using the upper bounds
+ * defined by {@link #BUCKETS}.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class AnalyzerMetrics {
+
+    /**
+     * The upper bounds, in seconds, of the histogram buckets; a final bucket
+     * counts all of the dependencies.
+     */
+    public static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300};
+    /**
+     * The name of the analyzer.
+     */
+    private final String name;
+    /**
+     * The number of dependencies analyzed.
+     */
+    private long count = 0;
+    /**
+     * The number of dependencies for which the analysis did not succeed.
+     */
+    private long failures = 0;
+    /**
+     * The total wall clock time in nanoseconds.
+     */
+    private long totalWallTime = 0;
+    /**
+     * The total CPU time in nanoseconds.
+     */
+    private long totalCpuTime = 0;
+    /**
+     * The largest wall clock time in nanoseconds.
+     */
+    private long maxWallTime = 0;
+    /**
+     * The elapsed time in nanoseconds from the start of the analyzer until all
+     * of the dependencies were analyzed; zero if not recorded.
+     */
+    private long elapsedTime = 0;
+    /**
+     * The number of dependencies in each histogram bucket (non-cumulative).
+     */
+    private final long[] buckets = new long[BUCKETS.length + 1];
+
+    /**
+     * Constructs a new analyzer metrics.
+     *
+     * @param name the name of the analyzer
+     */
+    public AnalyzerMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds the timing of a single dependency.
+     *
+     * @param timing the timing to add
+     */
+    synchronized void add(TaskTiming timing) {
+        count += 1;
+        if (timing.getOutcome() != TaskOutcome.SUCCESS) {
+            failures += 1;
+        }
+        totalWallTime += timing.getWallTime();
+        if (timing.getCpuTime() > 0) {
+            totalCpuTime += timing.getCpuTime();
+        }
+        maxWallTime = Math.max(maxWallTime, timing.getWallTime());
+        final double seconds = timing.getWallTime() / (double) TimeUnit.SECONDS.toNanos(1);
+        int i = 0;
+        while (i < BUCKETS.length && seconds > BUCKETS[i]) {
+            i++;
+        }
+        buckets[i] += 1;
+    }
+
+    /**
+     * Adds to the elapsed time of the analyzer.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    synchronized void addElapsedTime(long nanos) {
+        elapsedTime += nanos;
+    }
+
+    /**
+     * Returns the name of the analyzer.
+     *
+     * @return the name of the analyzer
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of dependencies analyzed.
+     *
+     * @return the number of dependencies analyzed
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of dependencies for which the analysis did not
+     * succeed.
+     *
+     * @return the number of failures
+     */
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the total wall clock time in nanoseconds.
+     *
+     * @return the total wall clock time in nanoseconds
+     */
+    public synchronized long getTotalWallTime() {
+        return totalWallTime;
+    }
+
+    /**
+     * Returns the total CPU time in nanoseconds.
+     *
+     * @return the total CPU time in nanoseconds
+     */
+    public synchronized long getTotalCpuTime() {
+        return totalCpuTime;
+    }
+
+    /**
+     * Returns the largest wall clock time of a single dependency in
+     * nanoseconds.
+     *
+     * @return the largest wall clock time in nanoseconds
+     */
+    public synchronized long getMaxWallTime() {
+        return maxWallTime;
+    }
+
+    /**
+     * Returns the elapsed time in nanoseconds from the start of the analyzer
+     * until all of the dependencies were analyzed. When the dependencies are
+     * pipelined through the analyzers the elapsed time is not recorded and
+     * zero is returned.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public synchronized long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the number of dependencies analyzed per second of elapsed time;
+     * if the elapsed time was not recorded the total wall clock time is used.
+     *
+     * @return the number of dependencies analyzed per second
+     */
+    public synchronized double getThroughput() {
+        final long time = elapsedTime > 0 ? elapsedTime : totalWallTime;
+        if (time <= 0) {
+            return 0;
+        }
+        return count / (time / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the number of dependencies in each histogram bucket; the
+     * counts are not cumulative and the last entry counts the dependencies
+     * that exceeded the largest bound in {@link #BUCKETS}.
+     *
+     * @return the histogram bucket counts
+     */
+    public synchronized long[] getBuckets() {
+        return Arrays.copyOf(buckets, buckets.length);
+    }
+}
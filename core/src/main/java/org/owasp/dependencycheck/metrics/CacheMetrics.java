@@ -0,0 +1,124 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A snapshot of the statistics of a cache. The counts are cumulative from
+ * the creation of the cache, which may span more than one analysis.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class CacheMetrics {
+
+    /**
+     * The name of the cache.
+     */
+    private final String name;
+    /**
+     * The number of lookups that found a cached value.
+     */
+    private final long hits;
+    /**
+     * The number of lookups that did not find a cached value.
+     */
+    private final long misses;
+    /**
+     * The number of entries evicted because of the size bound.
+     */
+    private final long evictions;
+    /**
+     * The number of entries in the cache.
+     */
+    private final long size;
+
+    /**
+     * Constructs a new cache metrics snapshot.
+     *
+     * @param name the name of the cache
+     * @param hits the number of lookups that found a cached value
+     * @param misses the number of lookups that did not find a cached value
+     * @param evictions the number of entries evicted because of the size
+     * bound
+     * @param size the number of entries in the cache
+     */
+    public CacheMetrics(String name, long hits, long misses, long evictions, long size) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return the name of the cache
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size bound.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     *
+     * @return the number of entries
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the ratio of lookups that found a cached value.
+     *
+     * @return the hit rate; 1.0 if there have been no lookups
+     */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.exception.ReportException;
+
+/**
+ * Writes the analysis metrics as JSON and in the Prometheus text exposition
+ * format.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public final class MetricsWriter {
+
+    /**
+     * The file name of the JSON metrics.
+     */
+    public static final String JSON_FILE_NAME = "dependency-check-metrics.json";
+    /**
+     * The file name of the Prometheus metrics.
+     */
+    public static final String PROMETHEUS_FILE_NAME = "dependency-check-metrics.prom";
+    /**
+     * The number of slowest timings included in the JSON metrics.
+     */
+    private static final int SLOWEST_LIMIT = 25;
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Private constructor for a utility class.
+     */
+    private MetricsWriter() {
+    }
+
+    /**
+     * Writes the JSON and Prometheus metrics files to the given directory.
+     *
+     * @param metrics the metrics to write
+     * @param outputDir the directory to write the metrics files to
+     * @throws ReportException thrown if the metrics could not be written
+     */
+    public static void write(AnalysisMetrics metrics, File outputDir) throws ReportException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new ReportException("Unable to create directory '" + outputDir.getAbsolutePath() + "'.");
+        }
+        final File json = new File(outputDir, JSON_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(json), StandardCharsets.UTF_8)) {
+            writeJson(metrics, writer);
+        } catch (IOException ex) {
+            throw new ReportException("Unable to write the metrics file '" + json.getAbsolutePath() + "'.", ex);
+        }
+        final File prometheus = new File(outputDir, PROMETHEUS_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(prometheus), StandardCharsets.UTF_8)) {
+            writePrometheus(metrics, writer);
+        } catch (IOException ex) {
+            throw new ReportException("Unable to write the metrics file '" + prometheus.getAbsolutePath() + "'.", ex);
+        }
+    }
+
+    /**
+     * Writes the metrics as JSON.
+     *
+     * @param metrics the metrics to write
+     * @param out the writer
+     * @throws IOException thrown if the metrics could not be written
+     */
+    public static void writeJson(AnalysisMetrics metrics, Writer out) throws IOException {
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginObject();
+        writer.name("analyzers").beginArray();
+        for (AnalyzerMetrics m : metrics.getAnalyzerMetrics()) {
+            writer.beginObject();
+            writer.name("name").value(m.getName());
+            writer.name("count").value(m.getCount());
+            writer.name("failures").value(m.getFailures());
+            writer.name("totalWallTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(m.getTotalWallTime()));
+            writer.name("totalCpuTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(m.getTotalCpuTime()));
+            writer.name("maxWallTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(m.getMaxWallTime()));
+            writer.name("elapsedTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(m.getElapsedTime()));
+            writer.name("throughput").value(m.getThroughput());
+            writer.name("histogram").beginArray();
+            final long[] buckets = m.getBuckets();
+            for (int i = 0; i < buckets.length; i++) {
+                writer.beginObject();
+                if (i < AnalyzerMetrics.BUCKETS.length) {
+                    writer.name("le").value(AnalyzerMetrics.BUCKETS[i]);
+                } else {
+                    writer.name("le").value("+Inf");
+                }
+                writer.name("count").value(buckets[i]);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.name("caches").beginArray();
+        for (CacheMetrics c : metrics.getCacheMetrics()) {
+            writer.beginObject();
+            writer.name("name").value(c.getName());
+            writer.name("hits").value(c.getHits());
+            writer.name("misses").value(c.getMisses());
+            writer.name("evictions").value(c.getEvictions());
+            writer.name("size").value(c.getSize());
+            writer.name("hitRate").value(c.getHitRate());
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.name("slowest").beginArray();
+        for (TaskTiming t : metrics.getSlowest(SLOWEST_LIMIT)) {
+            writer.beginObject();
+            writer.name("analyzer").value(t.getAnalyzer());
+            writer.name("dependency").value(t.getDependency());
+            writer.name("wallTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(t.getWallTime()));
+            if (t.getCpuTime() >= 0) {
+                writer.name("cpuTimeMillis").value(TimeUnit.NANOSECONDS.toMillis(t.getCpuTime()));
+            }
+            writer.name("outcome").value(t.getOutcome().toString());
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     *
+     * @param metrics the metrics to write
+     * @param out the writer
+     * @throws IOException thrown if the metrics could not be written
+     */
+    public static void writePrometheus(AnalysisMetrics metrics, Writer out) throws IOException {
+        final PrintWriter writer = new PrintWriter(out);
+        final List<AnalyzerMetrics> analyzers = metrics.getAnalyzerMetrics();
+
+        writer.print("# HELP dependency_check_analysis_seconds The time spent by an analyzer on a single dependency.\n");
+        writer.print("# TYPE dependency_check_analysis_seconds histogram\n");
+        for (AnalyzerMetrics m : analyzers) {
+            final String label = "analyzer=\"" + escape(m.getName()) + "\"";
+            final long[] buckets = m.getBuckets();
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i];
+                final String le = i < AnalyzerMetrics.BUCKETS.length ? Double.toString(AnalyzerMetrics.BUCKETS[i]) : "+Inf";
+                writer.print("dependency_check_analysis_seconds_bucket{" + label + ",le=\"" + le + "\"} " + cumulative + "\n");
+            }
+            writer.print("dependency_check_analysis_seconds_sum{" + label + "} " + m.getTotalWallTime() / NANOS_PER_SECOND + "\n");
+            writer.print("dependency_check_analysis_seconds_count{" + label + "} " + m.getCount() + "\n");
+        }
+
+        writer.print("# HELP dependency_check_analysis_cpu_seconds_total The CPU time spent by an analyzer.\n");
+        writer.print("# TYPE dependency_check_analysis_cpu_seconds_total counter\n");
+        for (AnalyzerMetrics m : analyzers) {
+            writer.print("dependency_check_analysis_cpu_seconds_total{analyzer=\"" + escape(m.getName()) + "\"} "
+                    + m.getTotalCpuTime() / NANOS_PER_SECOND + "\n");
+        }
+
+        writer.print("# HELP dependency_check_analysis_failures_total The number of dependencies an analyzer failed to analyze.\n");
+        writer.print("# TYPE dependency_check_analysis_failures_total counter\n");
+        for (AnalyzerMetrics m : analyzers) {
+            writer.print("dependency_check_analysis_failures_total{analyzer=\"" + escape(m.getName()) + "\"} " + m.getFailures() + "\n");
+        }
+
+        writer.print("# HELP dependency_check_analyzer_elapsed_seconds The elapsed time of an analyzer.\n");
+        writer.print("# TYPE dependency_check_analyzer_elapsed_seconds gauge\n");
+        for (AnalyzerMetrics m : analyzers) {
+            writer.print("dependency_check_analyzer_elapsed_seconds{analyzer=\"" + escape(m.getName()) + "\"} "
+                    + m.getElapsedTime() / NANOS_PER_SECOND + "\n");
+        }
+
+        final List<CacheMetrics> caches = metrics.getCacheMetrics();
+        if (!caches.isEmpty()) {
+            writer.print("# HELP dependency_check_cache_hits_total The number of cache lookups that found a cached value.\n");
+            writer.print("# TYPE dependency_check_cache_hits_total counter\n");
+            for (CacheMetrics c : caches) {
+                writer.print("dependency_check_cache_hits_total{cache=\"" + escape(c.getName()) + "\"} " + c.getHits() + "\n");
+            }
+            writer.print("# HELP dependency_check_cache_misses_total The number of cache lookups that did not find a cached value.\n");
+            writer.print("# TYPE dependency_check_cache_misses_total counter\n");
+            for (CacheMetrics c : caches) {
+                writer.print("dependency_check_cache_misses_total{cache=\"" + escape(c.getName()) + "\"} " + c.getMisses() + "\n");
+            }
+            writer.print("# HELP dependency_check_cache_evictions_total The number of entries evicted from a cache.\n");
+            writer.print("# TYPE dependency_check_cache_evictions_total counter\n");
+            for (CacheMetrics c : caches) {
+                writer.print("dependency_check_cache_evictions_total{cache=\"" + escape(c.getName()) + "\"} " + c.getEvictions() + "\n");
+            }
+            writer.print("# HELP dependency_check_cache_size The number of entries in a cache.\n");
+            writer.print("# TYPE dependency_check_cache_size gauge\n");
+            for (CacheMetrics c : caches) {
+                writer.print("dependency_check_cache_size{cache=\"" + escape(c.getName()) + "\"} " + c.getSize() + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Escapes a Prometheus label value.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+/**
+ * The outcome of the analysis of a single dependency by an analyzer.
+ *
+ * @author Jeremy Long
+ */
+public enum TaskOutcome {
+    /**
+     * The analyzer completed the analysis of the dependency.
+     */
+    SUCCESS,
+    /**
+     * The analyzer reported an analysis exception.
+     */
+    FAILURE,
+    /**
+     * The analysis exceeded the task timeout.
+     */
+    TIMEOUT,
+    /**
+     * The analyzer threw an unexpected exception.
+     */
+    ERROR
+}
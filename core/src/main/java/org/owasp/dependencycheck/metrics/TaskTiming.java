@@ -0,0 +1,119 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The time spent by an analyzer on a single dependency.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class TaskTiming {
+
+    /**
+     * The name of the analyzer.
+     */
+    private final String analyzer;
+    /**
+     * The path of the dependency analyzed.
+     */
+    private final String dependency;
+    /**
+     * The elapsed wall clock time in nanoseconds.
+     */
+    private final long wallTime;
+    /**
+     * The CPU time of the analyzing thread in nanoseconds; -1 if CPU time
+     * measurement is not supported by the JVM.
+     */
+    private final long cpuTime;
+    /**
+     * The outcome of the analysis.
+     */
+    private final TaskOutcome outcome;
+
+    /**
+     * Constructs a new task timing.
+     *
+     * @param analyzer the name of the analyzer
+     * @param dependency the path of the dependency analyzed
+     * @param wallTime the elapsed wall clock time in nanoseconds
+     * @param cpuTime the CPU time in nanoseconds or -1 if not measured
+     * @param outcome the outcome of the analysis
+     */
+    public TaskTiming(String analyzer, String dependency, long wallTime, long cpuTime, TaskOutcome outcome) {
+        this.analyzer = analyzer;
+        this.dependency = dependency;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Returns the name of the analyzer.
+     *
+     * @return the name of the analyzer
+     */
+    public String getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Returns the path of the dependency analyzed.
+     *
+     * @return the path of the dependency analyzed
+     */
+    public String getDependency() {
+        return dependency;
+    }
+
+    /**
+     * Returns the elapsed wall clock time in nanoseconds.
+     *
+     * @return the elapsed wall clock time in nanoseconds
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Returns the CPU time of the analyzing thread in nanoseconds.
+     *
+     * @return the CPU time in nanoseconds or -1 if CPU time was not measured
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Returns the outcome of the analysis.
+     *
+     * @return the outcome of the analysis
+     */
+    public TaskOutcome getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskTiming{" + "analyzer=" + analyzer + ", dependency=" + dependency
+                + ", wallTime=" + wallTime + ", cpuTime=" + cpuTime + ", outcome=" + outcome + '}';
+    }
+}
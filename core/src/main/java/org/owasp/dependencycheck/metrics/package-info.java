@@ -0,0 +1,7 @@
+/**
+ *
+ * Contains the classes used to record the time spent by the analyzers on each
+ * dependency and to write the recorded metrics next to the reports.<br><br>
+ *
+ */
+package org.owasp.dependencycheck.metrics;
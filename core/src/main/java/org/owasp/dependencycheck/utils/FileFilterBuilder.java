@@ -135,6 +135,6 @@ public class FileFilterBuilder {
         for (IOFileFilter iof : fileFilters) {
             filter.addFileFilter(iof);
         }
-        return filter;
+        return new IndexableFileFilter(filenames, extensions, !fileFilters.isEmpty(), filter);
     }
 }
@@ -0,0 +1,261 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.owasp.dependencycheck.data.nvdcve.ConnectionFactory;
+import org.owasp.dependencycheck.exception.H2DBLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the generations of the H2 database. Each generation is a directory
+ * containing a complete copy of the database; an update copies the current
+ * generation into a new staging generation, updates the staging copy, and
+ * then publishes it by atomically replacing the pointer to the current
+ * generation. A published generation is never modified so read-only scans can
+ * copy or open it without obtaining the database lock; instead they hold a
+ * shared lock on the generation (see {@link #lock(File)}). Updates must hold
+ * the exclusive {@link H2DBLock}; the current generation and the one before it
+ * are retained, older generations are deleted once no scan holds a lock on
+ * them.
+ *
+ * @author Jeremy Long
+ */
+@NotThreadSafe
+public class H2DBGenerations {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(H2DBGenerations.class);
+    /**
+     * The name of the directory, within the data directory, that contains the
+     * generations of the database.
+     */
+    public static final String DIRECTORY_NAME = "generations";
+    /**
+     * The name of the file containing the name of the current generation.
+     */
+    private static final String CURRENT = "current";
+    /**
+     * The number of generations, including the current generation, that are
+     * retained.
+     */
+    private static final int RETAINED = 2;
+    /**
+     * The configured settings.
+     */
+    private final Settings settings;
+    /**
+     * The directory containing the generations.
+     */
+    private final File directory;
+
+    /**
+     * Constructs a new H2 database generations object.
+     *
+     * @param settings the configured settings
+     * @throws IOException thrown if the data directory could not be determined
+     */
+    public H2DBGenerations(Settings settings) throws IOException {
+        this.settings = settings;
+        this.directory = new File(settings.getDataDirectory(), DIRECTORY_NAME);
+    }
+
+    /**
+     * Determines if generational updates are enabled; they are only used with
+     * a file based H2 database.
+     *
+     * @param settings the configured settings
+     * @return <code>true</code> if generational updates are enabled; otherwise
+     * <code>false</code>
+     */
+    public static boolean isEnabled(Settings settings) {
+        final String connStr = settings.getString(Settings.KEYS.DB_CONNECTION_STRING);
+        return settings.getBoolean(Settings.KEYS.DB_GENERATIONS_ENABLED, false)
+                && connStr != null && connStr.contains("file:%s")
+                && ConnectionFactory.isH2Connection(settings);
+    }
+
+    /**
+     * Returns the directory of the current generation.
+     *
+     * @return the directory of the current generation; or <code>null</code> if
+     * no generation has been published
+     * @throws IOException thrown if the pointer to the current generation
+     * could not be read
+     */
+    public File getCurrent() throws IOException {
+        final File pointer = new File(directory, CURRENT);
+        if (!pointer.isFile()) {
+            return null;
+        }
+        final String name = new String(Files.readAllBytes(pointer.toPath()), StandardCharsets.UTF_8).trim();
+        final File current = new File(directory, name);
+        if (name.isEmpty() || !getDataFile(current).isFile()) {
+            LOGGER.warn("The current database generation '{}' does not exist", name);
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Creates a new staging generation containing a copy of the current
+     * generation. If no generation has been published the database in the data
+     * directory, if any, is copied.
+     *
+     * @return the directory of the staging generation
+     * @throws IOException thrown if the staging generation could not be
+     * created
+     */
+    public File createStaging() throws IOException {
+        long id = System.currentTimeMillis();
+        File staging = new File(directory, Long.toString(id));
+        while (staging.exists()) {
+            id += 1;
+            staging = new File(directory, Long.toString(id));
+        }
+        FileUtils.forceMkdir(staging);
+        final File current = getCurrent();
+        final File source = getDataFile(current != null ? current : settings.getDataDirectory());
+        if (source.isFile()) {
+            LOGGER.debug("Copying database {} to the staging generation {}", source, staging);
+            Files.copy(source.toPath(), getDataFile(staging).toPath());
+        }
+        return staging;
+    }
+
+    /**
+     * Publishes the staging generation as the current generation.
+     *
+     * @param staging the directory of the staging generation
+     * @throws IOException thrown if the pointer to the current generation
+     * could not be written
+     */
+    public void publish(File staging) throws IOException {
+        final File pointer = new File(directory, CURRENT);
+        final File temp = new File(directory, CURRENT + ".tmp");
+        Files.write(temp.toPath(), staging.getName().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp.toPath(), pointer.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            LOGGER.debug("Atomic move not supported; replacing the current generation pointer", ex);
+            Files.move(temp.toPath(), pointer.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        LOGGER.debug("Published database generation {}", staging.getName());
+    }
+
+    /**
+     * Deletes a staging generation that will not be published.
+     *
+     * @param staging the directory of the staging generation
+     */
+    public void discard(File staging) {
+        if (!FileUtils.deleteQuietly(staging)) {
+            LOGGER.debug("Unable to delete the staging generation {}", staging);
+        }
+    }
+
+    /**
+     * Obtains a shared lock on the given generation; the generation is not
+     * deleted while the lock is held.
+     *
+     * @param generation the directory of the generation
+     * @return the lock, which must be released by the caller
+     * @throws H2DBLockException thrown if the lock could not be obtained
+     */
+    public H2DBLock lock(File generation) throws H2DBLockException {
+        final H2DBLock lock = new H2DBLock(settings, generation, true);
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Deletes the generations that are no longer retained, unless a scan
+     * still holds a lock on them, along with any staging generations left
+     * behind by failed updates. Must only be called while the exclusive
+     * {@link H2DBLock} is held.
+     *
+     * @throws IOException thrown if the current generation could not be
+     * determined
+     */
+    public void collectGarbage() throws IOException {
+        final File current = getCurrent();
+        final File[] dirs = directory.listFiles(File::isDirectory);
+        if (current == null || dirs == null) {
+            return;
+        }
+        final long currentId = Long.parseLong(current.getName());
+        final List<Long> published = new ArrayList<>();
+        for (File dir : dirs) {
+            final long id;
+            try {
+                id = Long.parseLong(dir.getName());
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+            if (id > currentId) {
+                LOGGER.debug("Deleting abandoned staging generation {}", dir);
+                discard(dir);
+            } else {
+                published.add(id);
+            }
+        }
+        Collections.sort(published, Collections.reverseOrder());
+        for (int i = RETAINED; i < published.size(); i++) {
+            final File dir = new File(directory, Long.toString(published.get(i)));
+            final H2DBLock lock = new H2DBLock(settings, dir, false);
+            try {
+                if (!lock.tryLock()) {
+                    LOGGER.debug("Database generation {} is in use and will not be deleted", dir);
+                    continue;
+                }
+                //the database is removed while the lock is held; the lock file is removed with the directory
+                Files.deleteIfExists(getDataFile(dir).toPath());
+            } catch (H2DBLockException ex) {
+                LOGGER.debug("Unable to lock the database generation {}", dir, ex);
+                continue;
+            } finally {
+                lock.release();
+            }
+            LOGGER.debug("Deleting database generation {}", dir);
+            discard(dir);
+        }
+    }
+
+    /**
+     * Returns the H2 database file within the given directory.
+     *
+     * @param dir the directory
+     * @return the H2 database file
+     */
+    public File getDataFile(File dir) {
+        return new File(dir, settings.getString(Settings.KEYS.DB_FILE_NAME, "odc.mv.db"));
+    }
+}
@@ -21,17 +21,24 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.security.SecureRandom;
 import java.sql.Timestamp;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.owasp.dependencycheck.exception.H2DBLockException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The H2 DB lock file implementation; creates a custom lock file so that only a
- * single instance of dependency-check can update the embedded h2 database.
+ * The H2 DB lock file implementation; uses a lock file in the data directory
+ * so that only a single instance of dependency-check can update the embedded
+ * h2 database. The lock has reader/writer semantics: any number of instances
+ * may hold a shared lock to read the database while no instance holds the
+ * exclusive lock used for updates. The locks are operating system file locks
+ * so they are released if the process holding them terminates.
  *
  * @author Jeremy Long
  */
@@ -43,33 +50,54 @@ public class H2DBLock {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(H2DBLock.class);
     /**
-     * How long to sleep waiting for the lock.
+     * The initial time in milliseconds to wait between attempts to obtain the
+     * lock; the wait is doubled after each attempt. Waiters within the same
+     * JVM are woken as soon as the lock is released.
      */
-    public static final int SLEEP_DURATION = 10000;
+    public static final int MIN_WAIT = 100;
     /**
-     * Max attempts to obtain a lock.
+     * The maximum time in milliseconds to wait between attempts to obtain the
+     * lock.
      */
-    public static final int MAX_SLEEP_COUNT = 120;
+    public static final int MAX_WAIT = 2000;
     /**
-     * The file lock.
+     * The maximum time in milliseconds to wait for the lock.
      */
-    private FileLock lock = null;
+    public static final long TIMEOUT = 20 * 60 * 1000L;
     /**
-     * Reference to the file that we are locking.
+     * The name of the lock file within the data directory.
      */
-    private RandomAccessFile file = null;
+    public static final String LOCK_FILE_NAME = "odc.db.lock";
     /**
-     * The lock file.
+     * The state of the lock files used by this JVM keyed by the canonical path
+     * of the lock file; the file locks are held by the JVM rather than by a
+     * thread so they are shared by the H2DBLock instances.
      */
-    private File lockFile = null;
+    @GuardedBy("STATES")
+    private static final Map<String, LockState> STATES = new HashMap<>();
     /**
      * The configured settings.
      */
     private final Settings settings;
     /**
-     * A random string used to validate the lock.
+     * The directory containing the lock file; <code>null</code> to use the
+     * data directory.
+     */
+    private final File directory;
+    /**
+     * Whether or not a shared (read) lock is obtained rather than an exclusive
+     * (update) lock.
+     */
+    private final boolean shared;
+    /**
+     * A random string used to identify the lock in the log.
      */
     private final String magic;
+    /**
+     * The state of the lock file while the lock is held; otherwise
+     * <code>null</code>.
+     */
+    private volatile LockState state = null;
 
     /**
      * The shutdown hook used to remove the lock file in case of an unexpected
@@ -78,12 +106,43 @@ public class H2DBLock {
     private H2DBShutdownHook hook = null;
 
     /**
-     * Constructs a new H2DB Lock object with the configured settings.
+     * Constructs a new exclusive H2DB Lock object with the configured
+     * settings.
      *
      * @param settings the configured settings
      */
     public H2DBLock(Settings settings) {
+        this(settings, false);
+    }
+
+    /**
+     * Constructs a new H2DB Lock object with the configured settings.
+     *
+     * @param settings the configured settings
+     * @param shared <code>true</code> to obtain a shared lock used to read the
+     * database; <code>false</code> to obtain the exclusive lock used to update
+     * the database
+     */
+    public H2DBLock(Settings settings, boolean shared) {
+        this(settings, null, shared);
+    }
+
+    /**
+     * Constructs a new H2DB Lock object using a lock file in the given
+     * directory; used to lock a generation of the database (see
+     * {@link H2DBGenerations}).
+     *
+     * @param settings the configured settings
+     * @param directory the directory containing the lock file;
+     * <code>null</code> to use the data directory
+     * @param shared <code>true</code> to obtain a shared lock used to read the
+     * database; <code>false</code> to obtain the exclusive lock used to update
+     * the database
+     */
+    public H2DBLock(Settings settings, File directory, boolean shared) {
         this.settings = settings;
+        this.directory = directory;
+        this.shared = shared;
         final byte[] random = new byte[16];
         final SecureRandom gen = new SecureRandom();
         gen.nextBytes(random);
@@ -96,163 +155,144 @@ public class H2DBLock {
      * @return true if the lock is currently held
      */
     public boolean isLocked() {
-        return lock != null && lock.isValid();
+        return state != null;
+    }
+
+    /**
+     * Returns whether or not this is a shared lock.
+     *
+     * @return <code>true</code> if this is a shared lock; <code>false</code> if
+     * this is an exclusive lock
+     */
+    public boolean isShared() {
+        return shared;
     }
 
     /**
-     * Obtains a lock on the H2 database.
+     * Obtains a lock on the H2 database; waits up to {@link #TIMEOUT}
+     * milliseconds for conflicting locks to be released.
      *
      * @throws H2DBLockException thrown if a lock could not be obtained
      */
     public void lock() throws H2DBLockException {
-        try {
-            final File dir = settings.getDataDirectory();
-            lockFile = new File(dir, "odc.update.lock");
-            checkState();
-            int ctr = 0;
-            do {
-                try {
-                    if (!lockFile.exists() && lockFile.createNewFile()) {
-                        file = new RandomAccessFile(lockFile, "rw");
-                        lock = file.getChannel().lock();
-                        file.writeBytes(magic);
-                        file.getChannel().force(true);
-                        Thread.sleep(20);
-                        file.seek(0);
-                        final String current = file.readLine();
-                        if (current != null && !current.equals(magic)) {
-                            lock.close();
-                            lock = null;
-                            LOGGER.debug("Another process obtained a lock first ({})", Thread.currentThread().getName());
-                        } else {
-                            addShutdownHook();
-                            final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                            LOGGER.debug("Lock file created ({}) {} @ {}", Thread.currentThread().getName(), magic, timestamp.toString());
-                        }
+        if (state != null) {
+            return;
+        }
+        final LockState s = getState(getLockFile());
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        long wait = MIN_WAIT;
+        synchronized (s) {
+            if (!shared) {
+                s.waitingWriters += 1;
+            }
+            try {
+                boolean logged = false;
+                while (!s.acquire(shared)) {
+                    final long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new H2DBLockException(String.format("Unable to obtain the %s lock on the database within %d minutes.",
+                                shared ? "shared" : "exclusive", TIMEOUT / 60000));
                     }
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                    LOGGER.trace("Expected error as another thread has likely locked the file", ex);
-                } catch (IOException ex) {
-                    LOGGER.trace("Expected error as another thread has likely locked the file", ex);
-                } finally {
-                    if (lock == null && file != null) {
-                        try {
-                            file.close();
-                            file = null;
-                        } catch (IOException ex) {
-                            LOGGER.trace("Unable to close the lock file", ex);
+                    if (!logged) {
+                        logged = true;
+                        if (shared) {
+                            LOGGER.info("Existing update in progress; waiting for update to complete");
+                        } else {
+                            LOGGER.info("The database is in use; waiting to obtain the lock to update the database");
                         }
                     }
-                }
-                if (lock == null || !lock.isValid()) {
+                    LOGGER.trace("Waiting {} ms for the {} lock ({})", wait, shared ? "shared" : "exclusive", magic);
                     try {
-                        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                        LOGGER.debug("Sleeping thread {} ({}) for {} seconds because an exclusive lock on the database could not be obtained ({})",
-                                Thread.currentThread().getName(), magic, SLEEP_DURATION / 1000, timestamp.toString());
-                        Thread.sleep(SLEEP_DURATION);
+                        s.wait(Math.min(wait, remaining));
                     } catch (InterruptedException ex) {
-                        LOGGER.debug("sleep was interrupted.", ex);
                         Thread.currentThread().interrupt();
+                        throw new H2DBLockException("Interrupted waiting for the database lock", ex);
                     }
+                    wait = Math.min(wait * 2, MAX_WAIT);
+                }
+            } finally {
+                if (!shared) {
+                    s.waitingWriters -= 1;
+                    s.notifyAll();
                 }
-            } while (++ctr < MAX_SLEEP_COUNT && (lock == null || !lock.isValid()));
-            if (lock == null || !lock.isValid()) {
-                throw new H2DBLockException("Unable to obtain the update lock, skipping the database update. Skippinig the database update.");
             }
-        } catch (IOException ex) {
-            throw new H2DBLockException(ex.getMessage(), ex);
         }
+        state = s;
+        addShutdownHook();
+        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        LOGGER.debug("{} lock obtained ({}) {} @ {}", shared ? "Shared" : "Exclusive",
+                Thread.currentThread().getName(), magic, timestamp.toString());
     }
 
     /**
-     * Checks the state of the custom h2 lock file and under some conditions
-     * will attempt to remove the lock file.
+     * Attempts to obtain the lock without waiting.
      *
-     * @throws H2DBLockException thrown if the lock directory does not exist and
-     * cannot be created
+     * @return <code>true</code> if the lock was obtained; otherwise
+     * <code>false</code>
+     * @throws H2DBLockException thrown if the lock file could not be opened
      */
-    private void checkState() throws H2DBLockException {
-        if (!lockFile.getParentFile().isDirectory() && !lockFile.mkdir()) {
-            throw new H2DBLockException("Unable to create path to data directory.");
+    public boolean tryLock() throws H2DBLockException {
+        if (state != null) {
+            return true;
         }
-        if (lockFile.isFile()) {
-            //TODO - this 30 minute check needs to be configurable.
-            if (getFileAge(lockFile) > 30) {
-                LOGGER.debug("An old db update lock file was found: {}", lockFile.getAbsolutePath());
-                if (!lockFile.delete()) {
-                    LOGGER.warn("An old db update lock file was found but the system was unable to delete "
-                            + "the file. Consider manually deleting {}", lockFile.getAbsolutePath());
-                }
-            } else {
-                LOGGER.info("Lock file found `{}`", lockFile);
-                LOGGER.info("Existing update in progress; waiting for update to complete");
+        final LockState s = getState(getLockFile());
+        synchronized (s) {
+            if (!s.acquire(shared)) {
+                return false;
             }
         }
+        state = s;
+        addShutdownHook();
+        LOGGER.debug("{} lock obtained ({}) {}", shared ? "Shared" : "Exclusive", Thread.currentThread().getName(), magic);
+        return true;
     }
 
     /**
-     * Releases the lock on the H2 database.
+     * Returns the lock file, creating the directory containing it if
+     * necessary.
+     *
+     * @return the canonical lock file
+     * @throws H2DBLockException thrown if the directory could not be created
      */
-    public void release() {
-        if (lock != null) {
-            try {
-                lock.release();
-                lock = null;
-            } catch (IOException ex) {
-                LOGGER.debug("Failed to release lock", ex);
+    private File getLockFile() throws H2DBLockException {
+        try {
+            final File dir = directory != null ? directory : settings.getDataDirectory();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new H2DBLockException("Unable to create path to data directory.");
             }
+            return new File(dir, LOCK_FILE_NAME).getCanonicalFile();
+        } catch (IOException ex) {
+            throw new H2DBLockException(ex.getMessage(), ex);
         }
-        if (file != null) {
-            try {
-                file.close();
-                file = null;
-            } catch (IOException ex) {
-                LOGGER.debug("Unable to delete lock file", ex);
-            }
+    }
+
+    /**
+     * Releases the lock on the H2 database.
+     */
+    public void release() {
+        final LockState s = state;
+        if (s == null) {
+            return;
         }
-        if (lockFile != null && lockFile.isFile()) {
-            final String msg = readLockFile();
-            if (msg != null && msg.equals(magic) && !lockFile.delete()) {
-                LOGGER.error("Lock file '{}' was unable to be deleted. Please manually delete this file.", lockFile.toString());
-                lockFile.deleteOnExit();
-            }
+        state = null;
+        synchronized (s) {
+            s.release(shared);
         }
-        lockFile = null;
         removeShutdownHook();
         final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
         LOGGER.debug("Lock released ({}) {} @ {}", Thread.currentThread().getName(), magic, timestamp.toString());
     }
 
     /**
-     * Reads the first line from the lock file and returns the results as a
-     * string.
+     * Returns the state of the given lock file within this JVM.
      *
-     * @return the first line from the lock file; or null if the contents could
-     * not be read
+     * @param lockFile the canonical lock file
+     * @return the state of the lock file
      */
-    private String readLockFile() {
-        String msg = null;
-        try (RandomAccessFile f = new RandomAccessFile(lockFile, "rw")) {
-            msg = f.readLine();
-        } catch (IOException ex) {
-            LOGGER.debug(String.format("Error reading lock file: %s", lockFile), ex);
+    private static LockState getState(File lockFile) {
+        synchronized (STATES) {
+            return STATES.computeIfAbsent(lockFile.getPath(), k -> new LockState(lockFile));
         }
-        return msg;
-    }
-
-    /**
-     * Returns the age of the file in minutes.
-     *
-     * @param file the file to calculate the age
-     * @return the age of the file
-     */
-    private double getFileAge(File file) {
-        final Date d = new Date();
-        final long modified = file.lastModified();
-        final double time = (d.getTime() - modified) / 1000.0 / 60.0;
-        LOGGER.debug("Lock file age is {} minutes", time);
-        return time;
     }
 
     /**
@@ -275,4 +315,124 @@ public class H2DBLock {
             hook = null;
         }
     }
+
+    /**
+     * The state of a lock file within this JVM. The operating system file lock
+     * is obtained by the first holder and released by the last; all access is
+     * synchronized on the state object, which is also notified whenever the
+     * lock is released.
+     */
+    private static final class LockState {
+
+        /**
+         * The lock file.
+         */
+        private final File lockFile;
+        /**
+         * The number of shared locks held.
+         */
+        private int readers;
+        /**
+         * Whether or not the exclusive lock is held.
+         */
+        private boolean writer;
+        /**
+         * The number of threads waiting for the exclusive lock; new shared
+         * locks are not granted while a writer is waiting.
+         */
+        private int waitingWriters;
+        /**
+         * The open lock file.
+         */
+        private RandomAccessFile file;
+        /**
+         * The operating system file lock.
+         */
+        private FileLock fileLock;
+
+        /**
+         * Constructs a new lock state.
+         *
+         * @param lockFile the lock file
+         */
+        private LockState(File lockFile) {
+            this.lockFile = lockFile;
+        }
+
+        /**
+         * Attempts to obtain the lock without waiting.
+         *
+         * @param shared whether or not a shared lock is requested
+         * @return <code>true</code> if the lock was obtained; otherwise
+         * <code>false</code>
+         * @throws H2DBLockException thrown if the lock file could not be opened
+         */
+        private boolean acquire(boolean shared) throws H2DBLockException {
+            if (writer || (shared && waitingWriters > 0) || (!shared && readers > 0)) {
+                return false;
+            }
+            if (readers == 0) {
+                try {
+                    file = new RandomAccessFile(lockFile, "rw");
+                    fileLock = file.getChannel().tryLock(0L, Long.MAX_VALUE, shared);
+                } catch (OverlappingFileLockException ex) {
+                    LOGGER.trace("Expected error as another thread has likely locked the file", ex);
+                    fileLock = null;
+                } catch (IOException ex) {
+                    closeFile();
+                    throw new H2DBLockException("Unable to open the lock file " + lockFile, ex);
+                }
+                if (fileLock == null) {
+                    closeFile();
+                    return false;
+                }
+            }
+            if (shared) {
+                readers += 1;
+            } else {
+                writer = true;
+            }
+            return true;
+        }
+
+        /**
+         * Releases a lock; the operating system file lock is released once no
+         * locks are held.
+         *
+         * @param shared whether or not a shared lock is released
+         */
+        private void release(boolean shared) {
+            if (shared) {
+                readers -= 1;
+            } else {
+                writer = false;
+            }
+            if (readers == 0 && !writer) {
+                if (fileLock != null) {
+                    try {
+                        fileLock.release();
+                    } catch (IOException ex) {
+                        LOGGER.debug("Failed to release lock", ex);
+                    }
+                    fileLock = null;
+                }
+                closeFile();
+            }
+            notifyAll();
+        }
+
+        /**
+         * Closes the lock file.
+         */
+        private void closeFile() {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ex) {
+                    LOGGER.trace("Unable to close the lock file", ex);
+                }
+                file = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A file filter built by the {@link FileFilterBuilder} that exposes the file
+ * names and extensions it accepts. This allows the files to be matched to the
+ * interested filters using a lookup rather than evaluating every filter
+ * against every file.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public class IndexableFileFilter implements FileFilter {
+
+    /**
+     * The file names accepted; case-sensitive.
+     */
+    private final Set<String> fileNames;
+    /**
+     * The lower case extensions accepted, including the leading period.
+     */
+    private final Set<String> extensions;
+    /**
+     * Whether or not the filter includes conditions other than the file names
+     * and extensions.
+     */
+    private final boolean additionalFilters;
+    /**
+     * The filter evaluating all of the conditions.
+     */
+    private final FileFilter filter;
+
+    /**
+     * Constructs a new indexable file filter.
+     *
+     * @param fileNames the file names accepted
+     * @param extensions the extensions accepted, including the leading period
+     * @param additionalFilters whether or not the filter includes conditions
+     * other than the file names and extensions
+     * @param filter the filter evaluating all of the conditions
+     */
+    IndexableFileFilter(Set<String> fileNames, Set<String> extensions, boolean additionalFilters, FileFilter filter) {
+        this.fileNames = Collections.unmodifiableSet(new HashSet<>(fileNames));
+        final Set<String> lower = new HashSet<>();
+        extensions.forEach((e) -> lower.add(e.toLowerCase(Locale.ROOT)));
+        this.extensions = Collections.unmodifiableSet(lower);
+        this.additionalFilters = additionalFilters;
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the file names accepted by the filter.
+     *
+     * @return the file names accepted
+     */
+    public Set<String> getFileNames() {
+        return fileNames;
+    }
+
+    /**
+     * Returns the lower case extensions, including the leading period,
+     * accepted by the filter.
+     *
+     * @return the extensions accepted
+     */
+    public Set<String> getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * Returns whether or not the filter includes conditions other than the
+     * file names and extensions; if so, files that match neither may still be
+     * accepted.
+     *
+     * @return <code>true</code> if the filter has additional conditions;
+     * otherwise <code>false</code>
+     */
+    public boolean hasAdditionalFilters() {
+        return additionalFilters;
+    }
+
+    /**
+     * Determines if the name of the file matches one of the file names or
+     * extensions of the filter. The additional conditions, if any, are not
+     * evaluated.
+     *
+     * @param name the name of the file
+     * @return <code>true</code> if the name matches; otherwise
+     * <code>false</code>
+     */
+    public boolean matchesName(String name) {
+        if (fileNames.contains(name)) {
+            return true;
+        }
+        if (!extensions.isEmpty()) {
+            final String lower = name.toLowerCase(Locale.ROOT);
+            int pos = lower.indexOf('.');
+            while (pos >= 0) {
+                if (extensions.contains(lower.substring(pos))) {
+                    return true;
+                }
+                pos = lower.indexOf('.', pos + 1);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean accept(File pathname) {
+        return filter.accept(pathname);
+    }
+}
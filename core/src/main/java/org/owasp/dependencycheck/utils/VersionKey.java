@@ -0,0 +1,154 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable, pre-parsed version number used when the same version is
+ * compared many times; such as the bounds of the version ranges of vulnerable
+ * software. The version is split into parts exactly as
+ * {@link DependencyVersion} does and the numeric value of each part is parsed
+ * once so that a comparison does not parse any strings. The ordering is
+ * identical to {@link DependencyVersion#compareTo(DependencyVersion)}.
+ *
+ * @author Jeremy Long
+ */
+@ThreadSafe
+public final class VersionKey implements Comparable<VersionKey> {
+
+    /**
+     * The pattern used to split a version into its parts.
+     */
+    private static final Pattern VERSION_PART = Pattern.compile("(\\d+[a-z]{1,3}$|[a-z]+\\d+|\\d+|(release|beta|alpha)$)");
+    /**
+     * A version without any parts.
+     */
+    private static final VersionKey EMPTY = new VersionKey(new String[0]);
+
+    /**
+     * The version parts.
+     */
+    private final String[] parts;
+    /**
+     * The numeric value of each version part; only valid when the
+     * corresponding entry of {@link #numeric} is <code>true</code>.
+     */
+    private final int[] numbers;
+    /**
+     * Whether or not each version part is an integer.
+     */
+    private final boolean[] numeric;
+
+    /**
+     * Constructs a new version key from the version parts.
+     *
+     * @param parts the version parts
+     */
+    private VersionKey(String[] parts) {
+        this.parts = parts;
+        this.numbers = new int[parts.length];
+        this.numeric = new boolean[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                numbers[i] = Integer.parseInt(parts[i]);
+                numeric[i] = true;
+            } catch (NumberFormatException ex) {
+                numeric[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Parses the version into a version key.
+     *
+     * @param version the version to parse; may be <code>null</code>
+     * @return the version key; a key without any parts if the version is
+     * <code>null</code>
+     */
+    @NotNull
+    public static VersionKey parse(String version) {
+        if (version == null) {
+            return EMPTY;
+        }
+        final List<String> found = new ArrayList<>();
+        final Matcher matcher = VERSION_PART.matcher(version.toLowerCase());
+        while (matcher.find()) {
+            found.add(matcher.group());
+        }
+        if (found.isEmpty()) {
+            found.add(version);
+        }
+        return new VersionKey(found.toArray(new String[0]));
+    }
+
+    /**
+     * Returns whether or not the version has any parts.
+     *
+     * @return <code>true</code> if the version does not have any parts;
+     * otherwise <code>false</code>
+     */
+    public boolean isEmpty() {
+        return parts.length == 0;
+    }
+
+    @Override
+    public int compareTo(@NotNull VersionKey other) {
+        final int max = Math.min(parts.length, other.parts.length);
+        for (int i = 0; i < max; i++) {
+            final int comp;
+            if (numeric[i] && other.numeric[i]) {
+                comp = Integer.compare(numbers[i], other.numbers[i]);
+            } else {
+                comp = parts[i].compareTo(other.parts[i]);
+            }
+            if (comp != 0) {
+                return comp < 0 ? -1 : 1;
+            }
+        }
+        return Integer.compare(parts.length, other.parts.length);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof VersionKey && compareTo((VersionKey) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        for (int i = 0; i < parts.length; i++) {
+            hash = 31 * hash + (numeric[i] ? numbers[i] : parts[i].hashCode());
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.join(parts, '.');
+    }
+}
@@ -18,7 +18,7 @@ CREATE TABLE vulnerability (id int identity(1,1) PRIMARY KEY, cve VARCHAR(20) UN
         cvssV3AttackVector VARCHAR(20), cvssV3AttackComplexity VARCHAR(20), cvssV3PrivilegesRequired VARCHAR(20),
         cvssV3UserInteraction VARCHAR(20), cvssV3Scope VARCHAR(20), cvssV3ConfidentialityImpact VARCHAR(20),
         cvssV3IntegrityImpact VARCHAR(20), cvssV3AvailabilityImpact VARCHAR(20), cvssV3BaseScore DECIMAL(3,1), 
-        cvssV3BaseSeverity VARCHAR(20));
+        cvssV3BaseSeverity VARCHAR(20), lastModifiedDate VARCHAR(30));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
 	CONSTRAINT FK_Reference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -48,4 +48,4 @@ CREATE INDEX idxCpeEntry ON cpeEntry(part, vendor, product, version);
 #, update_version, edition, lang, sw_edition, target_sw, target_hw, other);
 
 CREATE TABLE properties (id varchar(50) PRIMARY KEY, value varchar(500));
-INSERT INTO properties(id,value) VALUES ('version','4.1');
\ No newline at end of file
+INSERT INTO properties(id,value) VALUES ('version','4.2');
\ No newline at end of file
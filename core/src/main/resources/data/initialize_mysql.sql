@@ -19,7 +19,7 @@ CREATE TABLE vulnerability (id int auto_increment PRIMARY KEY, cve VARCHAR(20) U
         cvssV3AttackVector VARCHAR(20), cvssV3AttackComplexity VARCHAR(20), cvssV3PrivilegesRequired VARCHAR(20),
         cvssV3UserInteraction VARCHAR(20), cvssV3Scope VARCHAR(20), cvssV3ConfidentialityImpact VARCHAR(20),
         cvssV3IntegrityImpact VARCHAR(20), cvssV3AvailabilityImpact VARCHAR(20), cvssV3BaseScore DECIMAL(3,1), 
-        cvssV3BaseSeverity VARCHAR(20));
+        cvssV3BaseSeverity VARCHAR(20), lastModifiedDate VARCHAR(30));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
 	CONSTRAINT fkReference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -92,4 +92,4 @@ DELIMITER ;
 
 GRANT EXECUTE ON PROCEDURE dependencycheck.cleanup_orphans TO 'dcuser';
 
-INSERT INTO properties(id, value) VALUES ('version', '4.1');
+INSERT INTO properties(id, value) VALUES ('version', '4.2');
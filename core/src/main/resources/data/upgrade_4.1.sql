@@ -0,0 +1,3 @@
+ALTER TABLE vulnerability ADD COLUMN lastModifiedDate VARCHAR(30);
+
+UPDATE Properties SET value='4.2' WHERE ID='version';
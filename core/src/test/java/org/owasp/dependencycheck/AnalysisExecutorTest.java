@@ -0,0 +1,69 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.junit.Test;
+import org.owasp.dependencycheck.analyzer.AnalyzerWorkload;
+import org.owasp.dependencycheck.analyzer.DependencyBundlingAnalyzer;
+import org.owasp.dependencycheck.analyzer.HintAnalyzer;
+import org.owasp.dependencycheck.analyzer.NexusAnalyzer;
+import org.owasp.dependencycheck.utils.Settings;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jeremy Long
+ */
+public class AnalysisExecutorTest extends BaseTest {
+
+    /**
+     * Test of getExecutorService method, of class AnalysisExecutor.
+     */
+    @Test
+    public void testGetExecutorService() {
+        getSettings().setInt(Settings.KEYS.ANALYSIS_CPU_THREADS, 2);
+        getSettings().setInt(Settings.KEYS.ANALYSIS_IO_THREADS, 5);
+        try (AnalysisExecutor instance = new AnalysisExecutor(getSettings())) {
+            assertEquals(2, instance.getParallelism(AnalyzerWorkload.CPU));
+            assertEquals(5, instance.getParallelism(AnalyzerWorkload.IO));
+
+            final ExecutorService cpu = instance.getExecutorService(new HintAnalyzer());
+            assertSame(cpu, instance.getExecutorService(AnalyzerWorkload.CPU));
+            assertSame(cpu, instance.getExecutorService(new HintAnalyzer()));
+
+            final ExecutorService io = instance.getExecutorService(new NexusAnalyzer());
+            assertSame(io, instance.getExecutorService(AnalyzerWorkload.IO));
+            assertNotSame(cpu, io);
+
+            final ExecutorService serial = instance.getExecutorService(new DependencyBundlingAnalyzer());
+            assertNotSame(cpu, serial);
+            assertNotSame(io, serial);
+
+            instance.close();
+            assertTrue(cpu.isShutdown());
+            assertTrue(io.isShutdown());
+            assertTrue(serial.isShutdown());
+            assertNotSame(cpu, instance.getExecutorService(AnalyzerWorkload.CPU));
+        }
+    }
+}
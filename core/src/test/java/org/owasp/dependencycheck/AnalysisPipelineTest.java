@@ -0,0 +1,256 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.junit.Test;
+import org.owasp.dependencycheck.analyzer.AbstractAnalyzer;
+import org.owasp.dependencycheck.analyzer.AnalysisPhase;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.analyzer.AnalyzerWorkload;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.metrics.AnalysisMetrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jeremy Long
+ */
+public class AnalysisPipelineTest extends BaseTest {
+
+    /**
+     * Test of executePipelinedAnalysis method, of class Engine.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Test
+    public void testExecute() throws Exception {
+        try (Engine engine = new Engine(Engine.Mode.EVIDENCE_COLLECTION, getSettings())) {
+            engine.addDependency(new Dependency(new File("a.jar"), true));
+            engine.addDependency(new Dependency(new File("b.jar"), true));
+
+            final RecordingAnalyzer discovering = new RecordingAnalyzer("discovering") {
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    if ("a.jar".equals(dependency.getFileName())) {
+                        engine.addDependency(new Dependency(new File("c.jar"), true));
+                    }
+                }
+            };
+            final RecordingAnalyzer identifying = new RecordingAnalyzer("identifying");
+            final List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+            final RecordingAnalyzer barrier = new RecordingAnalyzer("barrier") {
+                @Override
+                public boolean requiresAllDependencies() {
+                    return true;
+                }
+
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    seen.add(identifying.getAnalyzed().size());
+                }
+            };
+
+            final List<Analyzer> analyzers = new ArrayList<>();
+            analyzers.add(discovering);
+            analyzers.add(identifying);
+            analyzers.add(barrier);
+
+            final List<Throwable> exceptions = Collections.synchronizedList(new ArrayList<>());
+            engine.executePipelinedAnalysis(analyzers, exceptions);
+
+            assertTrue(exceptions.isEmpty());
+            assertEquals(2, discovering.getAnalyzed().size());
+            assertFalse(discovering.getAnalyzed().contains("c.jar"));
+            assertEquals(3, identifying.getAnalyzed().size());
+            assertTrue(identifying.getAnalyzed().contains("c.jar"));
+            assertEquals(3, barrier.getAnalyzed().size());
+            seen.forEach((count) -> assertEquals(3, count.intValue()));
+        }
+    }
+
+    /**
+     * Test that a dependency removed from the engine is not passed to the
+     * remaining analyzers.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Test
+    public void testRemovedDependencyIsNotAnalyzedFurther() throws Exception {
+        try (Engine engine = new Engine(Engine.Mode.EVIDENCE_COLLECTION, getSettings())) {
+            engine.addDependency(new Dependency(new File("a.jar"), true));
+            final RecordingAnalyzer removing = new RecordingAnalyzer("removing") {
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    engine.removeDependency(dependency);
+                }
+            };
+            final RecordingAnalyzer next = new RecordingAnalyzer("next");
+            final List<Analyzer> analyzers = new ArrayList<>();
+            analyzers.add(removing);
+            analyzers.add(next);
+            engine.executePipelinedAnalysis(analyzers, Collections.synchronizedList(new ArrayList<>()));
+
+            assertEquals(1, removing.getAnalyzed().size());
+            assertTrue(next.getAnalyzed().isEmpty());
+        }
+    }
+
+    /**
+     * Test that each analyzer within a stage is executed on the thread pool
+     * matching its own workload.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Test
+    public void testAnalyzersUseTheirOwnWorkloadPool() throws Exception {
+        try (Engine engine = new Engine(Engine.Mode.EVIDENCE_COLLECTION, getSettings())) {
+            engine.addDependency(new Dependency(new File("a.jar"), true));
+            engine.addDependency(new Dependency(new File("b.jar"), true));
+            final Set<ExecutorService> cpuPools = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            final Set<ExecutorService> ioPools = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            final RecordingAnalyzer cpu = new RecordingAnalyzer("cpu") {
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    cpuPools.add(ForkJoinTask.getPool());
+                }
+            };
+            final RecordingAnalyzer io = new RecordingAnalyzer("io") {
+                @Override
+                public AnalyzerWorkload getWorkload() {
+                    return AnalyzerWorkload.IO;
+                }
+
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    ioPools.add(ForkJoinTask.getPool());
+                }
+            };
+            final List<Analyzer> analyzers = new ArrayList<>();
+            analyzers.add(cpu);
+            analyzers.add(io);
+            analyzers.add(new RecordingAnalyzer("after") {
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    cpuPools.add(ForkJoinTask.getPool());
+                }
+            });
+            final List<Throwable> exceptions = Collections.synchronizedList(new ArrayList<>());
+            engine.executePipelinedAnalysis(analyzers, exceptions);
+
+            assertTrue(exceptions.isEmpty());
+            assertEquals(2, io.getAnalyzed().size());
+            final AnalysisExecutor executor = engine.getAnalysisExecutor();
+            assertEquals(Collections.singleton(executor.getExecutorService(AnalyzerWorkload.CPU)), cpuPools);
+            assertEquals(Collections.singleton(executor.getExecutorService(AnalyzerWorkload.IO)), ioPools);
+        }
+    }
+
+    /**
+     * Test that the elapsed time of each analyzer within a pipelined stage is
+     * recorded in the metrics.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Test
+    public void testElapsedTimeIsRecorded() throws Exception {
+        try (Engine engine = new Engine(Engine.Mode.EVIDENCE_COLLECTION, getSettings())) {
+            engine.addDependency(new Dependency(new File("a.jar"), true));
+            final RecordingAnalyzer slow = new RecordingAnalyzer("slow") {
+                @Override
+                protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                    super.analyzeDependency(dependency, engine);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            final List<Analyzer> analyzers = new ArrayList<>();
+            analyzers.add(slow);
+            engine.executePipelinedAnalysis(analyzers, Collections.synchronizedList(new ArrayList<>()));
+
+            final AnalysisMetrics metrics = engine.getMetrics();
+            assertNotNull(metrics);
+            assertTrue(metrics.getAnalyzerMetrics("slow").getElapsedTime() >= TimeUnit.MILLISECONDS.toNanos(20));
+        }
+    }
+
+    /**
+     * An analyzer that records the file names of the dependencies analyzed.
+     */
+    private static class RecordingAnalyzer extends AbstractAnalyzer {
+
+        /**
+         * The name of the analyzer.
+         */
+        private final String name;
+        /**
+         * The file names of the dependencies analyzed.
+         */
+        private final List<String> analyzed = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingAnalyzer(String name) {
+            this.name = name;
+        }
+
+        List<String> getAnalyzed() {
+            return analyzed;
+        }
+
+        @Override
+        protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+            analyzed.add(dependency.getFileName());
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public AnalysisPhase getAnalysisPhase() {
+            return AnalysisPhase.INFORMATION_COLLECTION;
+        }
+
+        @Override
+        protected String getAnalyzerEnabledSettingKey() {
+            return "analyzer.recording.enabled";
+        }
+    }
+}
@@ -4,12 +4,24 @@ import mockit.Expectations;
 import mockit.Mocked;
 import mockit.Verifications;
 import org.junit.Test;
+import org.owasp.dependencycheck.analyzer.AbstractAnalyzer;
+import org.owasp.dependencycheck.analyzer.AnalysisPhase;
 import org.owasp.dependencycheck.analyzer.FileTypeAnalyzer;
 import org.owasp.dependencycheck.analyzer.HintAnalyzer;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
+import org.owasp.dependencycheck.analyzer.exception.AnalysisTimeoutException;
 import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.utils.Settings;
 
 import java.io.File;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -97,4 +109,105 @@ public class AnalysisTaskTest extends BaseTest {
             times = 0;
         }};
     }
+
+    @Test
+    public void taskTimeoutIsNotFatal() throws Exception {
+        getSettings().setInt(Settings.KEYS.ANALYSIS_TASK_TIMEOUT, 1);
+        final List<Throwable> exceptions = new ArrayList<>();
+        final AnalysisTask analysisTask = new AnalysisTask(fileTypeAnalyzer, dependency, engine, exceptions);
+        new Expectations(analysisTask) {{
+            analysisTask.shouldAnalyze();
+            result = true;
+            engine.getSettings();
+            result = getSettings();
+            fileTypeAnalyzer.analyze(dependency, engine);
+            result = new AnalysisTimeoutException("timed out");
+        }};
+
+        analysisTask.call();
+
+        assertEquals(1, exceptions.size());
+        assertTrue(exceptions.get(0) instanceof AnalysisTimeoutException);
+    }
+
+    @Test
+    public void batchTaskAnalyzesTheAcceptedDependencies() throws Exception {
+        final File dependencyFile = new File("");
+        new Expectations() {{
+            dependency.getActualFile();
+            result = dependencyFile;
+
+            fileTypeAnalyzer.accept(dependencyFile);
+            returns(true, false);
+        }};
+
+        final AnalysisTask analysisTask = AnalysisTask.forBatch(fileTypeAnalyzer, Arrays.asList(dependency, dependency), null, new ArrayList<>());
+        analysisTask.call();
+
+        new Verifications() {{
+            List<Dependency> analyzed;
+            fileTypeAnalyzer.analyzeBatch(analyzed = withCapture(), null);
+            times = 1;
+            assertEquals(1, analyzed.size());
+
+            fileTypeAnalyzer.analyze((Dependency) any, (Engine) any);
+            times = 0;
+        }};
+    }
+
+    @Test
+    public void taskDeadlineCancelsTheAnalysis() throws Exception {
+        getSettings().setInt(Settings.KEYS.ANALYSIS_TASK_TIMEOUT, 1);
+        final List<Throwable> exceptions = new ArrayList<>();
+        final AtomicLong remaining = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final AbstractAnalyzer looping = new AbstractAnalyzer() {
+            @Override
+            protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
+                remaining.set(AnalysisTask.getRemainingTime(TimeUnit.MILLISECONDS));
+                final long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (System.nanoTime() - giveUp < 0) {
+                    try {
+                        AnalysisTask.checkDeadline();
+                    } catch (AnalysisTimeoutException ex) {
+                        cancelled.set(true);
+                        throw ex;
+                    }
+                }
+            }
+
+            @Override
+            public String getName() {
+                return "looping";
+            }
+
+            @Override
+            public AnalysisPhase getAnalysisPhase() {
+                return AnalysisPhase.INFORMATION_COLLECTION;
+            }
+
+            @Override
+            protected String getAnalyzerEnabledSettingKey() {
+                return "analyzer.looping.enabled";
+            }
+        };
+        new Expectations() {{
+            engine.getSettings();
+            result = getSettings();
+            engine.isAnalysisRequired(looping, dependency);
+            result = true;
+        }};
+
+        final long start = System.nanoTime();
+        new AnalysisTask(looping, dependency, engine, exceptions).call();
+
+        assertTrue(cancelled.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+        assertTrue(remaining.get() > 0 && remaining.get() <= 1000);
+        assertEquals(1, exceptions.size());
+        assertTrue(exceptions.get(0) instanceof AnalysisTimeoutException);
+        //the deadline only applies within the task
+        AnalysisTask.checkDeadline();
+        assertEquals(Long.MAX_VALUE, AnalysisTask.getRemainingTime(TimeUnit.SECONDS));
+    }
 }
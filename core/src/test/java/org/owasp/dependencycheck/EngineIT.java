@@ -18,16 +18,26 @@
 package org.owasp.dependencycheck;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Vulnerability;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
 import org.owasp.dependencycheck.exception.ExceptionCollection;
 import org.owasp.dependencycheck.exception.ReportException;
 import org.owasp.dependencycheck.utils.InvalidSettingException;
 import org.owasp.dependencycheck.utils.Settings;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -85,4 +95,60 @@ public class EngineIT extends BaseDBTestCase {
             instance.writeReports("dependency-check sample", new File("./target/"), "ALL", exceptions);
         }
     }
+
+    /**
+     * Test scanning an archive containing a jar twice with incremental
+     * analysis enabled; the dependencies and vulnerabilities identified must
+     * be the same both times.
+     *
+     * @throws Exception thrown if the scan fails
+     */
+    @Test
+    public void testIncrementalAnalysisOfNestedArchive() throws Exception {
+        getSettings().setBoolean(Settings.KEYS.AUTO_UPDATE, false);
+        getSettings().setBoolean(Settings.KEYS.ANALYZER_CENTRAL_ENABLED, false);
+        getSettings().setBoolean(Settings.KEYS.ANALYZER_NODE_AUDIT_ENABLED, false);
+        getSettings().setBoolean(Settings.KEYS.ANALYZER_OSSINDEX_ENABLED, false);
+        getSettings().setBoolean(Settings.KEYS.ANALYSIS_INCREMENTAL, true);
+        final File dir = new File(getSettings().getDataDirectory(), "incremental-it");
+        final File archive = new File(dir, "nested.zip");
+        try {
+            FileUtils.forceMkdir(dir);
+            final File jar = BaseTest.getResourceAsFile(this, "mysql-connector-java-5.1.27-bin.jar");
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+                out.putNextEntry(new ZipEntry("lib/" + jar.getName()));
+                Files.copy(jar.toPath(), out);
+                out.closeEntry();
+            }
+            final TreeMap<String, Set<String>> first = scanForVulnerabilities(archive);
+            assertTrue(first.containsKey(jar.getName()));
+            assertTrue(first.get(jar.getName()).size() > 0);
+            assertEquals(first, scanForVulnerabilities(archive));
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * Scans and analyzes the file.
+     *
+     * @param file the file to scan
+     * @return the names of the vulnerabilities identified keyed by the file
+     * name of each dependency
+     * @throws ExceptionCollection thrown if the analysis fails
+     */
+    private TreeMap<String, Set<String>> scanForVulnerabilities(File file) throws ExceptionCollection {
+        final TreeMap<String, Set<String>> result = new TreeMap<>();
+        try (Engine instance = new Engine(getSettings())) {
+            instance.scan(file);
+            instance.analyzeDependencies();
+            for (Dependency d : instance.getDependencies()) {
+                final Set<String> names = result.computeIfAbsent(d.getFileName(), (k) -> new TreeSet<>());
+                for (Vulnerability v : d.getVulnerabilities()) {
+                    names.add(v.getName());
+                }
+            }
+        }
+        return result;
+    }
 }
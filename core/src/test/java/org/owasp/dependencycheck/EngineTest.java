@@ -25,14 +25,22 @@ import org.owasp.dependencycheck.analyzer.JarAnalyzer;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.ExceptionCollection;
+import org.owasp.dependencycheck.utils.Settings;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -70,6 +78,130 @@ public class EngineTest extends BaseDBTestCase {
         }
     }
 
+    /**
+     * Test that a file can be scanned again after the dependency has been
+     * removed, of class Engine.
+     *
+     * @throws org.owasp.dependencycheck.data.nvdcve.DatabaseException thrown is
+     * there is an exception
+     */
+    @Test
+    public void testScanFileAfterRemoveDependency() throws DatabaseException {
+        try (Engine instance = new Engine(getSettings())) {
+            instance.addFileTypeAnalyzer(new JarAnalyzer());
+            final File file = BaseTest.getResourceAsFile(this, "dwr.jar");
+            final Dependency dwr = instance.scanFile(file);
+            instance.removeDependency(dwr);
+            assertEquals(0, instance.getDependencies().length);
+
+            final Dependency secondDwr = instance.scanFile(file);
+            assertEquals(1, instance.getDependencies().length);
+            assertNotSame(dwr, secondDwr);
+        }
+    }
+
+    /**
+     * Test that removing the indexed dependency keeps another dependency with
+     * the same SHA1 available for duplicate detection, of class Engine.
+     *
+     * @throws java.lang.Exception thrown is there is an exception
+     */
+    @Test
+    public void testRemoveDependencyReindexesSha1() throws Exception {
+        final File file = BaseTest.getResourceAsFile(this, "dwr.jar");
+        final File copy = new File(getSettings().getTempDirectory(), "dwr-copy.jar");
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (Engine instance = new Engine(getSettings())) {
+            instance.addFileTypeAnalyzer(new JarAnalyzer());
+            final Dependency dwr = instance.scanFile(file);
+            final Dependency dwrCopy = new Dependency(copy);
+            instance.addDependency(dwrCopy);
+            assertEquals(2, instance.getDependencies().length);
+
+            instance.removeDependency(dwr);
+            final Dependency rescanned = instance.scanFile(file);
+            assertEquals(1, instance.getDependencies().length);
+            assertTrue(dwrCopy.getRelatedDependencies().contains(rescanned));
+        } finally {
+            copy.delete();
+        }
+    }
+
+    /**
+     * Test that a removed duplicate does not take the place of the indexed
+     * dependency when that one is removed, of class Engine.
+     *
+     * @throws java.lang.Exception thrown is there is an exception
+     */
+    @Test
+    public void testRemoveDuplicateDependency() throws Exception {
+        final File file = BaseTest.getResourceAsFile(this, "dwr.jar");
+        final File copy = new File(getSettings().getTempDirectory(), "dwr-copy.jar");
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (Engine instance = new Engine(getSettings())) {
+            instance.addFileTypeAnalyzer(new JarAnalyzer());
+            final Dependency dwr = instance.scanFile(file);
+            final Dependency dwrCopy = new Dependency(copy);
+            instance.addDependency(dwrCopy);
+            instance.removeDependency(dwrCopy);
+            instance.removeDependency(dwr);
+            assertEquals(0, instance.getDependencies().length);
+
+            final Dependency rescanned = instance.scanFile(file);
+            assertEquals(1, instance.getDependencies().length);
+            assertTrue(dwrCopy.getRelatedDependencies().isEmpty());
+            assertNotSame(dwr, rescanned);
+        } finally {
+            copy.delete();
+        }
+    }
+
+    /**
+     * Test that scanning a directory in parallel identifies the same
+     * dependencies as the serial scan and adds them in the order the files
+     * were discovered, of class Engine.
+     *
+     * @throws org.owasp.dependencycheck.data.nvdcve.DatabaseException thrown is
+     * there is an exception
+     */
+    @Test
+    public void testScanDirectoryInParallel() throws DatabaseException {
+        final File dir = BaseTest.getResourceAsFile(this, "dwr.jar").getParentFile();
+        final List<String> expectedFiles;
+        final int expected;
+        try (Engine instance = new Engine(getSettings())) {
+            expectedFiles = getActualFilePaths(instance.scan(dir));
+            expected = instance.getDependencies().length;
+        }
+        Collections.sort(expectedFiles);
+        getSettings().setBoolean(Settings.KEYS.SCAN_PARALLEL_DISCOVERY, true);
+        List<String> order = null;
+        for (int i = 0; i < 3; i++) {
+            try (Engine instance = new Engine(getSettings())) {
+                final List<String> scannedFiles = getActualFilePaths(instance.scan(dir));
+                final List<String> dependencies = getActualFilePaths(Arrays.asList(instance.getDependencies()));
+                assertEquals(expected, dependencies.size());
+                assertEquals(new HashSet<>(dependencies).size(), dependencies.size());
+                if (order != null) {
+                    assertEquals(order, dependencies);
+                }
+                order = dependencies;
+                Collections.sort(scannedFiles);
+                assertEquals(expectedFiles, scannedFiles);
+            }
+        }
+    }
+
+    /**
+     * Returns the actual file paths of the dependencies.
+     *
+     * @param dependencies the dependencies
+     * @return the actual file paths
+     */
+    private static List<String> getActualFilePaths(List<Dependency> dependencies) {
+        return dependencies.stream().map(Dependency::getActualFilePath).collect(Collectors.toList());
+    }
+
     @Test(expected = ExceptionCollection.class)
     public void exceptionDuringAnalysisTaskExecutionIsFatal() throws DatabaseException, ExceptionCollection {
 
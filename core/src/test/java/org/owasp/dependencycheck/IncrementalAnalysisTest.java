@@ -0,0 +1,83 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import org.junit.Test;
+import org.owasp.dependencycheck.analyzer.FalsePositiveAnalyzer;
+import org.owasp.dependencycheck.analyzer.HintAnalyzer;
+import org.owasp.dependencycheck.analyzer.NvdCveAnalyzer;
+import org.owasp.dependencycheck.data.cache.DataCache;
+import org.owasp.dependencycheck.data.cache.DataCacheFactory;
+import org.owasp.dependencycheck.data.incremental.AnalysisSnapshot;
+import org.owasp.dependencycheck.dependency.Confidence;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jeremy Long
+ */
+public class IncrementalAnalysisTest extends BaseTest {
+
+    /**
+     * Test that the dependencies of an unchanged file are restored, of class
+     * IncrementalAnalysis.
+     */
+    @Test
+    public void testRestore() {
+        final DataCache<AnalysisSnapshot> cache = new DataCacheFactory(getSettings()).getIncrementalCache();
+        final String version = "test-" + System.nanoTime();
+        final File file = BaseTest.getResourceAsFile(this, "dwr.jar");
+
+        final IncrementalAnalysis first = new IncrementalAnalysis(cache, version);
+        final Dependency dependency = new Dependency(file);
+        final List<Dependency> scanned = first.restore(file, dependency);
+        assertEquals(1, scanned.size());
+        assertSame(dependency, scanned.get(0));
+        assertTrue(first.isAnalysisRequired(new HintAnalyzer(), dependency));
+
+        dependency.addEvidence(EvidenceType.VENDOR, "test", "name", "dwr", Confidence.HIGH);
+        final Dependency discovered = new Dependency(true);
+        discovered.setFilePath(file.getAbsolutePath() + File.separator + "pom.xml");
+        first.dependencyAdded(dependency, discovered);
+        first.save(new Dependency[]{dependency, discovered});
+
+        final IncrementalAnalysis second = new IncrementalAnalysis(cache, version);
+        final List<Dependency> restored = second.restore(file, new Dependency(file));
+        assertEquals(2, restored.size());
+        final Dependency root = restored.get(0);
+        assertNotSame(dependency, root);
+        assertTrue(root.contains(EvidenceType.VENDOR, Confidence.HIGH));
+        assertEquals(discovered.getFilePath(), restored.get(1).getFilePath());
+
+        assertFalse(second.isAnalysisRequired(new HintAnalyzer(), root));
+        assertTrue(second.isAnalysisRequired(new FalsePositiveAnalyzer(), root));
+        assertTrue(second.isAnalysisRequired(new NvdCveAnalyzer(), root));
+
+        final IncrementalAnalysis upgraded = new IncrementalAnalysis(cache, version + "-upgraded");
+        assertEquals(1, upgraded.restore(file, new Dependency(file)).size());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer;
+
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jeremy Long
+ */
+public class FileTypeAnalyzerIndexTest extends BaseTest {
+
+    /**
+     * Test of getCandidates and isCandidate methods, of class
+     * FileTypeAnalyzerIndex.
+     */
+    @Test
+    public void testGetCandidates() {
+        final JarAnalyzer jar = new JarAnalyzer();
+        final CMakeAnalyzer cmake = new CMakeAnalyzer();
+        final PythonDistributionAnalyzer python = new PythonDistributionAnalyzer();
+        final FileTypeAnalyzerIndex instance = new FileTypeAnalyzerIndex(Arrays.asList(jar, cmake, python));
+
+        Set<FileTypeAnalyzer> result = instance.getCandidates(new File("lib", "struts.JAR"));
+        assertTrue(result.contains(jar));
+        assertFalse(result.contains(cmake));
+        //the python filter has conditions other than names and extensions
+        assertTrue(result.contains(python));
+
+        result = instance.getCandidates(new File("CMakeLists.txt"));
+        assertTrue(result.contains(cmake));
+        assertFalse(result.contains(jar));
+
+        assertTrue(instance.isCandidate(cmake, new File("build", "module.config.cmake")));
+        assertFalse(instance.isCandidate(cmake, new File("cmakelists.txt")));
+        assertFalse(instance.isCandidate(jar, new File("build", "module.cmake")));
+        assertFalse(instance.isCandidate(jar, null));
+        assertTrue(instance.isCandidate(python, new File("METADATA")));
+        assertTrue(instance.isCandidate(new AssemblyAnalyzer(), new File("any.txt")));
+    }
+}
@@ -17,8 +17,15 @@
  */
 package org.owasp.dependencycheck.data.cpe;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -26,6 +33,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import org.owasp.dependencycheck.BaseDBTestCase;
 import org.owasp.dependencycheck.Engine;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
 
 /**
  *
@@ -98,7 +106,6 @@ public class CpeMemoryIndexTest extends BaseDBTestCase {
         String expResult = "+product:resteasy +(vendor:red vendor:redhat vendor:hat)";
         Query result = instance.parseQuery(searchString);
         assertEquals(expResult, result.toString());
-        instance.resetAnalyzers();
         searchString = "product:(struts2\\-core^2 struts^3 core) AND vendor:(apache.struts apache^3 foundation)";
 
         expResult = "+((product:struts2 product:struts2struts product:struts product:strutscore product:core)^2.0 (product:corestruts product:struts)^3.0 (product:strutscore product:core)) +((vendor:apache vendor:apachestruts vendor:struts) (vendor:strutsapache vendor:apache)^3.0)";
@@ -107,6 +114,98 @@ public class CpeMemoryIndexTest extends BaseDBTestCase {
         instance.close();
     }
 
+    /**
+     * Test of newQueryBuilder method, of class CpeMemoryIndex; the query built
+     * must match the parsed query.
+     */
+    @Test
+    public void testNewQueryBuilder() throws Exception {
+        final String searchString = "product:(struts2\\-core^2 struts^3 core) AND vendor:(apache.struts apache^3 foundation)";
+        final String expResult = instance.parseQuery(searchString).toString();
+
+        final CpeQueryBuilder builder = instance.newQueryBuilder();
+        builder.startField(Fields.PRODUCT);
+        builder.addWord("struts2-core", 2);
+        builder.addWord("struts", 3);
+        builder.addWord("core");
+        builder.startField(Fields.VENDOR);
+        builder.addWord("apache.struts");
+        builder.addWord("apache", 3);
+        builder.addWord("foundation");
+        assertEquals(expResult, builder.build().toString());
+
+        builder.startField(Fields.PRODUCT);
+        builder.addWord("foundation");
+        assertNull(builder.build());
+    }
+
+    /**
+     * Test of parseQuery method, of class CpeMemoryIndex, when called
+     * concurrently.
+     */
+    @Test
+    public void testParseQueryConcurrently() throws Exception {
+        final String searchString = "product:(struts2\\-core^2 struts^3 core) AND vendor:(apache.struts apache^3 foundation)";
+        final String expResult = instance.parseQuery(searchString).toString();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> instance.parseQuery(searchString).toString()));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expResult, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test of search method, of class CpeMemoryIndex, when different queries
+     * are searched concurrently; the results must match those of searching
+     * the same queries from a single thread.
+     */
+    @Test
+    public void testSearchConcurrently() throws Exception {
+        final String[] searchStrings = {
+            "product:(struts2\\-core^2 struts^3 core) AND vendor:(apache.struts apache^3 foundation)",
+            "product:(commons\\-fileupload fileupload) AND vendor:(apache commons)",
+            "product:(resteasy jaxrs) AND vendor:(red hat jboss)",
+            "product:(spring\\-core spring framework) AND vendor:(pivotal springsource)"};
+        final List<String> expected = new ArrayList<>();
+        for (String searchString : searchStrings) {
+            expected.add(format(instance.search(searchString, 10)));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String searchString = searchStrings[i % searchStrings.length];
+                results.add(executor.submit(() -> format(instance.search(searchString, 10))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected.get(i % searchStrings.length), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Formats the documents and scores found by a search.
+     *
+     * @param docs the search results
+     * @return the documents and scores
+     */
+    private static String format(TopDocs docs) {
+        final StringBuilder sb = new StringBuilder();
+        for (ScoreDoc doc : docs.scoreDocs) {
+            sb.append(doc.doc).append('=').append(doc.score).append(' ');
+        }
+        return sb.toString();
+    }
+
     /**
      * Test of search method, of class CpeMemoryIndex.
      */
@@ -140,4 +239,33 @@ public class CpeMemoryIndexTest extends BaseDBTestCase {
         int result = instance.numDocs();
         assertTrue(result > 100);
     }
+
+    /**
+     * Test of getIndexTag method, of class CpeMemoryIndex.
+     */
+    @Test
+    public void testGetIndexTag() {
+        final DatabaseProperties properties = engine.getDatabase().getDatabaseProperties();
+        final Properties props = properties.getProperties();
+        final String checked = props.getProperty(DatabaseProperties.LAST_CHECKED);
+        final String modified = props.getProperty(DatabaseProperties.LAST_UPDATED);
+        final String tag = CpeMemoryIndex.getIndexTag(properties);
+        try {
+            props.setProperty(DatabaseProperties.LAST_CHECKED, "1");
+            assertEquals(tag, CpeMemoryIndex.getIndexTag(properties));
+            props.setProperty(DatabaseProperties.LAST_UPDATED, "1");
+            assertNotEquals(tag, CpeMemoryIndex.getIndexTag(properties));
+        } finally {
+            restore(props, DatabaseProperties.LAST_CHECKED, checked);
+            restore(props, DatabaseProperties.LAST_UPDATED, modified);
+        }
+    }
+
+    private static void restore(Properties props, String key, String value) {
+        if (value == null) {
+            props.remove(key);
+        } else {
+            props.setProperty(key, value);
+        }
+    }
 }
@@ -16,7 +16,9 @@
 package org.owasp.dependencycheck.data.nvdcve;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -42,4 +44,37 @@ public class ConnectionFactoryTest extends BaseDBTestCase {
         }
         factory.cleanup();
     }
+
+    /**
+     * Test of initialize method, of class ConnectionFactory; a 4.1 schema is
+     * upgraded to 4.2.
+     *
+     * @throws Exception thrown if there is an exception
+     */
+    @Test
+    public void testInitializeUpgradesSchema() throws Exception {
+        ConnectionFactory factory = new ConnectionFactory(getSettings());
+        try (Connection conn = factory.getConnection();
+                Statement statement = conn.createStatement()) {
+            statement.execute("ALTER TABLE vulnerability DROP COLUMN IF EXISTS lastModifiedDate");
+            statement.execute("UPDATE properties SET value='4.1' WHERE id='version'");
+        }
+        factory.cleanup();
+
+        factory = new ConnectionFactory(getSettings());
+        factory.initialize();
+        try (Connection conn = factory.getConnection();
+                Statement statement = conn.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT value FROM properties WHERE id='version'")) {
+                assertTrue(rs.next());
+                assertEquals("4.2", rs.getString(1));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_NAME='VULNERABILITY' AND COLUMN_NAME='LASTMODIFIEDDATE'")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+        }
+        factory.cleanup();
+    }
 }
@@ -17,23 +17,42 @@
  */
 package org.owasp.dependencycheck.data.nvdcve;
 
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import com.google.gson.Gson;
 import org.owasp.dependencycheck.BaseDBTestCase;
+import org.owasp.dependencycheck.BaseTest;
 import org.owasp.dependencycheck.dependency.Vulnerability;
 import org.owasp.dependencycheck.dependency.VulnerableSoftware;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.After;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Before;
+import org.owasp.dependencycheck.data.nvd.json.DefCveItem;
 import org.owasp.dependencycheck.data.update.cpe.CpePlus;
+import org.owasp.dependencycheck.data.update.nvd.NvdCveParser;
+import org.owasp.dependencycheck.data.update.nvd.NvdCveWriter;
+import org.owasp.dependencycheck.dependency.Reference;
 import org.owasp.dependencycheck.dependency.VulnerableSoftwareBuilder;
+import org.owasp.dependencycheck.utils.Settings;
 import us.springett.parsers.cpe.Cpe;
 import us.springett.parsers.cpe.CpeBuilder;
 import us.springett.parsers.cpe.values.LogicalValue;
@@ -94,6 +113,25 @@ public class CveDBIT extends BaseDBTestCase {
         assertTrue(result.getDescription().startsWith("The ParametersInterceptor in Apache Struts"));
     }
 
+    /**
+     * Test of getVulnerability method from multiple threads, of class CveDB.
+     */
+    @Test
+    public void testGetVulnerabilityConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Vulnerability>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> instance.getVulnerability("CVE-2014-0094")));
+            }
+            for (Future<Vulnerability> result : results) {
+                assertTrue(result.get().getDescription().startsWith("The ParametersInterceptor in Apache Struts"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Test of getVulnerabilities method, of class CveDB.
      */
@@ -159,6 +197,410 @@ public class CveDBIT extends BaseDBTestCase {
         assertTrue("Expected " + expected + ", but was not identified", found);
     }
 
+    /**
+     * Test of getVulnerabilities method, of class CveDB; the CVEs are loaded
+     * in chunks of {@link CveDB#IN_LIST_SIZE}, including a partial last chunk,
+     * with some of the vulnerabilities already cached, and the results match
+     * the lookups of the individual CVEs.
+     */
+    @Test
+    public void testGetVulnerabilitiesInChunks() throws Exception {
+        final List<String> cves = new ArrayList<>();
+        final ConnectionFactory factory = new ConnectionFactory(getSettings());
+        try (Connection conn = factory.getConnection();
+                Statement statement = conn.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT cve FROM vulnerability ORDER BY cve LIMIT 130")) {
+            while (rs.next()) {
+                cves.add(rs.getString(1));
+            }
+        } finally {
+            factory.cleanup();
+        }
+        assertEquals(130, cves.size());
+        //cache every fourth CVE so that 97 CVEs, two full chunks less three, are loaded from the database
+        for (int i = 0; i < cves.size(); i += 4) {
+            assertNotNull(instance.getVulnerability(cves.get(i)));
+        }
+        final List<String> requested = new ArrayList<>(cves);
+        requested.add("CVE-0000-0000");
+
+        final Map<String, Vulnerability> results;
+        final ReadConnectionPool pool = instance.getReadPool();
+        final ReadConnectionPool.PooledConnection conn = pool.borrow();
+        try {
+            results = instance.getVulnerabilities(conn, requested);
+        } finally {
+            pool.release(conn);
+        }
+
+        assertEquals(cves.size(), results.size());
+        assertFalse(results.containsKey("CVE-0000-0000"));
+        try (CveDB uncached = new CveDB(getSettings())) {
+            for (String cve : cves) {
+                final Vulnerability expected = uncached.getVulnerability(cve);
+                final Vulnerability actual = results.get(cve);
+                assertNotNull(cve, actual);
+                assertEquals(cve, expected.getName(), actual.getName());
+                assertEquals(cve, expected.getDescription(), actual.getDescription());
+                assertEquals(cve, expected.getCwes().getEntries(), actual.getCwes().getEntries());
+                assertEquals(cve, expected.getReferences(), actual.getReferences());
+                assertEquals(cve, expected.getVulnerableSoftware(), actual.getVulnerableSoftware());
+                assertEquals(cve, expected.getCvssV2() == null, actual.getCvssV2() == null);
+                if (expected.getCvssV2() != null) {
+                    assertEquals(cve, expected.getCvssV2().getScore(), actual.getCvssV2().getScore(), 0);
+                }
+                assertEquals(cve, expected.getCvssV3() == null, actual.getCvssV3() == null);
+                if (expected.getCvssV3() != null) {
+                    assertEquals(cve, expected.getCvssV3().getBaseScore(), actual.getCvssV3().getBaseScore(), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the results of getVulnerabilities can be modified without
+     * altering the cached results, of class CveDB.
+     */
+    @Test
+    public void testGetVulnerabilitiesReturnsCopies() throws Exception {
+        final Cpe cpe = new CpeBuilder().part(Part.APPLICATION).vendor("apache").product("tomcat").version("6.0.1").build();
+        assertResultsAreCopies(instance, cpe);
+
+        final File file = new File(getSettings().getTempDirectory(), "odc-copies.snapshot");
+        instance.exportSnapshot(file);
+        try (CveDB snapshot = CveDB.openSnapshot(getSettings(), file)) {
+            assertResultsAreCopies(snapshot, cpe);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Modifies the vulnerabilities returned for the CPE and asserts that
+     * querying again returns the original values.
+     *
+     * @param db the database to query
+     * @param cpe the CPE to query
+     * @throws Exception thrown if the query fails
+     */
+    private void assertResultsAreCopies(CveDB db, Cpe cpe) throws Exception {
+        final List<Vulnerability> first = db.getVulnerabilities(cpe);
+        assertTrue(first.size() > 1);
+        final Vulnerability original = first.get(0);
+        final String name = original.getName();
+        final String description = original.getDescription();
+        final int references = original.getReferences().size();
+        final int size = first.size();
+
+        original.setDescription("modified");
+        original.setNotes("suppressed");
+        original.addReference("test", "test", "http://localhost/test");
+        first.clear();
+
+        final List<Vulnerability> second = db.getVulnerabilities(cpe);
+        assertEquals(size, second.size());
+        assertEquals(name, second.get(0).getName());
+        assertEquals(description, second.get(0).getDescription());
+        assertNull(second.get(0).getNotes());
+        assertEquals(references, second.get(0).getReferences().size());
+    }
+
+    /**
+     * Test of exportSnapshot and openSnapshot methods, of class CveDB.
+     */
+    @Test
+    public void testSnapshot() throws Exception {
+        final File file = new File(getSettings().getTempDirectory(), "odc-test.snapshot");
+        instance.exportSnapshot(file);
+        try (CveDB snapshot = CveDB.openSnapshot(getSettings(), file)) {
+            assertTrue(snapshot.dataExists());
+            assertEquals(instance.getCPEs("apache", "struts").size(), snapshot.getCPEs("apache", "struts").size());
+            assertEquals(instance.getVulnerability("CVE-2014-0094").getDescription(),
+                    snapshot.getVulnerability("CVE-2014-0094").getDescription());
+            assertNull(snapshot.getVulnerability("CVE-0000-0000"));
+
+            final CpeBuilder builder = new CpeBuilder();
+            final Cpe cpe = builder.part(Part.APPLICATION).vendor("apache").product("tomcat").version("6.0.1").build();
+            final Set<String> expected = new HashSet<>();
+            for (Vulnerability v : instance.getVulnerabilities(cpe)) {
+                expected.add(v.getName());
+            }
+            final Set<String> actual = new HashSet<>();
+            for (Vulnerability v : snapshot.getVulnerabilities(cpe)) {
+                actual.add(v.getName());
+            }
+            assertEquals(expected, actual);
+            try {
+                snapshot.saveProperty("test", "value");
+                fail("the snapshot should be read-only");
+            } catch (DatabaseException ex) {
+                assertTrue(ex.getMessage().contains("read-only"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test of updateVulnerability method, of class CveDB; an entry with the
+     * same last modified date as the stored vulnerability is skipped.
+     */
+    @Test
+    public void testUpdateVulnerabilityUnchanged() throws Exception {
+        instance.updateVulnerability(cveItem("2099-01-01T00:00Z", "original description", "CWE-79",
+                new String[]{"ref-1", "ref-2"}, "1.0"));
+        instance.updateVulnerability(cveItem("2099-01-01T00:00Z", "changed description", "CWE-89",
+                new String[]{"ref-3"}, "2.0"));
+
+        final Vulnerability vuln = instance.getVulnerability("CVE-2099-0001");
+        assertEquals("original description", vuln.getDescription());
+        assertTrue(vuln.getCwes().getEntries().contains("CWE-79"));
+        assertEquals(2, vuln.getReferences().size());
+    }
+
+    /**
+     * Test of updateVulnerability method, of class CveDB; the child rows of a
+     * modified entry are replaced.
+     */
+    @Test
+    public void testUpdateVulnerabilityModified() throws Exception {
+        instance.updateVulnerability(cveItem("2099-01-01T00:00Z", "original description", "CWE-79",
+                new String[]{"ref-1", "ref-2"}, "1.0"));
+        instance.updateVulnerability(cveItem("2099-02-01T00:00Z", "changed description", "CWE-89",
+                new String[]{"ref-1", "ref-3"}, "2.0"));
+
+        final Vulnerability vuln = instance.getVulnerability("CVE-2099-0001");
+        assertEquals("changed description", vuln.getDescription());
+        assertEquals(1, vuln.getCwes().getEntries().size());
+        assertTrue(vuln.getCwes().getEntries().contains("CWE-89"));
+        final Set<String> references = new HashSet<>();
+        for (Reference reference : vuln.getReferences()) {
+            references.add(reference.getName());
+        }
+        assertEquals(2, references.size());
+        assertTrue(references.contains("ref-1"));
+        assertTrue(references.contains("ref-3"));
+        assertEquals(1, vuln.getVulnerableSoftware().size());
+        assertEquals("2.0", vuln.getVulnerableSoftware().iterator().next().getVersion());
+    }
+
+    /**
+     * Test of updateVulnerability method, of class CveDB; only the cache
+     * entries of the updated products are invalidated, and only once the
+     * writer transaction is committed.
+     */
+    @Test
+    public void testUpdateVulnerabilityInvalidatesCache() throws Exception {
+        final CpeBuilder builder = new CpeBuilder();
+        final Cpe tomcat = builder.part(Part.APPLICATION).vendor("apache").product("tomcat").version("6.0.1").build();
+        final Cpe updated = builder.part(Part.APPLICATION).vendor("odc").product("update_test").version("1.0").build();
+        instance.updateVulnerability(cveItem("2099-01-01T00:00Z", "original description", "CWE-79",
+                new String[]{"ref-1"}, "1.0"));
+        assertEquals("original description", instance.getVulnerabilities(updated).get(0).getDescription());
+        instance.getVulnerabilities(tomcat);
+
+        instance.setAutoCommit(false);
+        try {
+            instance.updateVulnerability(cveItem("2099-02-01T00:00Z", "changed description", "CWE-79",
+                    new String[]{"ref-1"}, "1.0"));
+            assertEquals("original description", instance.getVulnerabilities(updated).get(0).getDescription());
+            instance.commit();
+            assertEquals("changed description", instance.getVulnerabilities(updated).get(0).getDescription());
+        } finally {
+            instance.setAutoCommit(true);
+        }
+
+        final long hits = instance.getCacheMetrics().get(0).getHits();
+        instance.getVulnerabilities(tomcat);
+        assertEquals(hits + 1, instance.getCacheMetrics().get(0).getHits());
+    }
+
+    /**
+     * Creates a CVE entry as parsed from the NVD JSON data feed.
+     *
+     * @param lastModified the last modified date
+     * @param description the description
+     * @param cwe the CWE
+     * @param references the names of the references
+     * @param version the version of the vulnerable software
+     * @return the CVE entry
+     */
+    private DefCveItem cveItem(String lastModified, String description, String cwe, String[] references, String version) {
+        final StringBuilder refs = new StringBuilder();
+        for (String name : references) {
+            if (refs.length() > 0) {
+                refs.append(',');
+            }
+            refs.append("{\"url\":\"https://example.com/").append(name).append("\",\"name\":\"").append(name)
+                    .append("\",\"refsource\":\"MISC\",\"tags\":[]}");
+        }
+        final String json = "{\"cve\":{\"data_type\":\"CVE\",\"data_format\":\"MITRE\",\"data_version\":\"4.0\","
+                + "\"CVE_data_meta\":{\"ID\":\"CVE-2099-0001\",\"ASSIGNER\":\"cve@mitre.org\"},"
+                + "\"problemtype\":{\"problemtype_data\":[{\"description\":[{\"lang\":\"en\",\"value\":\"" + cwe + "\"}]}]},"
+                + "\"references\":{\"reference_data\":[" + refs + "]},"
+                + "\"description\":{\"description_data\":[{\"lang\":\"en\",\"value\":\"" + description + "\"}]}},"
+                + "\"configurations\":{\"CVE_data_version\":\"4.0\",\"nodes\":[{\"operator\":\"OR\",\"cpe_match\":["
+                + "{\"vulnerable\":true,\"cpe23Uri\":\"cpe:2.3:a:odc:update_test:" + version + ":*:*:*:*:*:*:*\"}]}]},"
+                + "\"impact\":{},\"publishedDate\":\"2099-01-01T00:00Z\",\"lastModifiedDate\":\"" + lastModified + "\"}";
+        return new Gson().fromJson(json, DefCveItem.class);
+    }
+
+    /**
+     * Test of restoreIndexes method, of class CveDB; the indexes dropped by an
+     * interrupted bulk import are re-created.
+     */
+    @Test
+    public void testRestoreIndexes() throws Exception {
+        assertFalse(instance.beginBulkImport());
+        final ConnectionFactory factory = new ConnectionFactory(getSettings());
+        try (Connection conn = factory.getConnection();
+                Statement statement = conn.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS idxCpe");
+            assertFalse(indexExists(statement, "IDXCPE"));
+
+            instance.restoreIndexes();
+
+            assertTrue(indexExists(statement, "IDXCPE"));
+        } finally {
+            factory.cleanup();
+        }
+    }
+
+    /**
+     * Test of beginBulkImport and endBulkImport methods, of class CveDB; a
+     * data feed loaded into an empty database with the bulk import produces
+     * the same rows and query results as the feed loaded without it.
+     */
+    @Test
+    public void testBulkImport() throws Exception {
+        final File feed = BaseTest.getResourceAsFile(this, "nvdcve-1.0-2012.json.gz");
+        final ImportedFeed normal = importFeed(feed, new File(getSettings().getTempDirectory(), "normal"), false);
+        final ImportedFeed bulk = importFeed(feed, new File(getSettings().getTempDirectory(), "bulk"), true);
+
+        assertFalse(normal.rows.get(0).isEmpty());
+        assertEquals(normal.rows, bulk.rows);
+        assertFalse(normal.vulnerabilities.isEmpty());
+        assertEquals(normal.vulnerabilities, bulk.vulnerabilities);
+    }
+
+    /**
+     * Loads the data feed into an empty database and reads back the stored
+     * rows and the vulnerabilities matched by each stored CPE.
+     *
+     * @param feed the data feed
+     * @param directory the directory of the empty database
+     * @param bulkImport whether or not the bulk import is used
+     * @return the stored rows and matched vulnerabilities
+     * @throws Exception thrown if the feed cannot be imported
+     */
+    private ImportedFeed importFeed(File feed, File directory, boolean bulkImport) throws Exception {
+        final Settings settings = new Settings();
+        settings.setString(Settings.KEYS.H2_DATA_DIRECTORY, directory.getAbsolutePath());
+        final ImportedFeed imported = new ImportedFeed();
+        try (CveDB db = new CveDB(settings)) {
+            assertFalse(db.dataExists());
+            if (bulkImport) {
+                assertTrue(db.beginBulkImport());
+            }
+            try (NvdCveWriter writer = new NvdCveWriter(db)) {
+                new NvdCveParser(settings, db).parse(feed, writer);
+            }
+            db.endBulkImport();
+
+            final ConnectionFactory factory = new ConnectionFactory(settings);
+            try (Connection conn = factory.getConnection();
+                    Statement statement = conn.createStatement()) {
+                imported.rows.add(queryRows(statement, "SELECT cve, description, cvssV2Score, cvssV2AccessVector, "
+                        + "cvssV2AccessComplexity, cvssV2Authentication, cvssV2ConfidentialityImpact, cvssV2IntegrityImpact, "
+                        + "cvssV2AvailabilityImpact, cvssV2Severity, cvssV3AttackVector, cvssV3AttackComplexity, "
+                        + "cvssV3PrivilegesRequired, cvssV3UserInteraction, cvssV3Scope, cvssV3ConfidentialityImpact, "
+                        + "cvssV3IntegrityImpact, cvssV3AvailabilityImpact, cvssV3BaseScore, cvssV3BaseSeverity, "
+                        + "lastModifiedDate FROM vulnerability"));
+                imported.rows.add(queryRows(statement, "SELECT v.cve, c.cwe FROM cweEntry c "
+                        + "JOIN vulnerability v ON c.cveid = v.id"));
+                imported.rows.add(queryRows(statement, "SELECT v.cve, r.name, r.url, r.source FROM reference r "
+                        + "JOIN vulnerability v ON r.cveid = v.id"));
+                imported.rows.add(queryRows(statement, "SELECT v.cve, p.part, p.vendor, p.product, p.version, "
+                        + "p.update_version, p.edition, p.lang, p.sw_edition, p.target_sw, p.target_hw, p.other, p.ecosystem, "
+                        + "s.versionEndExcluding, s.versionEndIncluding, s.versionStartExcluding, s.versionStartIncluding, "
+                        + "s.vulnerable FROM software s JOIN vulnerability v ON s.cveid = v.id "
+                        + "JOIN cpeEntry p ON s.cpeEntryId = p.id"));
+                imported.rows.add(queryRows(statement, "SELECT part, vendor, product, version, update_version, edition, "
+                        + "lang, sw_edition, target_sw, target_hw, other, ecosystem FROM cpeEntry"));
+                try (ResultSet rs = statement.executeQuery("SELECT DISTINCT vendor, product, version FROM cpeEntry")) {
+                    while (rs.next()) {
+                        final CpeBuilder builder = new CpeBuilder().part(Part.APPLICATION)
+                                .vendor(rs.getString(1)).product(rs.getString(2));
+                        if (!"*".equals(rs.getString(3)) && !"-".equals(rs.getString(3))) {
+                            builder.version(rs.getString(3));
+                        }
+                        final Cpe cpe = builder.build();
+                        final List<String> matched = new ArrayList<>();
+                        for (Vulnerability v : db.getVulnerabilities(cpe)) {
+                            matched.add(v.getName() + ' ' + v.getDescription() + ' ' + v.getCwes().getEntries()
+                                    + ' ' + v.getReferences().size() + ' ' + v.getVulnerableSoftware().size()
+                                    + ' ' + v.getMatchedVulnerableSoftware());
+                        }
+                        Collections.sort(matched);
+                        imported.vulnerabilities.put(cpe.toCpe23FS(), matched);
+                    }
+                }
+            } finally {
+                factory.cleanup();
+            }
+        } finally {
+            settings.cleanup(true);
+        }
+        return imported;
+    }
+
+    /**
+     * Executes the query and returns the rows, sorted, as strings.
+     *
+     * @param statement the statement used to execute the query
+     * @param sql the query
+     * @return the sorted rows
+     * @throws SQLException thrown if the query fails
+     */
+    private List<String> queryRows(Statement statement, String sql) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            final int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(rs.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /**
+     * The rows stored, and the vulnerabilities matched by each stored CPE,
+     * after a data feed was imported.
+     */
+    private static class ImportedFeed {
+
+        /**
+         * The sorted rows of the vulnerability, CWE, reference, software, and
+         * CPE queries.
+         */
+        private final List<List<String>> rows = new ArrayList<>();
+        /**
+         * The descriptions of the vulnerabilities matched, keyed by the CPE.
+         */
+        private final Map<String, List<String>> vulnerabilities = new TreeMap<>();
+    }
+
+    private boolean indexExists(Statement statement, String name) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = '" + name + "'")) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
     /**
      * Test of getMatchingSoftware method, of class CveDB.
      */
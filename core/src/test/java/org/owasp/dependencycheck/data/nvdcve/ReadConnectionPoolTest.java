@@ -0,0 +1,66 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.sql.Connection;
+import java.util.ResourceBundle;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.data.nvdcve.ReadConnectionPool.PooledConnection;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class ReadConnectionPoolTest extends BaseTest {
+
+    @Mocked
+    private ConnectionFactory connectionFactory;
+
+    @Mocked
+    private Connection connection;
+
+    /**
+     * Test of borrow method, of class ReadConnectionPool; a connection that
+     * could not be opened must not permanently consume a slot in the pool.
+     */
+    @Test(timeout = 10000)
+    public void testBorrowWithFailingFactory() throws Exception {
+        new Expectations() {{
+            connectionFactory.getConnection();
+            result = new DatabaseException("unable to connect");
+            result = connection;
+        }};
+        final ResourceBundle bundle = ResourceBundle.getBundle("data/dbStatements");
+        try (ReadConnectionPool instance = new ReadConnectionPool(connectionFactory, bundle, 1)) {
+            try {
+                instance.borrow();
+                fail("Expected the borrow to fail");
+            } catch (DatabaseException ex) {
+                //expected
+            }
+            final PooledConnection pooled = instance.borrow();
+            assertNotNull(pooled);
+            instance.release(pooled);
+        }
+    }
+}
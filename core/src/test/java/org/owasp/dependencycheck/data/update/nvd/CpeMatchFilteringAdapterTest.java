@@ -0,0 +1,86 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.data.nvd.json.CpeMatchStreamCollector;
+import org.owasp.dependencycheck.data.nvd.json.DefConfigurations;
+import org.owasp.dependencycheck.data.nvd.json.DefCpeMatch;
+import org.owasp.dependencycheck.data.nvd.json.NodeFlatteningCollector;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class CpeMatchFilteringAdapterTest extends BaseTest {
+
+    /**
+     * Test of read method, of class CpeMatchFilteringAdapter.
+     *
+     * @throws IOException thrown if the JSON could not be read
+     */
+    @Test
+    public void testRead() throws IOException {
+        final String json = "{\"CVE_data_version\":\"4.0\",\"nodes\":[{\"operator\":\"AND\",\"children\":["
+                + "{\"operator\":\"OR\",\"cpe_match\":[{\"vulnerable\":true,\"cpe23Uri\":\"cpe:2.3:a:apache:struts:*:*:*:*:*:*:*:*\","
+                + "\"versionEndExcluding\":\"2.5.13\",\"cpe_name\":[]}]},"
+                + "{\"operator\":\"OR\",\"cpe_match\":[{\"vulnerable\":false,\"cpe23Uri\":\"cpe:2.3:o:linux:linux_kernel:-:*:*:*:*:*:*:*\"}]}"
+                + "]}]}";
+        final CpeMatchFilteringAdapter instance = new CpeMatchFilteringAdapter("cpe:2.3:a:");
+        final DefConfigurations result = instance.fromJson(json);
+        final List<DefCpeMatch> matches = result.getNodes().stream()
+                .collect(new NodeFlatteningCollector())
+                .collect(new CpeMatchStreamCollector())
+                .collect(Collectors.toList());
+        assertEquals(1, matches.size());
+        assertEquals("cpe:2.3:a:apache:struts:*:*:*:*:*:*:*:*", matches.get(0).getCpe23Uri());
+        assertEquals("2.5.13", matches.get(0).getVersionEndExcluding());
+        assertTrue(matches.get(0).getVulnerable());
+
+        final String os = "{\"CVE_data_version\":\"4.0\",\"nodes\":[{\"operator\":\"OR\",\"cpe_match\":["
+                + "{\"vulnerable\":true,\"cpe23Uri\":\"cpe:2.3:o:linux:linux_kernel:-:*:*:*:*:*:*:*\"}]}]}";
+        assertTrue(instance.fromJson(os).getNodes().isEmpty());
+    }
+
+    /**
+     * Test of write method, of class CpeMatchFilteringAdapter; the
+     * configurations written can be read again.
+     *
+     * @throws IOException thrown if the JSON could not be written or read
+     */
+    @Test
+    public void testWrite() throws IOException {
+        final String json = "{\"CVE_data_version\":\"4.0\",\"nodes\":[{\"operator\":\"OR\",\"cpe_match\":["
+                + "{\"vulnerable\":true,\"cpe23Uri\":\"cpe:2.3:a:apache:struts:*:*:*:*:*:*:*:*\",\"versionEndExcluding\":\"2.5.13\"}]}]}";
+        final CpeMatchFilteringAdapter instance = new CpeMatchFilteringAdapter("cpe:2.3:a:");
+        final DefConfigurations result = instance.fromJson(instance.toJson(instance.fromJson(json)));
+        final List<DefCpeMatch> matches = result.getNodes().stream()
+                .collect(new NodeFlatteningCollector())
+                .collect(new CpeMatchStreamCollector())
+                .collect(Collectors.toList());
+        assertEquals(1, matches.size());
+        assertEquals("cpe:2.3:a:apache:struts:*:*:*:*:*:*:*:*", matches.get(0).getCpe23Uri());
+        assertEquals("2.5.13", matches.get(0).getVersionEndExcluding());
+    }
+}
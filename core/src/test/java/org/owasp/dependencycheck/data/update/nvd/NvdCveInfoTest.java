@@ -18,6 +18,7 @@
 package org.owasp.dependencycheck.data.update.nvd;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import org.junit.Test;
 import org.owasp.dependencycheck.BaseTest;
 
@@ -60,4 +61,15 @@ public class NvdCveInfoTest extends BaseTest {
         long result = instance.getTimestamp();
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of getSha256 method, of class NvdCveInfo.
+     */
+    @Test
+    public void testGetSha256() {
+        NvdCveInfo instance = new NvdCveInfo("id","http://www.someurl.com/something", 1337L, "ABC123");
+        assertEquals("ABC123", instance.getSha256());
+        instance = new NvdCveInfo("id","http://www.someurl.com/something", 1337L);
+        assertNull(instance.getSha256());
+    }
 }
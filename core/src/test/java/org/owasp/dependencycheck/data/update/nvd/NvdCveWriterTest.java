@@ -0,0 +1,153 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import mockit.VerificationsInOrder;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.data.nvd.json.DefCveItem;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class NvdCveWriterTest extends BaseTest {
+
+    @Mocked
+    private CveDB cveDB;
+
+    @Mocked
+    private DatabaseProperties properties;
+
+    /**
+     * Test of write method, of class NvdCveWriter; the entries are committed
+     * in batches and the remainder is committed when the writer is closed.
+     */
+    @Test
+    public void testWriteBatches() throws Exception {
+        final DefCveItem cve = new DefCveItem();
+        try (NvdCveWriter instance = new NvdCveWriter(cveDB)) {
+            for (int i = 0; i < 5001; i++) {
+                instance.write(cve);
+            }
+        }
+        new VerificationsInOrder() {{
+            cveDB.setAutoCommit(false);
+            cveDB.updateVulnerability(cve);
+            times = 5000;
+            cveDB.commit();
+            cveDB.updateVulnerability(cve);
+            cveDB.commit();
+            cveDB.setAutoCommit(true);
+        }};
+        new Verifications() {{
+            cveDB.rollback();
+            times = 0;
+        }};
+    }
+
+    /**
+     * Test of complete method, of class NvdCveWriter; the data feed is
+     * committed before its timestamp is saved.
+     */
+    @Test
+    public void testComplete() throws Exception {
+        final DefCveItem cve = new DefCveItem();
+        final NvdCveInfo info = new NvdCveInfo("2012", "https://localhost/nvdcve-1.0-2012.json.gz", 1337L, null);
+        try (NvdCveWriter instance = new NvdCveWriter(cveDB)) {
+            instance.write(cve);
+            instance.complete(info, properties);
+            new VerificationsInOrder() {{
+                cveDB.updateVulnerability(cve);
+                cveDB.commit();
+                properties.save(info);
+                cveDB.commit();
+            }};
+        }
+    }
+
+    /**
+     * Test of rollback method, of class NvdCveWriter; the entries of a data
+     * feed begun with begin are not committed in batches and are discarded by
+     * the rollback.
+     */
+    @Test
+    public void testRollbackHeldDataFeed() throws Exception {
+        final DefCveItem cve = new DefCveItem();
+        try (NvdCveWriter instance = new NvdCveWriter(cveDB)) {
+            instance.begin();
+            try {
+                for (int i = 0; i < 5001; i++) {
+                    instance.write(cve);
+                }
+                instance.rollback();
+            } finally {
+                instance.end();
+            }
+        }
+        new VerificationsInOrder() {{
+            cveDB.setAutoCommit(false);
+            cveDB.updateVulnerability(cve);
+            times = 5001;
+            cveDB.rollback();
+            cveDB.commit();
+            cveDB.setAutoCommit(true);
+        }};
+        new Verifications() {{
+            cveDB.commit();
+            times = 1;
+        }};
+    }
+
+    /**
+     * Test of close method, of class NvdCveWriter; when a write fails the
+     * partial transaction is rolled back before auto-commit is enabled.
+     */
+    @Test
+    public void testCloseRollsBackFailedWrites() throws Exception {
+        final DefCveItem cve = new DefCveItem();
+        new Expectations() {{
+            cveDB.updateVulnerability(cve);
+            result = new DatabaseException("write failed");
+        }};
+        final NvdCveWriter instance = new NvdCveWriter(cveDB);
+        instance.write(cve);
+        try {
+            instance.close();
+            fail("Expected the failed write to be reported");
+        } catch (UpdateException ex) {
+            //expected
+        }
+        new VerificationsInOrder() {{
+            cveDB.rollback();
+            cveDB.setAutoCommit(true);
+        }};
+        new Verifications() {{
+            cveDB.commit();
+            times = 0;
+        }};
+    }
+}
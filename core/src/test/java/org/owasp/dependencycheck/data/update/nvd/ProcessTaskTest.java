@@ -0,0 +1,110 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.zip.GZIPInputStream;
+import mockit.Mocked;
+import mockit.Verifications;
+import mockit.VerificationsInOrder;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.data.nvd.json.DefCveItem;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.Settings;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class ProcessTaskTest extends BaseTest {
+
+    @Mocked
+    private CveDB cveDB;
+
+    /**
+     * Test of call method with a streamed data feed whose checksum does not
+     * match the META file, of class ProcessTask; the entries parsed while
+     * the data feed was downloaded are rolled back.
+     */
+    @Test
+    public void testCallStreamingWithInvalidChecksum() throws Exception {
+        getSettings().setBoolean(Settings.KEYS.CVE_DOWNLOAD_STREAMING, true);
+        final File feed = BaseTest.getResourceAsFile(this, "nvdcve-1.0-2012.json.gz");
+        final NvdCveInfo info = new NvdCveInfo("2012", feed.toURI().toString(), 1337L,
+                "0000000000000000000000000000000000000000000000000000000000000000");
+        final ProcessTask instance = new ProcessTask(cveDB, new DownloadTask(info, null, cveDB, getSettings()), getSettings());
+
+        instance.call();
+
+        assertNotNull(instance.getException());
+        assertTrue(instance.getException().getMessage().contains("checksum"));
+        new VerificationsInOrder() {{
+            cveDB.setAutoCommit(false);
+            cveDB.updateVulnerability((DefCveItem) any);
+            minTimes = 1;
+            cveDB.rollback();
+            cveDB.setAutoCommit(true);
+        }};
+        new Verifications() {{
+            cveDB.commit();
+            times = 0;
+        }};
+    }
+
+    /**
+     * Test of call method with a streamed data feed whose checksum matches
+     * the META file, of class ProcessTask.
+     */
+    @Test
+    public void testCallStreamingWithValidChecksum() throws Exception {
+        getSettings().setBoolean(Settings.KEYS.CVE_DOWNLOAD_STREAMING, true);
+        final File feed = BaseTest.getResourceAsFile(this, "nvdcve-1.0-2012.json.gz");
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(new GZIPInputStream(new FileInputStream(feed)), digest)) {
+            IOUtils.copy(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        final NvdCveInfo info = new NvdCveInfo("2012", feed.toURI().toString(), 1337L, Checksum.getHex(digest.digest()));
+        final ProcessTask instance = new ProcessTask(cveDB, new DownloadTask(info, null, cveDB, getSettings()), getSettings());
+
+        instance.call();
+
+        assertNull(instance.getException());
+        new VerificationsInOrder() {{
+            cveDB.setAutoCommit(false);
+            cveDB.updateVulnerability((DefCveItem) any);
+            minTimes = 1;
+            cveDB.commit();
+            cveDB.setAutoCommit(true);
+        }};
+        new Verifications() {{
+            cveDB.rollback();
+            times = 0;
+        }};
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Jeremy Long
+ */
+public class AnalysisMetricsTest {
+
+    /**
+     * Test of record method, of class AnalysisMetrics.
+     */
+    @Test
+    public void testRecord() {
+        final AnalysisMetrics instance = new AnalysisMetrics();
+        instance.record(new TaskTiming("Jar Analyzer", "a.jar", TimeUnit.MILLISECONDS.toNanos(2), 100, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Jar Analyzer", "b.jar", TimeUnit.SECONDS.toNanos(2), 200, TaskOutcome.FAILURE));
+        instance.record(new TaskTiming("Archive Analyzer", "c.war", TimeUnit.SECONDS.toNanos(400), -1, TaskOutcome.SUCCESS));
+        instance.recordElapsedTime("Jar Analyzer", TimeUnit.SECONDS.toNanos(1));
+
+        final List<AnalyzerMetrics> analyzers = instance.getAnalyzerMetrics();
+        assertEquals(2, analyzers.size());
+        assertEquals("Jar Analyzer", analyzers.get(0).getName());
+
+        final AnalyzerMetrics jar = instance.getAnalyzerMetrics("Jar Analyzer");
+        assertEquals(2, jar.getCount());
+        assertEquals(1, jar.getFailures());
+        assertEquals(300, jar.getTotalCpuTime());
+        assertEquals(TimeUnit.SECONDS.toNanos(2), jar.getMaxWallTime());
+        assertEquals(2.0, jar.getThroughput(), 0.0001);
+        final long[] buckets = jar.getBuckets();
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[7]);
+
+        final long[] archive = instance.getAnalyzerMetrics("Archive Analyzer").getBuckets();
+        assertEquals(1, archive[archive.length - 1]);
+        assertNull(instance.getAnalyzerMetrics("Nothing"));
+    }
+
+    /**
+     * Test of getSlowest method, of class AnalysisMetrics.
+     */
+    @Test
+    public void testGetSlowest() {
+        final AnalysisMetrics instance = new AnalysisMetrics();
+        instance.record(new TaskTiming("Jar Analyzer", "a.jar", 10, -1, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Jar Analyzer", "b.jar", 30, -1, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Archive Analyzer", "c.war", 20, -1, TaskOutcome.SUCCESS));
+
+        final List<TaskTiming> slowest = instance.getSlowest(2);
+        assertEquals(2, slowest.size());
+        assertEquals("b.jar", slowest.get(0).getDependency());
+        assertEquals("c.war", slowest.get(1).getDependency());
+
+        final List<TaskTiming> jar = instance.getSlowest("Jar Analyzer", 5);
+        assertEquals(2, jar.size());
+        assertEquals("a.jar", jar.get(1).getDependency());
+    }
+
+    /**
+     * Test of getSlowest method, of class AnalysisMetrics; only the slowest
+     * timings are retained.
+     */
+    @Test
+    public void testGetSlowestIsBounded() {
+        final AnalysisMetrics instance = new AnalysisMetrics(2);
+        instance.record(new TaskTiming("Jar Analyzer", "a.jar", 10, -1, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Jar Analyzer", "b.jar", 40, -1, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Jar Analyzer", "c.jar", 20, -1, TaskOutcome.SUCCESS));
+        instance.record(new TaskTiming("Jar Analyzer", "d.jar", 30, -1, TaskOutcome.SUCCESS));
+
+        final List<TaskTiming> slowest = instance.getSlowest(5);
+        assertEquals(2, slowest.size());
+        assertEquals("b.jar", slowest.get(0).getDependency());
+        assertEquals("d.jar", slowest.get(1).getDependency());
+        assertEquals(slowest, instance.getSlowest("Jar Analyzer", 5));
+        assertEquals(4, instance.getAnalyzerMetrics("Jar Analyzer").getCount());
+    }
+}
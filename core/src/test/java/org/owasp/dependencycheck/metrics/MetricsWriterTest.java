@@ -0,0 +1,58 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jeremy Long
+ */
+public class MetricsWriterTest {
+
+    /**
+     * Test of writeJson and writePrometheus methods, of class MetricsWriter.
+     *
+     * @throws IOException thrown if the metrics could not be written
+     */
+    @Test
+    public void testWrite() throws IOException {
+        final AnalysisMetrics metrics = new AnalysisMetrics();
+        metrics.record(new TaskTiming("Jar \"Analyzer\"", "a.jar", TimeUnit.MILLISECONDS.toNanos(20), -1, TaskOutcome.SUCCESS));
+        metrics.recordCache(new CacheMetrics("vulnerabilitiesForCpe", 3, 1, 0, 1));
+
+        final StringWriter json = new StringWriter();
+        MetricsWriter.writeJson(metrics, json);
+        assertTrue(json.toString().contains("\"dependency\": \"a.jar\""));
+        assertTrue(json.toString().contains("\"name\": \"vulnerabilitiesForCpe\""));
+
+        final StringWriter prometheus = new StringWriter();
+        MetricsWriter.writePrometheus(metrics, prometheus);
+        final String text = prometheus.toString();
+        assertTrue(text.contains("# TYPE dependency_check_analysis_seconds histogram"));
+        assertTrue(text.contains("dependency_check_analysis_seconds_bucket{analyzer=\"Jar \\\"Analyzer\\\"\",le=\"0.01\"} 0\n"));
+        assertTrue(text.contains("dependency_check_analysis_seconds_bucket{analyzer=\"Jar \\\"Analyzer\\\"\",le=\"0.05\"} 1\n"));
+        assertTrue(text.contains("dependency_check_analysis_seconds_count{analyzer=\"Jar \\\"Analyzer\\\"\"} 1\n"));
+        assertTrue(text.contains("dependency_check_cache_hits_total{cache=\"vulnerabilitiesForCpe\"} 3\n"));
+        assertTrue(text.contains("dependency_check_cache_size{cache=\"vulnerabilitiesForCpe\"} 1\n"));
+    }
+}
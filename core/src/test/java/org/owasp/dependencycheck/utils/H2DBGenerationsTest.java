@@ -0,0 +1,107 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class H2DBGenerationsTest extends BaseTest {
+
+    /**
+     * Test of createStaging, publish, getCurrent, and collectGarbage methods,
+     * of class H2DBGenerations.
+     *
+     * @throws Exception thrown if there is an unexpected error
+     */
+    @Test
+    public void testPublish() throws Exception {
+        final Settings settings = getSettings();
+        final File dataDir = new File(settings.getTempDirectory(), "generations-test");
+        settings.setString(Settings.KEYS.DATA_DIRECTORY, dataDir.getPath());
+        settings.setString(Settings.KEYS.DB_FILE_NAME, "odc.mv.db");
+        final byte[] data = "odc".getBytes(StandardCharsets.UTF_8);
+        Files.createDirectories(dataDir.toPath());
+        Files.write(new File(dataDir, "odc.mv.db").toPath(), data);
+
+        final H2DBGenerations instance = new H2DBGenerations(settings);
+        assertNull(instance.getCurrent());
+
+        final File first = instance.createStaging();
+        assertArrayEquals(data, Files.readAllBytes(new File(first, "odc.mv.db").toPath()));
+        assertNull(instance.getCurrent());
+        instance.publish(first);
+        assertEquals(first, instance.getCurrent());
+
+        final File second = instance.createStaging();
+        instance.publish(second);
+        final File third = instance.createStaging();
+        instance.publish(third);
+        final File abandoned = instance.createStaging();
+        assertEquals(third, instance.getCurrent());
+
+        instance.collectGarbage();
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+        assertTrue(third.exists());
+        assertFalse(abandoned.exists());
+    }
+
+    /**
+     * Test of collectGarbage method, of class H2DBGenerations; a generation
+     * that is locked by a scan is not deleted.
+     *
+     * @throws Exception thrown if there is an unexpected error
+     */
+    @Test
+    public void testCollectGarbageSkipsLockedGeneration() throws Exception {
+        final Settings settings = getSettings();
+        final File dataDir = new File(settings.getTempDirectory(), "generations-lock-test");
+        settings.setString(Settings.KEYS.DATA_DIRECTORY, dataDir.getPath());
+        settings.setString(Settings.KEYS.DB_FILE_NAME, "odc.mv.db");
+        Files.createDirectories(dataDir.toPath());
+        Files.write(new File(dataDir, "odc.mv.db").toPath(), "odc".getBytes(StandardCharsets.UTF_8));
+
+        final H2DBGenerations instance = new H2DBGenerations(settings);
+        final File first = instance.createStaging();
+        instance.publish(first);
+        final H2DBLock lock = instance.lock(first);
+        try {
+            instance.publish(instance.createStaging());
+            instance.publish(instance.createStaging());
+
+            instance.collectGarbage();
+            assertTrue(instance.getDataFile(first).isFile());
+        } finally {
+            lock.release();
+        }
+        instance.collectGarbage();
+        assertFalse(first.exists());
+    }
+}
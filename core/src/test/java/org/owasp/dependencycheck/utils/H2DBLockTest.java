@@ -0,0 +1,73 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class H2DBLockTest extends BaseTest {
+
+    /**
+     * Test that shared locks are held concurrently and that the exclusive lock
+     * waits for them to be released.
+     *
+     * @throws Exception thrown if there is an unexpected error
+     */
+    @Test
+    public void testSharedAndExclusiveLock() throws Exception {
+        final H2DBLock first = new H2DBLock(getSettings(), true);
+        final H2DBLock second = new H2DBLock(getSettings(), true);
+        final H2DBLock exclusive = new H2DBLock(getSettings());
+        assertTrue(first.isShared());
+        assertFalse(exclusive.isShared());
+
+        first.lock();
+        second.lock();
+        assertTrue(first.isLocked());
+        assertTrue(second.isLocked());
+
+        final CountDownLatch obtained = new CountDownLatch(1);
+        final Thread updater = new Thread(() -> {
+            try {
+                exclusive.lock();
+                obtained.countDown();
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        updater.start();
+        assertFalse(obtained.await(500, TimeUnit.MILLISECONDS));
+
+        first.release();
+        assertFalse(obtained.await(200, TimeUnit.MILLISECONDS));
+        second.release();
+        assertTrue(obtained.await(5, TimeUnit.SECONDS));
+        updater.join();
+        assertTrue(exclusive.isLocked());
+        exclusive.release();
+        assertFalse(exclusive.isLocked());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2019 Jeremy Long. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+/**
+ *
+ * @author Jeremy Long
+ */
+public class VersionKeyTest extends BaseTest {
+
+    /**
+     * Test of compareTo method, of class VersionKey; the ordering must be
+     * identical to DependencyVersion.
+     */
+    @Test
+    public void testCompareTo() {
+        final String[] versions = {"1.2.3", "1.1", "1.2", "1.3", "1.2.3.1", "1.0.1n", "1.0.1m", "1.0.1o",
+            "2.1.3.r2", "2.1.3.r1", "2", "-", "01.2", "2.0-beta1", "2.0-alpha", "2.0.release",
+            "4294967296.1", "4294967297.1", "x6.0", ""};
+        for (String left : versions) {
+            for (String right : versions) {
+                final int expected = new DependencyVersion(left).compareTo(new DependencyVersion(right));
+                assertEquals(left + " compared to " + right, expected,
+                        VersionKey.parse(left).compareTo(VersionKey.parse(right)));
+            }
+        }
+    }
+
+    /**
+     * Test of isEmpty method, of class VersionKey.
+     */
+    @Test
+    public void testIsEmpty() {
+        assertTrue(VersionKey.parse(null).isEmpty());
+        assertFalse(VersionKey.parse("-").isEmpty());
+        assertEquals("1.2.3", VersionKey.parse("1.2.3").toString());
+    }
+}
@@ -186,6 +186,19 @@ public final class Settings {
          * the URLs for all of the files that make up the NVD CVE listing.
          */
         public static final String CVE_START_YEAR = "cve.startyear";
+        /**
+         * The properties key to determine if the NVD CVE data feeds are
+         * decompressed and verified against the checksum in the META file
+         * while they are downloaded; the verified copy is then parsed.
+         */
+        public static final String CVE_DOWNLOAD_STREAMING = "cve.download.streaming";
+        /**
+         * The properties key to determine if the NVD CVE data feeds that are
+         * streamed are also kept in a local cache; a cached data feed is used
+         * instead of downloading it again while its checksum matches the META
+         * file.
+         */
+        public static final String CVE_DOWNLOAD_CACHE = "cve.download.cache";
         /**
          * The properties key that indicates how often the CPE data needs to be
          * updated.
@@ -195,6 +208,13 @@ public final class Settings {
          * The properties key for the URL to retrieve the CPE.
          */
         public static final String CPE_URL = "cpe.url";
+        /**
+         * Whether or not the CPE index is persisted in the data directory and
+         * reused until the vulnerability data changes; defaults to
+         * <code>false</code>, which rebuilds the index in the temp directory
+         * on each run.
+         */
+        public static final String CPE_INDEX_PERSISTED = "cpe.index.persisted";
         /**
          * Whether or not if using basic auth with a proxy the system setting
          * 'jdk.http.auth.tunneling.disabledSchemes' should be set to an empty
@@ -238,6 +258,44 @@ public final class Settings {
          * The properties key for the analysis timeout.
          */
         public static final String ANALYSIS_TIMEOUT = "odc.analysis.timeout";
+        /**
+         * The properties key for the maximum number of seconds a single
+         * analyzer may spend on a single dependency; zero or less disables the
+         * per-task timeout.
+         */
+        public static final String ANALYSIS_TASK_TIMEOUT = "odc.analysis.task.timeout";
+        /**
+         * The properties key for whether dependencies are pipelined through
+         * the analysis phases individually rather than waiting at the end of
+         * every analyzer for all dependencies to complete.
+         */
+        public static final String ANALYSIS_PIPELINED = "odc.analysis.pipelined";
+        /**
+         * The properties key for the number of threads used to execute CPU
+         * bound analyzers.
+         */
+        public static final String ANALYSIS_CPU_THREADS = "odc.analysis.threads.cpu";
+        /**
+         * The properties key for the number of threads used to execute I/O
+         * bound analyzers.
+         */
+        public static final String ANALYSIS_IO_THREADS = "odc.analysis.threads.io";
+        /**
+         * The properties key for whether directories are walked and the files
+         * discovered are hashed using multiple threads.
+         */
+        public static final String SCAN_PARALLEL_DISCOVERY = "odc.scan.parallel";
+        /**
+         * The properties key for whether the evidence and identifiers of
+         * unchanged files are re-used from the previous scan so that only the
+         * vulnerability analysis is re-run.
+         */
+        public static final String ANALYSIS_INCREMENTAL = "odc.analysis.incremental";
+        /**
+         * The properties key for whether the analysis timings are collected;
+         * see {@link #METRICS} to also write them next to the reports.
+         */
+        public static final String ANALYSIS_METRICS = "odc.analysis.metrics";
         /**
          * The key for the suppression file.
          */
@@ -574,6 +632,39 @@ public final class Settings {
          * Size of database batch inserts.
          */
         public static final String MAX_BATCH_SIZE = "database.batchinsert.maxsize";
+        /**
+         * The maximum number of database connections used in parallel by the
+         * read-only vulnerability and CPE queries.
+         */
+        public static final String DB_READ_POOL_SIZE = "database.read.poolsize";
+        /**
+         * The maximum number of vulnerabilities held by the cache of the
+         * vulnerabilities matched by a CPE.
+         */
+        public static final String DB_CACHE_CPE_SIZE = "database.cache.cpe.size";
+        /**
+         * The maximum number of vulnerabilities held by the cache of the
+         * vulnerabilities keyed by CVE.
+         */
+        public static final String DB_CACHE_CVE_SIZE = "database.cache.cve.size";
+        /**
+         * The path to the vulnerability snapshot; when set the snapshot is
+         * exported after the database is updated and read-only scans use the
+         * snapshot rather than the database.
+         */
+        public static final String DB_SNAPSHOT_FILE = "database.snapshot.file";
+        /**
+         * Whether or not an empty database is loaded using the bulk import;
+         * defaults to <code>true</code>.
+         */
+        public static final String DB_BULK_IMPORT_ENABLED = "database.bulkimport.enabled";
+        /**
+         * Whether or not updates of the H2 database are built into a new copy
+         * of the database that replaces the current copy once the update
+         * completes; read-only scans do not wait for updates. Defaults to
+         * <code>false</code>.
+         */
+        public static final String DB_GENERATIONS_ENABLED = "database.generations.enabled";
         /**
          * The key that specifies the class name of the H2 database shutdown
          * hook.
@@ -606,6 +697,12 @@ public final class Settings {
          * will be pretty printed.
          */
         public static final String PRETTY_PRINT = "odc.reports.pretty.print";
+        /**
+         * The properties key setting whether or not the analysis timings are
+         * written, as JSON and in the Prometheus text format, next to the
+         * reports.
+         */
+        public static final String METRICS = "odc.reports.metrics";
         /**
          * The properties key setting which other keys should be considered
          * sensitive and subsequently masked when logged.